@@ -2,6 +2,8 @@
 // Purpose: Enforce field integrity for an in-memory appointment record.
 // Operating principle: fail fast at the boundary so invalid data does not propagate.
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Date;
 
 public final class Appointment {
@@ -10,20 +12,41 @@ public final class Appointment {
     private static final int APPOINTMENT_ID_MAX_LENGTH = 10;
     private static final int DESCRIPTION_MAX_LENGTH = 50;
 
+    // Default source of "now" for the not-in-the-past rule.
+    private static final Clock SYSTEM_CLOCK = Clock.systemUTC();
+
     // Immutable after construction; used as the service lookup key.
     private final String appointmentId;
 
     // Immutable after construction for this milestone (add and delete only).
-    private final Date appointmentDate;
+    // The instant is held as epoch millis, so no Date is retained or shared.
+    private final long appointmentEpochMillis;
     private final String description;
 
+    // Optional; zero means a point-in-time appointment that occupies no interval.
+    private final Duration duration;
+
     public Appointment(String appointmentId, Date appointmentDate, String description) {
-        validateString(appointmentId, "appointmentId", APPOINTMENT_ID_MAX_LENGTH);
-        validateDate(appointmentDate);
-        validateString(description, "description", DESCRIPTION_MAX_LENGTH);
+        this(appointmentId, appointmentDate, Duration.ZERO, description);
+    }
+
+    // The id is checked before the date is read, so errors are reported in field order.
+    public Appointment(String appointmentId, Date appointmentDate, Duration duration, String description) {
+        this(requireId(appointmentId), epochMillisOf(appointmentDate), duration, description, SYSTEM_CLOCK);
+    }
+
+    // Allocation-free form for bulk construction. The clock is read once per record;
+    // pass a fixed clock to evaluate a whole batch against one "now".
+    public Appointment(String appointmentId, long appointmentEpochMillis, Duration duration,
+                       String description, Clock clock) {
+        requireId(appointmentId);
+        validateDate(appointmentEpochMillis, clock);
+        Validation.requireDuration(duration, "duration");
+        Validation.requireText(description, "description", DESCRIPTION_MAX_LENGTH);
 
         this.appointmentId = appointmentId;
-        this.appointmentDate = new Date(appointmentDate.getTime());
+        this.appointmentEpochMillis = appointmentEpochMillis;
+        this.duration = duration;
         this.description = description;
     }
 
@@ -31,34 +54,44 @@ public final class Appointment {
         return appointmentId;
     }
 
+    // Returns a fresh Date on each call; prefer getAppointmentEpochMillis on hot paths.
     public Date getAppointmentDate() {
-        return new Date(appointmentDate.getTime());
+        return new Date(appointmentEpochMillis);
+    }
+
+    public long getAppointmentEpochMillis() {
+        return appointmentEpochMillis;
+    }
+
+    // End of the [start, start + duration) span, saturating at Long.MAX_VALUE.
+    public long getEndEpochMillis() {
+        long end = appointmentEpochMillis + duration.toMillis();
+        return end < appointmentEpochMillis ? Long.MAX_VALUE : end;
     }
 
     public String getDescription() {
         return description;
     }
 
-    private static void validateString(String value, String fieldName, int maxLength) {
-        if (value == null) {
-            throw new IllegalArgumentException(fieldName + " must not be null");
-        }
+    public Duration getDuration() {
+        return duration;
+    }
+
+    private static String requireId(String appointmentId) {
+        Validation.requireText(appointmentId, "appointmentId", APPOINTMENT_ID_MAX_LENGTH);
+        return appointmentId;
+    }
 
-        if (value.length() > maxLength) {
-            throw new IllegalArgumentException(fieldName + " cannot exceed " + maxLength + " characters");
-        }
+    private static long epochMillisOf(Date appointmentDate) {
+        Validation.requireNonNull(appointmentDate, "appointmentDate");
+        return appointmentDate.getTime();
     }
 
     // Requirement enforcement:
-    // - Use java.util.Date
-    // - Use before(new Date()) to detect dates in the past
-    private static void validateDate(Date appointmentDate) {
-        if (appointmentDate == null) {
-            throw new IllegalArgumentException("appointmentDate must not be null");
-        }
-
-        if (appointmentDate.before(new Date())) {
-            throw new IllegalArgumentException("appointmentDate cannot be in the past");
-        }
+    // - Accept java.util.Date at the API boundary
+    // - Reject instants before "now", matching Date.before(new Date()) for the system clock
+    private static void validateDate(long appointmentEpochMillis, Clock clock) {
+        Validation.requireNonNull(clock, "clock");
+        Validation.requireNotPast(appointmentEpochMillis, clock.millis(), "appointmentDate");
     }
 }
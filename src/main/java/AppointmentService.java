@@ -1,43 +1,305 @@
 // Component: AppointmentService
 // Purpose: Add and delete appointments in memory.
-// Strategy: Map keyed by appointmentId for deterministic lookups and enforced uniqueness.
+// Strategy: Map keyed by appointmentId for deterministic lookups and enforced uniqueness,
+// plus a time-ordered interval index for range, next-N, count-in-window, and overlap queries.
+// Conflicts: rejectingOverlaps() refuses bookings whose span overlaps a stored one.
+// Storage: using() builds the service on any StorageEngine but the bounded one, with the
+// same API.
+// Instrumentation: enableMetrics() counts and times each add, get, and delete by outcome.
+// Operations slower than a threshold, durable opens, and validation rejections are JFR
+// events (ServiceEvents) whenever a recording is active.
+// Durability: durable() adds a write-ahead log that is replayed on open, optionally
+// preceded by a memory-mapped snapshot so only the log tail replays.
 // Operating principle: guard the collection, keep failures explicit and early.
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
-public final class AppointmentService {
+public final class AppointmentService implements Closeable {
 
-    private final Map<String, Appointment> appointments = new HashMap<>();
+    // Log record operation codes.
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_ADD_BATCH = 3;
+
+    // Replayed appointments were validated when first added; they may be in the past now.
+    private static final Clock REPLAY_CLOCK = Clock.fixed(Instant.ofEpochMilli(Long.MIN_VALUE), ZoneOffset.UTC);
+
+    // Record format for engines that keep appointments encoded: the log entry for an add.
+    private static final StorageEngine.Codec<Appointment> RECORDS = new StorageEngine.Codec<>() {
+        @Override
+        public void encode(Appointment appointment, BinaryCodec.Writer out) {
+            encodeAdd(appointment, out);
+        }
+
+        @Override
+        public Appointment decode(BinaryCodec.Reader in) {
+            in.readByte();
+            return new Appointment(in.readString(), in.readLong(), Duration.ofMillis(in.readLong()), in.readString(),
+                REPLAY_CLOCK);
+        }
+    };
+
+    private final Map<String, Appointment> appointments;
+
+    // Kept in step with the map on every successful add and delete.
+    private final AppointmentTimeIndex byTime;
+
+    private final boolean rejectOverlaps;
+
+    // Null unless durable; writers append under its monitor, then wait outside it.
+    private final WriteAheadLog log;
+
+    // Null unless durable with snapshots; target of snapshot().
+    private final Path snapshotFile;
+
+    // Reused encode buffer; only touched while holding the log monitor.
+    private final BinaryCodec.Writer record = new BinaryCodec.Writer();
+
+    // Null until enableMetrics(); each call reads it once.
+    private volatile ServiceMetrics metrics;
+
+    public AppointmentService() {
+        this(new HashMap<>(), new AppointmentTimeIndex(), false, null, null);
+    }
+
+    private AppointmentService(Map<String, Appointment> appointments, AppointmentTimeIndex byTime,
+                               boolean rejectOverlaps, WriteAheadLog log, Path snapshotFile) {
+        this.appointments = appointments;
+        this.byTime = byTime;
+        this.rejectOverlaps = rejectOverlaps;
+        this.log = log;
+        this.snapshotFile = snapshotFile;
+    }
+
+    // Booking mode: add fails (tryAdd reports CONFLICT) when the new appointment's
+    // [start, start + duration) span overlaps a stored one. Each check is O(log n).
+    public static AppointmentService rejectingOverlaps() {
+        return new AppointmentService(new HashMap<>(), new AppointmentTimeIndex(), true, null, null);
+    }
+
+    // Keeps appointments in the given engine, in default or booking mode. The service has no
+    // thread-safe mode, so it is single-threaded on every engine. With the disk engine,
+    // close() deletes its file. The bounded engine is refused: the time index holds every
+    // appointment, so it could not keep the rest on disk.
+    public static AppointmentService using(StorageEngine engine, boolean rejectOverlaps) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine must not be null");
+        }
+        if (!engine.keepsIndexes()) {
+            throw new IllegalArgumentException("appointments need their time index; use another engine");
+        }
+        return new AppointmentService(engine.open("appointments", RECORDS), new AppointmentTimeIndex(),
+            rejectOverlaps, null, null);
+    }
+
+    // Durable mode: rebuilds state from the log at logFile, then journals every successful
+    // add and delete before acknowledging it. Writers are serialized by the log and share
+    // fsyncs according to the policy; reads are single-threaded as in default mode.
+    public static AppointmentService durable(Path logFile, FsyncPolicy policy) throws IOException {
+        return durable(logFile, null, policy);
+    }
+
+    // As above, restoring from snapshotFile first when it exists and is intact, then
+    // replaying only the log records written after it. Enables snapshot().
+    public static AppointmentService durable(Path logFile, Path snapshotFile, FsyncPolicy policy) throws IOException {
+        ServiceEvents.Load load = ServiceEvents.beginLoad();
+        Map<String, Appointment> appointments = new HashMap<>();
+        AppointmentTimeIndex byTime = new AppointmentTimeIndex();
+        long from = snapshotFile == null
+            ? 0
+            : SnapshotFile.restoreOrDiscard(snapshotFile, entry -> replay(appointments, byTime, entry), () -> {
+                appointments.clear();
+                byTime.clear();
+            });
+        WriteAheadLog log = WriteAheadLog.open(logFile, policy, from, entry -> replay(appointments, byTime, entry));
+        ServiceEvents.load(load, "Appointment", from > 0 ? "snapshot and log" : "log", appointments.size());
+        return new AppointmentService(appointments, byTime, false, log, snapshotFile);
+    }
+
+    // The throwing API maps try-API outcomes to exceptions, so each call is counted once.
 
     public void addAppointment(Appointment appointment) {
-        if (appointment == null) {
+        OperationResult result = tryAddAppointment(appointment);
+        if (result == OperationResult.INVALID_INPUT) {
             throw new IllegalArgumentException("appointment must not be null");
         }
 
         String id = appointment.getAppointmentId();
-
-        if (appointments.containsKey(id)) {
+        if (result == OperationResult.DUPLICATE_ID) {
             throw new IllegalArgumentException("appointmentId already exists: " + id);
         }
-
-        appointments.put(id, appointment);
+        if (result == OperationResult.CONFLICT) {
+            Appointment conflict = byTime.firstOverlap(startOf(appointment), endOf(appointment));
+            throw new IllegalArgumentException(
+                "appointment " + id + " overlaps appointmentId: " + conflict.getAppointmentId());
+        }
     }
 
     public void deleteAppointment(String appointmentId) {
-        requireNonNullId(appointmentId);
-
-        if (!appointments.containsKey(appointmentId)) {
+        OperationResult result = tryDeleteAppointment(appointmentId);
+        if (result == OperationResult.INVALID_INPUT) {
+            throw new IllegalArgumentException("appointmentId must not be null");
+        }
+        if (result == OperationResult.NOT_FOUND) {
             throw new IllegalArgumentException("appointmentId not found: " + appointmentId);
         }
+    }
 
-        appointments.remove(appointmentId);
+    // Non-throwing counterparts of add and delete for hot paths where duplicate
+    // and unknown ids are routine. Outcomes are reported as shared enum constants.
+    public OperationResult tryAddAppointment(Appointment appointment) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = appointment == null ? OperationResult.INVALID_INPUT : insert(appointment);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.ADD, result, started);
+        ServiceEvents.operation(event, "Appointment", ServiceMetrics.Operation.ADD, result, appointment == null ? null : appointment.getAppointmentId());
+        return result;
+    }
+
+    public OperationResult tryDeleteAppointment(String appointmentId) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = appointmentId == null ? OperationResult.INVALID_INPUT : remove(appointmentId);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.DELETE, result, started);
+        ServiceEvents.operation(event, "Appointment", ServiceMetrics.Operation.DELETE, result, appointmentId);
+        return result;
+    }
+
+    // Bulk add: checks the whole batch, then stores all of it or none of it. A rejected batch
+    // throws BatchRejectedException listing every null record, id repeated within the batch,
+    // id already stored, and, in booking mode, every appointment overlapping a stored one or
+    // another in the batch. The batch is one service.Load event rather than per-add metrics
+    // and events. In durable mode it is one log record and one fsync, so a restart recovers
+    // all of it or none of it.
+    public void addAppointments(Collection<Appointment> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("appointments must not be null");
+        }
+
+        ServiceEvents.Load load = ServiceEvents.beginLoad();
+        Appointment[] records = batch.toArray(new Appointment[0]);
+        List<BatchFailure> failures = new ArrayList<>();
+        Map<String, Appointment> staged =
+            BulkAdd.stage(records, Appointment::getAppointmentId, "appointment", "appointmentId", failures);
+
+        if (log == null) {
+            BulkAdd.rejectStored(records, Appointment::getAppointmentId, staged, appointments, "appointmentId", failures);
+            if (rejectOverlaps) {
+                rejectConflicts(records, staged, failures);
+            }
+            if (failures.isEmpty()) {
+                storeAll(appointments, byTime, staged);
+            }
+        } else if (!staged.isEmpty()) {
+            // Encoded before taking the log monitor, so other writers wait only for the checks.
+            // Stored ids are checked even when staging failed, so the report matches default mode.
+            BinaryCodec.Writer batchRecord = failures.isEmpty()
+                ? BulkAdd.logRecord(OP_ADD_BATCH, staged.values(), staged.size(), AppointmentService::encodeAdd)
+                : null;
+            long sequence = 0;
+            synchronized (log) {
+                BulkAdd.rejectStored(records, Appointment::getAppointmentId, staged, appointments, "appointmentId", failures);
+                if (failures.isEmpty()) {
+                    sequence = log.append(batchRecord);
+                    storeAll(appointments, byTime, staged);
+                }
+            }
+            if (failures.isEmpty()) {
+                log.awaitDurable(sequence);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            BulkAdd.sort(failures);
+            throw new BatchRejectedException(records.length, failures);
+        }
+        ServiceEvents.load(load, "Appointment", "batch", records.length);
+    }
+
+    // Appointments with from <= appointmentDate < to, in time order. O(log n + k).
+    public List<Appointment> getAppointmentsBetween(Date from, Date to) {
+        requireWindow(from, to);
+        return byTime.between(from.getTime(), to.getTime());
+    }
+
+    // Up to limit appointments at or after the given instant, in time order. O(log n + limit).
+    public List<Appointment> getNextAppointments(Date from, int limit) {
+        if (from == null) {
+            throw new IllegalArgumentException("from must not be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        return byTime.next(from.getTime(), limit);
+    }
+
+    // Number of appointments with from <= appointmentDate < to. O(log n).
+    public int countAppointmentsBetween(Date from, Date to) {
+        requireWindow(from, to);
+        return byTime.countBetween(from.getTime(), to.getTime());
+    }
+
+    // Stored appointments whose span overlaps [start, start + duration), in time order.
+    // O(log n + k). A zero duration occupies no time and overlaps nothing.
+    public List<Appointment> getOverlappingAppointments(Date start, Duration duration) {
+        if (start == null) {
+            throw new IllegalArgumentException("start must not be null");
+        }
+        Validation.requireDuration(duration, "duration");
+
+        long from = start.getTime();
+        return byTime.overlapping(from, saturatedEnd(from, duration.toMillis()));
+    }
+
+    // Reporting form of the booking check: stored appointments, other than the candidate
+    // itself, that the candidate would overlap. Usable in either mode.
+    public List<Appointment> findConflicts(Appointment candidate) {
+        if (candidate == null) {
+            throw new IllegalArgumentException("appointment must not be null");
+        }
+
+        List<Appointment> overlapping = byTime.overlapping(startOf(candidate), endOf(candidate));
+        List<Appointment> conflicts = new ArrayList<>(overlapping.size());
+        for (Appointment stored : overlapping) {
+            if (!stored.getAppointmentId().equals(candidate.getAppointmentId())) {
+                conflicts.add(stored);
+            }
+        }
+        return conflicts;
     }
 
     // Test-support helper: retrieve by id.
     public Appointment getAppointment(String appointmentId) {
-        requireNonNullId(appointmentId);
-        return appointments.get(appointmentId);
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        if (appointmentId == null) {
+            ServiceMetrics.record(metrics, ServiceMetrics.Operation.GET, OperationResult.INVALID_INPUT, started);
+            ServiceEvents.operation(event, "Appointment", ServiceMetrics.Operation.GET, OperationResult.INVALID_INPUT, null);
+            throw new IllegalArgumentException("appointmentId must not be null");
+        }
+        Appointment appointment = appointments.get(appointmentId);
+        OperationResult result = appointment != null ? OperationResult.OK : OperationResult.NOT_FOUND;
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.GET, result, started);
+        ServiceEvents.operation(event, "Appointment", ServiceMetrics.Operation.GET, result, appointmentId);
+        return appointment;
     }
 
     // Test-support helper: current count.
@@ -45,9 +307,243 @@ public final class AppointmentService {
         return appointments.size();
     }
 
-    private static void requireNonNullId(String appointmentId) {
-        if (appointmentId == null) {
-            throw new IllegalArgumentException("appointmentId must not be null");
+    // Passes each stored appointment to action without copying the store, so memory use does not
+    // grow with it. Order is unspecified; no writes may happen until it returns.
+    public void forEachAppointment(Consumer<? super Appointment> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("action must not be null");
+        }
+        appointments.values().forEach(action);
+    }
+
+    // Writes a snapshot in the background. Writers are held only while the current
+    // appointments and log position are captured; appointments are immutable.
+    // Afterwards the log is trimmed as in the other services.
+    public CompletableFuture<Void> snapshot() {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("snapshots require durable mode with a snapshot file");
+        }
+
+        long position;
+        List<Appointment> image;
+        synchronized (log) {
+            position = log.position();
+            image = new ArrayList<>(appointments.values());
+        }
+        // The snapshot must not point past the log on disk.
+        log.sync();
+        return SnapshotFile.writeAsync(snapshotFile, position, image, AppointmentService::encodeAdd)
+            .thenAccept(previous -> log.truncateBefore(Math.min(previous, position)));
+    }
+
+    // Lookups the id filter answered and its false-positive rate so far; withIdFilter() only.
+    public FilterStats filterStats() {
+        return StorageEngine.filterStats(appointments);
+    }
+
+    // Whether lookups change the store, so AsyncServices must not run two reads at once.
+    boolean readsWrite() {
+        return StorageEngine.readsWrite(appointments);
+    }
+
+    // Turns on per-operation counts and latency histograms and returns them; later calls
+    // return the same metrics. Calls already in progress are not counted.
+    public synchronized ServiceMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new ServiceMetrics();
+        }
+        return metrics;
+    }
+
+    // Releases the log in durable mode and the disk engine's file; a no-op otherwise.
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        if (appointments instanceof Closeable store) {
+            store.close();
+        }
+    }
+
+    // Mutation core shared by the throwing and try APIs; arguments are already checked.
+    // Durable writes check, append, then apply while holding the log monitor, so the log
+    // order is the apply order and a failed append leaves memory untouched.
+
+    private OperationResult insert(Appointment appointment) {
+        if (log == null) {
+            return store(appointment);
+        }
+
+        long sequence;
+        synchronized (log) {
+            OperationResult check = admit(appointment);
+            if (check != OperationResult.OK) {
+                return check;
+            }
+            record.reset();
+            encodeAdd(appointment, record);
+            sequence = log.append(record);
+            put(appointments, byTime, appointment);
+        }
+        log.awaitDurable(sequence);
+        return OperationResult.OK;
+    }
+
+    private OperationResult remove(String appointmentId) {
+        if (log == null) {
+            return drop(appointments, byTime, appointmentId) ? OperationResult.OK : OperationResult.NOT_FOUND;
+        }
+
+        long sequence;
+        synchronized (log) {
+            if (!appointments.containsKey(appointmentId)) {
+                return OperationResult.NOT_FOUND;
+            }
+            record.reset();
+            record.writeByte(OP_DELETE).writeString(appointmentId);
+            sequence = log.append(record);
+            drop(appointments, byTime, appointmentId);
+        }
+        log.awaitDurable(sequence);
+        return OperationResult.OK;
+    }
+
+    private OperationResult store(Appointment appointment) {
+        OperationResult check = admit(appointment);
+        if (check == OperationResult.OK) {
+            put(appointments, byTime, appointment);
+        }
+        return check;
+    }
+
+    // Uniqueness first, then the booking rule when enabled.
+    private OperationResult admit(Appointment appointment) {
+        if (appointments.containsKey(appointment.getAppointmentId())) {
+            return OperationResult.DUPLICATE_ID;
+        }
+        if (rejectOverlaps && byTime.firstOverlap(startOf(appointment), endOf(appointment)) != null) {
+            return OperationResult.CONFLICT;
+        }
+        return OperationResult.OK;
+    }
+
+    // Booking rule for a batch: each staged appointment must clear the stored ones, and,
+    // swept in start order, must start at or after the furthest end reached by the batch so far.
+    private void rejectConflicts(Appointment[] records, Map<String, Appointment> staged, List<BatchFailure> failures) {
+        List<Integer> order = new ArrayList<>(staged.size());
+        for (int i = 0; i < records.length; i++) {
+            if (records[i] != null && staged.get(records[i].getAppointmentId()) == records[i]) {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.comparingLong((Integer i) -> startOf(records[i])).thenComparingInt(i -> i));
+
+        Appointment furthest = null;
+        for (int i : order) {
+            Appointment candidate = records[i];
+            long start = startOf(candidate);
+            long end = endOf(candidate);
+            Appointment conflict = byTime.firstOverlap(start, end);
+            if (conflict == null && start < end && furthest != null && start < endOf(furthest)) {
+                conflict = furthest;
+            }
+            if (conflict != null) {
+                failures.add(new BatchFailure(i, candidate.getAppointmentId(), OperationResult.CONFLICT,
+                    "appointment " + candidate.getAppointmentId() + " overlaps appointmentId: " + conflict.getAppointmentId()));
+            } else if (start < end && (furthest == null || end > endOf(furthest))) {
+                furthest = candidate;
+            }
+        }
+    }
+
+    private static void storeAll(Map<String, Appointment> appointments, AppointmentTimeIndex byTime,
+                                 Map<String, Appointment> staged) {
+        appointments.putAll(staged);
+        for (Appointment appointment : staged.values()) {
+            byTime.add(startOf(appointment), endOf(appointment), appointment);
+        }
+    }
+
+    private static void put(Map<String, Appointment> appointments, AppointmentTimeIndex byTime, Appointment appointment) {
+        appointments.put(appointment.getAppointmentId(), appointment);
+        byTime.add(startOf(appointment), endOf(appointment), appointment);
+    }
+
+    private static boolean drop(Map<String, Appointment> appointments, AppointmentTimeIndex byTime, String appointmentId) {
+        Appointment removed = appointments.remove(appointmentId);
+        if (removed == null) {
+            return false;
+        }
+        byTime.remove(startOf(removed), appointmentId);
+        return true;
+    }
+
+    // Log and snapshot entry for a stored appointment.
+    private static void encodeAdd(Appointment appointment, BinaryCodec.Writer out) {
+        out.writeByte(OP_ADD)
+            .writeString(appointment.getAppointmentId())
+            .writeLong(appointment.getAppointmentEpochMillis())
+            .writeLong(appointment.getDuration().toMillis())
+            .writeString(appointment.getDescription());
+    }
+
+    // Applies one logged operation during open. Only successful operations are logged,
+    // so a record that does not fit the rebuilt state means the log is not ours.
+    private static void replay(Map<String, Appointment> appointments, AppointmentTimeIndex byTime,
+                               BinaryCodec.Reader entry) {
+        byte op = entry.readByte();
+        if (op == OP_ADD_BATCH) {
+            for (int count = entry.readInt(); count > 0; count--) {
+                replay(appointments, byTime, entry);
+            }
+            return;
+        }
+        String id = entry.readString();
+
+        boolean applied;
+        switch (op) {
+            case OP_ADD:
+                long start = entry.readLong();
+                Duration duration = Duration.ofMillis(entry.readLong());
+                Appointment added = new Appointment(id, start, duration, entry.readString(), REPLAY_CLOCK);
+                applied = !appointments.containsKey(id);
+                if (applied) {
+                    put(appointments, byTime, added);
+                }
+                break;
+            case OP_DELETE:
+                applied = drop(appointments, byTime, id);
+                break;
+            default:
+                throw new IllegalStateException("unknown appointment log operation: " + op);
+        }
+
+        if (!applied) {
+            throw new IllegalStateException("appointment log does not match replayed state at appointmentId: " + id);
+        }
+    }
+
+    private static long startOf(Appointment appointment) {
+        return appointment.getAppointmentEpochMillis();
+    }
+
+    private static long endOf(Appointment appointment) {
+        return appointment.getEndEpochMillis();
+    }
+
+    // Durations are non-negative, so overflow can only wrap past Long.MAX_VALUE.
+    private static long saturatedEnd(long start, long durationMillis) {
+        long end = start + durationMillis;
+        return end < start ? Long.MAX_VALUE : end;
+    }
+
+    private static void requireWindow(Date from, Date to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to must not be null");
+        }
+        if (to.before(from)) {
+            throw new IllegalArgumentException("to must not be before from");
         }
     }
 }
@@ -0,0 +1,273 @@
+// Component: AppointmentTimeIndex
+// Purpose: Secondary index of appointments ordered by appointment time.
+// Strategy: AVL tree keyed by (epoch millis, appointmentId) with subtree sizes, so
+// counts in a window cost O(log n) and range scans cost O(log n + k). Each node also
+// carries the largest end time in its subtree, which makes it an interval tree for
+// overlap checks over half-open [start, end) spans.
+// Operating principle: owned by AppointmentService; callers never mutate it directly.
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class AppointmentTimeIndex {
+
+    private static final class Node {
+        long start;
+        long end;
+        long maxEnd;
+        String id;
+        Appointment appointment;
+        Node left;
+        Node right;
+        int height = 1;
+        int size = 1;
+
+        Node(long start, long end, Appointment appointment) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = occupiedEnd(start, end);
+            this.id = appointment.getAppointmentId();
+            this.appointment = appointment;
+        }
+    }
+
+    private Node root;
+
+    int size() {
+        return size(root);
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    void add(long start, long end, Appointment appointment) {
+        root = insert(root, new Node(start, end, appointment));
+    }
+
+    void remove(long start, String appointmentId) {
+        root = delete(root, start, appointmentId);
+    }
+
+    // Number of entries with fromInclusive <= start < toExclusive.
+    int countBetween(long fromInclusive, long toExclusive) {
+        if (fromInclusive >= toExclusive) {
+            return 0;
+        }
+        return countBefore(toExclusive) - countBefore(fromInclusive);
+    }
+
+    // Entries with fromInclusive <= start < toExclusive, in time order.
+    List<Appointment> between(long fromInclusive, long toExclusive) {
+        List<Appointment> out = new ArrayList<>();
+        collectBetween(root, fromInclusive, toExclusive, out);
+        return out;
+    }
+
+    // Up to limit entries with start >= fromInclusive, in time order.
+    List<Appointment> next(long fromInclusive, int limit) {
+        List<Appointment> out = new ArrayList<>(Math.min(limit, size()));
+        collectFrom(root, fromInclusive, limit, out);
+        return out;
+    }
+
+    // Any entry whose span overlaps [fromInclusive, toExclusive), or null. O(log n).
+    Appointment firstOverlap(long fromInclusive, long toExclusive) {
+        if (fromInclusive >= toExclusive) {
+            return null;
+        }
+
+        // If the left subtree reaches past the query start but holds no overlap, its
+        // reaching span starts at or after the query end, and so does everything to the right.
+        Node node = root;
+        while (node != null) {
+            if (overlaps(node, fromInclusive, toExclusive)) {
+                return node.appointment;
+            }
+            if (node.left != null && node.left.maxEnd > fromInclusive) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    // All entries whose span overlaps [fromInclusive, toExclusive), in time order. O(log n + k).
+    List<Appointment> overlapping(long fromInclusive, long toExclusive) {
+        List<Appointment> out = new ArrayList<>();
+        if (fromInclusive < toExclusive) {
+            collectOverlapping(root, fromInclusive, toExclusive, out);
+        }
+        return out;
+    }
+
+    // Rank query: number of entries whose start is strictly before the instant.
+    private int countBefore(long instant) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.start < instant) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static void collectBetween(Node node, long from, long to, List<Appointment> out) {
+        if (node == null) {
+            return;
+        }
+        if (node.start >= from) {
+            collectBetween(node.left, from, to, out);
+        }
+        if (node.start >= from && node.start < to) {
+            out.add(node.appointment);
+        }
+        if (node.start < to) {
+            collectBetween(node.right, from, to, out);
+        }
+    }
+
+    private static void collectFrom(Node node, long from, int limit, List<Appointment> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        if (node.start >= from) {
+            collectFrom(node.left, from, limit, out);
+            if (out.size() < limit) {
+                out.add(node.appointment);
+            }
+        }
+        collectFrom(node.right, from, limit, out);
+    }
+
+    private static void collectOverlapping(Node node, long from, long to, List<Appointment> out) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, out);
+        if (node.start < to) {
+            if (overlaps(node, from, to)) {
+                out.add(node.appointment);
+            }
+            collectOverlapping(node.right, from, to, out);
+        }
+    }
+
+    // Zero-length spans occupy no time, so they never overlap and never raise maxEnd.
+    private static boolean overlaps(Node node, long from, long to) {
+        return node.start < node.end && node.start < to && from < node.end;
+    }
+
+    private static long occupiedEnd(long start, long end) {
+        return start < end ? end : Long.MIN_VALUE;
+    }
+
+    private static int compare(long start, String id, Node node) {
+        int byTime = Long.compare(start, node.start);
+        return byTime != 0 ? byTime : id.compareTo(node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, long start, String id) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+
+            // Two children: take over the in-order successor's entry, then remove it below.
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.start = successor.start;
+            node.end = successor.end;
+            node.id = successor.id;
+            node.appointment = successor.appointment;
+            node.right = delete(node.right, successor.start, successor.id);
+        }
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+        node.maxEnd = Math.max(occupiedEnd(node.start, node.end), Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static long maxEnd(Node node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+}
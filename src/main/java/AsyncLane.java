@@ -0,0 +1,237 @@
+// Component: AsyncLane
+// Purpose: Runs one service's calls for AsyncServices and completes a future for each.
+// Strategy: reads run as soon as they arrive, on the caller's thread when no batch is being
+// applied and on the read executor when one is. Writes join a queue that one drainer at a
+// time works through on the write executor, applying up to MAX_BATCH of them per hold of the
+// lock and resubmitting itself between batches; consecutive adds in a batch go to the
+// service as one bulk add.
+// Concurrency: reads hold the read side of a ReentrantReadWriteLock and run alongside each
+// other; a batch holds the write side, so a read never sees a batch half applied. On a store
+// whose lookups write, reads take the write side too and run one at a time. Futures
+// complete after the lock is released.
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+final class AsyncLane<S, T> {
+
+    // Most writes applied under one hold of the write lock, so waiting reads are not starved.
+    static final int MAX_BATCH = 1024;
+
+    private final S service;
+    private final Executor reads;
+    private final Executor writes;
+
+    // The service's tryAdd and bulk add, for the add runs a batch coalesces.
+    private final BiFunction<S, T, OperationResult> add;
+    private final BiConsumer<S, List<T>> addAll;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // The read side of lock, or its write side when reads must not overlap.
+    private final Lock readLock;
+    private final ConcurrentLinkedQueue<Write<S, T>> pending = new ConcurrentLinkedQueue<>();
+
+    // Set while a drainer is scheduled or running; at most one runs per lane.
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // Null while open; the closed facade's name once shutdown() has run. Set while holding
+    // this, which every write also holds to join the queue, so none can follow the last one.
+    private String closedBy;
+
+    AsyncLane(S service, boolean exclusiveReads, Executor reads, Executor writes,
+              BiFunction<S, T, OperationResult> add, BiConsumer<S, List<T>> addAll) {
+        this.service = service;
+        this.readLock = exclusiveReads ? lock.writeLock() : lock.readLock();
+        this.reads = reads;
+        this.writes = writes;
+        this.add = add;
+        this.addAll = addAll;
+    }
+
+    // Runs query at once on the caller's thread if no batch holds the lock, otherwise on the
+    // read executor once the batch is done; either way alongside other reads.
+    <R> CompletableFuture<R> read(Function<S, R> query) {
+        if (readLock.tryLock()) {
+            try {
+                return CompletableFuture.completedFuture(query.apply(service));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            } finally {
+                readLock.unlock();
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            readLock.lock();
+            try {
+                return query.apply(service);
+            } finally {
+                readLock.unlock();
+            }
+        }, reads);
+    }
+
+    // Queues an add; a null record is passed through so the service reports INVALID_INPUT.
+    CompletableFuture<OperationResult> add(T record) {
+        return enqueue(new Write<>(record, record == null ? s -> add.apply(s, null) : null));
+    }
+
+    // Queues any other write, applied in submission order with the rest.
+    CompletableFuture<OperationResult> write(Function<S, OperationResult> operation) {
+        return enqueue(new Write<>(null, operation));
+    }
+
+    // Refuses later writes with an IllegalStateException naming owner, and completes once
+    // every write queued before it has been applied.
+    CompletableFuture<OperationResult> shutdown(String owner) {
+        Write<S, T> last = new Write<>(null, service -> OperationResult.OK);
+        synchronized (this) {
+            if (closedBy != null) {
+                return CompletableFuture.completedFuture(OperationResult.OK);
+            }
+            closedBy = owner;
+            pending.add(last);
+        }
+        return schedule(last);
+    }
+
+    private CompletableFuture<OperationResult> enqueue(Write<S, T> write) {
+        synchronized (this) {
+            if (closedBy != null) {
+                throw new IllegalStateException(closedBy + " are closed");
+            }
+            pending.add(write);
+        }
+        return schedule(write);
+    }
+
+    private CompletableFuture<OperationResult> schedule(Write<S, T> write) {
+        if (draining.compareAndSet(false, true)) {
+            submitDrain();
+        }
+        return write.result;
+    }
+
+    // Hands a drainer to the write executor; the caller has set draining.
+    private void submitDrain() {
+        try {
+            writes.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            for (Write<S, T> queued; (queued = pending.poll()) != null; ) {
+                queued.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Applies one batch, then gives the thread back: lanes that share a write executor, as
+    // AsyncServices' and each shard's do, take turns instead of one busy lane holding it.
+    private void drain() {
+        List<Write<S, T>> batch = new ArrayList<>();
+        for (Write<S, T> next; batch.size() < MAX_BATCH && (next = pending.poll()) != null; ) {
+            batch.add(next);
+        }
+        if (!batch.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                apply(batch);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Write<S, T> write : batch) {
+                write.complete();
+            }
+        }
+
+        draining.set(false);
+        // A write queued after the poll saw the flag still set and scheduled nothing, so this
+        // drainer schedules the next one unless a new write already has.
+        if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+            submitDrain();
+        }
+    }
+
+    // Applies a batch in order. A run of two or more adds is one bulk add; if the service
+    // rejects it, each add in the run is applied alone so every one gets its own outcome.
+    private void apply(List<Write<S, T>> batch) {
+        int i = 0;
+        while (i < batch.size()) {
+            int end = i;
+            while (end < batch.size() && batch.get(end).added != null) {
+                end++;
+            }
+            if (end - i > 1 && addRun(batch.subList(i, end))) {
+                i = end;
+                continue;
+            }
+            for (int stop = Math.max(end, i + 1); i < stop; i++) {
+                applyOne(batch.get(i));
+            }
+        }
+    }
+
+    private void applyOne(Write<S, T> write) {
+        try {
+            write.outcome = write.added != null ? add.apply(service, write.added) : write.operation.apply(service);
+        } catch (RuntimeException e) {
+            write.failure = e;
+        }
+    }
+
+    // True if the run was settled by one bulk add, whether it was stored or failed outright.
+    private boolean addRun(List<Write<S, T>> run) {
+        List<T> records = new ArrayList<>(run.size());
+        for (Write<S, T> write : run) {
+            records.add(write.added);
+        }
+        try {
+            addAll.accept(service, records);
+        } catch (BatchRejectedException e) {
+            return false;
+        } catch (RuntimeException e) {
+            // Bulk adds store all or nothing, so nothing in the run was applied.
+            for (Write<S, T> write : run) {
+                write.failure = e;
+            }
+            return true;
+        }
+        for (Write<S, T> write : run) {
+            write.outcome = OperationResult.OK;
+        }
+        return true;
+    }
+
+    // One queued write. added is set for an add that may join a bulk add; otherwise
+    // operation is the write.
+    private static final class Write<S, T> {
+        final T added;
+        final Function<S, OperationResult> operation;
+        final CompletableFuture<OperationResult> result = new CompletableFuture<>();
+
+        // Set under the write lock, read by the same drainer after it is released.
+        OperationResult outcome;
+        RuntimeException failure;
+
+        Write(T added, Function<S, OperationResult> operation) {
+            this.added = added;
+            this.operation = operation;
+        }
+
+        void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(outcome);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+// Component: AsyncServices
+// Purpose: Non-blocking facade over a ContactService, TaskService, and AppointmentService;
+// every call returns a CompletableFuture instead of waiting for the service.
+// Strategy: one AsyncLane per service. Reads run concurrently, on the caller's thread unless
+// a batch of writes is being applied; writes are queued and applied in batches, one hold of
+// the lane's lock per batch, with runs of adds turned into one bulk add (one log record and
+// one fsync in durable mode).
+// Concurrency: the facade serializes each service's writes itself, so single-threaded
+// services can take calls from any number of threads. It must be the only caller of the
+// services it wraps. Reads of a service whose store changes on lookup, such as one on the
+// bounded engine, run one at a time. Writes complete on the write executor's thread; attach
+// slow follow-up work with the *Async stages so it does not hold up the next batch.
+// Operating principle: writes report their outcome as an OperationResult, as the try API
+// does; a failure the service throws, such as a log write error, fails the future.
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public final class AsyncServices implements Closeable {
+
+    // Null when the matching service was not given.
+    private final AsyncLane<ContactService, Contact> contacts;
+    private final AsyncLane<TaskService, Task> tasks;
+    private final AsyncLane<AppointmentService, Appointment> appointments;
+
+    // The write thread this facade created, shut down by close(); null if the caller supplied one.
+    private final ExecutorService ownedWrites;
+
+    private volatile boolean closed;
+
+    private AsyncServices(ContactService contactService, TaskService taskService,
+                          AppointmentService appointmentService, Executor reads, Executor writes,
+                          ExecutorService ownedWrites) {
+        if (contactService == null && taskService == null && appointmentService == null) {
+            throw new IllegalArgumentException("at least one service must be given");
+        }
+        if (reads == null || writes == null) {
+            throw new IllegalArgumentException("executors must not be null");
+        }
+        this.contacts = contactService == null ? null : new AsyncLane<>(contactService,
+            contactService.readsWrite(), reads, writes, ContactService::tryAddContact, ContactService::addContacts);
+        this.tasks = taskService == null ? null : new AsyncLane<>(taskService,
+            taskService.readsWrite(), reads, writes, TaskService::tryAddTask, TaskService::addTasks);
+        this.appointments = appointmentService == null ? null : new AsyncLane<>(appointmentService,
+            appointmentService.readsWrite(), reads, writes,
+            AppointmentService::tryAddAppointment, AppointmentService::addAppointments);
+        this.ownedWrites = ownedWrites;
+    }
+
+    // Reads on the common fork-join pool and writes on one daemon thread owned by the facade.
+    // Any service may be null if the facade will not be asked for it.
+    public static AsyncServices of(ContactService contacts, TaskService tasks, AppointmentService appointments) {
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "async-services-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return new AsyncServices(contacts, tasks, appointments, ForkJoinPool.commonPool(), writer, writer);
+        } catch (IllegalArgumentException e) {
+            writer.shutdown();
+            throw e;
+        }
+    }
+
+    // As above, on the given executors, for example a virtual-thread-per-task executor for
+    // reads. Writes need few threads: each service has at most one batch in flight. The
+    // caller keeps ownership of both executors.
+    public static AsyncServices of(ContactService contacts, TaskService tasks, AppointmentService appointments,
+                                   Executor reads, Executor writes) {
+        return new AsyncServices(contacts, tasks, appointments, reads, writes, null);
+    }
+
+    public CompletableFuture<OperationResult> addContact(Contact contact) {
+        return lane(contacts, "contact").add(contact);
+    }
+
+    public CompletableFuture<OperationResult> deleteContact(String contactId) {
+        return lane(contacts, "contact").write(service -> service.tryDeleteContact(contactId));
+    }
+
+    public CompletableFuture<OperationResult> updateContact(String contactId, String firstName, String lastName,
+                                                            String phone, String address) {
+        return lane(contacts, "contact").write(service ->
+            service.tryUpdateContact(contactId, firstName, lastName, phone, address));
+    }
+
+    // Conditional update; VERSION_CONFLICT if the stored contact is no longer at expectedVersion.
+    public CompletableFuture<OperationResult> updateContact(String contactId, long expectedVersion, String firstName,
+                                                            String lastName, String phone, String address) {
+        return lane(contacts, "contact").write(service ->
+            service.tryUpdateContact(contactId, expectedVersion, firstName, lastName, phone, address));
+    }
+
+    // Completes with the contact, or null if not found.
+    public CompletableFuture<Contact> getContact(String contactId) {
+        return lane(contacts, "contact").read(service -> service.getContact(contactId));
+    }
+
+    // Runs any read-only query, such as a name search, alongside other reads. query must not
+    // write to the service.
+    public <R> CompletableFuture<R> readContacts(Function<ContactService, R> query) {
+        return lane(contacts, "contact").read(query);
+    }
+
+    public CompletableFuture<OperationResult> addTask(Task task) {
+        return lane(tasks, "task").add(task);
+    }
+
+    public CompletableFuture<OperationResult> deleteTask(String taskId) {
+        return lane(tasks, "task").write(service -> service.tryDeleteTask(taskId));
+    }
+
+    public CompletableFuture<OperationResult> updateTask(String taskId, String name, String description) {
+        return lane(tasks, "task").write(service -> service.tryUpdateTask(taskId, name, description));
+    }
+
+    // Conditional update; VERSION_CONFLICT if the stored task is no longer at expectedVersion.
+    public CompletableFuture<OperationResult> updateTask(String taskId, long expectedVersion, String name,
+                                                         String description) {
+        return lane(tasks, "task").write(service -> service.tryUpdateTask(taskId, expectedVersion, name, description));
+    }
+
+    public CompletableFuture<Task> getTask(String taskId) {
+        return lane(tasks, "task").read(service -> service.getTask(taskId));
+    }
+
+    public <R> CompletableFuture<R> readTasks(Function<TaskService, R> query) {
+        return lane(tasks, "task").read(query);
+    }
+
+    public CompletableFuture<OperationResult> addAppointment(Appointment appointment) {
+        return lane(appointments, "appointment").add(appointment);
+    }
+
+    public CompletableFuture<OperationResult> deleteAppointment(String appointmentId) {
+        return lane(appointments, "appointment").write(service -> service.tryDeleteAppointment(appointmentId));
+    }
+
+    public CompletableFuture<Appointment> getAppointment(String appointmentId) {
+        return lane(appointments, "appointment").read(service -> service.getAppointment(appointmentId));
+    }
+
+    public <R> CompletableFuture<R> readAppointments(Function<AppointmentService, R> query) {
+        return lane(appointments, "appointment").read(query);
+    }
+
+    // Refuses new calls, waits for every queued write to be applied, and stops the facade's
+    // own write thread. The services stay open; close them separately.
+    @Override
+    public void close() {
+        closed = true;
+        List<CompletableFuture<OperationResult>> drained = new ArrayList<>();
+        // A write that passed the closed check above before it was set still joins the queue
+        // ahead of the lane's shutdown, or is refused by it; none is left behind.
+        if (contacts != null) {
+            drained.add(contacts.shutdown("async services"));
+        }
+        if (tasks != null) {
+            drained.add(tasks.shutdown("async services"));
+        }
+        if (appointments != null) {
+            drained.add(appointments.shutdown("async services"));
+        }
+        CompletableFuture.allOf(drained.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+        if (ownedWrites != null) {
+            ownedWrites.shutdown();
+            try {
+                ownedWrites.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private <S, T> AsyncLane<S, T> lane(AsyncLane<S, T> lane, String entity) {
+        if (closed) {
+            throw new IllegalStateException("async services are closed");
+        }
+        if (lane == null) {
+            throw new IllegalStateException("no " + entity + " service was given");
+        }
+        return lane;
+    }
+}
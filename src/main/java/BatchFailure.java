@@ -0,0 +1,43 @@
+// Component: BatchFailure
+// Purpose: One rejected record of a bulk add, as listed by BatchRejectedException.
+// Strategy: immutable value carrying the record's position in the batch, its id when it
+// has one, the outcome the single-record try API would report, and a readable reason.
+
+public final class BatchFailure {
+
+    private final int index;
+    private final String id;
+    private final OperationResult reason;
+    private final String message;
+
+    BatchFailure(int index, String id, OperationResult reason, String message) {
+        this.index = index;
+        this.id = id;
+        this.reason = reason;
+        this.message = message;
+    }
+
+    // Zero-based position of the record in the batch, in iteration order.
+    public int getIndex() {
+        return index;
+    }
+
+    // Id of the rejected record, or null when the record itself was null.
+    public String getId() {
+        return id;
+    }
+
+    // DUPLICATE_ID, CONFLICT, or INVALID_INPUT.
+    public OperationResult getReason() {
+        return reason;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "record " + index + ": " + message;
+    }
+}
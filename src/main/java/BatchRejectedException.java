@@ -0,0 +1,39 @@
+// Component: BatchRejectedException
+// Purpose: Reports every failing record of a bulk add that was rejected as a whole.
+// Strategy: an IllegalArgumentException, like single-record rejections, so existing
+// handlers still apply; the message names the first failure and getFailures() lists all.
+// getKeptIds() lists records of the batch that stayed stored anyway, which only a
+// concurrent-mode bulk add can leave behind.
+
+import java.util.List;
+
+public final class BatchRejectedException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<BatchFailure> failures;
+    private final transient List<String> keptIds;
+
+    BatchRejectedException(int batchSize, List<BatchFailure> failures) {
+        this(batchSize, failures, List.of());
+    }
+
+    BatchRejectedException(int batchSize, List<BatchFailure> failures, List<String> keptIds) {
+        super(failures.size() + " of " + batchSize + " records rejected, "
+            + (keptIds.isEmpty() ? "nothing was added" : keptIds.size() + " kept by other writers")
+            + "; first " + failures.get(0));
+        this.failures = List.copyOf(failures);
+        this.keptIds = List.copyOf(keptIds);
+    }
+
+    // Every rejected record, in batch order.
+    public List<BatchFailure> getFailures() {
+        return failures;
+    }
+
+    // Ids from the batch still stored after the rollback, because another writer updated them
+    // between their add and the rollback; empty unless the service is in concurrent mode.
+    public List<String> getKeptIds() {
+        return keptIds;
+    }
+}
@@ -0,0 +1,164 @@
+// Component: BinaryCodec
+// Purpose: Compact binary encoding for log records and snapshot entries.
+// Strategy: growable byte array writer and ByteBuffer reader; strings are
+// length-prefixed UTF-8 with -1 marking null. Varints (LEB128) and varint-prefixed
+// compact strings serve formats where size matters more than fixed offsets.
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class BinaryCodec {
+
+    private BinaryCodec() {
+    }
+
+    static final class Writer {
+
+        private byte[] bytes;
+        private int length;
+
+        Writer() {
+            this(64);
+        }
+
+        Writer(int initialCapacity) {
+            bytes = new byte[initialCapacity];
+        }
+
+        Writer writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        Writer writeInt(int value) {
+            ensure(4);
+            bytes[length++] = (byte) (value >>> 24);
+            bytes[length++] = (byte) (value >>> 16);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        Writer writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            return writeInt((int) value);
+        }
+
+        Writer writeString(String value) {
+            if (value == null) {
+                return writeInt(-1);
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+            return this;
+        }
+
+        // Unsigned LEB128: seven bits per byte, low bits first.
+        Writer writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            return writeByte((int) value);
+        }
+
+        // Non-null string with a varint length prefix.
+        Writer writeCompactString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+            return this;
+        }
+
+        int length() {
+            return length;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        // Backing array; valid bytes are [0, length()).
+        byte[] array() {
+            return bytes;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer.get();
+        }
+
+        int readInt() {
+            return buffer.getInt();
+        }
+
+        long readLong() {
+            return buffer.getLong();
+        }
+
+        String readString() {
+            int size = buffer.getInt();
+            if (size == -1) {
+                return null;
+            }
+            if (size < 0 || size > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] utf8 = new byte[size];
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("varint longer than 64 bits");
+        }
+
+        String readCompactString() {
+            long size = readVarLong();
+            if (size > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] utf8 = new byte[(int) size];
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        boolean hasRemaining() {
+            return buffer.hasRemaining();
+        }
+    }
+}
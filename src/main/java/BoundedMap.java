@@ -0,0 +1,211 @@
+// Component: BoundedMap
+// Purpose: String-keyed map that keeps at most a fixed number of values on the heap, for the
+// bounded() storage engine.
+// Strategy: a LinkedHashMap holds the resident values, least recently used first; a get or
+// put moves its key to the end by removing and reinserting it, so other lookups leave the
+// order alone. A put that takes it over the budget evicts the eldest value into a DiskMap. A
+// get of a spilled key removes it from the DiskMap and makes it resident again, so each key
+// lives in exactly one of the two and the most recently used values stay in memory.
+// Concurrency: none, like HashMap. A get reorders the resident values and may evict, so it
+// is a write as far as other threads and open iterators are concerned.
+// Durability: none; the spill file is a DiskMap, truncated on open and deleted on close.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+final class BoundedMap<V> extends AbstractMap<String, V> implements Closeable {
+
+    private final int maxResident;
+    private final DiskMap<V> spilled;
+    private final LinkedHashMap<String, V> resident;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private BoundedMap(int maxResident, DiskMap<V> spilled) {
+        this.maxResident = maxResident;
+        this.spilled = spilled;
+        this.resident = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                if (size() <= BoundedMap.this.maxResident) {
+                    return false;
+                }
+                BoundedMap.this.spilled.put(eldest.getKey(), eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    // maxResident must be at least 1; the caller checks it.
+    static <V> BoundedMap<V> open(Path spillFile, StorageEngine.Codec<V> codec, int maxResident) {
+        return new BoundedMap<>(maxResident, DiskMap.open(spillFile, codec));
+    }
+
+    @Override
+    public int size() {
+        return resident.size() + spilled.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return resident.containsKey(key) || spilled.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        V value = resident.remove(key);
+        if (value != null) {
+            hits++;
+            resident.put((String) key, value);
+            return value;
+        }
+        value = spilled.remove(key);
+        if (value == null) {
+            return null;
+        }
+        misses++;
+        resident.put((String) key, value);
+        return value;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        V previous = resident.remove(key);
+        if (previous == null) {
+            previous = spilled.remove(key);
+        }
+        resident.put(key, value);
+        return previous;
+    }
+
+    // A key already stored is only looked at: it is neither counted nor moved, nor faulted in.
+    @Override
+    public V putIfAbsent(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        V current = resident.get(key);
+        if (current == null) {
+            current = spilled.get(key);
+        }
+        if (current != null) {
+            return current;
+        }
+        resident.put(key, value);
+        return null;
+    }
+
+    @Override
+    public V computeIfPresent(String key, BiFunction<? super String, ? super V, ? extends V> remapping) {
+        V current = get(key);
+        if (current == null) {
+            return null;
+        }
+        V next = remapping.apply(key, current);
+        if (next == null) {
+            resident.remove(key);
+        } else if (next != current) {
+            resident.put(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V removed = resident.remove(key);
+        return removed != null ? removed : spilled.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        resident.clear();
+        spilled.clear();
+    }
+
+    // Resident keys, then spilled ones, without reading any value from the file.
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                Iterator<String> inMemory = resident.keySet().iterator();
+                Iterator<String> onDisk = spilled.keySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return inMemory.hasNext() || onDisk.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        return inMemory.hasNext() ? inMemory.next() : onDisk.next();
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return BoundedMap.this.size();
+            }
+        };
+    }
+
+    // Resident entries, then spilled ones read from the file; neither are made resident.
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                Iterator<Map.Entry<String, V>> inMemory = resident.entrySet().iterator();
+                Iterator<Map.Entry<String, V>> onDisk = spilled.entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return inMemory.hasNext() || onDisk.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, V> next() {
+                        if (inMemory.hasNext()) {
+                            Map.Entry<String, V> entry = inMemory.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+                        }
+                        return onDisk.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return BoundedMap.this.size();
+            }
+        };
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, resident.size(), spilled.size());
+    }
+
+    // Closes and deletes the spill file.
+    @Override
+    public void close() throws IOException {
+        resident.clear();
+        spilled.close();
+    }
+}
@@ -0,0 +1,108 @@
+// Component: BulkAdd
+// Purpose: Shared checks and log encoding for the services' all-or-nothing bulk adds.
+// Strategy: a batch is staged into an insertion-ordered map sized for the whole batch, which
+// finds ids repeated within the batch in one pass and later hands the service a single
+// putAll. Checks against the store run separately, under whatever lock the service holds
+// for writes. Every failure is collected rather than stopping at the first.
+// Operating principle: nothing here touches a service's state; callers apply or reject.
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+final class BulkAdd {
+
+    private BulkAdd() {
+    }
+
+    // Non-null records keyed by id, first occurrence wins. Adds a failure for each null
+    // record and each later record repeating an earlier id.
+    static <T> Map<String, T> stage(T[] records, Function<T, String> idOf, String entity, String idField,
+                                    List<BatchFailure> failures) {
+        Map<String, T> staged = new LinkedHashMap<>(capacityFor(records.length));
+        // Built only once a repeat turns up, so clean batches pay for one map.
+        Map<String, Integer> firstIndex = null;
+        for (int i = 0; i < records.length; i++) {
+            T record = records[i];
+            if (record == null) {
+                failures.add(new BatchFailure(i, null, OperationResult.INVALID_INPUT, entity + " must not be null"));
+                continue;
+            }
+            String id = idOf.apply(record);
+            T first = staged.putIfAbsent(id, record);
+            if (first == null) {
+                if (firstIndex != null) {
+                    firstIndex.put(id, i);
+                }
+                continue;
+            }
+            if (firstIndex == null) {
+                firstIndex = new HashMap<>(capacityFor(records.length));
+                for (int j = 0; j < i; j++) {
+                    if (records[j] != null) {
+                        firstIndex.putIfAbsent(idOf.apply(records[j]), j);
+                    }
+                }
+            }
+            failures.add(new BatchFailure(i, id, OperationResult.DUPLICATE_ID,
+                idField + " repeats record " + firstIndex.get(id) + " of the batch: " + id));
+        }
+        return staged;
+    }
+
+    // Adds a failure for each staged id that is already stored.
+    static <T> void rejectStored(T[] records, Function<T, String> idOf, Map<String, T> staged,
+                                 Map<String, ?> store, String idField, List<BatchFailure> failures) {
+        for (int i = 0; i < records.length; i++) {
+            T record = records[i];
+            if (record == null) {
+                continue;
+            }
+            String id = idOf.apply(record);
+            if (staged.get(id) == record && store.containsKey(id)) {
+                failures.add(new BatchFailure(i, id, OperationResult.DUPLICATE_ID, idField + " already exists: " + id));
+            }
+        }
+    }
+
+    // Position of record in the batch, by identity; -1 when absent. Only used on failure paths.
+    static int indexOf(Object[] records, Object record) {
+        for (int i = 0; i < records.length; i++) {
+            if (records[i] == record) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Failures from separate passes, merged into batch order.
+    static void sort(List<BatchFailure> failures) {
+        failures.sort(Comparator.comparingInt(BatchFailure::getIndex));
+    }
+
+    // The whole batch as one log record, [op][count][entry]..., so a restart replays all of it
+    // or, if the record is torn, none of it. A fresh buffer keeps the service's reusable
+    // record buffer from growing to batch size.
+    static <T> BinaryCodec.Writer logRecord(byte op, Iterable<T> records, int count,
+                                            BiConsumer<T, BinaryCodec.Writer> encoder) {
+        BinaryCodec.Writer out = new BinaryCodec.Writer(1024);
+        out.writeByte(op).writeInt(count);
+        for (T record : records) {
+            encoder.accept(record, out);
+            if (out.length() > WriteAheadLog.MAX_RECORD_BYTES) {
+                throw new IllegalArgumentException(
+                    "batch exceeds the " + WriteAheadLog.MAX_RECORD_BYTES + "-byte log record limit; split it");
+            }
+        }
+        return out;
+    }
+
+    // HashMap capacity that holds size entries without rehashing.
+    static int capacityFor(int size) {
+        return (int) Math.min(1 << 30, size * 4L / 3 + 1);
+    }
+}
@@ -0,0 +1,57 @@
+// Component: CacheStats
+// Purpose: How well a bounded service's memory budget holds its working set, as returned by
+// cacheStats() on ContactService and TaskService.
+// Strategy: immutable counts taken at one moment. A hit found the record in memory, a miss
+// read it back from the spill file, and an eviction wrote a cold record out to make room.
+// Lookups of ids that are not stored at all are neither.
+
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int resident;
+    private final int spilled;
+
+    CacheStats(long hits, long misses, long evictions, int resident, int spilled) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.resident = resident;
+        this.spilled = spilled;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    // Records held in memory, at most the engine's budget.
+    public int getResident() {
+        return resident;
+    }
+
+    // Records held only in the spill file.
+    public int getSpilled() {
+        return spilled;
+    }
+
+    // Hits over all lookups of stored records; 1.0 before the first one.
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + hits + " misses=" + misses + " evictions=" + evictions + " resident=" + resident
+            + " spilled=" + spilled;
+    }
+}
@@ -0,0 +1,462 @@
+// Component: ColumnarFile
+// Purpose: Streaming export of a service's contents to a compact columnar file, and a reader
+// that scans one column without decoding the others.
+// Strategy: rows are buffered in groups of GROUP_ROWS and each group is written column by
+// column, as in Parquet row groups. A group starts with the byte length of every column
+// block, so a reader seeks past the columns it does not need. Text columns are dictionary-
+// encoded per group when values repeat, phones are packed into five bytes, and appointment
+// groups are sorted by time so start times delta-encode into small zigzag varints.
+// Durability: each column block carries a CRC32. The file is written to a temp path and moved
+// into place, so readers never see a partial export.
+// Operating principle: memory is one row group whatever the size of the store.
+//
+// Layout: [magic][version][header length][header: entity, columns (name, type)]
+//         ([rows][block length]...[block][crc]...)... [0][total rows]
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+public final class ColumnarFile {
+
+    private static final int MAGIC = 0x54444346;
+    private static final int VERSION = 1;
+
+    static final int GROUP_ROWS = 4096;
+
+    // Column types, stored in the header.
+    private static final byte TEXT = 0;
+    private static final byte NUMBER = 1;
+    private static final byte PHONE = 2;
+
+    // Block encodings, stored as the first byte of each column block.
+    static final byte PLAIN = 0;
+    static final byte DICTIONARY = 1;
+    static final byte PACKED_PHONE = 2;
+    static final byte DELTA = 3;
+    static final byte VARINT = 4;
+
+    private static final int PHONE_BYTES = 5;
+
+    private ColumnarFile() {
+    }
+
+    // Columns contactId, firstName, lastName, phone, address. Returns the rows written.
+    public static long exportContacts(ContactService service, Path target) throws IOException {
+        return export(target, "Contact", List.of(
+            Column.text("contactId", Contact::getContactId, false),
+            Column.text("firstName", Contact::getFirstName, true),
+            Column.text("lastName", Contact::getLastName, true),
+            Column.phone("phone", Contact::getPhone),
+            Column.text("address", Contact::getAddress, true)), null, service::forEachContact);
+    }
+
+    // Columns taskId, name, description. Returns the rows written.
+    public static long exportTasks(TaskService service, Path target) throws IOException {
+        return export(target, "Task", List.of(
+            Column.text("taskId", Task::getTaskId, false),
+            Column.text("name", Task::getName, true),
+            Column.text("description", Task::getDescription, true)), null, service::forEachTask);
+    }
+
+    // Columns appointmentId, appointmentDate (epoch milliseconds), duration (milliseconds),
+    // description. Returns the rows written.
+    public static long exportAppointments(AppointmentService service, Path target) throws IOException {
+        return export(target, "Appointment", List.of(
+            Column.text("appointmentId", Appointment::getAppointmentId, false),
+            Column.number("appointmentDate", Appointment::getAppointmentEpochMillis, DELTA),
+            Column.number("duration", appointment -> appointment.getDuration().toMillis(), VARINT),
+            Column.text("description", Appointment::getDescription, true)),
+            Comparator.comparingLong(Appointment::getAppointmentEpochMillis), service::forEachAppointment);
+    }
+
+    public static Reader open(Path file) throws IOException {
+        return new Reader(file);
+    }
+
+    // One column of the export: how to read it from a record and how to encode a group of it.
+    private static final class Column<T> {
+        final String name;
+        final byte type;
+        final byte encoding;
+        final Function<T, String> text;
+        final ToLongFunction<T> number;
+        final boolean dictionary;
+
+        private Column(String name, byte type, byte encoding, Function<T, String> text, ToLongFunction<T> number,
+                       boolean dictionary) {
+            this.name = name;
+            this.type = type;
+            this.encoding = encoding;
+            this.text = text;
+            this.number = number;
+            this.dictionary = dictionary;
+        }
+
+        // dictionary is false for columns whose values are unique, such as ids.
+        static <T> Column<T> text(String name, Function<T, String> text, boolean dictionary) {
+            return new Column<>(name, TEXT, PLAIN, text, null, dictionary);
+        }
+
+        static <T> Column<T> phone(String name, Function<T, String> phone) {
+            return new Column<>(name, PHONE, PACKED_PHONE, phone, null, false);
+        }
+
+        static <T> Column<T> number(String name, ToLongFunction<T> number, byte encoding) {
+            return new Column<>(name, NUMBER, encoding, null, number, false);
+        }
+
+        void encode(List<T> rows, BinaryCodec.Writer out) {
+            if (type == NUMBER) {
+                out.writeByte(encoding);
+                long previous = 0;
+                for (T row : rows) {
+                    long value = number.applyAsLong(row);
+                    out.writeVarLong(zigzag(encoding == DELTA ? value - previous : value));
+                    previous = value;
+                }
+            } else if (type == PHONE) {
+                out.writeByte(PACKED_PHONE);
+                for (T row : rows) {
+                    long digits = Long.parseLong(text.apply(row));
+                    for (int shift = (PHONE_BYTES - 1) * 8; shift >= 0; shift -= 8) {
+                        out.writeByte((int) (digits >>> shift));
+                    }
+                }
+            } else if (!dictionary || !encodeDictionary(rows, out)) {
+                out.writeByte(PLAIN);
+                for (T row : rows) {
+                    out.writeCompactString(text.apply(row));
+                }
+            }
+        }
+
+        // Writes the group as distinct values plus one code per row, unless fewer than half the
+        // rows repeat an earlier value, in which case plain encoding is smaller and nothing is
+        // written.
+        private boolean encodeDictionary(List<T> rows, BinaryCodec.Writer out) {
+            Map<String, Integer> codes = new HashMap<>();
+            List<String> values = new ArrayList<>();
+            int[] rowCodes = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                String value = text.apply(rows.get(i));
+                Integer code = codes.get(value);
+                if (code == null) {
+                    if (values.size() >= rows.size() / 2) {
+                        return false;
+                    }
+                    code = values.size();
+                    codes.put(value, code);
+                    values.add(value);
+                }
+                rowCodes[i] = code;
+            }
+            out.writeByte(DICTIONARY).writeVarLong(values.size());
+            for (String value : values) {
+                out.writeCompactString(value);
+            }
+            for (int code : rowCodes) {
+                out.writeVarLong(code);
+            }
+            return true;
+        }
+    }
+
+    // The source passes every record to the consumer it is given. Rows of a group are sorted
+    // by order, when not null, before encoding.
+    static <T> long export(Path target, String entity, List<Column<T>> columns, Comparator<T> order,
+                           Consumer<Consumer<T>> source) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long[] total = new long[1];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            BinaryCodec.Writer header = new BinaryCodec.Writer();
+            header.writeString(entity).writeInt(columns.size());
+            for (Column<T> column : columns) {
+                header.writeString(column.name).writeByte(column.type);
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(header.length());
+            out.write(header.array(), 0, header.length());
+
+            List<T> group = new ArrayList<>(GROUP_ROWS);
+            List<BinaryCodec.Writer> blocks = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                blocks.add(new BinaryCodec.Writer(1 << 12));
+            }
+            try {
+                source.accept(record -> {
+                    group.add(record);
+                    if (group.size() == GROUP_ROWS) {
+                        total[0] += writeGroup(out, columns, order, group, blocks);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            total[0] += writeGroup(out, columns, order, group, blocks);
+            out.writeInt(0);
+            out.writeLong(total[0]);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return total[0];
+    }
+
+    private static <T> int writeGroup(DataOutputStream out, List<Column<T>> columns, Comparator<T> order,
+                                      List<T> group, List<BinaryCodec.Writer> blocks) {
+        int rows = group.size();
+        if (rows == 0) {
+            return 0;
+        }
+        if (order != null) {
+            group.sort(order);
+        }
+        try {
+            out.writeInt(rows);
+            for (int i = 0; i < columns.size(); i++) {
+                BinaryCodec.Writer block = blocks.get(i);
+                block.reset();
+                columns.get(i).encode(group, block);
+                out.writeInt(block.length());
+            }
+            CRC32 crc = new CRC32();
+            for (BinaryCodec.Writer block : blocks) {
+                out.write(block.array(), 0, block.length());
+                crc.reset();
+                crc.update(block.array(), 0, block.length());
+                out.writeInt((int) crc.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        group.clear();
+        return rows;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Scans an export column by column. A damaged file fails with IllegalStateException when
+    // the damaged part is read; columns that are skipped are not checked.
+    public static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final String entity;
+        private final List<String> names;
+        private final byte[] types;
+        private final long firstGroup;
+        private final long rowCount;
+
+        private Reader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer start = read(0, 12);
+                if (start.getInt() != MAGIC || start.getInt() != VERSION) {
+                    throw new IllegalStateException("not a columnar export: " + file);
+                }
+                int headerLength = start.getInt();
+                BinaryCodec.Reader header = new BinaryCodec.Reader(read(12, headerLength));
+                entity = header.readString();
+                int count = header.readInt();
+                List<String> columnNames = new ArrayList<>(count);
+                types = new byte[count];
+                for (int i = 0; i < count; i++) {
+                    columnNames.add(header.readString());
+                    types[i] = header.readByte();
+                }
+                names = Collections.unmodifiableList(columnNames);
+                firstGroup = 12L + headerLength;
+                ByteBuffer end = read(channel.size() - 12, 12);
+                if (end.getInt() != 0) {
+                    throw new IllegalStateException("columnar export is truncated: " + file);
+                }
+                rowCount = end.getLong();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public List<String> getColumns() {
+            return names;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        // Every value of a text or phone column, in file order.
+        public void scanStrings(String column, Consumer<String> action) throws IOException {
+            int index = columnIndex(column);
+            if (types[index] == NUMBER) {
+                throw new IllegalArgumentException("column " + column + " holds numbers; use scanLongs");
+            }
+            scan(index, (block, rows) -> {
+                byte encoding = block.readByte();
+                if (encoding == PACKED_PHONE) {
+                    for (int i = 0; i < rows; i++) {
+                        String digits = Long.toString(readPhone(block));
+                        action.accept("0".repeat(ContactPhoneIndex.PHONE_DIGITS - digits.length()) + digits);
+                    }
+                } else if (encoding == DICTIONARY) {
+                    String[] values = new String[(int) block.readVarLong()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = block.readCompactString();
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        action.accept(values[(int) block.readVarLong()]);
+                    }
+                } else if (encoding == PLAIN) {
+                    for (int i = 0; i < rows; i++) {
+                        action.accept(block.readCompactString());
+                    }
+                } else {
+                    throw new IllegalStateException("unknown text encoding " + encoding + " in column " + column);
+                }
+            });
+        }
+
+        // Every value of a number or phone column, in file order.
+        public void scanLongs(String column, LongConsumer action) throws IOException {
+            int index = columnIndex(column);
+            if (types[index] == TEXT) {
+                throw new IllegalArgumentException("column " + column + " holds text; use scanStrings");
+            }
+            scan(index, (block, rows) -> {
+                byte encoding = block.readByte();
+                if (encoding == PACKED_PHONE) {
+                    for (int i = 0; i < rows; i++) {
+                        action.accept(readPhone(block));
+                    }
+                } else if (encoding == DELTA || encoding == VARINT) {
+                    long value = 0;
+                    for (int i = 0; i < rows; i++) {
+                        long decoded = unzigzag(block.readVarLong());
+                        value = encoding == DELTA ? value + decoded : decoded;
+                        action.accept(value);
+                    }
+                } else {
+                    throw new IllegalStateException("unknown number encoding " + encoding + " in column " + column);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private interface BlockDecoder {
+            void decode(BinaryCodec.Reader block, int rows);
+        }
+
+        // Reads each group's directory, then only the wanted column's block.
+        private void scan(int column, BlockDecoder decoder) throws IOException {
+            long position = firstGroup;
+            int columns = names.size();
+            while (true) {
+                int rows = read(position, 4).getInt();
+                if (rows == 0) {
+                    return;
+                }
+                if (rows < 0) {
+                    throw new IllegalStateException("columnar export damaged at byte " + position);
+                }
+                ByteBuffer directory = read(position + 4, 4 * columns);
+                long groupEnd = position + 4 + 4L * columns;
+                int length = 0;
+                long blockStart = 0;
+                for (int i = 0; i < columns; i++) {
+                    int blockLength = directory.getInt();
+                    if (blockLength < 0) {
+                        throw new IllegalStateException("columnar export damaged at byte " + position);
+                    }
+                    if (i == column) {
+                        blockStart = groupEnd;
+                        length = blockLength;
+                    }
+                    groupEnd += blockLength + 4L;
+                }
+                ByteBuffer block = read(blockStart, length + 4);
+                CRC32 crc = new CRC32();
+                crc.update(block.array(), 0, length);
+                if ((int) crc.getValue() != block.getInt(length)) {
+                    throw new IllegalStateException("columnar export damaged in column " + names.get(column)
+                        + " at byte " + blockStart);
+                }
+                try {
+                    decoder.decode(new BinaryCodec.Reader(ByteBuffer.wrap(block.array(), 0, length)), rows);
+                } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                    throw new IllegalStateException("columnar export damaged in column " + names.get(column)
+                        + " at byte " + blockStart, e);
+                }
+                position = groupEnd;
+            }
+        }
+
+        private int columnIndex(String column) {
+            int index = names.indexOf(column);
+            if (index < 0) {
+                throw new IllegalArgumentException("no column " + column + " in " + entity + " export; columns are " + names);
+            }
+            return index;
+        }
+
+        private static long readPhone(BinaryCodec.Reader block) {
+            long digits = 0;
+            for (int i = 0; i < PHONE_BYTES; i++) {
+                digits = (digits << 8) | (block.readByte() & 0xFF);
+            }
+            return digits;
+        }
+
+        // Exactly length bytes from position, or IllegalStateException if the file ends first.
+        private ByteBuffer read(long position, int length) throws IOException {
+            if (position < 0 || length < 0) {
+                throw new IllegalStateException("columnar export damaged at byte " + position);
+            }
+            if (position + length > channel.size()) {
+                throw new IllegalStateException("columnar export is truncated at byte " + position);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IllegalStateException("columnar export is truncated at byte " + position);
+                }
+            }
+            return buffer.flip();
+        }
+    }
+}
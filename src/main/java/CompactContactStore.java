@@ -0,0 +1,426 @@
+// Component: CompactContactStore
+// Purpose: Contact storage for sets too large to keep as Contact objects on the heap.
+// Strategy: each contact is one fixed-width slot in direct-memory slabs: every text field as
+// a length byte plus Latin-1 bytes padded to its maximum length, the phone as a long, and the
+// version. An open-addressing id index of two int arrays maps ids to slots and compares ids
+// in slot memory, so the garbage collector sees a few arrays and buffers however many
+// contacts are stored. Reads position a reusable View on a slot instead of building a Contact.
+// Concurrency: single-threaded, like the default ContactService; guard it externally to
+// share it between threads.
+// Operating principle: a record passes the same checks as Contact before any byte is written;
+// text outside Latin-1 is refused, since it does not fit one byte per character.
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+public final class CompactContactStore {
+
+    // Slot layout. Text fields are a length byte followed by the field's maximum length in bytes.
+    private static final int ID = 0;
+    private static final int FIRST_NAME = ID + 1 + Contact.CONTACT_ID_MAX_LENGTH;
+    private static final int LAST_NAME = FIRST_NAME + 1 + Contact.NAME_MAX_LENGTH;
+    private static final int ADDRESS = LAST_NAME + 1 + Contact.NAME_MAX_LENGTH;
+    private static final int PHONE = ADDRESS + 1 + Contact.ADDRESS_MAX_LENGTH;
+    private static final int VERSION = PHONE + Long.BYTES;
+    static final int SLOT_BYTES = VERSION + Long.BYTES;
+
+    // Slots per slab; slabs are added as the store grows, so memory follows the contact count.
+    static final int SLAB_SLOTS = 1 << 16;
+
+    // Expected versions meaning the update applies to whatever version is stored, and that the
+    // caller passed a negative version.
+    private static final long ANY_VERSION = -1;
+    private static final long INVALID_VERSION = Long.MIN_VALUE;
+
+    private ByteBuffer[] slabs = new ByteBuffer[0];
+
+    // Id index: slot number plus one at each used position (0 marks empty) and the id's hash
+    // beside it. Linear probing, at most half full; deletes shift later entries back, so there
+    // are no tombstones.
+    private int[] index;
+    private int[] hashes;
+
+    // Slots freed by deletes, reused before unused ones.
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // Slots ever handed out; slot numbers below this are in use or free.
+    private int slotsUsed;
+    private int size;
+
+    public CompactContactStore() {
+        this(16);
+    }
+
+    // Sizes the id index for expectedContacts, so loading that many never rehashes.
+    public CompactContactStore(int expectedContacts) {
+        if (expectedContacts < 0) {
+            throw new IllegalArgumentException("expectedContacts must not be negative");
+        }
+        int capacity = Integer.highestOneBit(Math.max(16, expectedContacts) * 2 - 1) << 1;
+        index = new int[capacity];
+        hashes = new int[capacity];
+    }
+
+    public void addContact(Contact contact) {
+        OperationResult result = tryAddContact(contact);
+        if (result == OperationResult.INVALID_INPUT) {
+            throw new IllegalArgumentException(contact == null
+                ? "contact must not be null"
+                : "contact text must be Latin-1 to fit the compact store");
+        }
+        if (result == OperationResult.DUPLICATE_ID) {
+            throw new IllegalArgumentException("contactId already exists: " + contact.getContactId());
+        }
+    }
+
+    public void deleteContact(String contactId) {
+        OperationResult result = tryDeleteContact(contactId);
+        if (result == OperationResult.INVALID_INPUT) {
+            throw new IllegalArgumentException("contactId must not be null");
+        }
+        if (result == OperationResult.NOT_FOUND) {
+            throw new IllegalArgumentException("contactId not found: " + contactId);
+        }
+    }
+
+    public OperationResult tryAddContact(Contact contact) {
+        if (contact == null) {
+            return OperationResult.INVALID_INPUT;
+        }
+        return insert(contact.getContactId(), contact.getFirstName(), contact.getLastName(), contact.getPhone(),
+            contact.getAddress(), contact.getVersion());
+    }
+
+    // Adds a contact from its field values without building a Contact, for bulk loads. The
+    // values are checked as the Contact constructor would check them.
+    public OperationResult tryAddContact(String contactId, String firstName, String lastName, String phone,
+                                         String address) {
+        if (!Contact.accepts(contactId, firstName, lastName, phone, address)) {
+            return OperationResult.INVALID_INPUT;
+        }
+        return insert(contactId, firstName, lastName, phone, address, 0);
+    }
+
+    public OperationResult tryDeleteContact(String contactId) {
+        if (contactId == null) {
+            return OperationResult.INVALID_INPUT;
+        }
+        int position = locate(contactId, spread(contactId.hashCode()));
+        if (index[position] == 0) {
+            return OperationResult.NOT_FOUND;
+        }
+        int slot = index[position] - 1;
+        removeAt(position);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+        return OperationResult.OK;
+    }
+
+    // Rewrites the slot in place; null values are skipped. The whole update is checked first,
+    // so a rejected one changes nothing.
+    public OperationResult tryUpdateContact(String contactId, String firstName, String lastName, String phone,
+                                            String address) {
+        return update(contactId, ANY_VERSION, firstName, lastName, phone, address);
+    }
+
+    // As above, applied only if the stored contact is still at expectedVersion; VERSION_CONFLICT
+    // otherwise.
+    public OperationResult tryUpdateContact(String contactId, long expectedVersion, String firstName,
+                                            String lastName, String phone, String address) {
+        return update(contactId, expectedVersion < 0 ? INVALID_VERSION : expectedVersion,
+            firstName, lastName, phone, address);
+    }
+
+    // Positions view on the contact with the given id. Returns false, leaving view unchanged,
+    // if no such contact is stored.
+    public boolean find(String contactId, View view) {
+        if (contactId == null || view == null) {
+            throw new IllegalArgumentException("contactId and view must not be null");
+        }
+        if (view.store != this) {
+            throw new IllegalArgumentException("view belongs to another store");
+        }
+        int position = locate(contactId, spread(contactId.hashCode()));
+        if (index[position] == 0) {
+            return false;
+        }
+        view.moveTo(index[position] - 1);
+        return true;
+    }
+
+    // The contact with the given id as a new Contact, or null. Allocates; hot paths should
+    // use find with a reused view.
+    public Contact getContact(String contactId) {
+        View view = newView();
+        return find(contactId, view) ? view.toContact() : null;
+    }
+
+    public View newView() {
+        return new View(this);
+    }
+
+    public int getContactCount() {
+        return size;
+    }
+
+    // Passes one view, moved from contact to contact, to action; keep field values, not the
+    // view. Order is unspecified; no writes may happen until it returns.
+    public void forEachContact(Consumer<? super View> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("action must not be null");
+        }
+        View view = newView();
+        for (int slot : index) {
+            if (slot != 0) {
+                view.moveTo(slot - 1);
+                action.accept(view);
+            }
+        }
+    }
+
+    // Direct memory held by slabs, which grows in steps of SLAB_SLOTS slots.
+    public long offHeapBytes() {
+        return (long) slabs.length * SLAB_SLOTS * SLOT_BYTES;
+    }
+
+    // Heap held by the id index and the free-slot list.
+    public long indexBytes() {
+        return 4L * (index.length + hashes.length + freeSlots.length);
+    }
+
+    private OperationResult insert(String contactId, String firstName, String lastName, String phone, String address,
+                                   long version) {
+        if (!latin1(contactId) || !latin1(firstName) || !latin1(lastName) || !latin1(address)) {
+            return OperationResult.INVALID_INPUT;
+        }
+        int hash = spread(contactId.hashCode());
+        int position = locate(contactId, hash);
+        if (index[position] != 0) {
+            return OperationResult.DUPLICATE_ID;
+        }
+
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : claimSlot();
+        ByteBuffer slab = slabs[slot / SLAB_SLOTS];
+        int base = (slot % SLAB_SLOTS) * SLOT_BYTES;
+        putText(slab, base + ID, contactId);
+        putText(slab, base + FIRST_NAME, firstName);
+        putText(slab, base + LAST_NAME, lastName);
+        putText(slab, base + ADDRESS, address);
+        slab.putLong(base + PHONE, Long.parseLong(phone));
+        slab.putLong(base + VERSION, version);
+
+        index[position] = slot + 1;
+        hashes[position] = hash;
+        if (++size * 2 > index.length) {
+            grow();
+        }
+        return OperationResult.OK;
+    }
+
+    private OperationResult update(String contactId, long expectedVersion, String firstName, String lastName,
+                                   String phone, String address) {
+        if (contactId == null || expectedVersion == INVALID_VERSION
+            || !Contact.acceptsUpdate(firstName, lastName, phone, address)
+            || !latin1(firstName) || !latin1(lastName) || !latin1(address)) {
+            return OperationResult.INVALID_INPUT;
+        }
+        int position = locate(contactId, spread(contactId.hashCode()));
+        if (index[position] == 0) {
+            return OperationResult.NOT_FOUND;
+        }
+
+        int slot = index[position] - 1;
+        ByteBuffer slab = slabs[slot / SLAB_SLOTS];
+        int base = (slot % SLAB_SLOTS) * SLOT_BYTES;
+        long version = slab.getLong(base + VERSION);
+        if (expectedVersion != ANY_VERSION && version != expectedVersion) {
+            return OperationResult.VERSION_CONFLICT;
+        }
+        if (firstName != null) {
+            putText(slab, base + FIRST_NAME, firstName);
+        }
+        if (lastName != null) {
+            putText(slab, base + LAST_NAME, lastName);
+        }
+        if (address != null) {
+            putText(slab, base + ADDRESS, address);
+        }
+        if (phone != null) {
+            slab.putLong(base + PHONE, Long.parseLong(phone));
+        }
+        slab.putLong(base + VERSION, version + 1);
+        return OperationResult.OK;
+    }
+
+    private int claimSlot() {
+        if (slotsUsed == slabs.length * SLAB_SLOTS) {
+            slabs = Arrays.copyOf(slabs, slabs.length + 1);
+            slabs[slabs.length - 1] = ByteBuffer.allocateDirect(SLAB_SLOTS * SLOT_BYTES);
+        }
+        return slotsUsed++;
+    }
+
+    // Position holding contactId, or the empty position where it would go.
+    private int locate(String contactId, int hash) {
+        int mask = index.length - 1;
+        for (int position = hash & mask; ; position = (position + 1) & mask) {
+            int slot = index[position];
+            if (slot == 0 || (hashes[position] == hash && idMatches(slot - 1, contactId))) {
+                return position;
+            }
+        }
+    }
+
+    private boolean idMatches(int slot, String contactId) {
+        ByteBuffer slab = slabs[slot / SLAB_SLOTS];
+        int at = (slot % SLAB_SLOTS) * SLOT_BYTES + ID;
+        int length = slab.get(at);
+        if (length != contactId.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((slab.get(at + 1 + i) & 0xFF) != contactId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Backward-shift delete: later entries of the probe run move into the gap unless their
+    // home position lies cyclically after it, so lookups never stop early at the hole.
+    private void removeAt(int position) {
+        int mask = index.length - 1;
+        int gap = position;
+        for (int next = (gap + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+            int home = hashes[next] & mask;
+            boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+            if (!stays) {
+                index[gap] = index[next];
+                hashes[gap] = hashes[next];
+                gap = next;
+            }
+        }
+        index[gap] = 0;
+        hashes[gap] = 0;
+    }
+
+    private void grow() {
+        int[] oldIndex = index;
+        int[] oldHashes = hashes;
+        index = new int[oldIndex.length * 2];
+        hashes = new int[oldIndex.length * 2];
+        int mask = index.length - 1;
+        for (int i = 0; i < oldIndex.length; i++) {
+            if (oldIndex[i] != 0) {
+                int position = oldHashes[i] & mask;
+                while (index[position] != 0) {
+                    position = (position + 1) & mask;
+                }
+                index[position] = oldIndex[i];
+                hashes[position] = oldHashes[i];
+            }
+        }
+    }
+
+    // Scatters String.hashCode over the table. Short ids that differ only in their last
+    // characters have nearly consecutive hash codes, which would pile up into long probe runs;
+    // a multiplicative mix spreads them out.
+    private static int spread(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static boolean latin1(String text) {
+        if (text == null) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putText(ByteBuffer slab, int at, String text) {
+        slab.put(at, (byte) text.length());
+        for (int i = 0; i < text.length(); i++) {
+            slab.put(at + 1 + i, (byte) text.charAt(i));
+        }
+    }
+
+    private static String getText(ByteBuffer slab, int at) {
+        int length = slab.get(at);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (slab.get(at + 1 + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    // Flyweight over one slot. It shows whatever the slot holds now: after an update it shows
+    // the new values, and after a delete the slot may be reused by another contact, so find
+    // the id again after writes. Getters build their String on each call.
+    public static final class View {
+        private final CompactContactStore store;
+        private ByteBuffer slab;
+        private int base = -1;
+
+        private View(CompactContactStore store) {
+            this.store = store;
+        }
+
+        private void moveTo(int slot) {
+            slab = store.slabs[slot / SLAB_SLOTS];
+            base = (slot % SLAB_SLOTS) * SLOT_BYTES;
+        }
+
+        public String getContactId() {
+            return getText(slab(), base + ID);
+        }
+
+        public String getFirstName() {
+            return getText(slab(), base + FIRST_NAME);
+        }
+
+        public String getLastName() {
+            return getText(slab(), base + LAST_NAME);
+        }
+
+        public String getAddress() {
+            return getText(slab(), base + ADDRESS);
+        }
+
+        public String getPhone() {
+            String digits = Long.toString(getPhoneNumber());
+            return "0".repeat(Contact.PHONE_DIGITS - digits.length()) + digits;
+        }
+
+        // The phone's digits as a number, without building a String; leading zeros are implied.
+        public long getPhoneNumber() {
+            return slab().getLong(base + PHONE);
+        }
+
+        public long getVersion() {
+            return slab().getLong(base + VERSION);
+        }
+
+        public Contact toContact() {
+            Contact contact = new Contact(getContactId(), getFirstName(), getLastName(), getPhone(), getAddress());
+            contact.setVersion(getVersion());
+            return contact;
+        }
+
+        private ByteBuffer slab() {
+            if (slab == null) {
+                throw new IllegalStateException("view is not positioned on a contact");
+            }
+            return slab;
+        }
+    }
+}
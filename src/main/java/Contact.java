@@ -3,11 +3,11 @@
 
 public final class Contact {
 
-    // Single source of truth for field constraints.
-    private static final int CONTACT_ID_MAX_LENGTH = 10;
-    private static final int NAME_MAX_LENGTH = 10;
-    private static final int PHONE_DIGITS = 10;
-    private static final int ADDRESS_MAX_LENGTH = 30;
+    // Single source of truth for field constraints; CompactContactStore sizes its slots by them.
+    static final int CONTACT_ID_MAX_LENGTH = 10;
+    static final int NAME_MAX_LENGTH = 10;
+    static final int PHONE_DIGITS = 10;
+    static final int ADDRESS_MAX_LENGTH = 30;
 
     // Immutable after construction; used as lookup key.
     private final String contactId;
@@ -18,12 +18,19 @@ public final class Contact {
     private String phone;
     private String address;
 
+    // Count of service updates applied to this record; 0 as constructed. Only the service sets it.
+    private long version;
+
+    // Set once a versioned service stores this record. Every snapshot of that version shares
+    // the instance, so from then on the setters refuse and updates go through the service.
+    private boolean frozen;
+
     public Contact(String contactId, String firstName, String lastName, String phone, String address) {
-        validate(contactId, "contactId", CONTACT_ID_MAX_LENGTH, false);
-        validate(firstName, "firstName", NAME_MAX_LENGTH, false);
-        validate(lastName, "lastName", NAME_MAX_LENGTH, false);
-        validate(phone, "phone", PHONE_DIGITS, true);
-        validate(address, "address", ADDRESS_MAX_LENGTH, false);
+        Validation.requireNonEmptyText(contactId, "contactId", CONTACT_ID_MAX_LENGTH);
+        Validation.requireNonEmptyText(firstName, "firstName", NAME_MAX_LENGTH);
+        Validation.requireNonEmptyText(lastName, "lastName", NAME_MAX_LENGTH);
+        Validation.requireDigits(phone, "phone", PHONE_DIGITS);
+        Validation.requireNonEmptyText(address, "address", ADDRESS_MAX_LENGTH);
 
         this.contactId = contactId;
         this.firstName = firstName;
@@ -36,12 +43,24 @@ public final class Contact {
         return contactId;
     }
 
+    // Version stamp for optimistic updates: read it with the record, then pass it to the
+    // service's conditional update, which applies only if no other update came first.
+    public long getVersion() {
+        return version;
+    }
+
+    // Set by the service as it applies an update, or when restoring a snapshot.
+    void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
 
     public void setFirstName(String firstName) {
-        validate(firstName, "firstName", NAME_MAX_LENGTH, false);
+        requireMutable();
+        Validation.requireNonEmptyText(firstName, "firstName", NAME_MAX_LENGTH);
         this.firstName = firstName;
     }
 
@@ -50,7 +69,8 @@ public final class Contact {
     }
 
     public void setLastName(String lastName) {
-        validate(lastName, "lastName", NAME_MAX_LENGTH, false);
+        requireMutable();
+        Validation.requireNonEmptyText(lastName, "lastName", NAME_MAX_LENGTH);
         this.lastName = lastName;
     }
 
@@ -59,7 +79,8 @@ public final class Contact {
     }
 
     public void setPhone(String phone) {
-        validate(phone, "phone", PHONE_DIGITS, true);
+        requireMutable();
+        Validation.requireDigits(phone, "phone", PHONE_DIGITS);
         this.phone = phone;
     }
 
@@ -68,25 +89,66 @@ public final class Contact {
     }
 
     public void setAddress(String address) {
-        validate(address, "address", ADDRESS_MAX_LENGTH, false);
+        requireMutable();
+        Validation.requireNonEmptyText(address, "address", ADDRESS_MAX_LENGTH);
         this.address = address;
     }
 
-    // Validates a required String field. If strictDigits is true, value must be exactly maxLength digits.
-    private static void validate(String value, String fieldName, int maxLength, boolean strictDigits) {
-        if (value == null || value.length() == 0) {
-            throw new IllegalArgumentException(fieldName + " must not be null or empty");
-        }
+    // Called by a versioned service before it publishes this record.
+    void freeze() {
+        frozen = true;
+    }
 
-        if (strictDigits) {
-            if (!value.matches("\\d{" + maxLength + "}")) {
-                throw new IllegalArgumentException(fieldName + " must be exactly " + maxLength + " digits");
-            }
-            return;
+    private void requireMutable() {
+        if (frozen) {
+            throw new IllegalStateException("contact " + contactId
+                + " is stored in versioned mode; update it through the service");
         }
+    }
 
-        if (value.length() > maxLength) {
-            throw new IllegalArgumentException(fieldName + " must be " + maxLength + " characters or fewer");
+    // Throwing check for an update request; null means no change. Names the first invalid field.
+    static void requireValidUpdate(String firstName, String lastName, String phone, String address) {
+        if (firstName != null) {
+            Validation.requireNonEmptyText(firstName, "firstName", NAME_MAX_LENGTH);
         }
+        if (lastName != null) {
+            Validation.requireNonEmptyText(lastName, "lastName", NAME_MAX_LENGTH);
+        }
+        if (phone != null) {
+            Validation.requireDigits(phone, "phone", PHONE_DIGITS);
+        }
+        if (address != null) {
+            Validation.requireNonEmptyText(address, "address", ADDRESS_MAX_LENGTH);
+        }
+    }
+
+    // Non-throwing check for a whole record, as the constructor would validate it.
+    static boolean accepts(String contactId, String firstName, String lastName, String phone, String address) {
+        return Validation.isNonEmptyText(contactId, CONTACT_ID_MAX_LENGTH)
+            && firstName != null && lastName != null && phone != null && address != null
+            && acceptsUpdate(firstName, lastName, phone, address);
+    }
+
+    // Non-throwing check for an update request; null means no change and is always accepted.
+    static boolean acceptsUpdate(String firstName, String lastName, String phone, String address) {
+        return (firstName == null || Validation.isNonEmptyText(firstName, NAME_MAX_LENGTH))
+            && (lastName == null || Validation.isNonEmptyText(lastName, NAME_MAX_LENGTH))
+            && (phone == null || Validation.isDigits(phone, PHONE_DIGITS))
+            && (address == null || Validation.isNonEmptyText(address, ADDRESS_MAX_LENGTH));
+    }
+
+    // Returns a new Contact carrying this id and the given field values; null keeps the current value.
+    // All fields pass through the constructor, so the copy is either fully valid or not created.
+    // The copy is the next version of this record.
+    Contact withUpdates(String firstName, String lastName, String phone, String address) {
+        Contact updated = new Contact(
+            contactId,
+            firstName != null ? firstName : this.firstName,
+            lastName != null ? lastName : this.lastName,
+            phone != null ? phone : this.phone,
+            address != null ? address : this.address
+        );
+        updated.version = version + 1;
+        return updated;
     }
 }
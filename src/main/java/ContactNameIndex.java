@@ -0,0 +1,192 @@
+// Component: ContactNameIndex
+// Purpose: Secondary index of contacts by first and last name for search-as-you-type.
+// Strategy: names are lower-cased once. A sorted map from name to contacts answers prefix
+// queries in O(log n + limit); a trigram map from trigram to distinct names answers fuzzy
+// queries by scoring only names that share a trigram with the query, counting hits in
+// per-name scratch fields instead of a per-query map. Both maps hold distinct names,
+// which are far fewer than contacts.
+// Concurrency: every method holds the index monitor, so concurrent-mode readers see whole entries.
+// Operating principle: owned by ContactService; callers never mutate it directly.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+final class ContactNameIndex {
+
+    // Names scoring below this Dice coefficient are not fuzzy matches.
+    static final double MIN_SIMILARITY = 0.3;
+
+    // One distinct lower-cased name and the contacts carrying it as first or last name.
+    private static final class NameEntry {
+        final String name;
+        final int trigramCount;
+        // Insertion ordered; Contact keeps identity equality, so membership is by instance.
+        // Common names carry many contacts, so add and remove must not copy the bucket.
+        final Set<Contact> contacts = new LinkedHashSet<>();
+
+        // Fuzzy-query scratch, valid only while the index monitor is held.
+        int hits;
+        long query;
+        double similarity;
+
+        NameEntry(String name) {
+            this.name = name;
+            this.trigramCount = trigrams(name).size();
+        }
+    }
+
+    private static final Comparator<NameEntry> BEST_FIRST = Comparator
+        .comparingDouble((NameEntry e) -> -e.similarity)
+        .thenComparing(e -> e.name);
+
+    private final NavigableMap<String, NameEntry> byName = new TreeMap<>();
+    private final Map<String, List<NameEntry>> byTrigram = new HashMap<>();
+
+    private long queries;
+
+    synchronized void clear() {
+        byName.clear();
+        byTrigram.clear();
+    }
+
+    synchronized void add(Contact contact) {
+        String first = normalize(contact.getFirstName());
+        String last = normalize(contact.getLastName());
+        addUnder(first, contact);
+        if (!last.equals(first)) {
+            addUnder(last, contact);
+        }
+    }
+
+    // Removes this exact instance from under its current names, matching by identity as
+    // ContactPhoneIndex does. Returns false when the instance is not indexed.
+    synchronized boolean remove(Contact contact) {
+        String first = normalize(contact.getFirstName());
+        String last = normalize(contact.getLastName());
+        boolean removed = removeUnder(first, contact);
+        if (!last.equals(first)) {
+            removed |= removeUnder(last, contact);
+        }
+        return removed;
+    }
+
+    // Up to limit contacts with a first or last name starting with prefix, ignoring case.
+    // Ordered by matching name, so an exact match comes first; each contact appears once.
+    synchronized List<Contact> withPrefix(String prefix, int limit) {
+        String from = normalize(prefix);
+        Set<Contact> matches = new LinkedHashSet<>();
+        for (NameEntry entry : byName.tailMap(from, true).values()) {
+            if (matches.size() >= limit || !entry.name.startsWith(from)) {
+                break;
+            }
+            for (Contact contact : entry.contacts) {
+                if (matches.size() >= limit) {
+                    break;
+                }
+                matches.add(contact);
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    // Up to limit contacts whose first or last name is most similar to query, by the Dice
+    // coefficient of padded trigram sets. Ties go to the alphabetically first name.
+    synchronized List<Contact> similarTo(String query, int limit) {
+        Set<String> queryGrams = trigrams(normalize(query));
+        long current = ++queries;
+        List<NameEntry> candidates = new ArrayList<>();
+        for (String gram : queryGrams) {
+            for (NameEntry entry : byTrigram.getOrDefault(gram, List.of())) {
+                if (entry.query != current) {
+                    entry.query = current;
+                    entry.hits = 0;
+                    candidates.add(entry);
+                }
+                entry.hits++;
+            }
+        }
+
+        // Bounded heap with the weakest of the best names so far on top.
+        PriorityQueue<NameEntry> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        for (NameEntry entry : candidates) {
+            entry.similarity = 2.0 * entry.hits / (queryGrams.size() + entry.trigramCount);
+            if (entry.similarity >= MIN_SIMILARITY) {
+                best.add(entry);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        NameEntry[] ranked = best.toArray(new NameEntry[0]);
+        Arrays.sort(ranked, BEST_FIRST);
+        Set<Contact> matches = new LinkedHashSet<>();
+        for (NameEntry entry : ranked) {
+            for (Contact contact : entry.contacts) {
+                if (matches.size() >= limit) {
+                    return new ArrayList<>(matches);
+                }
+                matches.add(contact);
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    private void addUnder(String name, Contact contact) {
+        NameEntry entry = byName.get(name);
+        if (entry == null) {
+            entry = new NameEntry(name);
+            byName.put(name, entry);
+            for (String gram : trigrams(name)) {
+                byTrigram.computeIfAbsent(gram, key -> new ArrayList<>()).add(entry);
+            }
+        }
+        entry.contacts.add(contact);
+    }
+
+    private boolean removeUnder(String name, Contact contact) {
+        NameEntry entry = byName.get(name);
+        if (entry == null || !entry.contacts.remove(contact)) {
+            return false;
+        }
+
+        if (entry.contacts.isEmpty()) {
+            // Last carrier of this name; postings shrink only here, so the linear remove is rare.
+            byName.remove(name);
+            for (String gram : trigrams(name)) {
+                List<NameEntry> names = byTrigram.get(gram);
+                names.remove(entry);
+                if (names.isEmpty()) {
+                    byTrigram.remove(gram);
+                }
+            }
+        }
+        return true;
+    }
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // Two leading spaces and one trailing space, so short names and word starts still
+    // produce distinguishing trigrams: "ann" gives "  a", " an", "ann", "nn ".
+    static Set<String> trigrams(String name) {
+        String padded = "  " + name + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,157 @@
+// Component: ContactPhoneIndex
+// Purpose: Secondary index of contacts by phone number for reverse lookup and prefix queries.
+// Strategy: ten-way digit trie walked from the phone parsed once to a primitive long. Each
+// node counts the contacts below it, so exact lookups and prefix counts cost O(digits)
+// and prefix scans cost O(digits + matching subtree). Empty branches are pruned on removal.
+// Concurrency: every method holds the index monitor, so concurrent-mode readers see whole entries.
+// Operating principle: owned by ContactService; callers never mutate it directly.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class ContactPhoneIndex {
+
+    static final int PHONE_DIGITS = 10;
+
+    private static final int RADIX = 10;
+    private static final long[] POWERS = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+    private static final Contact[] NO_CONTACTS = new Contact[0];
+
+    // Interior nodes use children; nodes at depth PHONE_DIGITS hold contacts sharing one phone.
+    private static final class Node {
+        Node[] children;
+        Contact[] contacts = NO_CONTACTS;
+        int count;
+    }
+
+    private Node root = new Node();
+
+    synchronized int size() {
+        return root.count;
+    }
+
+    synchronized void clear() {
+        root = new Node();
+    }
+
+    synchronized void add(Contact contact) {
+        long key = keyOf(contact.getPhone(), PHONE_DIGITS);
+        Node node = root;
+        node.count++;
+        for (int depth = 0; depth < PHONE_DIGITS; depth++) {
+            if (node.children == null) {
+                node.children = new Node[RADIX];
+            }
+            int digit = digitAt(key, PHONE_DIGITS, depth);
+            Node child = node.children[digit];
+            if (child == null) {
+                child = new Node();
+                node.children[digit] = child;
+            }
+            child.count++;
+            node = child;
+        }
+
+        Contact[] grown = Arrays.copyOf(node.contacts, node.contacts.length + 1);
+        grown[grown.length - 1] = contact;
+        node.contacts = grown;
+    }
+
+    // Removes this exact instance from under its current phone. Matching by identity keeps a
+    // late removal from dropping a newer contact that reuses the id. Returns false when the
+    // instance is not indexed; counts are only adjusted once the entry has been found.
+    synchronized boolean remove(Contact contact) {
+        long key = keyOf(contact.getPhone(), PHONE_DIGITS);
+        Node leaf = descend(key, PHONE_DIGITS);
+        int slot = leaf == null ? -1 : slotOf(leaf.contacts, contact);
+        if (slot < 0) {
+            return false;
+        }
+
+        Node node = root;
+        node.count--;
+        for (int depth = 0; depth < PHONE_DIGITS; depth++) {
+            int digit = digitAt(key, PHONE_DIGITS, depth);
+            Node child = node.children[digit];
+            if (--child.count == 0) {
+                // The whole branch held only this entry.
+                node.children[digit] = null;
+                return true;
+            }
+            node = child;
+        }
+
+        Contact[] shrunk = new Contact[leaf.contacts.length - 1];
+        System.arraycopy(leaf.contacts, 0, shrunk, 0, slot);
+        System.arraycopy(leaf.contacts, slot + 1, shrunk, slot, shrunk.length - slot);
+        leaf.contacts = shrunk;
+        return true;
+    }
+
+    // Contacts whose phone is exactly phone, in insertion order.
+    synchronized List<Contact> withPhone(String phone) {
+        Node leaf = descend(keyOf(phone, PHONE_DIGITS), PHONE_DIGITS);
+        return leaf == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(leaf.contacts));
+    }
+
+    // Contacts whose phone starts with prefix (0 to PHONE_DIGITS digits), in phone order.
+    synchronized List<Contact> withPrefix(String prefix) {
+        Node node = descend(keyOf(prefix, prefix.length()), prefix.length());
+        List<Contact> matches = new ArrayList<>(node == null ? 0 : node.count);
+        if (node != null) {
+            collect(node, matches);
+        }
+        return matches;
+    }
+
+    synchronized int countWithPrefix(String prefix) {
+        Node node = descend(keyOf(prefix, prefix.length()), prefix.length());
+        return node == null ? 0 : node.count;
+    }
+
+    private Node descend(long key, int digits) {
+        Node node = root;
+        for (int depth = 0; depth < digits && node != null; depth++) {
+            node = node.children == null ? null : node.children[digitAt(key, digits, depth)];
+        }
+        return node;
+    }
+
+    private static void collect(Node node, List<Contact> out) {
+        if (node.children == null) {
+            out.addAll(Arrays.asList(node.contacts));
+            return;
+        }
+        for (Node child : node.children) {
+            if (child != null) {
+                collect(child, out);
+            }
+        }
+    }
+
+    private static int slotOf(Contact[] contacts, Contact contact) {
+        for (int i = 0; i < contacts.length; i++) {
+            if (contacts[i] == contact) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Digits are already validated; ten digits always fit in a long.
+    private static long keyOf(String digits, int length) {
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            key = key * RADIX + (digits.charAt(i) - '0');
+        }
+        return key;
+    }
+
+    // depth 0 is the most significant of the key's digits.
+    private static int digitAt(long key, int digits, int depth) {
+        return (int) (key / POWERS[digits - 1 - depth] % RADIX);
+    }
+}
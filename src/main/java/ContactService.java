@@ -1,46 +1,582 @@
 // Component: ContactService
 // Purpose: Add, delete, and update contacts in memory.
-// Strategy: Map keyed by contactId for fast lookups and enforced uniqueness.
+// Strategy: Map keyed by contactId for fast lookups and enforced uniqueness, plus a
+// phone-digit trie (ContactPhoneIndex) for reverse lookup and area-code queries and a
+// name index (ContactNameIndex) for prefix and fuzzy search.
+// Concurrency: concurrent() selects a ConcurrentHashMap with copy-on-write updates, each
+// published by compare-and-set against the contact it was built from. Every contact carries
+// a version, so a caller's read-modify-write can be made conditional on nothing having
+// changed in between.
+// versioned() selects a VersionedMap instead, whose readSnapshot() is a lock-free
+// point-in-time view of every contact.
+// Storage: using() builds the service on any StorageEngine with the same API and behavior,
+// except that the bounded engine drops the phone and name indexes.
+// Instrumentation: enableMetrics() counts and times each add, get, update, and delete by outcome.
+// Operations slower than a threshold, durable opens, and validation rejections are JFR
+// events (ServiceEvents) whenever a recording is active.
+// Durability: durable() adds a write-ahead log that is replayed on open, optionally
+// preceded by a memory-mapped snapshot so only the log tail replays.
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
-public final class ContactService {
+public final class ContactService implements Closeable {
 
-    private final Map<String, Contact> contacts = new HashMap<>();
+    // Log record operation codes.
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_UPDATE = 3;
+    private static final byte OP_ADD_BATCH = 4;
+    // Snapshot entry: an add that also carries the contact's version.
+    private static final byte OP_RESTORE = 5;
 
-    public void addContact(Contact contact) {
-        if (contact == null) {
-            throw new IllegalArgumentException("contact must not be null");
+    // Expected versions meaning the update applies to whatever version is stored, and that the
+    // caller passed a negative version.
+    private static final long ANY_VERSION = -1;
+    private static final long INVALID_VERSION = Long.MIN_VALUE;
+
+    // Record format for engines that keep contacts encoded: the snapshot entry.
+    private static final StorageEngine.Codec<Contact> RECORDS = new StorageEngine.Codec<>() {
+        @Override
+        public void encode(Contact contact, BinaryCodec.Writer out) {
+            encodeRestore(contact, out);
         }
 
-        String id = contact.getContactId();
-        if (contacts.containsKey(id)) {
-            throw new IllegalArgumentException("contactId already exists: " + id);
+        @Override
+        public Contact decode(BinaryCodec.Reader in) {
+            in.readByte();
+            Contact contact = new Contact(in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readString());
+            contact.setVersion(in.readVarLong());
+            return contact;
         }
+    };
+
+    private final Map<String, Contact> contacts;
+
+    // Kept in step with contacts by every add, delete, and update. Both null on the bounded
+    // engine, whose evicted contacts must not stay reachable from an index.
+    private final ContactPhoneIndex byPhone;
+    private final ContactNameIndex byName;
+
+    // When true, updates replace the stored Contact instead of mutating it in place.
+    private final boolean concurrent;
+
+    // Null unless durable; writers append under its monitor, then wait outside it.
+    private final WriteAheadLog log;
+
+    // Null unless durable with snapshots; target of snapshot().
+    private final Path snapshotFile;
+
+    // Reused encode buffer; only touched while holding the log monitor.
+    private final BinaryCodec.Writer record = new BinaryCodec.Writer();
+
+    // Null until enableMetrics(); each call reads it once.
+    private volatile ServiceMetrics metrics;
+
+    public ContactService() {
+        this(new HashMap<>(), new ContactPhoneIndex(), new ContactNameIndex(), false, null, null);
+    }
+
+    private ContactService(Map<String, Contact> contacts, ContactPhoneIndex byPhone, ContactNameIndex byName,
+                           boolean concurrent, WriteAheadLog log, Path snapshotFile) {
+        this.contacts = contacts;
+        this.byPhone = byPhone;
+        this.byName = byName;
+        this.concurrent = concurrent;
+        this.log = log;
+        this.snapshotFile = snapshotFile;
+    }
+
+    // Thread-safe mode for multi-threaded callers; no external lock required.
+    // add and delete are single atomic map operations, and updateContact publishes
+    // a fully validated replacement so readers never observe a half-applied update.
+    // Contacts returned by getContact should be treated as read-only in this mode.
+    public static ContactService concurrent() {
+        return using(StorageEngine.concurrentMap());
+    }
+
+    // Keeps contacts in the given engine. On StorageEngine.concurrentMap() this is concurrent
+    // mode; on the others it is single-threaded, as by default. With the disk and bounded
+    // engines, close() deletes their file. On the bounded engine phone and name lookups throw
+    // IllegalStateException.
+    public static ContactService using(StorageEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine must not be null");
+        }
+        boolean indexed = engine.keepsIndexes();
+        return new ContactService(engine.open("contacts", RECORDS), indexed ? new ContactPhoneIndex() : null,
+            indexed ? new ContactNameIndex() : null, engine.isConcurrent(), null, null);
+    }
+
+    // Thread-safe mode with point-in-time reads (MVCC). As in concurrent mode, updates
+    // publish a new Contact rather than changing the stored one, and every write publishes a
+    // new version of the whole store. readSnapshot() returns the current version in constant
+    // time; reports iterate it without locks while writers carry on. Writers are serialized
+    // with each other. Stored contacts are frozen, including those passed to add: their setters
+    // throw IllegalStateException, so no caller can change a version a snapshot shares.
+    public static ContactService versioned() {
+        return new ContactService(new VersionedMap<>(), new ContactPhoneIndex(), new ContactNameIndex(),
+            true, null, null);
+    }
+
+    // Durable mode: rebuilds state from the log at logFile, then journals every successful
+    // add, delete, and update before acknowledging it. Reads behave as in concurrent mode;
+    // writes are ordered by the log and share fsyncs according to the policy.
+    public static ContactService durable(Path logFile, FsyncPolicy policy) throws IOException {
+        return durable(logFile, null, policy);
+    }
+
+    // As above, restoring from snapshotFile first when it exists and is intact, then
+    // replaying only the log records written after it. Enables snapshot().
+    public static ContactService durable(Path logFile, Path snapshotFile, FsyncPolicy policy) throws IOException {
+        ServiceEvents.Load load = ServiceEvents.beginLoad();
+        Map<String, Contact> contacts = new ConcurrentHashMap<>();
+        ContactPhoneIndex byPhone = new ContactPhoneIndex();
+        ContactNameIndex byName = new ContactNameIndex();
+        long from = snapshotFile == null
+            ? 0
+            : SnapshotFile.restoreOrDiscard(snapshotFile, entry -> replay(contacts, byPhone, byName, entry), () -> {
+                contacts.clear();
+                byPhone.clear();
+                byName.clear();
+            });
+        WriteAheadLog log = WriteAheadLog.open(logFile, policy, from, entry -> replay(contacts, byPhone, byName, entry));
+        ServiceEvents.load(load, "Contact", from > 0 ? "snapshot and log" : "log", contacts.size());
+        return new ContactService(contacts, byPhone, byName, true, log, snapshotFile);
+    }
 
-        contacts.put(id, contact);
+    // The throwing API maps try-API outcomes to exceptions, so each call is counted once.
+
+    public void addContact(Contact contact) {
+        OperationResult result = tryAddContact(contact);
+        if (result == OperationResult.INVALID_INPUT) {
+            throw new IllegalArgumentException("contact must not be null");
+        }
+        if (result == OperationResult.DUPLICATE_ID) {
+            throw new IllegalArgumentException("contactId already exists: " + contact.getContactId());
+        }
     }
 
     public void deleteContact(String contactId) {
-        requireNonNullId(contactId);
+        OperationResult result = tryDeleteContact(contactId);
+        if (result == OperationResult.INVALID_INPUT) {
+            throw new IllegalArgumentException("contactId must not be null");
+        }
+        if (result == OperationResult.NOT_FOUND) {
+            throw new IllegalArgumentException("contactId not found: " + contactId);
+        }
+    }
 
-        if (!contacts.containsKey(contactId)) {
+    // Null values are skipped; non-null values are validated before anything is applied.
+    public void updateContact(String contactId, String firstName, String lastName, String phone, String address) {
+        OperationResult result = tryUpdateContact(contactId, firstName, lastName, phone, address);
+        if (result == OperationResult.INVALID_INPUT) {
+            // Re-run the checks that failed to report which argument was rejected.
+            requireNonNullId(contactId);
+            Contact.requireValidUpdate(firstName, lastName, phone, address);
+        }
+        if (result == OperationResult.NOT_FOUND) {
             throw new IllegalArgumentException("contactId not found: " + contactId);
         }
+    }
 
-        contacts.remove(contactId);
+    // Optimistic update: applies only if the stored contact is still at expectedVersion, the
+    // value getVersion() returned when the caller read it, and returns false otherwise so the
+    // caller can re-read and retry. Invalid arguments and unknown ids throw as above.
+    public boolean updateContact(String contactId, long expectedVersion, String firstName, String lastName,
+                                 String phone, String address) {
+        OperationResult result = tryUpdateContact(contactId, expectedVersion, firstName, lastName, phone, address);
+        if (result == OperationResult.INVALID_INPUT) {
+            requireNonNullId(contactId);
+            requireVersion(expectedVersion);
+            Contact.requireValidUpdate(firstName, lastName, phone, address);
+        }
+        if (result == OperationResult.NOT_FOUND) {
+            throw new IllegalArgumentException("contactId not found: " + contactId);
+        }
+        return result == OperationResult.OK;
     }
 
-    public void updateContact(String contactId, String firstName, String lastName, String phone, String address) {
-        requireNonNullId(contactId);
+    // Non-throwing counterparts of add, delete, and update for hot paths where duplicate
+    // and unknown ids are routine. Outcomes are reported as shared enum constants.
+    public OperationResult tryAddContact(Contact contact) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = contact == null ? OperationResult.INVALID_INPUT : insert(contact);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.ADD, result, started);
+        ServiceEvents.operation(event, "Contact", ServiceMetrics.Operation.ADD, result, contact == null ? null : contact.getContactId());
+        return result;
+    }
+
+    public OperationResult tryDeleteContact(String contactId) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = contactId == null ? OperationResult.INVALID_INPUT : remove(contactId);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.DELETE, result, started);
+        ServiceEvents.operation(event, "Contact", ServiceMetrics.Operation.DELETE, result, contactId);
+        return result;
+    }
+
+    // Fields are checked before anything is applied, so a rejected update changes nothing.
+    public OperationResult tryUpdateContact(String contactId, String firstName, String lastName, String phone, String address) {
+        return tryUpdate(contactId, ANY_VERSION, firstName, lastName, phone, address);
+    }
+
+    // As above, applied only if the stored contact is still at expectedVersion; VERSION_CONFLICT
+    // otherwise. A negative expectedVersion is INVALID_INPUT.
+    public OperationResult tryUpdateContact(String contactId, long expectedVersion, String firstName, String lastName,
+                                            String phone, String address) {
+        return tryUpdate(contactId, expectedVersion < 0 ? INVALID_VERSION : expectedVersion,
+            firstName, lastName, phone, address);
+    }
+
+    // Bulk add: checks the whole batch, then stores all of it or none of it. A rejected batch
+    // throws BatchRejectedException listing every null record, id repeated within the batch,
+    // and id already stored. The batch is one service.Load event rather than per-add metrics
+    // and events. In durable mode it is one log record and one fsync, so a restart recovers
+    // all of it or none of it. In concurrent mode the bulk add is not atomic: contacts are
+    // stored one by one, so readers can see part of a batch that is then rejected and taken
+    // back out. A contact another writer updated before the rollback stays stored, and
+    // getKeptIds() lists it.
+    public void addContacts(Collection<Contact> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("contacts must not be null");
+        }
+
+        ServiceEvents.Load load = ServiceEvents.beginLoad();
+        Contact[] records = batch.toArray(new Contact[0]);
+        List<BatchFailure> failures = new ArrayList<>();
+        Map<String, Contact> staged = BulkAdd.stage(records, Contact::getContactId, "contact", "contactId", failures);
+        List<String> kept = List.of();
+
+        if (log == null) {
+            BulkAdd.rejectStored(records, Contact::getContactId, staged, contacts, "contactId", failures);
+            if (failures.isEmpty()) {
+                kept = storeAll(records, staged, failures);
+            }
+        } else if (!staged.isEmpty()) {
+            // Encoded before taking the log monitor, so other writers wait only for the checks.
+            // Stored ids are checked even when staging failed, so the report matches default mode.
+            BinaryCodec.Writer batchRecord = failures.isEmpty()
+                ? BulkAdd.logRecord(OP_ADD_BATCH, staged.values(), staged.size(), ContactService::encodeAdd)
+                : null;
+            long sequence = 0;
+            synchronized (log) {
+                BulkAdd.rejectStored(records, Contact::getContactId, staged, contacts, "contactId", failures);
+                if (failures.isEmpty()) {
+                    sequence = log.append(batchRecord);
+                    contacts.putAll(staged);
+                    indexAll(byPhone, byName, staged.values());
+                }
+            }
+            if (failures.isEmpty()) {
+                log.awaitDurable(sequence);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            BulkAdd.sort(failures);
+            throw new BatchRejectedException(records.length, failures, kept);
+        }
+        ServiceEvents.load(load, "Contact", "batch", records.length);
+    }
+
+    // Returns the contact with the given id, or null if not found.
+    public Contact getContact(String contactId) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        if (contactId == null) {
+            ServiceMetrics.record(metrics, ServiceMetrics.Operation.GET, OperationResult.INVALID_INPUT, started);
+            ServiceEvents.operation(event, "Contact", ServiceMetrics.Operation.GET, OperationResult.INVALID_INPUT, null);
+            throw new IllegalArgumentException("contactId must not be null");
+        }
+        Contact contact = contacts.get(contactId);
+        OperationResult result = contact != null ? OperationResult.OK : OperationResult.NOT_FOUND;
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.GET, result, started);
+        ServiceEvents.operation(event, "Contact", ServiceMetrics.Operation.GET, result, contactId);
+        return contact;
+    }
+
+    public int getContactCount() {
+        return contacts.size();
+    }
+
+    // Passes each stored contact to action without copying the store, so memory use does not
+    // grow with it. Order is unspecified. In concurrent and durable mode writers may run
+    // alongside and each contact is seen as of some point during the pass; versioned mode
+    // passes over one version. Otherwise no writes may happen until it returns.
+    public void forEachContact(Consumer<? super Contact> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("action must not be null");
+        }
+        contacts.values().forEach(action);
+    }
+
+    // Every contact as of this moment, without copying and without blocking writers. Only in
+    // versioned mode; IllegalStateException otherwise.
+    public StoreSnapshot<Contact> readSnapshot() {
+        if (!(contacts instanceof VersionedMap<Contact> versions)) {
+            throw new IllegalStateException("read snapshots require versioned mode");
+        }
+        return versions.snapshot();
+    }
+
+    // Reverse lookup: contacts whose phone is exactly phone. Phones are not unique, so
+    // several contacts may match. Cost is independent of the number of contacts.
+    public List<Contact> getContactsByPhone(String phone) {
+        Validation.requireDigits(phone, "phone", ContactPhoneIndex.PHONE_DIGITS);
+        requireIndexes();
+        return byPhone.withPhone(phone);
+    }
+
+    // Contacts whose phone starts with prefix, such as a three-digit area code, in phone order.
+    // An empty prefix matches every contact.
+    public List<Contact> getContactsByPhonePrefix(String prefix) {
+        Validation.requireDigitPrefix(prefix, "phonePrefix", ContactPhoneIndex.PHONE_DIGITS);
+        requireIndexes();
+        return byPhone.withPrefix(prefix);
+    }
+
+    public int countContactsByPhonePrefix(String prefix) {
+        Validation.requireDigitPrefix(prefix, "phonePrefix", ContactPhoneIndex.PHONE_DIGITS);
+        requireIndexes();
+        return byPhone.countWithPrefix(prefix);
+    }
+
+    // Search-as-you-type: up to limit contacts whose first or last name starts with prefix,
+    // ignoring case. Ordered by the matching name, so an exact match ranks first.
+    public List<Contact> searchByName(String prefix, int limit) {
+        requireQuery(prefix, limit);
+        requireIndexes();
+        return byName.withPrefix(prefix, limit);
+    }
+
+    // Typo-tolerant search: up to limit contacts whose first or last name is most similar to
+    // query by trigram overlap, best match first. Names below a minimum similarity are omitted.
+    public List<Contact> searchByNameFuzzy(String query, int limit) {
+        requireQuery(query, limit);
+        requireIndexes();
+        return byName.similarTo(query, limit);
+    }
+
+    // Writes a snapshot in the background. Writers are held only while the current contacts
+    // and log position are captured; encoding and disk writes happen after they resume.
+    // Once it is durable, log records older than the previous snapshot are dropped.
+    public CompletableFuture<Void> snapshot() {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("snapshots require durable mode with a snapshot file");
+        }
+
+        long position;
+        List<Contact> image;
+        synchronized (log) {
+            position = log.position();
+            image = new ArrayList<>(contacts.values());
+        }
+        // The snapshot must not point past the log on disk.
+        log.sync();
+        return SnapshotFile.writeAsync(snapshotFile, position, image, ContactService::encodeRestore)
+            .thenAccept(previous -> log.truncateBefore(Math.min(previous, position)));
+    }
+
+    // Hits, misses, and evictions of the memory budget so far; bounded engine only.
+    public CacheStats cacheStats() {
+        return StorageEngine.cacheStats(contacts);
+    }
+
+    // Lookups the id filter answered and its false-positive rate so far; withIdFilter() only.
+    public FilterStats filterStats() {
+        return StorageEngine.filterStats(contacts);
+    }
+
+    // Whether lookups change the store, so AsyncServices must not run two reads at once.
+    boolean readsWrite() {
+        return StorageEngine.readsWrite(contacts);
+    }
+
+    // Turns on per-operation counts and latency histograms and returns them; later calls
+    // return the same metrics. Calls already in progress are not counted.
+    public synchronized ServiceMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new ServiceMetrics();
+        }
+        return metrics;
+    }
+
+    // Releases the log in durable mode and the disk and bounded engines' file; a no-op otherwise.
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        if (contacts instanceof Closeable store) {
+            store.close();
+        }
+    }
+
+    // Shared by both update forms; expectedVersion is ANY_VERSION, a version, or INVALID_VERSION.
+    private OperationResult tryUpdate(String contactId, long expectedVersion, String firstName, String lastName,
+                                      String phone, String address) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = contactId == null || expectedVersion == INVALID_VERSION
+            || !Contact.acceptsUpdate(firstName, lastName, phone, address)
+            ? OperationResult.INVALID_INPUT
+            : update(contactId, expectedVersion, firstName, lastName, phone, address);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.UPDATE, result, started);
+        ServiceEvents.operation(event, "Contact", ServiceMetrics.Operation.UPDATE, result, contactId);
+        return result;
+    }
+
+    // Mutation core shared by the throwing and try APIs; arguments are already checked.
+    // Durable writes check, append, then apply while holding the log monitor, so the log
+    // order is the apply order and a failed append leaves memory untouched.
+    // Without a log, index entries are added inside per-key atomic map operations or after a
+    // compare-and-set, and removed by instance, so racing writers on one id cannot strand or
+    // drop an entry.
+
+    private OperationResult insert(Contact contact) {
+        String id = contact.getContactId();
+
+        if (log == null) {
+            freezeIfVersioned(contact);
+            // Add-if-absent in one step; no window between the check and the insert.
+            if (contacts.putIfAbsent(id, contact) != null) {
+                return OperationResult.DUPLICATE_ID;
+            }
+            // Single-threaded stores index straight away: a second lookup would count as a
+            // cache hit on the bounded engine and move the key in its LRU order.
+            if (!concurrent) {
+                index(byPhone, byName, contact);
+                return OperationResult.OK;
+            }
+            // Indexed inside the key's atomic section, and skipped if a concurrent delete or
+            // update already replaced this exact instance.
+            contacts.computeIfPresent(id, (key, current) -> {
+                if (current == contact) {
+                    index(byPhone, byName, contact);
+                }
+                return current;
+            });
+            return OperationResult.OK;
+        }
+
+        long sequence;
+        synchronized (log) {
+            if (contacts.containsKey(id)) {
+                return OperationResult.DUPLICATE_ID;
+            }
+            record.reset();
+            encodeAdd(contact, record);
+            sequence = log.append(record);
+            contacts.put(id, contact);
+            index(byPhone, byName, contact);
+        }
+        log.awaitDurable(sequence);
+        return OperationResult.OK;
+    }
+
+    private OperationResult remove(String contactId) {
+        if (log == null) {
+            // Remove-if-present in one step.
+            Contact removed = contacts.remove(contactId);
+            if (removed == null) {
+                return OperationResult.NOT_FOUND;
+            }
+            unindex(byPhone, byName, indexed(removed));
+            return OperationResult.OK;
+        }
+
+        long sequence;
+        synchronized (log) {
+            if (!contacts.containsKey(contactId)) {
+                return OperationResult.NOT_FOUND;
+            }
+            record.reset();
+            record.writeByte(OP_DELETE).writeString(contactId);
+            sequence = log.append(record);
+            unindex(byPhone, byName, contacts.remove(contactId));
+        }
+        log.awaitDurable(sequence);
+        return OperationResult.OK;
+    }
+
+    private OperationResult update(String contactId, long expectedVersion, String firstName, String lastName,
+                                   String phone, String address) {
+        if (log != null) {
+            long sequence;
+            synchronized (log) {
+                Contact current = contacts.get(contactId);
+                if (current == null) {
+                    return OperationResult.NOT_FOUND;
+                }
+                if (stale(current, expectedVersion)) {
+                    return OperationResult.VERSION_CONFLICT;
+                }
+                Contact replacement = current.withUpdates(firstName, lastName, phone, address);
+                record.reset();
+                record.writeByte(OP_UPDATE)
+                    .writeString(contactId)
+                    .writeString(firstName)
+                    .writeString(lastName)
+                    .writeString(phone)
+                    .writeString(address);
+                sequence = log.append(record);
+                contacts.put(contactId, replacement);
+                reindex(byPhone, byName, current, replacement);
+            }
+            log.awaitDurable(sequence);
+            return OperationResult.OK;
+        }
+
+        if (concurrent) {
+            // Optimistic: the replacement is built from the contact read, with no lock held, and
+            // published only if that same contact is still stored. A writer that loses the race
+            // rebuilds from the winner's contact, unless it asked for the version that was lost.
+            while (true) {
+                Contact current = contacts.get(contactId);
+                if (current == null) {
+                    return OperationResult.NOT_FOUND;
+                }
+                if (stale(current, expectedVersion)) {
+                    return OperationResult.VERSION_CONFLICT;
+                }
+                Contact replacement = current.withUpdates(firstName, lastName, phone, address);
+                freezeIfVersioned(replacement);
+                if (contacts.replace(contactId, current, replacement)) {
+                    reindexIfStored(contacts, byPhone, byName, current, replacement);
+                    return OperationResult.OK;
+                }
+            }
+        }
 
         Contact target = contacts.get(contactId);
         if (target == null) {
-            throw new IllegalArgumentException("contactId not found: " + contactId);
+            return OperationResult.NOT_FOUND;
+        }
+        if (stale(target, expectedVersion)) {
+            return OperationResult.VERSION_CONFLICT;
         }
 
-        // Null values are skipped; non-null values are validated and applied.
+        // Indexed fields change in place, so the old entries go before the setters run.
+        boolean indexed = firstName != null || lastName != null || phone != null;
+        if (indexed) {
+            unindex(byPhone, byName, indexed(target));
+        }
         if (firstName != null) {
             target.setFirstName(firstName);
         }
@@ -53,16 +589,249 @@ public final class ContactService {
         if (address != null) {
             target.setAddress(address);
         }
+        target.setVersion(target.getVersion() + 1);
+        if (indexed) {
+            index(byPhone, byName, target);
+        }
+        if (StorageEngine.storesCopies(contacts)) {
+            contacts.put(contactId, target);
+        }
+        return OperationResult.OK;
     }
 
-    // Returns the contact with the given id, or null if not found.
-    public Contact getContact(String contactId) {
-        requireNonNullId(contactId);
-        return contacts.get(contactId);
+    // Applies a checked batch without a log. Default mode hands the map one pre-sized putAll.
+    // Versioned mode rechecks and stores under the writer monitor, so the batch is one
+    // version. Concurrent mode inserts each contact as insert() does, so a racing add is never
+    // overwritten; if one wins an id first, the contacts stored so far are taken back out
+    // and the batch is rejected. A contact replaced by an update in the meantime is not ours
+    // to remove, so its id is returned as kept; otherwise the result is empty.
+    private List<String> storeAll(Contact[] records, Map<String, Contact> staged, List<BatchFailure> failures) {
+        if (!concurrent) {
+            contacts.putAll(staged);
+            indexAll(byPhone, byName, staged.values());
+            return List.of();
+        }
+        if (contacts instanceof VersionedMap) {
+            synchronized (contacts) {
+                BulkAdd.rejectStored(records, Contact::getContactId, staged, contacts, "contactId", failures);
+                if (failures.isEmpty()) {
+                    staged.values().forEach(Contact::freeze);
+                    contacts.putAll(staged);
+                    indexAll(byPhone, byName, staged.values());
+                }
+            }
+            return List.of();
+        }
+
+        List<Contact> stored = new ArrayList<>(staged.size());
+        for (Contact contact : staged.values()) {
+            String id = contact.getContactId();
+            if (contacts.putIfAbsent(id, contact) != null) {
+                List<String> kept = new ArrayList<>();
+                for (Contact added : stored) {
+                    if (contacts.remove(added.getContactId(), added)) {
+                        unindex(byPhone, byName, added);
+                    } else if (contacts.containsKey(added.getContactId())) {
+                        kept.add(added.getContactId());
+                    }
+                }
+                failures.add(new BatchFailure(BulkAdd.indexOf(records, contact), id, OperationResult.DUPLICATE_ID,
+                    "contactId already exists: " + id));
+                return kept;
+            }
+            contacts.computeIfPresent(id, (key, current) -> {
+                if (current == contact) {
+                    index(byPhone, byName, contact);
+                }
+                return current;
+            });
+            stored.add(contact);
+        }
+        return List.of();
     }
 
-    public int getContactCount() {
-        return contacts.size();
+    // Snapshots share every version a VersionedMap publishes, so it is frozen first.
+    private void freezeIfVersioned(Contact contact) {
+        if (contacts instanceof VersionedMap) {
+            contact.freeze();
+        }
+    }
+
+    private static boolean stale(Contact current, long expectedVersion) {
+        return expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion;
+    }
+
+    // Log entry for an added contact.
+    private static void encodeAdd(Contact contact, BinaryCodec.Writer out) {
+        encodeFields(OP_ADD, contact, out);
+    }
+
+    // Snapshot entry for a stored contact, keeping its version across a restart.
+    private static void encodeRestore(Contact contact, BinaryCodec.Writer out) {
+        encodeFields(OP_RESTORE, contact, out);
+        out.writeVarLong(contact.getVersion());
+    }
+
+    private static void encodeFields(byte op, Contact contact, BinaryCodec.Writer out) {
+        out.writeByte(op)
+            .writeString(contact.getContactId())
+            .writeString(contact.getFirstName())
+            .writeString(contact.getLastName())
+            .writeString(contact.getPhone())
+            .writeString(contact.getAddress());
+    }
+
+    // The instance the indexes hold for stored. The disk engine hands back a decoded copy
+    // unless the caller still holds an earlier one, so there it is found by id among the
+    // contacts sharing the phone; the indexes remove by instance.
+    private Contact indexed(Contact stored) {
+        if (byPhone == null || !StorageEngine.storesCopies(contacts)) {
+            return stored;
+        }
+        for (Contact candidate : byPhone.withPhone(stored.getPhone())) {
+            if (candidate.getContactId().equals(stored.getContactId())) {
+                return candidate;
+            }
+        }
+        return stored;
+    }
+
+    // index, indexAll, and unindex skip the missing indexes of the bounded engine, which only
+    // runs the default-mode paths that call them.
+    private static void index(ContactPhoneIndex byPhone, ContactNameIndex byName, Contact contact) {
+        if (byPhone == null) {
+            return;
+        }
+        byPhone.add(contact);
+        byName.add(contact);
+    }
+
+    // Holds each index monitor once for the whole batch instead of once per contact.
+    private static void indexAll(ContactPhoneIndex byPhone, ContactNameIndex byName, Collection<Contact> added) {
+        if (byPhone == null) {
+            return;
+        }
+        synchronized (byPhone) {
+            for (Contact contact : added) {
+                byPhone.add(contact);
+            }
+        }
+        synchronized (byName) {
+            for (Contact contact : added) {
+                byName.add(contact);
+            }
+        }
+    }
+
+    // Moves index entries from current to replacement after a compare-and-set stored it. Each
+    // index adds replacement only if it is still stored, checked under that index's monitor:
+    // a later update or delete of the id reindexes after its own map write, so it either
+    // finds replacement to remove or has already made this check fail.
+    private static void reindexIfStored(Map<String, Contact> contacts, ContactPhoneIndex byPhone,
+                                        ContactNameIndex byName, Contact current, Contact replacement) {
+        String id = replacement.getContactId();
+        synchronized (byPhone) {
+            byPhone.remove(current);
+            if (contacts.get(id) == replacement) {
+                byPhone.add(replacement);
+            }
+        }
+        synchronized (byName) {
+            byName.remove(current);
+            if (contacts.get(id) == replacement) {
+                byName.add(replacement);
+            }
+        }
+    }
+
+    private static void unindex(ContactPhoneIndex byPhone, ContactNameIndex byName, Contact contact) {
+        if (byPhone == null) {
+            return;
+        }
+        byPhone.remove(contact);
+        byName.remove(contact);
+    }
+
+    // Moves index entries from current to replacement, which share an id. Each index swaps
+    // under its own monitor so its readers never see the contact missing.
+    private static void reindex(ContactPhoneIndex byPhone, ContactNameIndex byName,
+                                Contact current, Contact replacement) {
+        synchronized (byPhone) {
+            byPhone.remove(current);
+            byPhone.add(replacement);
+        }
+        synchronized (byName) {
+            byName.remove(current);
+            byName.add(replacement);
+        }
+    }
+
+    // Applies one logged operation during open. Only successful operations are logged,
+    // so a record that does not fit the rebuilt state means the log is not ours.
+    private static void replay(Map<String, Contact> contacts, ContactPhoneIndex byPhone, ContactNameIndex byName,
+                               BinaryCodec.Reader entry) {
+        byte op = entry.readByte();
+        if (op == OP_ADD_BATCH) {
+            for (int count = entry.readInt(); count > 0; count--) {
+                replay(contacts, byPhone, byName, entry);
+            }
+            return;
+        }
+        String id = entry.readString();
+
+        boolean applied;
+        switch (op) {
+            case OP_ADD:
+            case OP_RESTORE:
+                Contact added = new Contact(id, entry.readString(), entry.readString(), entry.readString(), entry.readString());
+                if (op == OP_RESTORE) {
+                    added.setVersion(entry.readVarLong());
+                }
+                applied = contacts.putIfAbsent(id, added) == null;
+                if (applied) {
+                    index(byPhone, byName, added);
+                }
+                break;
+            case OP_DELETE:
+                Contact removed = contacts.remove(id);
+                applied = removed != null;
+                if (applied) {
+                    unindex(byPhone, byName, removed);
+                }
+                break;
+            case OP_UPDATE:
+                String firstName = entry.readString();
+                String lastName = entry.readString();
+                String phone = entry.readString();
+                String address = entry.readString();
+                applied = contacts.computeIfPresent(id, (key, current) -> {
+                    Contact replacement = current.withUpdates(firstName, lastName, phone, address);
+                    reindex(byPhone, byName, current, replacement);
+                    return replacement;
+                }) != null;
+                break;
+            default:
+                throw new IllegalStateException("unknown contact log operation: " + op);
+        }
+
+        if (!applied) {
+            throw new IllegalStateException("contact log does not match replayed state at contactId: " + id);
+        }
+    }
+
+    private void requireIndexes() {
+        if (byPhone == null) {
+            throw new IllegalStateException("phone and name lookups are not available on the bounded engine");
+        }
+    }
+
+    private static void requireQuery(String query, int limit) {
+        if (query == null || query.isEmpty()) {
+            throw new IllegalArgumentException("query must not be null or empty");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
     }
 
     private static void requireNonNullId(String contactId) {
@@ -70,4 +839,10 @@ public final class ContactService {
             throw new IllegalArgumentException("contactId must not be null");
         }
     }
+
+    private static void requireVersion(long expectedVersion) {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("expectedVersion must not be negative");
+        }
+    }
 }
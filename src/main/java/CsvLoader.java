@@ -0,0 +1,403 @@
+// Component: CsvLoader
+// Purpose: Bulk import of contact, task, and appointment CSV dumps into the services, with
+// rejected rows written to an error file instead of aborting the load.
+// Strategy: the file is cut into chunks of about CHUNK_BYTES that end on a line break, each
+// chunk is memory-mapped and parsed on a fork-join pool, and the entity constructors do the
+// validation. Parsed chunks are taken back in file order and fed to the service in batches
+// through its all-or-nothing bulk add; records a batch rejects are dropped and the rest of
+// the batch is retried. At most two chunks per pool thread are in flight, so memory stays
+// bounded however large the file is.
+// Concurrency: parsing runs on the pool; the service is fed from the calling thread only, so
+// services that are not thread-safe can be loaded.
+// Format: one record per line, UTF-8, comma-separated. A field may be quoted to hold commas,
+// with "" for a quote inside it; line breaks inside fields are not supported. A first line
+// matching the column header is skipped, as are blank lines.
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public final class CsvLoader {
+
+    static final String CONTACT_HEADER = "contactId,firstName,lastName,phone,address";
+    static final String TASK_HEADER = "taskId,name,description";
+    static final String APPOINTMENT_HEADER = "appointmentId,appointmentDate,duration,description";
+
+    static final int CHUNK_BYTES = 16 << 20;
+    static final int BATCH_SIZE = 10_000;
+
+    private static final int SCAN_BYTES = 8192;
+
+    private CsvLoader() {
+    }
+
+    // Counts for one load. Rows excludes the header and blank lines; every row is either
+    // loaded or rejected.
+    public static final class Result {
+        private final long rows;
+        private final long loaded;
+        private final long rejected;
+
+        Result(long rows, long loaded, long rejected) {
+            this.rows = rows;
+            this.loaded = loaded;
+            this.rejected = rejected;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getLoaded() {
+            return loaded;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, " + loaded + " loaded, " + rejected + " rejected";
+        }
+    }
+
+    // Rows are contactId,firstName,lastName,phone,address.
+    public static Result loadContacts(Path csv, ContactService service, Path errorFile) throws IOException {
+        return load(csv, errorFile, "Contact", CONTACT_HEADER, CsvLoader::contact, service::addContacts,
+            ForkJoinPool.commonPool(), CHUNK_BYTES);
+    }
+
+    // Rows are taskId,name,description.
+    public static Result loadTasks(Path csv, TaskService service, Path errorFile) throws IOException {
+        return load(csv, errorFile, "Task", TASK_HEADER, CsvLoader::task, service::addTasks,
+            ForkJoinPool.commonPool(), CHUNK_BYTES);
+    }
+
+    // Rows are appointmentId,appointmentDate,duration,description, with the date as an
+    // ISO-8601 instant (2030-01-15T09:30:00Z) and the duration as ISO-8601 (PT30M) or empty
+    // for none.
+    public static Result loadAppointments(Path csv, AppointmentService service, Path errorFile) throws IOException {
+        return load(csv, errorFile, "Appointment", APPOINTMENT_HEADER, CsvLoader::appointment,
+            service::addAppointments, ForkJoinPool.commonPool(), CHUNK_BYTES);
+    }
+
+    static Contact contact(String[] fields) {
+        return new Contact(fields[0], fields[1], fields[2], fields[3], fields[4]);
+    }
+
+    static Task task(String[] fields) {
+        return new Task(fields[0], fields[1], fields[2]);
+    }
+
+    static Appointment appointment(String[] fields) {
+        Instant start;
+        try {
+            start = Instant.parse(fields[1]);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("appointmentDate must be an ISO-8601 instant: " + fields[1]);
+        }
+        Duration duration;
+        try {
+            duration = fields[2].isEmpty() ? Duration.ZERO : Duration.parse(fields[2]);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("duration must be an ISO-8601 duration: " + fields[2]);
+        }
+        return new Appointment(fields[0], Date.from(start), duration, fields[3]);
+    }
+
+    static <T> Result load(Path csv, Path errorFile, String entity, String header, Function<String[], T> parser,
+                           Consumer<List<T>> sink, ForkJoinPool pool, int chunkBytes) throws IOException {
+        int columns = header.split(",").length;
+        ServiceEvents.Load event = ServiceEvents.beginLoad();
+        Deque<ForkJoinTask<Chunk<T>>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ);
+             BufferedWriter errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8)) {
+            errors.write("line,reason,row");
+            errors.newLine();
+            List<long[]> ranges = split(channel, chunkBytes);
+            int window = Math.max(2, pool.getParallelism() * 2);
+            int next = 0;
+            long linesBefore = 0;
+            long rows = 0;
+            long loaded = 0;
+            long rejected = 0;
+            while (next < ranges.size() || !inFlight.isEmpty()) {
+                while (next < ranges.size() && inFlight.size() < window) {
+                    long[] range = ranges.get(next);
+                    boolean first = next == 0;
+                    inFlight.add(pool.submit(() -> parse(channel, range[0], range[1], first, header, columns, parser)));
+                    next++;
+                }
+                Chunk<T> chunk = inFlight.poll().join();
+                feed(chunk, sink);
+                chunk.writeRejects(errors, linesBefore);
+                linesBefore += chunk.lines;
+                rows += chunk.rows;
+                loaded += chunk.loaded;
+                rejected += chunk.rejects.size();
+            }
+            ServiceEvents.load(event, entity, "csv", loaded);
+            return new Result(rows, loaded, rejected);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (ForkJoinTask<Chunk<T>> task : inFlight) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    // [start, end) byte ranges of about chunkBytes each, every one ending just after a line
+    // break or at the end of the file.
+    static List<long[]> split(FileChannel channel, int chunkBytes) throws IOException {
+        long size = channel.size();
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BYTES);
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkBytes;
+            if (end >= size) {
+                end = size;
+            } else {
+                end = lineEnd(channel, end, size, scan);
+            }
+            ranges.add(new long[] {start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    // Position just after the first line break at or after from, or size if there is none.
+    private static long lineEnd(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    static <T> Chunk<T> parse(FileChannel channel, long start, long end, boolean first, String header,
+                              int columns, Function<String[], T> parser) {
+        String text;
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            byte[] bytes = new byte[mapped.remaining()];
+            mapped.get(bytes);
+            text = new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("csv read failed at byte " + start, e);
+        }
+        Chunk<T> chunk = new Chunk<>(text);
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            int next = lineEnd < 0 ? text.length() : lineEnd + 1;
+            lineEnd = lineEnd < 0 ? text.length() : lineEnd;
+            if (lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            chunk.lines++;
+            if (lineEnd > lineStart && !(first && chunk.lines == 1 && text.startsWith(header, lineStart)
+                    && lineStart + header.length() == lineEnd)) {
+                chunk.rows++;
+                try {
+                    chunk.add(parser.apply(fields(text, lineStart, lineEnd, columns)), lineStart, lineEnd);
+                } catch (IllegalArgumentException e) {
+                    chunk.reject(lineStart, lineEnd, String.valueOf(e.getMessage()));
+                }
+            }
+            lineStart = next;
+        }
+        return chunk;
+    }
+
+    // Fields of text[start, end); exactly columns of them or IllegalArgumentException.
+    static String[] fields(String text, int start, int end, int columns) {
+        String[] fields = new String[columns];
+        int count = 0;
+        int i = start;
+        while (true) {
+            String field;
+            if (i < end && text.charAt(i) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= end) {
+                        throw new IllegalArgumentException("unterminated quoted field " + (count + 1));
+                    }
+                    char c = text.charAt(i++);
+                    if (c != '"') {
+                        quoted.append(c);
+                    } else if (i < end && text.charAt(i) == '"') {
+                        quoted.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < end && text.charAt(i) != ',') {
+                    throw new IllegalArgumentException("text after closing quote in field " + (count + 1));
+                }
+                field = quoted.toString();
+            } else {
+                int comma = text.indexOf(',', i);
+                int fieldEnd = comma < 0 || comma > end ? end : comma;
+                field = text.substring(i, fieldEnd);
+                i = fieldEnd;
+            }
+            if (count == columns) {
+                throw new IllegalArgumentException("expected " + columns + " fields, found more");
+            }
+            fields[count++] = field;
+            if (i >= end) {
+                break;
+            }
+            i++;
+        }
+        if (count != columns) {
+            throw new IllegalArgumentException("expected " + columns + " fields, found " + count);
+        }
+        return fields;
+    }
+
+    // Adds the chunk's records in batches. A rejected batch has its failed records moved to
+    // the chunk's rejects and the rest retried; each retry drops at least one record.
+    static <T> void feed(Chunk<T> chunk, Consumer<List<T>> sink) {
+        for (int from = 0; from < chunk.records.size(); from += BATCH_SIZE) {
+            int to = Math.min(chunk.records.size(), from + BATCH_SIZE);
+            List<T> batch = new ArrayList<>(chunk.records.subList(from, to));
+            List<Integer> positions = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                positions.add(i);
+            }
+            while (!batch.isEmpty()) {
+                try {
+                    sink.accept(batch);
+                    chunk.loaded += batch.size();
+                    break;
+                } catch (BatchRejectedException e) {
+                    boolean[] failed = new boolean[batch.size()];
+                    for (BatchFailure failure : e.getFailures()) {
+                        failed[failure.getIndex()] = true;
+                        int record = positions.get(failure.getIndex());
+                        chunk.reject(chunk.rowStarts[record], chunk.rowEnds[record], reason(failure));
+                    }
+                    List<T> kept = new ArrayList<>(batch.size());
+                    List<Integer> keptPositions = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (!failed[i]) {
+                            kept.add(batch.get(i));
+                            keptPositions.add(positions.get(i));
+                        }
+                    }
+                    batch = kept;
+                    positions = keptPositions;
+                }
+            }
+        }
+    }
+
+    // Batch positions mean nothing in the error file, so a repeated id, stored or earlier in
+    // the batch, is reported by value alone.
+    static String reason(BatchFailure failure) {
+        return failure.getReason() == OperationResult.DUPLICATE_ID ? "duplicate id: " + failure.getId() : failure.getMessage();
+    }
+
+    // One parsed chunk: its decoded text, the records it produced with the span of the line
+    // each came from, and the rows rejected so far.
+    static final class Chunk<T> {
+        final String text;
+        final List<T> records = new ArrayList<>();
+        final List<Reject> rejects = new ArrayList<>();
+        int[] rowStarts = new int[64];
+        int[] rowEnds = new int[64];
+        int lines;
+        long rows;
+        long loaded;
+
+        Chunk(String text) {
+            this.text = text;
+        }
+
+        void add(T record, int start, int end) {
+            int i = records.size();
+            if (i == rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, i * 2);
+                rowEnds = Arrays.copyOf(rowEnds, i * 2);
+            }
+            rowStarts[i] = start;
+            rowEnds[i] = end;
+            records.add(record);
+        }
+
+        void reject(int start, int end, String reason) {
+            rejects.add(new Reject(start, end, reason));
+        }
+
+        // Writes the rejects in line order, numbering lines from 1 across the whole file.
+        void writeRejects(BufferedWriter out, long linesBefore) throws IOException {
+            rejects.sort((a, b) -> Integer.compare(a.start, b.start));
+            int line = 1;
+            int scanned = 0;
+            for (Reject reject : rejects) {
+                for (int i = text.indexOf('\n', scanned); i >= 0 && i < reject.start; i = text.indexOf('\n', i + 1)) {
+                    line++;
+                    scanned = i + 1;
+                }
+                out.write(Long.toString(linesBefore + line));
+                out.write(',');
+                out.write(quote(reject.reason));
+                out.write(',');
+                out.write(quote(text.substring(reject.start, reject.end)));
+                out.newLine();
+            }
+        }
+    }
+
+    private static final class Reject {
+        final int start;
+        final int end;
+        final String reason;
+
+        Reject(int start, int end, String reason) {
+            this.start = start;
+            this.end = end;
+            this.reason = reason;
+        }
+    }
+
+    static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,515 @@
+// Component: DiskMap
+// Purpose: String-keyed map whose values live in a file, for the disk() storage engine.
+// Strategy: an append-only data file of records encoded by the entity's codec, plus an
+// in-memory table from each key to its record's position and length, packed into one long
+// and probed over a long[] so no entry boxes its location. A put appends a new record and a
+// remove forgets the old one. Once dead records outweigh live ones, the live records are
+// copied to a fresh file that replaces the old one.
+// Values read back are cached by weak reference, so a value a caller still holds from an
+// earlier get is returned as the same instance. Writes do not fill the cache: the writer
+// already holds its value, and a later get decodes an equal copy. Values nobody holds can be
+// collected and are decoded again on the next get.
+// Concurrency: none, like HashMap; guard it externally to share it between threads.
+// Durability: none. The file is scratch space for values that do not need to stay on the
+// heap: it is truncated on open and deleted on close. Use durable() mode for data that must
+// survive a restart.
+// Operating principle: a value changed in place is not in the file until it is put again.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+final class DiskMap<V> extends AbstractMap<String, V> implements Closeable {
+
+    // A record location packs the file position above the record length.
+    private static final int LENGTH_BITS = 24;
+    static final int MAX_RECORD_BYTES = (1 << LENGTH_BITS) - 1;
+
+    // Compaction waits until at least this many bytes are dead, so small maps never rewrite.
+    private static final long MIN_DEAD_BYTES = 1 << 20;
+
+    private final Path file;
+    private final StorageEngine.Codec<V> codec;
+    private FileChannel channel;
+    private long end;
+
+    // Key to packed location of its live record.
+    private final Locations locations = new Locations();
+    private long liveBytes;
+    private long deadBytes;
+
+    private final Map<String, Cached<V>> cache = new HashMap<>();
+    private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+
+    private final BinaryCodec.Writer encoder = new BinaryCodec.Writer();
+
+    private DiskMap(Path file, StorageEngine.Codec<V> codec, FileChannel channel) {
+        this.file = file;
+        this.codec = codec;
+        this.channel = channel;
+    }
+
+    static <V> DiskMap<V> open(Path file, StorageEngine.Codec<V> codec) {
+        try {
+            return new DiskMap<>(file, codec, openChannel(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot open disk store " + file, e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return locations.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return locations.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        expunge();
+        long location = locations.get(key);
+        if (location == Locations.ABSENT) {
+            return null;
+        }
+        Cached<V> cached = cache.get(key);
+        V value = cached == null ? null : cached.get();
+        if (value == null) {
+            value = read(location);
+            cache.put((String) key, new Cached<>((String) key, value, collected));
+        }
+        return value;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        V previous = get(key);
+        write(key, value);
+        return previous;
+    }
+
+    @Override
+    public V putIfAbsent(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (locations.containsKey(key)) {
+            return get(key);
+        }
+        write(key, value);
+        return null;
+    }
+
+    @Override
+    public V computeIfPresent(String key, BiFunction<? super String, ? super V, ? extends V> remapping) {
+        V current = get(key);
+        if (current == null) {
+            return null;
+        }
+        V next = remapping.apply(key, current);
+        if (next == null) {
+            remove(key);
+        } else if (next != current) {
+            write(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V removed = get(key);
+        if (removed != null) {
+            forget(key);
+        }
+        return removed;
+    }
+
+    // Removes key without decoding its record, for callers that only need to know whether it
+    // was stored.
+    boolean discard(String key) {
+        if (!locations.containsKey(key)) {
+            return false;
+        }
+        forget(key);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot clear disk store " + file, e);
+        }
+        locations.clear();
+        cache.clear();
+        end = 0;
+        liveBytes = 0;
+        deadBytes = 0;
+    }
+
+    // Keys without reading their values from the file.
+    @Override
+    public Set<String> keySet() {
+        return locations.keySet();
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                Iterator<String> keys = locations.keySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, V> next() {
+                        String key = keys.next();
+                        return new SimpleImmutableEntry<>(key, get(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return locations.size();
+            }
+        };
+    }
+
+    // Bytes the data file occupies, live and dead.
+    long fileBytes() {
+        return end;
+    }
+
+    // Closes and deletes the data file.
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    private void write(String key, V value) {
+        expunge();
+        encoder.reset();
+        codec.encode(value, encoder);
+        int length = encoder.length();
+        if (length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("record for " + key + " is larger than " + MAX_RECORD_BYTES + " bytes");
+        }
+        try {
+            writeFully(channel, ByteBuffer.wrap(encoder.array(), 0, length), end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write disk store " + file, e);
+        }
+        long previous = locations.put(key, (end << LENGTH_BITS) | length);
+        end += length;
+        liveBytes += length;
+        if (previous != Locations.ABSENT) {
+            liveBytes -= recordBytes(previous);
+            deadBytes += recordBytes(previous);
+        }
+        // A copy decoded from the old record no longer matches the file.
+        Cached<V> cached = cache.get(key);
+        if (cached != null && cached.get() != value) {
+            cache.remove(key);
+        }
+        if (deadBytes > liveBytes && deadBytes >= MIN_DEAD_BYTES) {
+            compact();
+        }
+    }
+
+    private void forget(Object key) {
+        int length = recordBytes(locations.remove(key));
+        liveBytes -= length;
+        deadBytes += length;
+        cache.remove(key);
+    }
+
+    private V read(long location) {
+        ByteBuffer record = ByteBuffer.allocate(recordBytes(location));
+        try {
+            long position = location >>> LENGTH_BITS;
+            while (record.hasRemaining()) {
+                if (channel.read(record, position + record.position()) < 0) {
+                    throw new IllegalStateException("disk store " + file + " ends inside a record");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read disk store " + file, e);
+        }
+        return codec.decode(new BinaryCodec.Reader(record.flip()));
+    }
+
+    // Copies the live records to a new file, then moves it over the old one.
+    private void compact() {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long written = 0;
+            for (int slot = 0; slot < locations.capacity(); slot++) {
+                if (!locations.usedAt(slot)) {
+                    continue;
+                }
+                long location = locations.locationAt(slot);
+                int length = recordBytes(location);
+                long position = location >>> LENGTH_BITS;
+                for (long copied = 0; copied < length; ) {
+                    copied += channel.transferTo(position + copied, length - copied, target);
+                }
+                locations.relocate(slot, (written << LENGTH_BITS) | length);
+                written += length;
+            }
+            target.force(false);
+            channel.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            end = written;
+            deadBytes = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot compact disk store " + file, e);
+        }
+    }
+
+    // Drops cache entries whose values have been collected.
+    private void expunge() {
+        for (Object stale; (stale = collected.poll()) != null; ) {
+            Cached<?> entry = (Cached<?>) stale;
+            cache.remove(entry.key, entry);
+        }
+    }
+
+    private static int recordBytes(long location) {
+        return (int) (location & MAX_RECORD_BYTES);
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes, position + bytes.position());
+        }
+    }
+
+    // Linear probing over parallel key, location, and hash arrays, as in OpenAddressingMap, with
+    // the same backward-shift delete. Locations are never negative, so ABSENT marks a miss.
+    private static final class Locations {
+        static final long ABSENT = -1;
+
+        private String[] keys;
+        private long[] values;
+        private int[] hashes;
+        private int size;
+        private int modifications;
+
+        Locations() {
+            allocate(OpenAddressingMap.capacityFor(0));
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean containsKey(Object key) {
+            return key instanceof String && keys[locate((String) key)] != null;
+        }
+
+        long get(Object key) {
+            if (!(key instanceof String)) {
+                return ABSENT;
+            }
+            int position = locate((String) key);
+            return keys[position] == null ? ABSENT : values[position];
+        }
+
+        long put(String key, long location) {
+            int position = locate(key);
+            long previous = keys[position] == null ? ABSENT : values[position];
+            values[position] = location;
+            if (previous == ABSENT) {
+                keys[position] = key;
+                hashes[position] = OpenAddressingMap.spread(key.hashCode());
+                modifications++;
+                if (++size > keys.length - (keys.length >>> 2)) {
+                    rehash(keys.length * 2);
+                }
+            }
+            return previous;
+        }
+
+        long remove(Object key) {
+            if (!(key instanceof String)) {
+                return ABSENT;
+            }
+            int position = locate((String) key);
+            if (keys[position] == null) {
+                return ABSENT;
+            }
+            long removed = values[position];
+            removeAt(position);
+            return removed;
+        }
+
+        void clear() {
+            allocate(OpenAddressingMap.capacityFor(0));
+            size = 0;
+            modifications++;
+        }
+
+        // Slot access for compaction, which rewrites every location in place.
+        int capacity() {
+            return keys.length;
+        }
+
+        boolean usedAt(int slot) {
+            return keys[slot] != null;
+        }
+
+        long locationAt(int slot) {
+            return values[slot];
+        }
+
+        void relocate(int slot, long location) {
+            values[slot] = location;
+        }
+
+        // Read-only view; its iterator fails fast once the table changes.
+        Set<String> keySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new Iterator<>() {
+                        private final int expected = modifications;
+                        private int next = advance(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < keys.length;
+                        }
+
+                        @Override
+                        public String next() {
+                            if (modifications != expected) {
+                                throw new ConcurrentModificationException();
+                            }
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            String key = keys[next];
+                            next = advance(next + 1);
+                            return key;
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object key) {
+                    return containsKey(key);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        private int locate(String key) {
+            int hash = OpenAddressingMap.spread(key.hashCode());
+            int mask = keys.length - 1;
+            for (int position = hash & mask; ; position = (position + 1) & mask) {
+                String candidate = keys[position];
+                if (candidate == null || (hashes[position] == hash && candidate.equals(key))) {
+                    return position;
+                }
+            }
+        }
+
+        private void removeAt(int position) {
+            int mask = keys.length - 1;
+            int gap = position;
+            for (int next = (gap + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+                int home = hashes[next] & mask;
+                boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+                if (!stays) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    hashes[gap] = hashes[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = null;
+            values[gap] = 0;
+            hashes[gap] = 0;
+            size--;
+            modifications++;
+        }
+
+        private void rehash(int capacity) {
+            String[] oldKeys = keys;
+            long[] oldValues = values;
+            int[] oldHashes = hashes;
+            allocate(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int position = oldHashes[i] & mask;
+                    while (keys[position] != null) {
+                        position = (position + 1) & mask;
+                    }
+                    keys[position] = oldKeys[i];
+                    values[position] = oldValues[i];
+                    hashes[position] = oldHashes[i];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new String[capacity];
+            values = new long[capacity];
+            hashes = new int[capacity];
+        }
+    }
+
+    private static final class Cached<V> extends WeakReference<V> {
+        final String key;
+
+        Cached(String key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+// Component: FilterStats
+// Purpose: How well a service's id filter screens lookups of ids that are not stored, as
+// returned by filterStats() on each service.
+// Strategy: immutable counts taken at one moment. A definite miss was answered by the filter
+// without touching the store; a false positive passed the filter and then missed in the
+// store anyway. Lookups of stored ids pass the filter and are neither.
+
+public final class FilterStats {
+
+    private final long definiteMisses;
+    private final long falsePositives;
+    private final long rebuilds;
+    private final double expectedFalsePositiveRate;
+
+    FilterStats(long definiteMisses, long falsePositives, long rebuilds, double expectedFalsePositiveRate) {
+        this.definiteMisses = definiteMisses;
+        this.falsePositives = falsePositives;
+        this.rebuilds = rebuilds;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+    }
+
+    // Lookups of absent ids that never reached the store.
+    public long getDefiniteMisses() {
+        return definiteMisses;
+    }
+
+    // Lookups of absent ids that the filter let through to the store.
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+
+    // Times the filter was rebuilt from the stored ids, to drop deleted ids or to grow.
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    // Share of absent-id lookups that reached the store so far; 0.0 before the first one.
+    public double falsePositiveRate() {
+        long absent = definiteMisses + falsePositives;
+        return absent == 0 ? 0.0 : (double) falsePositives / absent;
+    }
+
+    // The rate the filter's current fill predicts for a random absent id.
+    public double expectedFalsePositiveRate() {
+        return expectedFalsePositiveRate;
+    }
+
+    @Override
+    public String toString() {
+        return "definiteMisses=" + definiteMisses + " falsePositives=" + falsePositives + " rebuilds=" + rebuilds
+            + " expectedRate=" + expectedFalsePositiveRate;
+    }
+}
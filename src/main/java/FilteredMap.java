@@ -0,0 +1,278 @@
+// Component: FilteredMap
+// Purpose: String-keyed map that answers lookups of absent keys from a Bloom filter over the
+// stored keys, so a miss, a delete of an unknown id, or an add of a new one skips the store's
+// own lookup. For engines built withIdFilter().
+// Strategy: every stored key sets k bits of a bit array, chosen by double hashing a 64-bit
+// hash of the key. A key with any of its bits clear is definitely absent; one with all of
+// them set is looked up in the store. Deletes cannot clear bits, since other keys share them,
+// so once deletes since the last build outnumber the stored keys, or the store outgrows the
+// capacity the filter was sized for, the filter is rebuilt from the store's keys.
+// Concurrency: none, like HashMap. A key's bits are set before it is stored, but a rebuild
+// reads every key, so the filter is only offered on single-threaded engines.
+// Operating principle: the store stays the source of truth; the filter only says no.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+final class FilteredMap<V> extends AbstractMap<String, V> implements Closeable {
+
+    // Smallest capacity a filter is sized for, and fewest deletes worth a rebuild.
+    private static final int MIN_CAPACITY = 1024;
+
+    private final Map<String, V> store;
+    private final double falsePositiveRate;
+
+    private Bloom filter;
+    private long deletes;
+
+    private long definiteMisses;
+    private long falsePositives;
+    private long rebuilds;
+
+    FilteredMap(Map<String, V> store, double falsePositiveRate) {
+        this.store = store;
+        this.falsePositiveRate = falsePositiveRate;
+        rebuild();
+        // The first build is not a rebuild.
+        rebuilds = 0;
+    }
+
+    // The engine's map underneath, for the services' checks of what they store in.
+    Map<String, V> store() {
+        return store;
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return screened(key) && found(store.containsKey(key));
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!screened(key)) {
+            return null;
+        }
+        V value = store.get(key);
+        found(value != null);
+        return value;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        filter.add(key);
+        V previous = store.put(key, value);
+        if (previous == null) {
+            grown();
+        }
+        return previous;
+    }
+
+    // An add of a key the filter has never seen goes straight to the store without a lookup.
+    @Override
+    public V putIfAbsent(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (!screened(key)) {
+            filter.add(key);
+            store.put(key, value);
+            grown();
+            return null;
+        }
+        V current = store.putIfAbsent(key, value);
+        if (found(current != null)) {
+            return current;
+        }
+        grown();
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends V> entries) {
+        for (String key : entries.keySet()) {
+            filter.add(key);
+        }
+        store.putAll(entries);
+        grown();
+    }
+
+    @Override
+    public V computeIfPresent(String key, BiFunction<? super String, ? super V, ? extends V> remapping) {
+        V current = get(key);
+        if (current == null) {
+            return null;
+        }
+        V next = remapping.apply(key, current);
+        if (next == null) {
+            store.remove(key);
+            deleted();
+        } else if (next != current) {
+            store.put(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!screened(key)) {
+            return null;
+        }
+        V removed = store.remove(key);
+        if (found(removed != null)) {
+            deleted();
+        }
+        return removed;
+    }
+
+    // remove without the value, so the disk engine need not decode it.
+    boolean discard(String key) {
+        if (!screened(key)) {
+            return false;
+        }
+        boolean removed = found(StorageEngine.discard(store, key));
+        if (removed) {
+            deleted();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+        rebuild();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return store.keySet();
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return store.entrySet();
+    }
+
+    FilterStats stats() {
+        return new FilterStats(definiteMisses, falsePositives, rebuilds, filter.expectedFalsePositiveRate());
+    }
+
+    // Closes the store if it holds a file.
+    @Override
+    public void close() throws IOException {
+        if (store instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    // False, counted as a definite miss, when the filter rules the key out.
+    private boolean screened(Object key) {
+        if (key instanceof String id && filter.mightContain(id)) {
+            return true;
+        }
+        definiteMisses++;
+        return false;
+    }
+
+    // Passes present through, counting a false positive when the store missed.
+    private boolean found(boolean present) {
+        if (!present) {
+            falsePositives++;
+        }
+        return present;
+    }
+
+    private void grown() {
+        if (store.size() > filter.capacity) {
+            rebuild();
+        }
+    }
+
+    private void deleted() {
+        if (++deletes > Math.max(store.size(), MIN_CAPACITY)) {
+            rebuild();
+        }
+    }
+
+    // Sized for twice the stored keys, so the store can double before the next rebuild.
+    private void rebuild() {
+        int capacity = (int) Math.min(Integer.MAX_VALUE / 2, Math.max(MIN_CAPACITY, 2L * store.size()));
+        Bloom rebuilt = new Bloom(capacity, falsePositiveRate);
+        for (String key : store.keySet()) {
+            rebuilt.add(key);
+        }
+        filter = rebuilt;
+        deletes = 0;
+        rebuilds++;
+    }
+
+    private static final class Bloom {
+        final int capacity;
+        final long[] words;
+        final long bits;
+        final int hashes;
+        long setBits;
+
+        // Standard sizing: bits = -n ln p / (ln 2)^2 and hashes = bits / n * ln 2.
+        Bloom(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            double ln2 = Math.log(2);
+            long wanted = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            words = new long[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (wanted + 63) >>> 6))];
+            bits = (long) words.length << 6;
+            hashes = (int) Math.max(1, Math.min(16, Math.round((double) bits / capacity * ln2)));
+        }
+
+        void add(String key) {
+            long hash = hash(key);
+            long step = (hash >>> 32) | 1;
+            for (int i = 0; i < hashes; i++, hash += step) {
+                long bit = Long.remainderUnsigned(hash, bits);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                if ((words[word] & mask) == 0) {
+                    words[word] |= mask;
+                    setBits++;
+                }
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            long step = (hash >>> 32) | 1;
+            for (int i = 0; i < hashes; i++, hash += step) {
+                long bit = Long.remainderUnsigned(hash, bits);
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Chance that every bit of an absent key is set, at the current fill.
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) setBits / bits, hashes);
+        }
+
+        // FNV-1a over the chars, then a 64-bit finalizer so both halves are well mixed.
+        private static long hash(String key) {
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9FE1A85EC53L;
+            return hash ^ (hash >>> 33);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+// Component: FsyncPolicy
+// Purpose: When a WriteAheadLog forces appended records to stable storage.
+// Strategy: three fixed policies built through static factories; values are validated once.
+
+public final class FsyncPolicy {
+
+    enum Kind {
+        EVERY_OPERATION,
+        EVERY_N_OPERATIONS,
+        EVERY_N_MILLIS
+    }
+
+    private final Kind kind;
+    private final long value;
+
+    private FsyncPolicy(Kind kind, long value) {
+        this.kind = kind;
+        this.value = value;
+    }
+
+    // Each write returns only after its record is on disk. Concurrent writers that
+    // are waiting at the same time share one fsync (group commit).
+    public static FsyncPolicy everyOperation() {
+        return new FsyncPolicy(Kind.EVERY_OPERATION, 1);
+    }
+
+    // The write that brings the unsynced count to n forces the batch; up to n - 1
+    // acknowledged operations can be lost on power failure.
+    public static FsyncPolicy everyOperations(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be at least 1");
+        }
+        return new FsyncPolicy(Kind.EVERY_N_OPERATIONS, n);
+    }
+
+    // A background thread forces the log every intervalMillis; writes never wait.
+    public static FsyncPolicy everyMillis(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("intervalMillis must be at least 1");
+        }
+        return new FsyncPolicy(Kind.EVERY_N_MILLIS, intervalMillis);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    long value() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case EVERY_N_OPERATIONS:
+                return "every " + value + " operations";
+            case EVERY_N_MILLIS:
+                return "every " + value + " ms";
+            default:
+                return "every operation";
+        }
+    }
+}
@@ -0,0 +1,256 @@
+// Component: OpenAddressingMap
+// Purpose: String-keyed map without per-entry objects, for the openAddressing() storage engine.
+// Strategy: linear probing over three parallel arrays: keys, values, and each key's mixed
+// hash, so a probe compares ints and only calls equals on a hash match. The table is kept at
+// most three-quarters full and doubles when it would pass that. Removes shift later entries
+// of the probe run back into the gap, so there are no tombstones and lookups never slow down
+// after deletes. A HashMap spends a node object per entry; this spends two references and
+// an int.
+// Concurrency: none, like HashMap; guard it externally to share it between threads.
+// Operating principle: keys and values must not be null. Iterators are read-only, since a
+// remove during iteration could shift an unvisited entry behind the cursor.
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+final class OpenAddressingMap<V> extends AbstractMap<String, V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int size;
+
+    // Bumped by every structural change, so iterators can fail fast.
+    private int modifications;
+
+    OpenAddressingMap() {
+        this(0);
+    }
+
+    // Sized so expected entries fit without a resize.
+    OpenAddressingMap(int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("expected must not be negative");
+        }
+        allocate(capacityFor(expected));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && keys[locate((String) key)] != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        return (V) values[locate((String) key)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        int position = locate(key);
+        V previous = (V) values[position];
+        values[position] = value;
+        if (previous == null) {
+            claim(position, key);
+        }
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(String key, V value) {
+        Objects.requireNonNull(value, "value");
+        int position = locate(key);
+        if (keys[position] != null) {
+            return (V) values[position];
+        }
+        values[position] = value;
+        claim(position, key);
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int position = locate((String) key);
+        if (keys[position] == null) {
+            return null;
+        }
+        V removed = (V) values[position];
+        removeAt(position);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+        modifications++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        int expected = modifications;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+        if (modifications != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new Entries();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Position holding key, or the empty position where it would go.
+    private int locate(String key) {
+        int hash = spread(key.hashCode());
+        int mask = keys.length - 1;
+        for (int position = hash & mask; ; position = (position + 1) & mask) {
+            String candidate = keys[position];
+            if (candidate == null || (hashes[position] == hash && candidate.equals(key))) {
+                return position;
+            }
+        }
+    }
+
+    private void claim(int position, String key) {
+        keys[position] = key;
+        hashes[position] = spread(key.hashCode());
+        modifications++;
+        if (++size > keys.length - (keys.length >>> 2)) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    // Backward-shift delete: later entries of the probe run move into the gap unless their
+    // home position lies cyclically after it.
+    private void removeAt(int position) {
+        int mask = keys.length - 1;
+        int gap = position;
+        for (int next = (gap + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+            int home = hashes[next] & mask;
+            boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+            if (!stays) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                hashes[gap] = hashes[next];
+                gap = next;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        hashes[gap] = 0;
+        size--;
+        modifications++;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int position = oldHashes[i] & mask;
+                while (keys[position] != null) {
+                    position = (position + 1) & mask;
+                }
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+                hashes[position] = oldHashes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+    }
+
+    // Smallest power of two holding expected entries at three-quarters load.
+    static int capacityFor(int expected) {
+        long needed = Math.max(MIN_CAPACITY, (long) expected * 4 / 3 + 1);
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("expected is too large: " + expected);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    // Multiplicative mix, so ids with nearly consecutive hash codes do not form long runs.
+    static int spread(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private final class Entries implements Iterator<Map.Entry<String, V>> {
+        private final int expected = modifications;
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<String, V> next() {
+            if (modifications != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, V> entry = new SimpleImmutableEntry<>(keys[next], (V) values[next]);
+            next = advance(next + 1);
+            return entry;
+        }
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+// Component: OperationResult
+// Purpose: Status codes for the non-throwing service API (tryAdd, tryDelete, tryUpdate).
+// Strategy: shared enum constants, so reporting an outcome allocates nothing.
+
+public enum OperationResult {
+
+    // The operation was applied.
+    OK,
+
+    // An add named an id that is already stored.
+    DUPLICATE_ID,
+
+    // A delete or update named an id that is not stored.
+    NOT_FOUND,
+
+    // An add was refused because the record conflicts with a stored one (overlapping booking).
+    CONFLICT,
+
+    // A conditional update named a version that is no longer the stored one; nothing changed.
+    VERSION_CONFLICT,
+
+    // A required argument was null, or an update value failed field validation.
+    INVALID_INPUT;
+
+    public boolean isOk() {
+        return this == OK;
+    }
+}
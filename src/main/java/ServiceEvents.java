@@ -0,0 +1,121 @@
+// Component: ServiceEvents
+// Purpose: Java Flight Recorder events for service operations, bulk loads, and validation
+// rejections, so recordings attribute time, GC pauses, and lock waits to named operations.
+// Strategy: standard jdk.jfr.Event subclasses. Operations carry a default threshold, so only
+// slow calls are written; loads and rejections are rare and always written while recording.
+// Thresholds and enablement are changed per event name in a JFR settings file or through
+// Recording.enable(name).withThreshold(...).
+// Operating principle: without an active recording, begin and commit reduce to a flag check
+// and the event object is eliminated by the JIT, so the services emit them unconditionally.
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+final class ServiceEvents {
+
+    static final String OPERATION = "service.Operation";
+    static final String LOAD = "service.Load";
+    static final String VALIDATION_FAILURE = "service.ValidationFailure";
+
+    private ServiceEvents() {
+    }
+
+    @Name(OPERATION)
+    @Label("Service Operation")
+    @Category("Service")
+    @Description("An add, get, update, or delete on a service that took longer than the threshold")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class Operation extends Event {
+        @Label("Entity")
+        String entity;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Outcome")
+        String outcome;
+
+        // Length rather than value, so recordings carry no identifiers.
+        @Label("Id Length")
+        int idLength;
+    }
+
+    @Name(LOAD)
+    @Label("Service Load")
+    @Category("Service")
+    @Description("Records loaded into a service in one pass, such as a durable open")
+    @StackTrace(false)
+    static final class Load extends Event {
+        @Label("Entity")
+        String entity;
+
+        @Label("Source")
+        String source;
+
+        @Label("Records")
+        long records;
+    }
+
+    @Name(VALIDATION_FAILURE)
+    @Label("Validation Failure")
+    @Category("Service")
+    @Description("A field value rejected by validation; the stack trace shows the entity and caller")
+    static final class ValidationFailure extends Event {
+        @Label("Field")
+        String field;
+
+        @Label("Message")
+        String message;
+    }
+
+    // Starts timing an operation; pass the result to operation() once the outcome is known.
+    static Operation begin() {
+        Operation event = new Operation();
+        event.begin();
+        return event;
+    }
+
+    // Writes the operation event when a recording wants it and it exceeded the threshold.
+    static void operation(Operation event, String entity, ServiceMetrics.Operation operation,
+                          OperationResult outcome, String id) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.entity = entity;
+            event.operation = operation.name();
+            event.outcome = outcome.name();
+            event.idLength = id == null ? 0 : id.length();
+            event.commit();
+        }
+    }
+
+    static Load beginLoad() {
+        Load event = new Load();
+        event.begin();
+        return event;
+    }
+
+    static void load(Load event, String entity, String source, long records) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.entity = entity;
+            event.source = source;
+            event.records = records;
+            event.commit();
+        }
+    }
+
+    static void validationFailure(String field, String message) {
+        ValidationFailure event = new ValidationFailure();
+        if (event.isEnabled()) {
+            event.field = field;
+            event.message = message;
+            event.commit();
+        }
+    }
+}
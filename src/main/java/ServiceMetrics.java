@@ -0,0 +1,167 @@
+// Component: ServiceMetrics
+// Purpose: Optional per-operation, per-outcome counts and latency distributions for a service.
+// Strategy: one log-linear latency histogram per (operation, outcome) in the style of
+// HdrHistogram: 16 linear buckets per power of two, so a recorded value is reported within
+// 1/16 of its true value. Bucket totals double as the operation counters. Each histogram
+// is created on first use and split into per-thread-group stripes, so concurrent writers
+// rarely touch the same counter; a snapshot sums the stripes.
+// Concurrency: record and snapshot are safe from any thread and take no locks. A snapshot
+// taken while writers run is a consistent count per bucket, not a single point in time.
+// Operating principle: a service without metrics holds null and pays one field read per call.
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class ServiceMetrics {
+
+    // Service calls that are counted and timed.
+    public enum Operation {
+        ADD,
+        GET,
+        UPDATE,
+        DELETE
+    }
+
+    // Values below 2^SUB_BITS get a bucket each; above, every power of two gets HALF buckets.
+    private static final int SUB_BITS = 5;
+    private static final int HALF = 1 << (SUB_BITS - 1);
+
+    // Latencies at or above this (about 18 minutes in nanoseconds) land in the last bucket.
+    static final long MAX_TRACKED_NANOS = (1L << 40) - 1;
+    static final int BUCKETS = bucketOf(MAX_TRACKED_NANOS) + 1;
+
+    private static final int OPERATIONS = Operation.values().length;
+    private static final OperationResult[] OUTCOMES = OperationResult.values();
+
+    // Power of two, so a thread picks its stripe with a mask.
+    private static final int STRIPES = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    // Indexed by operation * outcomes + outcome; each element holds STRIPES * BUCKETS counters.
+    private final AtomicReferenceArray<AtomicLongArray> histograms =
+        new AtomicReferenceArray<>(OPERATIONS * OUTCOMES.length);
+
+    ServiceMetrics() {
+    }
+
+    // Start time for record, or 0 when metrics is null so the disabled path skips the clock read.
+    static long start(ServiceMetrics metrics) {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    // Counts one call of operation ending in outcome, timed from started. No-op when metrics is null.
+    static void record(ServiceMetrics metrics, Operation operation, OperationResult outcome, long started) {
+        if (metrics != null) {
+            metrics.record(operation, outcome, System.nanoTime() - started);
+        }
+    }
+
+    void record(Operation operation, OperationResult outcome, long latencyNanos) {
+        int slot = operation.ordinal() * OUTCOMES.length + outcome.ordinal();
+        AtomicLongArray histogram = histograms.get(slot);
+        if (histogram == null) {
+            histograms.compareAndSet(slot, null, new AtomicLongArray(STRIPES * BUCKETS));
+            histogram = histograms.get(slot);
+        }
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        histogram.getAndIncrement(stripe * BUCKETS + bucketOf(latencyNanos));
+    }
+
+    // Current counts and distributions, detached from later recording.
+    public Snapshot snapshot() {
+        long[][] merged = new long[histograms.length()][];
+        for (int slot = 0; slot < merged.length; slot++) {
+            AtomicLongArray histogram = histograms.get(slot);
+            if (histogram != null) {
+                long[] buckets = new long[BUCKETS];
+                for (int i = 0; i < histogram.length(); i++) {
+                    buckets[i % BUCKETS] += histogram.get(i);
+                }
+                merged[slot] = buckets;
+            }
+        }
+        return new Snapshot(merged);
+    }
+
+    // Negative latencies (a clock step) count as zero; overlong ones share the last bucket.
+    static int bucketOf(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_TRACKED_NANOS));
+        if (value < 2 * HALF) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    // Largest latency that falls in bucket, as HdrHistogram reports percentiles.
+    static long highestInBucket(int bucket) {
+        if (bucket < 2 * HALF) {
+            return bucket;
+        }
+        int shift = bucket / HALF - 1;
+        long sub = bucket - (long) shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    // Immutable view of the metrics at the time snapshot() ran. Latencies are in nanoseconds.
+    public static final class Snapshot {
+
+        private final long[][] histograms;
+
+        private Snapshot(long[][] histograms) {
+            this.histograms = histograms;
+        }
+
+        public long count(Operation operation, OperationResult outcome) {
+            long[] buckets = histogram(operation, outcome);
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            return total;
+        }
+
+        // Calls of operation across every outcome.
+        public long count(Operation operation) {
+            long total = 0;
+            for (OperationResult outcome : OUTCOMES) {
+                total += count(operation, outcome);
+            }
+            return total;
+        }
+
+        // Latency that percentile percent of the calls did not exceed, such as 99.0 for p99,
+        // within the histogram's 1/16 resolution. 0 when no such call was recorded.
+        public long latencyAtPercentile(Operation operation, OperationResult outcome, double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+            long[] buckets = histogram(operation, outcome);
+            long total = count(operation, outcome);
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int bucket = 0; bucket < buckets.length; bucket++) {
+                seen += buckets[bucket];
+                if (seen >= rank) {
+                    return highestInBucket(bucket);
+                }
+            }
+            return highestInBucket(buckets.length - 1);
+        }
+
+        public long maxLatency(Operation operation, OperationResult outcome) {
+            return latencyAtPercentile(operation, outcome, 100);
+        }
+
+        private long[] histogram(Operation operation, OperationResult outcome) {
+            if (operation == null || outcome == null) {
+                throw new IllegalArgumentException("operation and outcome must not be null");
+            }
+            long[] buckets = histograms[operation.ordinal() * OUTCOMES.length + outcome.ordinal()];
+            return buckets == null ? new long[0] : buckets;
+        }
+    }
+}
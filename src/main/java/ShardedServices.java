@@ -0,0 +1,256 @@
+// Component: ShardedServices
+// Purpose: Contact, task, and appointment services partitioned into independent shards, so
+// writes to different shards run in parallel instead of contending on one store.
+// Strategy: each record lives in the shard picked by a hash of its id. A shard owns one
+// ContactService, TaskService, and AppointmentService in default mode, one writer thread,
+// and an AsyncLane per service, whose queue that thread drains in batches. Point operations
+// go to one shard. Counts, iteration, and queries fan out to every shard and merge.
+// Concurrency: any number of threads may call; each shard's writes are applied by its own
+// thread, one at a time, and reads run alongside them as in AsyncServices. There is no order
+// and no atomicity across shards: a count or pass over every shard sees each shard as of a
+// different moment.
+// Operating principle: writes report their outcome as an OperationResult, as the try API
+// does; a failure the service throws fails the future.
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public final class ShardedServices implements Closeable {
+
+    private final List<AsyncLane<ContactService, Contact>> contacts;
+    private final List<AsyncLane<TaskService, Task>> tasks;
+    private final List<AsyncLane<AppointmentService, Appointment>> appointments;
+
+    // One writer thread per shard, shut down by close().
+    private final List<ExecutorService> writers;
+
+    private volatile boolean closed;
+
+    private ShardedServices(int shards) {
+        contacts = new ArrayList<>(shards);
+        tasks = new ArrayList<>(shards);
+        appointments = new ArrayList<>(shards);
+        writers = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            String name = "shard-writer-" + shard;
+            ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            writers.add(writer);
+            contacts.add(new AsyncLane<>(new ContactService(), false, ForkJoinPool.commonPool(), writer,
+                ContactService::tryAddContact, ContactService::addContacts));
+            tasks.add(new AsyncLane<>(new TaskService(), false, ForkJoinPool.commonPool(), writer,
+                TaskService::tryAddTask, TaskService::addTasks));
+            appointments.add(new AsyncLane<>(new AppointmentService(), false, ForkJoinPool.commonPool(), writer,
+                AppointmentService::tryAddAppointment, AppointmentService::addAppointments));
+        }
+    }
+
+    // shards independent partitions, each with its own writer thread; about one per core
+    // that will be writing. Reads that wait for a batch run on the common fork-join pool.
+    public static ShardedServices of(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be at least 1");
+        }
+        return new ShardedServices(shards);
+    }
+
+    public int shardCount() {
+        return writers.size();
+    }
+
+    // The shard holding id; null ids go to shard 0, whose service reports INVALID_INPUT.
+    int shardOf(String id) {
+        if (id == null) {
+            return 0;
+        }
+        // Multiplicative mix, so ids with nearly consecutive hash codes spread over all shards.
+        int mixed = id.hashCode() * 0x9E3779B9;
+        return Integer.remainderUnsigned(mixed ^ (mixed >>> 16), writers.size());
+    }
+
+    public CompletableFuture<OperationResult> addContact(Contact contact) {
+        return lane(contacts, contact == null ? null : contact.getContactId()).add(contact);
+    }
+
+    public CompletableFuture<OperationResult> deleteContact(String contactId) {
+        return lane(contacts, contactId).write(service -> service.tryDeleteContact(contactId));
+    }
+
+    public CompletableFuture<OperationResult> updateContact(String contactId, String firstName, String lastName,
+                                                            String phone, String address) {
+        return lane(contacts, contactId).write(service ->
+            service.tryUpdateContact(contactId, firstName, lastName, phone, address));
+    }
+
+    // Conditional update; VERSION_CONFLICT if the stored contact is no longer at expectedVersion.
+    public CompletableFuture<OperationResult> updateContact(String contactId, long expectedVersion, String firstName,
+                                                            String lastName, String phone, String address) {
+        return lane(contacts, contactId).write(service ->
+            service.tryUpdateContact(contactId, expectedVersion, firstName, lastName, phone, address));
+    }
+
+    // Completes with the contact, or null if not found.
+    public CompletableFuture<Contact> getContact(String contactId) {
+        return lane(contacts, contactId).read(service -> service.getContact(contactId));
+    }
+
+    public CompletableFuture<Integer> getContactCount() {
+        return sum(contacts, ContactService::getContactCount);
+    }
+
+    // Passes every contact to action, shard by shard. Shards may be visited from different
+    // threads, so action must be thread-safe.
+    public CompletableFuture<Void> forEachContact(Consumer<? super Contact> action) {
+        requireAction(action);
+        return forEach(contacts, service -> service.forEachContact(action));
+    }
+
+    // Runs a read-only query, such as a phone lookup or name search, on every shard and
+    // completes with one result per shard, in shard order, for the caller to merge.
+    public <R> CompletableFuture<List<R>> readContacts(Function<ContactService, R> query) {
+        return fanOut(contacts, query);
+    }
+
+    public CompletableFuture<OperationResult> addTask(Task task) {
+        return lane(tasks, task == null ? null : task.getTaskId()).add(task);
+    }
+
+    public CompletableFuture<OperationResult> deleteTask(String taskId) {
+        return lane(tasks, taskId).write(service -> service.tryDeleteTask(taskId));
+    }
+
+    public CompletableFuture<OperationResult> updateTask(String taskId, String name, String description) {
+        return lane(tasks, taskId).write(service -> service.tryUpdateTask(taskId, name, description));
+    }
+
+    // Conditional update; VERSION_CONFLICT if the stored task is no longer at expectedVersion.
+    public CompletableFuture<OperationResult> updateTask(String taskId, long expectedVersion, String name,
+                                                         String description) {
+        return lane(tasks, taskId).write(service -> service.tryUpdateTask(taskId, expectedVersion, name, description));
+    }
+
+    public CompletableFuture<Task> getTask(String taskId) {
+        return lane(tasks, taskId).read(service -> service.getTask(taskId));
+    }
+
+    public CompletableFuture<Integer> getTaskCount() {
+        return sum(tasks, TaskService::getTaskCount);
+    }
+
+    public CompletableFuture<Void> forEachTask(Consumer<? super Task> action) {
+        requireAction(action);
+        return forEach(tasks, service -> service.forEachTask(action));
+    }
+
+    public <R> CompletableFuture<List<R>> readTasks(Function<TaskService, R> query) {
+        return fanOut(tasks, query);
+    }
+
+    // Booking mode is not offered: an overlap check would have to see every shard at once.
+    public CompletableFuture<OperationResult> addAppointment(Appointment appointment) {
+        return lane(appointments, appointment == null ? null : appointment.getAppointmentId()).add(appointment);
+    }
+
+    public CompletableFuture<OperationResult> deleteAppointment(String appointmentId) {
+        return lane(appointments, appointmentId).write(service -> service.tryDeleteAppointment(appointmentId));
+    }
+
+    public CompletableFuture<Appointment> getAppointment(String appointmentId) {
+        return lane(appointments, appointmentId).read(service -> service.getAppointment(appointmentId));
+    }
+
+    public CompletableFuture<Integer> getAppointmentCount() {
+        return sum(appointments, AppointmentService::getAppointmentCount);
+    }
+
+    public CompletableFuture<Void> forEachAppointment(Consumer<? super Appointment> action) {
+        requireAction(action);
+        return forEach(appointments, service -> service.forEachAppointment(action));
+    }
+
+    public <R> CompletableFuture<List<R>> readAppointments(Function<AppointmentService, R> query) {
+        return fanOut(appointments, query);
+    }
+
+    // Refuses new calls, waits for every queued write on every shard, and stops the writers.
+    @Override
+    public void close() {
+        closed = true;
+        List<CompletableFuture<OperationResult>> drained = new ArrayList<>();
+        // Each lane refuses writes from here on and drains those already queued, including
+        // any from a caller that passed requireOpen() just before closed was set.
+        for (int shard = 0; shard < writers.size(); shard++) {
+            drained.add(contacts.get(shard).shutdown("sharded services"));
+            drained.add(tasks.get(shard).shutdown("sharded services"));
+            drained.add(appointments.get(shard).shutdown("sharded services"));
+        }
+        CompletableFuture.allOf(drained.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+        for (ExecutorService writer : writers) {
+            writer.shutdown();
+        }
+        try {
+            for (ExecutorService writer : writers) {
+                writer.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <S, T> AsyncLane<S, T> lane(List<AsyncLane<S, T>> lanes, String id) {
+        requireOpen();
+        return lanes.get(shardOf(id));
+    }
+
+    private <S, T, R> CompletableFuture<List<R>> fanOut(List<AsyncLane<S, T>> lanes, Function<S, R> query) {
+        requireOpen();
+        if (query == null) {
+            throw new IllegalArgumentException("query must not be null");
+        }
+        List<CompletableFuture<R>> parts = new ArrayList<>(lanes.size());
+        for (AsyncLane<S, T> lane : lanes) {
+            parts.add(lane.read(query));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<R> merged = new ArrayList<>(parts.size());
+            for (CompletableFuture<R> part : parts) {
+                merged.add(part.join());
+            }
+            return merged;
+        });
+    }
+
+    private <S, T> CompletableFuture<Integer> sum(List<AsyncLane<S, T>> lanes, Function<S, Integer> count) {
+        return fanOut(lanes, count).thenApply(counts -> counts.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private <S, T> CompletableFuture<Void> forEach(List<AsyncLane<S, T>> lanes, Consumer<S> pass) {
+        return fanOut(lanes, service -> {
+            pass.accept(service);
+            return null;
+        }).thenApply(done -> null);
+    }
+
+    private void requireOpen() {
+        if (closed) {
+            throw new IllegalStateException("sharded services are closed");
+        }
+    }
+
+    private static void requireAction(Object action) {
+        if (action == null) {
+            throw new IllegalArgumentException("action must not be null");
+        }
+    }
+}
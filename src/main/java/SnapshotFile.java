@@ -0,0 +1,233 @@
+// Component: SnapshotFile
+// Purpose: Point-in-time binary image of a service map, paired with a write-ahead log position.
+// Strategy: header (magic, version, log position, count), length-prefixed entries, CRC32 trailer.
+// Written to a temp file and moved into place atomically; restored through memory-mapped windows.
+// The snapshot it replaces is kept alongside as the previous generation, so a damaged newest
+// snapshot falls back to the one before it rather than to the whole log.
+// Operating principle: a damaged snapshot is never trusted. With both generations missing or
+// damaged the caller replays the log from the start, which works until the first truncation;
+// after that, WriteAheadLog.open refuses the replay with IllegalStateException rather than
+// rebuild partial state.
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x5444534E;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int TRAILER_BYTES = 4;
+    private static final int MAX_ENTRY_BYTES = 1 << 20;
+
+    // Largest region mapped at once; entries never straddle a window.
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    // Snapshots are written one at a time, off the caller's thread.
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SnapshotFile() {
+    }
+
+    // Encodes and writes items on the background writer thread. items must already be a
+    // private copy; the caller's lock is not held while this runs. Completes with write's result.
+    static <T> CompletableFuture<Long> writeAsync(Path target, long logPosition, List<T> items,
+                                                  BiConsumer<T, BinaryCodec.Writer> encoder) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return write(target, logPosition, items, encoder);
+            } catch (IOException e) {
+                throw new UncheckedIOException("snapshot write failed: " + target, e);
+            }
+        }, WRITER);
+    }
+
+    // Writes the snapshot durably and returns the log position of the one it displaced, now
+    // the previous generation, or 0 if there was none. Log records before that position are
+    // needed by neither snapshot.
+    static <T> long write(Path target, long logPosition, List<T> items,
+                          BiConsumer<T, BinaryCodec.Writer> encoder) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(logPosition);
+                out.writeInt(items.size());
+
+                BinaryCodec.Writer entry = new BinaryCodec.Writer();
+                for (T item : items) {
+                    entry.reset();
+                    encoder.accept(item, entry);
+                    out.writeInt(entry.length());
+                    out.write(entry.array(), 0, entry.length());
+                }
+                out.flush();
+
+                // The trailer is not part of its own checksum.
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).putInt((int) crc.getValue()).flip();
+                while (trailer.hasRemaining()) {
+                    channel.write(trailer);
+                }
+                channel.force(true);
+            }
+            long displaced = 0;
+            if (Files.exists(target)) {
+                displaced = recordedPosition(target);
+                Files.move(target, previous(target), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(target);
+            return displaced;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The previous generation of the snapshot at target.
+    static Path previous(Path target) {
+        return target.resolveSibling(target.getFileName() + ".prev");
+    }
+
+    // Forces the directory entry of a file just moved into place, so the move itself survives
+    // a power loss. Platforms that cannot open a directory for this skip it.
+    static void syncDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException unsupported) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    // Hands every entry to loader and returns the recorded log position. Returns 0 without
+    // calling loader when no snapshot exists. Throws IllegalStateException when the file is
+    // damaged; entries may already have been loaded, so the caller must discard its state.
+    static long restore(Path source, Consumer<BinaryCodec.Reader> loader) throws IOException {
+        if (!Files.exists(source)) {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw corrupt(source);
+            }
+            long bodyEnd = size - TRAILER_BYTES;
+
+            CRC32 crc = new CRC32();
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW_BYTES, bodyEnd));
+            if (window.getInt() != MAGIC || window.getInt() != VERSION) {
+                throw corrupt(source);
+            }
+            long logPosition = window.getLong();
+            int count = window.getInt();
+            crc.update(window.duplicate().flip());
+
+            long windowStart = 0;
+            for (int i = 0; i < count; i++) {
+                long offset = windowStart + window.position();
+                if (offset + 4 > bodyEnd) {
+                    throw corrupt(source);
+                }
+                if (window.remaining() < 4) {
+                    windowStart = offset;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_BYTES, bodyEnd - offset));
+                }
+
+                int length = window.getInt(window.position());
+                if (length < 0 || length > MAX_ENTRY_BYTES || offset + 4 + length > bodyEnd) {
+                    throw corrupt(source);
+                }
+                if (window.remaining() < 4 + length) {
+                    windowStart = offset;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_BYTES, bodyEnd - offset));
+                }
+
+                crc.update(window.slice(window.position(), 4 + length));
+                window.position(window.position() + 4);
+                loader.accept(new BinaryCodec.Reader(window.slice(window.position(), length)));
+                window.position(window.position() + length);
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            channel.read(trailer, bodyEnd);
+            if (windowStart + window.position() != bodyEnd || trailer.flip().getInt() != (int) crc.getValue()) {
+                throw corrupt(source);
+            }
+            return logPosition;
+        }
+    }
+
+    // restore, falling back to the previous generation when the file is missing, damaged, or
+    // its entries do not load, and to "no snapshot", position 0, when that fails too. reset
+    // must clear whatever loader already applied; the log then replays from the returned
+    // position, if it still reaches back that far.
+    static long restoreOrDiscard(Path source, Consumer<BinaryCodec.Reader> loader, Runnable reset) throws IOException {
+        Path previous = previous(source);
+        if (Files.exists(source) || !Files.exists(previous)) {
+            try {
+                return restore(source, loader);
+            } catch (RuntimeException damaged) {
+                reset.run();
+            }
+        }
+        try {
+            return restore(previous, loader);
+        } catch (RuntimeException damaged) {
+            reset.run();
+            return 0;
+        }
+    }
+
+    // The log position in a snapshot's header, or 0 if the header is unreadable. The body is
+    // not checked; restore() does that if the snapshot is ever needed.
+    private static long recordedPosition(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            for (int read = 0; read >= 0 && header.hasRemaining(); ) {
+                read = channel.read(header, header.position());
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return 0;
+            }
+            return header.getLong();
+        }
+    }
+
+    private static IllegalStateException corrupt(Path source) {
+        return new IllegalStateException("snapshot is damaged: " + source);
+    }
+}
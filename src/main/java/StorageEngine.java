@@ -0,0 +1,214 @@
+// Component: StorageEngine
+// Purpose: Which keyed store a service keeps its records in, chosen when the service is built.
+// Strategy: five fixed engines built through static factories. Each opens a Map from id to
+// record, the interface every service already stores through, so the services' add, delete,
+// get, and count logic runs unchanged on any of them and new engines can be checked against
+// the same tests.
+// Operating principle: the engine decides where records live, not the service's API. On the
+// concurrent engine ContactService and TaskService take calls from any thread; on the others,
+// and AppointmentService on all of them, a service is single-threaded, as by default. The
+// bounded engine also turns off the indexes that would keep every record on the heap, so
+// AppointmentService, whose time index is its schedule, does not accept it.
+// withIdFilter() puts a Bloom filter over the ids in front of any single-threaded engine.
+// Services never look at their store's class themselves: the static helpers below answer
+// every question about it, through any id filter, so a new engine is wired in only here.
+// Every store writes on computeIfPresent only when remapping returns a different instance,
+// since the services use it to index a record and hand it back unchanged.
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class StorageEngine {
+
+    enum Kind {
+        HASH_MAP,
+        CONCURRENT_MAP,
+        OPEN_ADDRESSING,
+        DISK,
+        BOUNDED
+    }
+
+    // Encodes a record into a disk engine's file and decodes it back.
+    interface Codec<V> {
+        void encode(V value, BinaryCodec.Writer out);
+
+        V decode(BinaryCodec.Reader in);
+    }
+
+    private final Kind kind;
+
+    // Null unless DISK or BOUNDED; holds one data or spill file per service.
+    private final Path directory;
+
+    // Records a BOUNDED store keeps on the heap; 0 otherwise.
+    private final int maxResident;
+
+    // Target false-positive rate of the id filter; 0 for none.
+    private final double filterRate;
+
+    private StorageEngine(Kind kind, Path directory, int maxResident, double filterRate) {
+        this.kind = kind;
+        this.directory = directory;
+        this.maxResident = maxResident;
+        this.filterRate = filterRate;
+    }
+
+    // java.util.HashMap, what the services use by default.
+    public static StorageEngine hashMap() {
+        return new StorageEngine(Kind.HASH_MAP, null, 0, 0);
+    }
+
+    // ConcurrentHashMap, for services that take calls from several threads.
+    public static StorageEngine concurrentMap() {
+        return new StorageEngine(Kind.CONCURRENT_MAP, null, 0, 0);
+    }
+
+    // Linear-probing table of parallel key, value, and hash arrays: no node object per record,
+    // and lookups that compare ints before they compare ids.
+    public static StorageEngine openAddressing() {
+        return new StorageEngine(Kind.OPEN_ADDRESSING, null, 0, 0);
+    }
+
+    // Records encoded into a scratch file in directory, one per service, with only ids and
+    // file positions on the heap. Records a caller or an index still holds are served from
+    // memory; others are read back from the file. The file is truncated when the service is
+    // built and deleted when it is closed, so this is not durability; see durable().
+    public static StorageEngine disk(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        return new StorageEngine(Kind.DISK, directory, 0, 0);
+    }
+
+    // The maxResident most recently used records in memory and the rest in a scratch file in
+    // directory, one per service. A get of a record on disk reads it back into memory, and
+    // the least recently used one goes out in its place. For stores far larger than the heap
+    // with a small hot set: size maxResident from the heap budget and the bytes per record.
+    // The ids of every record stay on the heap, along with each spilled record's position.
+    // Services on this engine keep no secondary indexes, so phone, name, and keyword
+    // lookups throw IllegalStateException. cacheStats() reports hits, misses, and evictions.
+    public static StorageEngine bounded(Path directory, int maxResident) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        if (maxResident < 1) {
+            throw new IllegalArgumentException("maxResident must be at least 1");
+        }
+        return new StorageEngine(Kind.BOUNDED, directory, maxResident, 0);
+    }
+
+    // This engine with a Bloom filter over the stored ids in front of it. Lookups, deletes,
+    // and adds of ids the filter rules out skip the store; for ids it lets through, about
+    // falsePositiveRate of absent ones, the store answers as before. The filter is rebuilt
+    // from the stored ids once deletes since the last build outnumber them, so deleted ids do
+    // not clog it, and as the store doubles. filterStats() on the service reports how many
+    // lookups it answered and its false-positive rate. Single-threaded engines only;
+    // IllegalStateException on concurrentMap().
+    public StorageEngine withIdFilter(double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        if (isConcurrent()) {
+            throw new IllegalStateException("id filters need a single-threaded engine");
+        }
+        return new StorageEngine(kind, directory, maxResident, falsePositiveRate);
+    }
+
+    boolean isConcurrent() {
+        return kind == Kind.CONCURRENT_MAP;
+    }
+
+    // Whether a service on this engine may keep records reachable from secondary indexes.
+    boolean keepsIndexes() {
+        return kind != Kind.BOUNDED;
+    }
+
+    // A new, empty store for one service; name is the disk and bounded engines' file name.
+    <V> Map<String, V> open(String name, Codec<V> codec) {
+        Map<String, V> store = openStore(name, codec);
+        return filterRate > 0 ? new FilteredMap<>(store, filterRate) : store;
+    }
+
+    // Hits, misses, and evictions of a bounded store; IllegalStateException on other engines.
+    static CacheStats cacheStats(Map<String, ?> store) {
+        if (!(base(store) instanceof BoundedMap<?> bounded)) {
+            throw new IllegalStateException("cache statistics require the bounded engine");
+        }
+        return bounded.stats();
+    }
+
+    // What an id filter has screened so far; IllegalStateException without one.
+    static FilterStats filterStats(Map<String, ?> store) {
+        if (!(store instanceof FilteredMap<?> filtered)) {
+            throw new IllegalStateException("filter statistics require an engine built withIdFilter()");
+        }
+        return filtered.stats();
+    }
+
+    // Whether store keeps an encoded copy of each value, as the disk engine does, so a
+    // record changed in place must be put again before the change is seen.
+    static boolean storesCopies(Map<String, ?> store) {
+        return base(store) instanceof DiskMap<?>;
+    }
+
+    // Whether a lookup in store changes it: the disk engine's value cache, the bounded
+    // engine's order and counts, or an id filter's counts. Such a store cannot be read from
+    // two threads at once, even while nothing else writes.
+    static boolean readsWrite(Map<String, ?> store) {
+        return store instanceof FilteredMap<?> || store instanceof DiskMap<?> || store instanceof BoundedMap<?>;
+    }
+
+    // Removes key from store and reports whether it was there. Unlike remove, the disk engine
+    // does not decode the record just to hand it back.
+    static boolean discard(Map<String, ?> store, String key) {
+        if (store instanceof FilteredMap<?> filtered) {
+            return filtered.discard(key);
+        }
+        if (store instanceof DiskMap<?> disk) {
+            return disk.discard(key);
+        }
+        return store.remove(key) != null;
+    }
+
+    // The map beneath any id filter.
+    private static Map<String, ?> base(Map<String, ?> store) {
+        return store instanceof FilteredMap<?> filtered ? filtered.store() : store;
+    }
+
+    private <V> Map<String, V> openStore(String name, Codec<V> codec) {
+        switch (kind) {
+            case CONCURRENT_MAP:
+                return new ConcurrentHashMap<>();
+            case OPEN_ADDRESSING:
+                return new OpenAddressingMap<>();
+            case DISK:
+                return DiskMap.open(directory.resolve(name + ".store"), codec);
+            case BOUNDED:
+                return BoundedMap.open(directory.resolve(name + ".spill"), codec, maxResident);
+            default:
+                return new HashMap<>();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return filterRate > 0 ? describe() + " with id filter" : describe();
+    }
+
+    private String describe() {
+        switch (kind) {
+            case CONCURRENT_MAP:
+                return "concurrent map";
+            case OPEN_ADDRESSING:
+                return "open addressing";
+            case DISK:
+                return "disk at " + directory;
+            case BOUNDED:
+                return maxResident + " records in memory, spilling to " + directory;
+            default:
+                return "hash map";
+        }
+    }
+}
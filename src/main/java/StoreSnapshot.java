@@ -0,0 +1,58 @@
+// Component: StoreSnapshot
+// Purpose: Immutable point-in-time view of a versioned service's records.
+// Strategy: holds the root of one VersionedMap version. Taking it copies nothing, and later
+// writes build new versions beside it rather than changing it, so lookups and iteration
+// need no locks and always agree with each other.
+// Operating principle: a snapshot keeps its version's records reachable; drop it when done so
+// the garbage collector can reclaim versions nothing else uses.
+
+import java.util.Iterator;
+
+public final class StoreSnapshot<T> implements Iterable<T> {
+
+    final VersionedMap.Node root;
+    final int size;
+    final long version;
+
+    StoreSnapshot(VersionedMap.Node root, int size, long version) {
+        this.root = root;
+        this.size = size;
+        this.version = version;
+    }
+
+    // The record with the given id as of this snapshot, or null.
+    public T get(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("id must not be null");
+        }
+        VersionedMap.Entry<T> entry = VersionedMap.find(root, VersionedMap.hash(id), id);
+        return entry == null ? null : entry.getValue();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Count of writes published before this snapshot, a bulk add counting once; a later
+    // snapshot has a larger version.
+    public long getVersion() {
+        return version;
+    }
+
+    // Every record as of this snapshot, in no particular order.
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<VersionedMap.Entry<T>> entries = VersionedMap.entries(root);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return entries.next().getValue();
+            }
+        };
+    }
+}
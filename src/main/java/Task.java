@@ -16,10 +16,17 @@ public final class Task {
     private String name;
     private String description;
 
+    // Count of service updates applied to this record; 0 as constructed. Only the service sets it.
+    private long version;
+
+    // Set once a versioned service stores this record. Every snapshot of that version shares
+    // the instance, so from then on the setters refuse and updates go through the service.
+    private boolean frozen;
+
     public Task(String taskId, String name, String description) {
-        validate(taskId, "taskId", TASK_ID_MAX_LENGTH);
-        validate(name, "name", NAME_MAX_LENGTH);
-        validate(description, "description", DESCRIPTION_MAX_LENGTH);
+        Validation.requireText(taskId, "taskId", TASK_ID_MAX_LENGTH);
+        Validation.requireText(name, "name", NAME_MAX_LENGTH);
+        Validation.requireText(description, "description", DESCRIPTION_MAX_LENGTH);
 
         this.taskId = taskId;
         this.name = name;
@@ -30,12 +37,24 @@ public final class Task {
         return taskId;
     }
 
+    // Version stamp for optimistic updates: read it with the record, then pass it to the
+    // service's conditional update, which applies only if no other update came first.
+    public long getVersion() {
+        return version;
+    }
+
+    // Set by the service as it applies an update, or when restoring a snapshot.
+    void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name) {
-        validate(name, "name", NAME_MAX_LENGTH);
+        requireMutable();
+        Validation.requireText(name, "name", NAME_MAX_LENGTH);
         this.name = name;
     }
 
@@ -44,19 +63,45 @@ public final class Task {
     }
 
     public void setDescription(String description) {
-        validate(description, "description", DESCRIPTION_MAX_LENGTH);
+        requireMutable();
+        Validation.requireText(description, "description", DESCRIPTION_MAX_LENGTH);
         this.description = description;
     }
 
-    // Validates a required String field.
-    // Gate check: not null, within max length.
-    private static void validate(String value, String fieldName, int maxLength) {
-        if (value == null) {
-            throw new IllegalArgumentException(fieldName + " must not be null");
+    // Called by a versioned service before it publishes this record.
+    void freeze() {
+        frozen = true;
+    }
+
+    private void requireMutable() {
+        if (frozen) {
+            throw new IllegalStateException("task " + taskId
+                + " is stored in versioned mode; update it through the service");
         }
+    }
 
-        if (value.length() > maxLength) {
-            throw new IllegalArgumentException(fieldName + " cannot exceed " + maxLength + " characters");
+    // Throwing check for an update request; null means no change. Names the first invalid field.
+    static void requireValidUpdate(String name, String description) {
+        if (name != null) {
+            Validation.requireText(name, "name", NAME_MAX_LENGTH);
         }
+        if (description != null) {
+            Validation.requireText(description, "description", DESCRIPTION_MAX_LENGTH);
+        }
+    }
+
+    // Non-throwing check for an update request; null means no change and is always accepted.
+    static boolean acceptsUpdate(String name, String description) {
+        return (name == null || Validation.isText(name, NAME_MAX_LENGTH))
+            && (description == null || Validation.isText(description, DESCRIPTION_MAX_LENGTH));
+    }
+
+    // Returns a new Task carrying this id and the given field values; null keeps the current value.
+    // The copy is the next version of this record.
+    Task withUpdates(String name, String description) {
+        Task updated = new Task(taskId, name != null ? name : this.name,
+            description != null ? description : this.description);
+        updated.version = version + 1;
+        return updated;
     }
 }
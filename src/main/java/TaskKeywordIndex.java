@@ -0,0 +1,220 @@
+// Component: TaskKeywordIndex
+// Purpose: Inverted index from words in a task's name and description to the tasks using them.
+// Strategy: each indexed task version gets an increasing int document number; a posting list
+// per word holds document numbers as variable-byte deltas in a growable byte array. Lists
+// are append-only: delete and update retire the old document number, and queries skip
+// retired numbers. Once retired numbers outnumber live ones, the index rebuilds itself
+// with dense numbering, so the extra work stays proportional to the writes.
+// Operating principle: owned by TaskService; callers never mutate it directly.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+final class TaskKeywordIndex {
+
+    // Below this many retired documents a rebuild is not worth doing.
+    private static final int MIN_RETIRED_FOR_REBUILD = 1024;
+
+    // Sorted document numbers, delta encoded seven bits per byte with a continuation bit.
+    private static final class PostingList {
+        byte[] bytes = new byte[4];
+        int length;
+        int count;
+        int last = -1;
+
+        void append(int document) {
+            int delta = document - last;
+            while (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+            last = document;
+            count++;
+        }
+
+        int[] decode() {
+            int[] documents = new int[count];
+            int[] position = {0};
+            int document = -1;
+            for (int i = 0; i < count; i++) {
+                document += readDelta(position);
+                documents[i] = document;
+            }
+            return documents;
+        }
+
+        // Keeps the entries of matches[0..size) that also occur in this list, decoding only
+        // as far as the largest candidate. Returns the number kept.
+        int retainAll(int[] matches, int size) {
+            int[] position = {0};
+            int document = -1;
+            int decoded = 0;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                while (document < matches[i] && decoded < count) {
+                    document += readDelta(position);
+                    decoded++;
+                }
+                if (document == matches[i]) {
+                    matches[kept++] = document;
+                } else if (document < matches[i]) {
+                    break;
+                }
+            }
+            return kept;
+        }
+
+        private int readDelta(int[] position) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position[0]++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return delta;
+        }
+    }
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, Integer> documentOf = new HashMap<>();
+
+    // Document number to task; null once retired.
+    private Task[] documents = new Task[16];
+    private int nextDocument;
+
+    int size() {
+        return documentOf.size();
+    }
+
+    void clear() {
+        postings.clear();
+        documentOf.clear();
+        documents = new Task[16];
+        nextDocument = 0;
+    }
+
+    // Indexes task's current name and description; a task already indexed is re-indexed.
+    void add(Task task) {
+        retire(task.getTaskId());
+
+        if (nextDocument == documents.length) {
+            documents = Arrays.copyOf(documents, documents.length * 2);
+        }
+        int document = nextDocument++;
+        documents[document] = task;
+        documentOf.put(task.getTaskId(), document);
+
+        Set<String> words = new LinkedHashSet<>(tokenize(task.getName()));
+        words.addAll(tokenize(task.getDescription()));
+        for (String word : words) {
+            postings.computeIfAbsent(word, key -> new PostingList()).append(document);
+        }
+        rebuildIfSparse();
+    }
+
+    void remove(String taskId) {
+        retire(taskId);
+        rebuildIfSparse();
+    }
+
+    // Tasks containing every word, ordered by when each was last added or changed.
+    List<Task> matchingAll(List<String> words) {
+        PostingList[] lists = new PostingList[words.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(words.get(i));
+            if (lists[i] == null) {
+                return new ArrayList<>();
+            }
+        }
+        // Shortest list first keeps every intermediate result as small as possible.
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.count));
+
+        int[] matches = lists[0].decode();
+        int size = matches.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = lists[i].retainAll(matches, size);
+        }
+        return tasksFor(matches, size);
+    }
+
+    // Tasks containing at least one of the words, in the same order as matchingAll.
+    List<Task> matchingAny(List<String> words) {
+        BitSet union = new BitSet(nextDocument);
+        for (String word : words) {
+            PostingList list = postings.get(word);
+            if (list != null) {
+                for (int document : list.decode()) {
+                    union.set(document);
+                }
+            }
+        }
+        return tasksFor(union.stream().toArray(), union.cardinality());
+    }
+
+    // Lower-cased runs of letters and digits, each word once, in first-seen order.
+    static List<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    private void retire(String taskId) {
+        Integer document = documentOf.remove(taskId);
+        if (document != null) {
+            documents[document] = null;
+        }
+    }
+
+    private void rebuildIfSparse() {
+        int retired = nextDocument - documentOf.size();
+        if (retired < MIN_RETIRED_FOR_REBUILD || retired <= documentOf.size()) {
+            return;
+        }
+
+        Task[] live = new Task[documentOf.size()];
+        int count = 0;
+        for (int i = 0; i < nextDocument; i++) {
+            if (documents[i] != null) {
+                live[count++] = documents[i];
+            }
+        }
+        clear();
+        for (Task task : live) {
+            add(task);
+        }
+    }
+
+    private List<Task> tasksFor(int[] sortedDocuments, int size) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Task task = documents[sortedDocuments[i]];
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+}
@@ -1,64 +1,666 @@
 // Component: TaskService
 // Purpose: Add, delete, and update tasks in memory.
-// Strategy: Map keyed by taskId for deterministic lookups and enforced uniqueness.
+// Strategy: Map keyed by taskId for deterministic lookups and enforced uniqueness, plus an
+// inverted keyword index (TaskKeywordIndex) over name and description words.
+// Concurrency: versioned() selects a VersionedMap with copy-on-write updates and writers
+// serialized on it; readSnapshot() is a lock-free point-in-time view of every task.
+// Every task carries a version, so a caller's read-modify-write can be made conditional on
+// nothing having changed in between.
+// Storage: using() builds the service on any StorageEngine with the same API. On the
+// concurrent engine writes are serialized and updates copy-on-write as in versioned mode,
+// and reads run alongside them without locks. The bounded engine drops the keyword index.
+// Instrumentation: enableMetrics() counts and times each add, get, update, and delete by outcome.
+// Operations slower than a threshold, durable opens, and validation rejections are JFR
+// events (ServiceEvents) whenever a recording is active.
+// Durability: durable() adds a write-ahead log that is replayed on open, optionally
+// preceded by a memory-mapped snapshot so only the log tail replays.
 // Operating principle: guard the collection, keep failures explicit and early.
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
-public final class TaskService {
+public final class TaskService implements Closeable {
 
-    private final Map<String, Task> tasks = new HashMap<>();
+    // Log record operation codes.
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_UPDATE = 3;
+    private static final byte OP_ADD_BATCH = 4;
+    // Snapshot entry: an add that also carries the task's version.
+    private static final byte OP_RESTORE = 5;
+
+    // Expected versions meaning the update applies to whatever version is stored, and that the
+    // caller passed a negative version.
+    private static final long ANY_VERSION = -1;
+    private static final long INVALID_VERSION = Long.MIN_VALUE;
+
+    // Record format for engines that keep tasks encoded: the snapshot entry.
+    private static final StorageEngine.Codec<Task> RECORDS = new StorageEngine.Codec<>() {
+        @Override
+        public void encode(Task task, BinaryCodec.Writer out) {
+            encodeRestore(task, out);
+        }
+
+        @Override
+        public Task decode(BinaryCodec.Reader in) {
+            in.readByte();
+            Task task = new Task(in.readString(), in.readString(), in.readString());
+            task.setVersion(in.readVarLong());
+            return task;
+        }
+    };
+
+    private final Map<String, Task> tasks;
+
+    // Kept in step with tasks by every add, delete, and update. Null on the bounded engine,
+    // which only runs the default-mode paths, so those skip it.
+    private final TaskKeywordIndex byKeyword;
+
+    // Null unless durable; writers append under its monitor, then wait outside it.
+    private final WriteAheadLog log;
+
+    // Null unless durable with snapshots; target of snapshot().
+    private final Path snapshotFile;
+
+    // Reused encode buffer; only touched while holding the log monitor.
+    private final BinaryCodec.Writer record = new BinaryCodec.Writer();
+
+    // When true, writes hold the map's monitor and updates replace the stored Task instead of
+    // mutating it: versioned mode, and the concurrent engine.
+    private final boolean sharedReads;
+
+    // Null until enableMetrics(); each call reads it once.
+    private volatile ServiceMetrics metrics;
+
+    public TaskService() {
+        this(new HashMap<>(), new TaskKeywordIndex(), false, null, null);
+    }
+
+    private TaskService(Map<String, Task> tasks, TaskKeywordIndex byKeyword, boolean sharedReads, WriteAheadLog log,
+                        Path snapshotFile) {
+        this.tasks = tasks;
+        this.byKeyword = byKeyword;
+        this.sharedReads = sharedReads;
+        this.log = log;
+        this.snapshotFile = snapshotFile;
+    }
+
+    // Thread-safe mode with point-in-time reads (MVCC). Updates publish a new Task rather than
+    // changing the stored one, and every write publishes a new version of the whole store.
+    // readSnapshot() returns the current version in constant time; reports iterate it without
+    // locks while writers carry on. Writers are serialized with each other, and keyword
+    // searches wait for a write in progress. Stored tasks are frozen, including those passed
+    // to add: their setters throw IllegalStateException, so no caller can change a version a
+    // snapshot shares.
+    public static TaskService versioned() {
+        return new TaskService(new VersionedMap<>(), new TaskKeywordIndex(), true, null, null);
+    }
+
+    // Keeps tasks in the given engine. On StorageEngine.concurrentMap() reads are thread-safe
+    // and lock-free and writers are serialized, as in versioned mode but without snapshots; on
+    // the others the service is single-threaded, as by default. With the disk and bounded
+    // engines, close() deletes their file. On the bounded engine keyword searches throw
+    // IllegalStateException.
+    public static TaskService using(StorageEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine must not be null");
+        }
+        return new TaskService(engine.open("tasks", RECORDS), engine.keepsIndexes() ? new TaskKeywordIndex() : null,
+            engine.isConcurrent(), null, null);
+    }
+
+    // Durable mode: rebuilds state from the log at logFile, then journals every successful
+    // add, delete, and update before acknowledging it. Writers are serialized by the log
+    // and share fsyncs according to the policy; reads are single-threaded as in default mode.
+    public static TaskService durable(Path logFile, FsyncPolicy policy) throws IOException {
+        return durable(logFile, null, policy);
+    }
+
+    // As above, restoring from snapshotFile first when it exists and is intact, then
+    // replaying only the log records written after it. Enables snapshot().
+    public static TaskService durable(Path logFile, Path snapshotFile, FsyncPolicy policy) throws IOException {
+        ServiceEvents.Load load = ServiceEvents.beginLoad();
+        Map<String, Task> tasks = new HashMap<>();
+        TaskKeywordIndex byKeyword = new TaskKeywordIndex();
+        long from = snapshotFile == null
+            ? 0
+            : SnapshotFile.restoreOrDiscard(snapshotFile, entry -> replay(tasks, byKeyword, entry), () -> {
+                tasks.clear();
+                byKeyword.clear();
+            });
+        WriteAheadLog log = WriteAheadLog.open(logFile, policy, from, entry -> replay(tasks, byKeyword, entry));
+        ServiceEvents.load(load, "Task", from > 0 ? "snapshot and log" : "log", tasks.size());
+        return new TaskService(tasks, byKeyword, false, log, snapshotFile);
+    }
+
+    // The throwing API maps try-API outcomes to exceptions, so each call is counted once.
 
     public void addTask(Task task) {
-        if (task == null) {
+        OperationResult result = tryAddTask(task);
+        if (result == OperationResult.INVALID_INPUT) {
             throw new IllegalArgumentException("task must not be null");
         }
+        if (result == OperationResult.DUPLICATE_ID) {
+            throw new IllegalArgumentException("taskId already exists: " + task.getTaskId());
+        }
+    }
+
+    public void deleteTask(String taskId) {
+        OperationResult result = tryDeleteTask(taskId);
+        if (result == OperationResult.INVALID_INPUT) {
+            throw new IllegalArgumentException("taskId must not be null");
+        }
+        if (result == OperationResult.NOT_FOUND) {
+            throw new IllegalArgumentException("taskId not found: " + taskId);
+        }
+    }
+
+    // Null values are skipped; non-null values are validated before anything is applied.
+    public void updateTask(String taskId, String name, String description) {
+        OperationResult result = tryUpdateTask(taskId, name, description);
+        if (result == OperationResult.INVALID_INPUT) {
+            // Re-run the checks that failed to report which argument was rejected.
+            requireNonNullId(taskId);
+            Task.requireValidUpdate(name, description);
+        }
+        if (result == OperationResult.NOT_FOUND) {
+            throw new IllegalArgumentException("taskId not found: " + taskId);
+        }
+    }
+
+    // Optimistic update: applies only if the stored task is still at expectedVersion, the value
+    // getVersion() returned when the caller read it, and returns false otherwise so the caller
+    // can re-read and retry. Invalid arguments and unknown ids throw as above.
+    public boolean updateTask(String taskId, long expectedVersion, String name, String description) {
+        OperationResult result = tryUpdateTask(taskId, expectedVersion, name, description);
+        if (result == OperationResult.INVALID_INPUT) {
+            requireNonNullId(taskId);
+            requireVersion(expectedVersion);
+            Task.requireValidUpdate(name, description);
+        }
+        if (result == OperationResult.NOT_FOUND) {
+            throw new IllegalArgumentException("taskId not found: " + taskId);
+        }
+        return result == OperationResult.OK;
+    }
+
+    // Non-throwing counterparts of add, delete, and update for hot paths where duplicate
+    // and unknown ids are routine. Outcomes are reported as shared enum constants.
+    public OperationResult tryAddTask(Task task) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = task == null ? OperationResult.INVALID_INPUT : insert(task);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.ADD, result, started);
+        ServiceEvents.operation(event, "Task", ServiceMetrics.Operation.ADD, result, task == null ? null : task.getTaskId());
+        return result;
+    }
+
+    public OperationResult tryDeleteTask(String taskId) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = taskId == null ? OperationResult.INVALID_INPUT : remove(taskId);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.DELETE, result, started);
+        ServiceEvents.operation(event, "Task", ServiceMetrics.Operation.DELETE, result, taskId);
+        return result;
+    }
+
+    // Fields are checked before anything is applied, so a rejected update changes nothing.
+    public OperationResult tryUpdateTask(String taskId, String name, String description) {
+        return tryUpdate(taskId, ANY_VERSION, name, description);
+    }
+
+    // As above, applied only if the stored task is still at expectedVersion; VERSION_CONFLICT
+    // otherwise. A negative expectedVersion is INVALID_INPUT.
+    public OperationResult tryUpdateTask(String taskId, long expectedVersion, String name, String description) {
+        return tryUpdate(taskId, expectedVersion < 0 ? INVALID_VERSION : expectedVersion, name, description);
+    }
+
+    // Bulk add: checks the whole batch, then stores all of it or none of it. A rejected batch
+    // throws BatchRejectedException listing every null record, id repeated within the batch,
+    // and id already stored. The batch is one service.Load event rather than per-add metrics
+    // and events. In durable mode it is one log record and one fsync, so a restart recovers
+    // all of it or none of it.
+    public void addTasks(Collection<Task> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("tasks must not be null");
+        }
+
+        ServiceEvents.Load load = ServiceEvents.beginLoad();
+        Task[] records = batch.toArray(new Task[0]);
+        List<BatchFailure> failures = new ArrayList<>();
+        Map<String, Task> staged = BulkAdd.stage(records, Task::getTaskId, "task", "taskId", failures);
+
+        if (log == null && !sharedReads) {
+            BulkAdd.rejectStored(records, Task::getTaskId, staged, tasks, "taskId", failures);
+            if (failures.isEmpty()) {
+                storeAll(tasks, byKeyword, staged);
+            }
+        } else if (!staged.isEmpty()) {
+            // Encoded before taking the writer monitor, so other writers wait only for the checks.
+            // Stored ids are checked even when staging failed, so the report matches default mode.
+            BinaryCodec.Writer batchRecord = log == null || !failures.isEmpty() ? null : BulkAdd.logRecord(OP_ADD_BATCH,
+                staged.values(), staged.size(),
+                (task, out) -> encodeAdd(task.getTaskId(), task.getName(), task.getDescription(), out));
+            long sequence = 0;
+            synchronized (writes()) {
+                BulkAdd.rejectStored(records, Task::getTaskId, staged, tasks, "taskId", failures);
+                if (failures.isEmpty()) {
+                    if (log != null) {
+                        sequence = log.append(batchRecord);
+                    }
+                    staged.values().forEach(this::freezeIfVersioned);
+                    storeAll(tasks, byKeyword, staged);
+                }
+            }
+            if (failures.isEmpty() && log != null) {
+                log.awaitDurable(sequence);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            BulkAdd.sort(failures);
+            throw new BatchRejectedException(records.length, failures);
+        }
+        ServiceEvents.load(load, "Task", "batch", records.length);
+    }
+
+    // Lookup helper: returns the task for the given id, or null if not found.
+    // Actions (delete, update) fail fast on unknown ids to keep the service contract explicit.
+    public Task getTask(String taskId) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        if (taskId == null) {
+            ServiceMetrics.record(metrics, ServiceMetrics.Operation.GET, OperationResult.INVALID_INPUT, started);
+            ServiceEvents.operation(event, "Task", ServiceMetrics.Operation.GET, OperationResult.INVALID_INPUT, null);
+            throw new IllegalArgumentException("taskId must not be null");
+        }
+        Task task = tasks.get(taskId);
+        OperationResult result = task != null ? OperationResult.OK : OperationResult.NOT_FOUND;
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.GET, result, started);
+        ServiceEvents.operation(event, "Task", ServiceMetrics.Operation.GET, result, taskId);
+        return task;
+    }
 
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    // Passes each stored task to action without copying the store, so memory use does not
+    // grow with it. Order is unspecified. Versioned mode passes over one version while writers
+    // run, and on the concurrent engine each task is seen as of some point during the pass;
+    // otherwise no writes may happen until it returns.
+    public void forEachTask(Consumer<? super Task> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("action must not be null");
+        }
+        tasks.values().forEach(action);
+    }
+
+    // Keyword search over name and description. Words are runs of letters and digits,
+    // matched case-insensitively as whole words. Results are ordered by when each task
+    // was last added or updated, oldest first.
+
+    // Tasks containing every word in keywords.
+    public List<Task> findTasksWithAllKeywords(String keywords) {
+        List<String> words = requireKeywords(keywords);
+        requireIndex();
+        if (!sharedReads) {
+            return byKeyword.matchingAll(words);
+        }
+        synchronized (tasks) {
+            return byKeyword.matchingAll(words);
+        }
+    }
+
+    // Tasks containing at least one word in keywords.
+    public List<Task> findTasksWithAnyKeyword(String keywords) {
+        List<String> words = requireKeywords(keywords);
+        requireIndex();
+        if (!sharedReads) {
+            return byKeyword.matchingAny(words);
+        }
+        synchronized (tasks) {
+            return byKeyword.matchingAny(words);
+        }
+    }
+
+    // Every task as of this moment, without copying and without blocking writers. Only in
+    // versioned mode; IllegalStateException otherwise.
+    public StoreSnapshot<Task> readSnapshot() {
+        if (!(tasks instanceof VersionedMap<Task> versions)) {
+            throw new IllegalStateException("read snapshots require versioned mode");
+        }
+        return versions.snapshot();
+    }
+
+    // Writes a snapshot in the background. Writers are held only while the current field
+    // values and log position are captured into flat arrays; tasks mutate in place, so the
+    // copies are built from those values after writers resume. The log then keeps only what
+    // the previous snapshot still needs.
+    public CompletableFuture<Void> snapshot() {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("snapshots require durable mode with a snapshot file");
+        }
+
+        long position;
+        String[] fields;
+        long[] versions;
+        synchronized (log) {
+            position = log.position();
+            fields = new String[3 * tasks.size()];
+            versions = new long[tasks.size()];
+            int i = 0;
+            for (Task task : tasks.values()) {
+                fields[3 * i] = task.getTaskId();
+                fields[3 * i + 1] = task.getName();
+                fields[3 * i + 2] = task.getDescription();
+                versions[i++] = task.getVersion();
+            }
+        }
+        List<Task> image = new ArrayList<>(versions.length);
+        for (int i = 0; i < versions.length; i++) {
+            Task copy = new Task(fields[3 * i], fields[3 * i + 1], fields[3 * i + 2]);
+            copy.setVersion(versions[i]);
+            image.add(copy);
+        }
+        // The snapshot must not point past the log on disk.
+        log.sync();
+        return SnapshotFile.writeAsync(snapshotFile, position, image, TaskService::encodeRestore)
+            .thenAccept(previous -> log.truncateBefore(Math.min(previous, position)));
+    }
+
+    // Hits, misses, and evictions of the memory budget so far; bounded engine only.
+    public CacheStats cacheStats() {
+        return StorageEngine.cacheStats(tasks);
+    }
+
+    // Lookups the id filter answered and its false-positive rate so far; withIdFilter() only.
+    public FilterStats filterStats() {
+        return StorageEngine.filterStats(tasks);
+    }
+
+    // Whether lookups change the store, so AsyncServices must not run two reads at once.
+    boolean readsWrite() {
+        return StorageEngine.readsWrite(tasks);
+    }
+
+    // Turns on per-operation counts and latency histograms and returns them; later calls
+    // return the same metrics. Calls already in progress are not counted.
+    public synchronized ServiceMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new ServiceMetrics();
+        }
+        return metrics;
+    }
+
+    // Releases the log in durable mode and the disk and bounded engines' file; a no-op otherwise.
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        if (tasks instanceof Closeable store) {
+            store.close();
+        }
+    }
+
+    // Shared by both update forms; expectedVersion is ANY_VERSION, a version, or INVALID_VERSION.
+    private OperationResult tryUpdate(String taskId, long expectedVersion, String name, String description) {
+        ServiceMetrics metrics = this.metrics;
+        long started = ServiceMetrics.start(metrics);
+        ServiceEvents.Operation event = ServiceEvents.begin();
+        OperationResult result = taskId == null || expectedVersion == INVALID_VERSION
+            || !Task.acceptsUpdate(name, description)
+            ? OperationResult.INVALID_INPUT
+            : update(taskId, expectedVersion, name, description);
+        ServiceMetrics.record(metrics, ServiceMetrics.Operation.UPDATE, result, started);
+        ServiceEvents.operation(event, "Task", ServiceMetrics.Operation.UPDATE, result, taskId);
+        return result;
+    }
+
+    // Mutation core shared by the throwing and try APIs; arguments are already checked.
+    // Durable writes check, append, then apply while holding the log monitor, so the log
+    // order is the apply order and a failed append leaves memory untouched. Versioned
+    // writes check and apply while holding the map's monitor, with no log.
+
+    private OperationResult insert(Task task) {
         String id = task.getTaskId();
-        if (tasks.containsKey(id)) {
-            throw new IllegalArgumentException("taskId already exists: " + id);
+
+        if (log == null && !sharedReads) {
+            if (tasks.putIfAbsent(id, task) != null) {
+                return OperationResult.DUPLICATE_ID;
+            }
+            if (byKeyword != null) {
+                byKeyword.add(task);
+            }
+            return OperationResult.OK;
         }
 
-        tasks.put(id, task);
+        long sequence = 0;
+        synchronized (writes()) {
+            if (tasks.containsKey(id)) {
+                return OperationResult.DUPLICATE_ID;
+            }
+            if (log != null) {
+                record.reset();
+                encodeAdd(id, task.getName(), task.getDescription(), record);
+                sequence = log.append(record);
+            }
+            freezeIfVersioned(task);
+            tasks.put(id, task);
+            byKeyword.add(task);
+        }
+        awaitDurable(sequence);
+        return OperationResult.OK;
     }
 
-    public void deleteTask(String taskId) {
-        requireNonNullId(taskId);
+    private OperationResult remove(String taskId) {
+        if (log == null && !sharedReads) {
+            if (!StorageEngine.discard(tasks, taskId)) {
+                return OperationResult.NOT_FOUND;
+            }
+            if (byKeyword != null) {
+                byKeyword.remove(taskId);
+            }
+            return OperationResult.OK;
+        }
 
-        if (!tasks.containsKey(taskId)) {
-            throw new IllegalArgumentException("taskId not found: " + taskId);
+        long sequence = 0;
+        synchronized (writes()) {
+            if (!tasks.containsKey(taskId)) {
+                return OperationResult.NOT_FOUND;
+            }
+            if (log != null) {
+                record.reset();
+                record.writeByte(OP_DELETE).writeString(taskId);
+                sequence = log.append(record);
+            }
+            tasks.remove(taskId);
+            byKeyword.remove(taskId);
         }
+        awaitDurable(sequence);
+        return OperationResult.OK;
+    }
 
-        tasks.remove(taskId);
+    // The version check runs on the writer's thread, or under the writer monitor, so no other
+    // update can land between it and the write.
+    private OperationResult update(String taskId, long expectedVersion, String name, String description) {
+        if (log == null && !sharedReads) {
+            Task target = tasks.get(taskId);
+            OperationResult result = apply(target, expectedVersion, byKeyword, name, description);
+            if (result == OperationResult.OK && StorageEngine.storesCopies(tasks)) {
+                tasks.put(taskId, target);
+            }
+            return result;
+        }
+
+        long sequence = 0;
+        synchronized (writes()) {
+            Task target = tasks.get(taskId);
+            if (target == null) {
+                return OperationResult.NOT_FOUND;
+            }
+            if (stale(target, expectedVersion)) {
+                return OperationResult.VERSION_CONFLICT;
+            }
+            if (log != null) {
+                record.reset();
+                record.writeByte(OP_UPDATE).writeString(taskId).writeString(name).writeString(description);
+                sequence = log.append(record);
+                apply(target, ANY_VERSION, byKeyword, name, description);
+            } else {
+                // Snapshots may hold target, so the new field values go into a new version.
+                Task replacement = target.withUpdates(name, description);
+                freezeIfVersioned(replacement);
+                tasks.put(taskId, replacement);
+                byKeyword.add(replacement);
+            }
+        }
+        awaitDurable(sequence);
+        return OperationResult.OK;
     }
 
-    public void updateTask(String taskId, String name, String description) {
-        requireNonNullId(taskId);
+    // Snapshots share every version a VersionedMap publishes, so it is frozen first.
+    private void freezeIfVersioned(Task task) {
+        if (tasks instanceof VersionedMap) {
+            task.freeze();
+        }
+    }
+
+    // Monitor serializing writers: the log in durable mode, the map in versioned mode and on
+    // the concurrent engine.
+    private Object writes() {
+        return log != null ? log : tasks;
+    }
+
+    private void awaitDurable(long sequence) {
+        if (log != null) {
+            log.awaitDurable(sequence);
+        }
+    }
+
+    // One putAll sized by the staged map, then the keyword index.
+    private static void storeAll(Map<String, Task> tasks, TaskKeywordIndex byKeyword, Map<String, Task> staged) {
+        tasks.putAll(staged);
+        if (byKeyword == null) {
+            return;
+        }
+        for (Task task : staged.values()) {
+            byKeyword.add(task);
+        }
+    }
 
-        Task target = tasks.get(taskId);
+    // Null values are skipped; non-null values have already been validated.
+    private static OperationResult apply(Task target, long expectedVersion, TaskKeywordIndex byKeyword, String name,
+                                         String description) {
         if (target == null) {
-            throw new IllegalArgumentException("taskId not found: " + taskId);
+            return OperationResult.NOT_FOUND;
+        }
+        if (stale(target, expectedVersion)) {
+            return OperationResult.VERSION_CONFLICT;
         }
 
-        // Null values are skipped; non-null values are validated and applied.
         if (name != null) {
             target.setName(name);
         }
         if (description != null) {
             target.setDescription(description);
         }
+        target.setVersion(target.getVersion() + 1);
+        if (byKeyword != null) {
+            byKeyword.add(target);
+        }
+        return OperationResult.OK;
     }
 
-    // Lookup helper: returns the task for the given id, or null if not found.
-    // Actions (delete, update) fail fast on unknown ids to keep the service contract explicit.
-    public Task getTask(String taskId) {
-        requireNonNullId(taskId);
-        return tasks.get(taskId);
+    private static boolean stale(Task current, long expectedVersion) {
+        return expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion;
     }
 
-    public int getTaskCount() {
-        return tasks.size();
+    // Log entry for an added task.
+    private static void encodeAdd(String taskId, String name, String description, BinaryCodec.Writer out) {
+        out.writeByte(OP_ADD).writeString(taskId).writeString(name).writeString(description);
+    }
+
+    // Snapshot entry for a stored task, keeping its version across a restart.
+    private static void encodeRestore(Task task, BinaryCodec.Writer out) {
+        out.writeByte(OP_RESTORE)
+            .writeString(task.getTaskId())
+            .writeString(task.getName())
+            .writeString(task.getDescription())
+            .writeVarLong(task.getVersion());
+    }
+
+    // Applies one logged operation during open. Only successful operations are logged,
+    // so a record that does not fit the rebuilt state means the log is not ours.
+    private static void replay(Map<String, Task> tasks, TaskKeywordIndex byKeyword, BinaryCodec.Reader entry) {
+        byte op = entry.readByte();
+        if (op == OP_ADD_BATCH) {
+            for (int count = entry.readInt(); count > 0; count--) {
+                replay(tasks, byKeyword, entry);
+            }
+            return;
+        }
+        String id = entry.readString();
+
+        boolean applied;
+        switch (op) {
+            case OP_ADD:
+            case OP_RESTORE:
+                Task added = new Task(id, entry.readString(), entry.readString());
+                if (op == OP_RESTORE) {
+                    added.setVersion(entry.readVarLong());
+                }
+                applied = tasks.putIfAbsent(id, added) == null;
+                if (applied) {
+                    byKeyword.add(added);
+                }
+                break;
+            case OP_DELETE:
+                applied = tasks.remove(id) != null;
+                if (applied) {
+                    byKeyword.remove(id);
+                }
+                break;
+            case OP_UPDATE:
+                applied = apply(tasks.get(id), ANY_VERSION, byKeyword, entry.readString(), entry.readString())
+                    == OperationResult.OK;
+                break;
+            default:
+                throw new IllegalStateException("unknown task log operation: " + op);
+        }
+
+        if (!applied) {
+            throw new IllegalStateException("task log does not match replayed state at taskId: " + id);
+        }
+    }
+
+    private void requireIndex() {
+        if (byKeyword == null) {
+            throw new IllegalStateException("keyword searches are not available on the bounded engine");
+        }
+    }
+
+    private static List<String> requireKeywords(String keywords) {
+        if (keywords == null) {
+            throw new IllegalArgumentException("keywords must not be null");
+        }
+        List<String> words = TaskKeywordIndex.tokenize(keywords);
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("keywords must contain at least one word");
+        }
+        return words;
     }
 
     private static void requireNonNullId(String taskId) {
@@ -66,4 +668,10 @@ public final class TaskService {
             throw new IllegalArgumentException("taskId must not be null");
         }
     }
+
+    private static void requireVersion(long expectedVersion) {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("expectedVersion must not be negative");
+        }
+    }
 }
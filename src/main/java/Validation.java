@@ -0,0 +1,123 @@
+// Component: Validation
+// Purpose: Shared field checks for Contact, Task, and Appointment.
+// Strategy: plain loops over primitive limits; no regex, no allocation on the success path.
+// Operating principle: fail fast at the boundary; build the error message only when failing.
+// Rejections by the throwing checks are emitted as ServiceEvents.ValidationFailure.
+
+import java.time.Duration;
+
+final class Validation {
+
+    private static final Duration MAX_DURATION = Duration.ofMillis(Long.MAX_VALUE);
+
+    private Validation() {
+    }
+
+    // Required text that may be empty: not null, at most maxLength characters.
+    static void requireText(String value, String fieldName, int maxLength) {
+        if (value == null) {
+            throw nullValue(fieldName);
+        }
+
+        if (value.length() > maxLength) {
+            throw rejected(fieldName, fieldName + " cannot exceed " + maxLength + " characters");
+        }
+    }
+
+    // Required text that must carry content: not null, not empty, at most maxLength characters.
+    static void requireNonEmptyText(String value, String fieldName, int maxLength) {
+        requirePresent(value, fieldName);
+
+        if (value.length() > maxLength) {
+            throw rejected(fieldName, fieldName + " must be " + maxLength + " characters or fewer");
+        }
+    }
+
+    // Required digit string: exactly digitCount characters, each '0' through '9'.
+    static void requireDigits(String value, String fieldName, int digitCount) {
+        requirePresent(value, fieldName);
+
+        if (value.length() != digitCount || !isAsciiDigits(value)) {
+            throw rejected(fieldName, fieldName + " must be exactly " + digitCount + " digits");
+        }
+    }
+
+    // Leading digits of a digit string: 0 to maxDigits characters, each '0' through '9'.
+    static void requireDigitPrefix(String value, String fieldName, int maxDigits) {
+        if (value == null) {
+            throw nullValue(fieldName);
+        }
+
+        if (value.length() > maxDigits || !isAsciiDigits(value)) {
+            throw rejected(fieldName, fieldName + " must be at most " + maxDigits + " digits");
+        }
+    }
+
+    static void requireNonNull(Object value, String fieldName) {
+        if (value == null) {
+            throw nullValue(fieldName);
+        }
+    }
+
+    // Instant not before now, both in epoch millis.
+    static void requireNotPast(long epochMillis, long now, String fieldName) {
+        if (epochMillis < now) {
+            throw rejected(fieldName, fieldName + " cannot be in the past");
+        }
+    }
+
+    // Required span: not null, not negative, and representable in epoch milliseconds.
+    static void requireDuration(Duration value, String fieldName) {
+        if (value == null) {
+            throw nullValue(fieldName);
+        }
+
+        if (value.isNegative()) {
+            throw rejected(fieldName, fieldName + " must not be negative");
+        }
+
+        if (value.compareTo(MAX_DURATION) > 0) {
+            throw rejected(fieldName, fieldName + " cannot exceed " + MAX_DURATION);
+        }
+    }
+
+    // Non-throwing forms of the checks above, for callers that report a status instead.
+    static boolean isText(String value, int maxLength) {
+        return value != null && value.length() <= maxLength;
+    }
+
+    static boolean isNonEmptyText(String value, int maxLength) {
+        return value != null && !value.isEmpty() && value.length() <= maxLength;
+    }
+
+    static boolean isDigits(String value, int digitCount) {
+        return value != null && value.length() == digitCount && isAsciiDigits(value);
+    }
+
+    // Char loop equivalent of matches("\\d+") restricted to ASCII digits.
+    static boolean isAsciiDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void requirePresent(String value, String fieldName) {
+        if (value == null || value.isEmpty()) {
+            throw rejected(fieldName, fieldName + " must not be null or empty");
+        }
+    }
+
+    private static IllegalArgumentException nullValue(String fieldName) {
+        return rejected(fieldName, fieldName + " must not be null");
+    }
+
+    // Every throwing check fails through here, so each rejection is also a JFR event.
+    private static IllegalArgumentException rejected(String fieldName, String message) {
+        ServiceEvents.validationFailure(fieldName, message);
+        return new IllegalArgumentException(message);
+    }
+}
@@ -0,0 +1,419 @@
+// Component: VersionedMap
+// Purpose: String-keyed map in which every write publishes a new immutable version, so readers
+// take point-in-time snapshots in constant time and iterate them without locks.
+// Strategy: a persistent hash array mapped trie, as in Clojure and Scala. Nodes are 32-way,
+// indexed by five hash bits per level, and hold a bitmap of occupied slots plus a compact
+// array of entries and child nodes. A write copies only the nodes on the path to its key,
+// at most seven, and publishes the new root with one volatile write. Untouched subtrees are
+// shared between versions. Keys whose full hashes collide share a bucket below the last level.
+// Concurrency: writers are serialized on the map's monitor and each sees the latest version;
+// reads never lock. Iterators and snapshots see exactly one version.
+// Operating principle: nothing is freed by hand. A version becomes garbage once the map has
+// moved past it and no snapshot or iterator still refers to it.
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+final class VersionedMap<V> extends AbstractMap<String, V> implements ConcurrentMap<String, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    // Nodes at shifts 0 through 30, then a collision bucket.
+    static final int MAX_DEPTH = 8;
+
+    private static final Node EMPTY = new Node(0, new Object[0]);
+
+    private volatile StoreSnapshot<V> current = new StoreSnapshot<>(EMPTY, 0, 0);
+
+    // Entry replaced or removed by the last put or remove; only touched while holding the monitor.
+    private Entry<V> displaced;
+
+    // Trie node: slots holds one Entry, Node, or Collision per set bit of bitmap, in bit order.
+    static final class Node {
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    // Entries whose 32-bit hashes are equal; only found below the last node level.
+    static final class Collision {
+        final int hash;
+        final Object[] entries;
+
+        Collision(int hash, Object[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+    }
+
+    static final class Entry<V> extends AbstractMap.SimpleImmutableEntry<String, V> {
+        private static final long serialVersionUID = 1L;
+
+        final int hash;
+
+        Entry(String key, int hash, V value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    // The current version; constant time, never blocks.
+    StoreSnapshot<V> snapshot() {
+        return current;
+    }
+
+    @Override
+    public int size() {
+        return current.size;
+    }
+
+    @Override
+    public V get(Object key) {
+        Entry<V> entry = key instanceof String text ? find(current.root, hash(text), text) : null;
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String text && find(current.root, hash(text), text) != null;
+    }
+
+    @Override
+    public synchronized V put(String key, V value) {
+        displaced = null;
+        publish(with(current.root, entry(key, value), 0), displaced == null ? 1 : 0);
+        return displaced == null ? null : displaced.getValue();
+    }
+
+    @Override
+    public synchronized V putIfAbsent(String key, V value) {
+        Entry<V> old = find(current.root, hash(key), key);
+        if (old != null) {
+            return old.getValue();
+        }
+        publish(with(current.root, entry(key, value), 0), 1);
+        return null;
+    }
+
+    // All entries become visible in one version.
+    @Override
+    public synchronized void putAll(Map<? extends String, ? extends V> entries) {
+        Node root = current.root;
+        int added = 0;
+        for (Map.Entry<? extends String, ? extends V> entry : entries.entrySet()) {
+            displaced = null;
+            root = with(root, entry(entry.getKey(), entry.getValue()), 0);
+            added += displaced == null ? 1 : 0;
+        }
+        publish(root, added);
+    }
+
+    @Override
+    public synchronized V remove(Object key) {
+        if (!(key instanceof String text)) {
+            return null;
+        }
+        displaced = null;
+        Node root = without(current.root, hash(text), text, 0);
+        if (displaced == null) {
+            return null;
+        }
+        publish(root, -1);
+        return displaced.getValue();
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        if (!(key instanceof String text)) {
+            return false;
+        }
+        Entry<V> old = find(current.root, hash(text), text);
+        if (old == null || !old.getValue().equals(value)) {
+            return false;
+        }
+        remove(text);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean replace(String key, V oldValue, V newValue) {
+        Entry<V> old = find(current.root, hash(key), key);
+        if (old == null || !old.getValue().equals(oldValue)) {
+            return false;
+        }
+        put(key, newValue);
+        return true;
+    }
+
+    @Override
+    public synchronized V replace(String key, V value) {
+        return containsKey(key) ? put(key, value) : null;
+    }
+
+    // Runs remapping exactly once, under the writer monitor, so its side effects are not repeated.
+    @Override
+    public synchronized V computeIfPresent(String key, BiFunction<? super String, ? super V, ? extends V> remapping) {
+        Entry<V> old = find(current.root, hash(key), key);
+        if (old == null) {
+            return null;
+        }
+        V value = remapping.apply(key, old.getValue());
+        if (value == null) {
+            remove(key);
+        } else if (value != old.getValue()) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void clear() {
+        publish(EMPTY, -current.size);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        Iterator<Entry<V>> entries = entries(current.root);
+        while (entries.hasNext()) {
+            Entry<V> entry = entries.next();
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Each iterator walks the version current when it was created.
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return (Iterator) entries(current.root);
+            }
+
+            @Override
+            public int size() {
+                return current.size;
+            }
+        };
+    }
+
+    private void publish(Node root, int sizeChange) {
+        StoreSnapshot<V> previous = current;
+        current = new StoreSnapshot<>(root, previous.size + sizeChange, previous.version + 1);
+    }
+
+    private static <V> Entry<V> entry(String key, V value) {
+        return new Entry<>(Objects.requireNonNull(key, "key"), hash(key), Objects.requireNonNull(value, "value"));
+    }
+
+    // Spreads the high bits down so short keys that differ at the end still split early.
+    static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> Entry<V> find(Node root, int hash, String key) {
+        Object node = root;
+        for (int shift = 0; ; shift += BITS) {
+            if (node instanceof Collision collision) {
+                if (collision.hash != hash) {
+                    return null;
+                }
+                for (Object slot : collision.entries) {
+                    if (((Entry<V>) slot).getKey().equals(key)) {
+                        return (Entry<V>) slot;
+                    }
+                }
+                return null;
+            }
+            Node trie = (Node) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((trie.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = trie.slots[Integer.bitCount(trie.bitmap & (bit - 1))];
+            if (slot instanceof Entry<?> entry) {
+                return entry.hash == hash && entry.getKey().equals(key) ? (Entry<V>) entry : null;
+            }
+            node = slot;
+        }
+    }
+
+    // Copy of node with entry stored; sets displaced to the entry it replaces, if any.
+    @SuppressWarnings("unchecked")
+    private Node with(Node node, Entry<V> entry, int shift) {
+        int bit = 1 << ((entry.hash >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = entry;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            return new Node(node.bitmap | bit, slots);
+        }
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Entry<?> old) {
+            if (old.getKey().equals(entry.getKey())) {
+                displaced = (Entry<V>) old;
+                replacement = entry;
+            } else {
+                replacement = merge((Entry<V>) old, entry, shift + BITS);
+            }
+        } else if (slot instanceof Node child) {
+            replacement = with(child, entry, shift + BITS);
+        } else {
+            replacement = with((Collision) slot, entry);
+        }
+        Object[] slots = node.slots.clone();
+        slots[index] = replacement;
+        return new Node(node.bitmap, slots);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collision with(Collision collision, Entry<V> entry) {
+        Object[] entries = collision.entries;
+        for (int i = 0; i < entries.length; i++) {
+            if (((Entry<V>) entries[i]).getKey().equals(entry.getKey())) {
+                displaced = (Entry<V>) entries[i];
+                Object[] copy = entries.clone();
+                copy[i] = entry;
+                return new Collision(collision.hash, copy);
+            }
+        }
+        Object[] copy = new Object[entries.length + 1];
+        System.arraycopy(entries, 0, copy, 0, entries.length);
+        copy[entries.length] = entry;
+        return new Collision(collision.hash, copy);
+    }
+
+    // Smallest subtree holding two entries with different keys that shared a slot at shift - BITS.
+    private static Object merge(Entry<?> a, Entry<?> b, int shift) {
+        if (shift >= Integer.SIZE) {
+            return new Collision(a.hash, new Object[] {a, b});
+        }
+        int bitA = 1 << ((a.hash >>> shift) & MASK);
+        int bitB = 1 << ((b.hash >>> shift) & MASK);
+        if (bitA == bitB) {
+            return new Node(bitA, new Object[] {merge(a, b, shift + BITS)});
+        }
+        return new Node(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[] {a, b} : new Object[] {b, a});
+    }
+
+    // Copy of node without key, or node itself when key is absent; sets displaced to the
+    // removed entry. A child left holding a single entry is replaced by that entry.
+    @SuppressWarnings("unchecked")
+    private Node without(Node node, int hash, String key, int shift) {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Entry<?> entry) {
+            if (entry.hash != hash || !entry.getKey().equals(key)) {
+                return node;
+            }
+            displaced = (Entry<V>) entry;
+            replacement = null;
+        } else if (slot instanceof Node child) {
+            Node smaller = without(child, hash, key, shift + BITS);
+            if (smaller == child) {
+                return node;
+            }
+            replacement = smaller.slots.length == 1 && smaller.slots[0] instanceof Entry ? smaller.slots[0] : smaller;
+        } else {
+            Collision collision = (Collision) slot;
+            int at = -1;
+            for (int i = 0; i < collision.entries.length; i++) {
+                if (((Entry<V>) collision.entries[i]).getKey().equals(key)) {
+                    at = i;
+                }
+            }
+            if (collision.hash != hash || at < 0) {
+                return node;
+            }
+            displaced = (Entry<V>) collision.entries[at];
+            Object[] rest = removeSlot(collision.entries, at);
+            replacement = rest.length == 1 ? rest[0] : new Collision(hash, rest);
+        }
+        if (replacement == null) {
+            return new Node(node.bitmap & ~bit, removeSlot(node.slots, index));
+        }
+        Object[] slots = node.slots.clone();
+        slots[index] = replacement;
+        return new Node(node.bitmap, slots);
+    }
+
+    private static Object[] removeSlot(Object[] slots, int index) {
+        Object[] copy = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, copy, 0, index);
+        System.arraycopy(slots, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    // Depth-first walk of one version; slot order, so unrelated to insertion order.
+    static <V> Iterator<Entry<V>> entries(Node root) {
+        return new Iterator<>() {
+            private final Object[][] stack = new Object[MAX_DEPTH][];
+            private final int[] positions = new int[MAX_DEPTH];
+            private int depth;
+            private Entry<V> next;
+
+            {
+                stack[0] = root.slots;
+                advance();
+            }
+
+            @SuppressWarnings("unchecked")
+            private void advance() {
+                next = null;
+                while (depth >= 0) {
+                    Object[] slots = stack[depth];
+                    if (positions[depth] == slots.length) {
+                        depth--;
+                        continue;
+                    }
+                    Object slot = slots[positions[depth]++];
+                    if (slot instanceof Entry<?> entry) {
+                        next = (Entry<V>) entry;
+                        return;
+                    }
+                    depth++;
+                    stack[depth] = slot instanceof Node node ? node.slots : ((Collision) slot).entries;
+                    positions[depth] = 0;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<V> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry<V> entry = next;
+                advance();
+                return entry;
+            }
+        };
+    }
+}
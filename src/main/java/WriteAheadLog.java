@@ -0,0 +1,368 @@
+// Component: WriteAheadLog
+// Purpose: Append-only operation log that lets an in-memory service survive a restart.
+// Strategy: length-prefixed, CRC-checked frames in one file. Appends are serialized on this
+// object; fsyncs happen outside that monitor so waiting writers share one force (group commit).
+// Once a snapshot covers the start of the log, truncateBefore() copies the rest to a new file
+// that begins with a header naming its first position, so positions stay valid for replay.
+// Operating principle: a torn or corrupt tail is cut off at open; everything before it replays.
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public final class WriteAheadLog implements Closeable {
+
+    // Largest payload append accepts. Replay treats a longer length as a damaged tail, so
+    // the limit also guards it against garbage lengths. Bulk adds log a whole batch as one
+    // record, so it is sized for large batches.
+    static final int MAX_RECORD_BYTES = 64 << 20;
+    private static final int FRAME_OVERHEAD_BYTES = 8;
+
+    // A truncated log starts with this marker, which no frame length can equal, and the
+    // position of its first record.
+    private static final int BASE_MARKER = -2;
+    private static final int BASE_HEADER_BYTES = 4 + 8;
+
+    private final Path file;
+    private final FsyncPolicy policy;
+    private final ScheduledExecutorService flusher;
+    private final ByteBuffer header = ByteBuffer.allocate(FRAME_OVERHEAD_BYTES);
+    private final CRC32 crc = new CRC32();
+    private final Object syncLock = new Object();
+
+    // Held for a whole truncateBefore, so one runs at a time; appends never take it.
+    private final Object compactLock = new Object();
+
+    // Guarded by this; replaced by truncateBefore while also holding syncLock and compactLock.
+    private FileChannel channel;
+    private long base;
+    private int headerBytes;
+
+    // Guarded by this.
+    private long appended;
+    private long position;
+    private boolean closed;
+
+    // Highest sequence number known to be on stable storage.
+    private volatile long durable;
+
+    private WriteAheadLog(Path file, FileChannel channel, long base, int headerBytes, long position,
+                          FsyncPolicy policy) {
+        this.file = file;
+        this.channel = channel;
+        this.base = base;
+        this.headerBytes = headerBytes;
+        this.position = position;
+        this.policy = policy;
+
+        if (policy.kind() == FsyncPolicy.Kind.EVERY_N_MILLIS) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::backgroundSync, policy.value(), policy.value(), TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    // Opens or creates the log, hands every intact record payload to replayer in order,
+    // truncates any torn tail, and positions the log for appends.
+    static WriteAheadLog open(Path file, FsyncPolicy policy, Consumer<BinaryCodec.Reader> replayer) throws IOException {
+        return open(file, policy, 0, replayer);
+    }
+
+    // As above, but replays only the records at or after fromPosition, a value previously
+    // returned by position() (for example, one recorded in a snapshot).
+    static WriteAheadLog open(Path file, FsyncPolicy policy, long fromPosition,
+                              Consumer<BinaryCodec.Reader> replayer) throws IOException {
+        if (file == null || policy == null || replayer == null) {
+            throw new IllegalArgumentException("file, policy, and replayer must not be null");
+        }
+
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long base = 0;
+            int headerBytes = 0;
+            if (channel.size() >= BASE_HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(BASE_HEADER_BYTES);
+                for (int read = 0; read >= 0 && header.hasRemaining(); ) {
+                    read = channel.read(header, header.position());
+                }
+                if (header.flip().getInt() == BASE_MARKER) {
+                    base = header.getLong();
+                    headerBytes = BASE_HEADER_BYTES;
+                }
+            }
+            if (fromPosition < base) {
+                throw new IllegalStateException("log was truncated at " + base
+                    + ", after the requested replay position: " + fromPosition);
+            }
+            if (fromPosition > base + channel.size() - headerBytes) {
+                throw new IllegalStateException("log is shorter than the requested replay position: " + fromPosition);
+            }
+            long end = replay(channel, fromPosition - base + headerBytes, replayer);
+            if (end < channel.size()) {
+                channel.truncate(end);
+                channel.force(false);
+            }
+            channel.position(end);
+            return new WriteAheadLog(file, channel, base, headerBytes, base + end - headerBytes, policy);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Appends one record and returns its sequence number. The record is written to the
+    // file but is durable only after awaitDurable returns for that sequence.
+    synchronized long append(BinaryCodec.Writer payload) {
+        if (closed) {
+            throw new IllegalStateException("log is closed");
+        }
+        if (payload.length() > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("log record exceeds " + MAX_RECORD_BYTES + " bytes");
+        }
+
+        crc.reset();
+        crc.update(payload.array(), 0, payload.length());
+
+        header.clear();
+        header.putInt(payload.length()).putInt((int) crc.getValue()).flip();
+        ByteBuffer body = ByteBuffer.wrap(payload.array(), 0, payload.length());
+        ByteBuffer[] frame = {header, body};
+        try {
+            while (body.hasRemaining()) {
+                channel.write(frame);
+            }
+        } catch (IOException e) {
+            // A partial frame may be on disk; refuse further appends so nothing lands after it.
+            closed = true;
+            throw new UncheckedIOException("log append failed", e);
+        }
+
+        position += FRAME_OVERHEAD_BYTES + payload.length();
+        return ++appended;
+    }
+
+    // Applies the fsync policy for a record returned by append.
+    void awaitDurable(long sequence) {
+        switch (policy.kind()) {
+            case EVERY_OPERATION:
+                syncThrough(sequence);
+                break;
+            case EVERY_N_OPERATIONS:
+                if (sequence - durable >= policy.value()) {
+                    syncThrough(sequence);
+                }
+                break;
+            default:
+                // EVERY_N_MILLIS: the background flusher owns durability.
+                break;
+        }
+    }
+
+    // Forces everything appended so far.
+    public void sync() {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        syncThrough(target);
+    }
+
+    // Position just past the last appended record: its byte offset in a log never truncated.
+    synchronized long position() {
+        return position;
+    }
+
+    // Drops the records before upTo, a value position() returned, once a snapshot at or after
+    // it is durable. The later records are copied to a new file that replaces the log, so
+    // replay from upTo or any later position still works. The bulk of the copy runs without
+    // any lock; appends and fsyncs wait only while the records appended meanwhile are copied
+    // and the files are swapped. A no-op once closed or when nothing lies before upTo.
+    void truncateBefore(long upTo) {
+        synchronized (compactLock) {
+            FileChannel source;
+            long start;
+            long copiedTo;
+            synchronized (this) {
+                if (closed || upTo <= base) {
+                    return;
+                }
+                if (upTo > position) {
+                    throw new IllegalArgumentException("position is past the end of the log: " + upTo);
+                }
+                // Only this method replaces channel, base, and headerBytes, and compactLock
+                // keeps it to one caller, so they stay valid after the monitor is released.
+                source = channel;
+                start = upTo - base + headerBytes;
+                copiedTo = position - base + headerBytes;
+            }
+
+            Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+            try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(BASE_HEADER_BYTES).putInt(BASE_MARKER).putLong(upTo).flip();
+                while (header.hasRemaining()) {
+                    target.write(header);
+                }
+                // Records up to copiedTo are complete and never rewritten, so appends can go on.
+                copy(source, start, copiedTo, target);
+                synchronized (syncLock) {
+                    synchronized (this) {
+                        if (closed) {
+                            return;
+                        }
+                        copy(source, copiedTo, position - base + headerBytes, target);
+                        target.force(false);
+                        swap(compacted, upTo);
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (closed) {
+                        // close() ran during the unlocked copy; the old log is intact.
+                        return;
+                    }
+                }
+                // The log itself is untouched, so appends carry on.
+                throw new UncheckedIOException("log truncation failed", e);
+            } finally {
+                try {
+                    Files.deleteIfExists(compacted);
+                } catch (IOException e) {
+                    // Left for the next truncation, which overwrites it.
+                }
+            }
+        }
+    }
+
+    public FsyncPolicy policy() {
+        return policy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // One force covers every record appended before it starts, so a writer that finds
+    // its sequence already covered returns without touching the disk.
+    private void syncThrough(long sequence) {
+        if (durable >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable >= sequence) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                target = appended;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("log fsync failed", e);
+            }
+            durable = target;
+        }
+    }
+
+    // Moves the forced copy over the log and switches appends to it. Holds syncLock and this.
+    private void swap(Path compacted, long newBase) {
+        try {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            SnapshotFile.syncDirectory(file);
+            FileChannel replaced = channel;
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            replaced.close();
+        } catch (IOException e) {
+            closed = true;
+            throw new UncheckedIOException("log truncation failed", e);
+        }
+        base = newBase;
+        headerBytes = BASE_HEADER_BYTES;
+        // The new file was forced with every record appended so far.
+        durable = appended;
+    }
+
+    private static void copy(FileChannel source, long from, long end, FileChannel target) throws IOException {
+        for (long copied = 0; from + copied < end; ) {
+            copied += source.transferTo(from + copied, end - from - copied, target);
+        }
+    }
+
+    private void backgroundSync() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            // Closed or failing channel; the next write or close reports the problem.
+        }
+    }
+
+    private static long replay(FileChannel channel, long from, Consumer<BinaryCodec.Reader> replayer) throws IOException {
+        channel.position(from);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        CRC32 check = new CRC32();
+        long end = from;
+
+        while (true) {
+            int length;
+            int expectedCrc;
+            byte[] payload;
+            try {
+                length = in.readInt();
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    return end;
+                }
+                expectedCrc = in.readInt();
+                payload = new byte[length];
+                in.readFully(payload);
+            } catch (EOFException tornTail) {
+                return end;
+            }
+
+            check.reset();
+            check.update(payload, 0, length);
+            if ((int) check.getValue() != expectedCrc) {
+                return end;
+            }
+
+            replayer.accept(new BinaryCodec.Reader(ByteBuffer.wrap(payload)));
+            end += FRAME_OVERHEAD_BYTES + length;
+        }
+    }
+}
@@ -2,15 +2,25 @@
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class AppointmentServiceTest {
 
     private static final long SAFE_FUTURE_MS = 86_400_000L;
+    private static final long HOUR_MS = 3_600_000L;
 
     private AppointmentService service;
 
@@ -85,4 +95,352 @@ public class AppointmentServiceTest {
             service.deleteAppointment(null)
         );
     }
+
+    @Test
+    @DisplayName("E2 - tryAddAppointment reports OK, DUPLICATE_ID, and INVALID_INPUT")
+    void tryAddAppointmentReportsStatus() {
+        assertEquals(OperationResult.OK, service.tryAddAppointment(buildAppointment("A1")));
+        assertEquals(OperationResult.DUPLICATE_ID, service.tryAddAppointment(buildAppointment("A1")));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryAddAppointment(null));
+        assertEquals(1, service.getAppointmentCount());
+    }
+
+    @Test
+    @DisplayName("E2 - tryDeleteAppointment reports OK, NOT_FOUND, and INVALID_INPUT")
+    void tryDeleteAppointmentReportsStatus() {
+        service.addAppointment(buildAppointment("A1"));
+
+        assertEquals(OperationResult.OK, service.tryDeleteAppointment("A1"));
+        assertEquals(OperationResult.NOT_FOUND, service.tryDeleteAppointment("A1"));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryDeleteAppointment(null));
+        assertFalse(OperationResult.NOT_FOUND.isOk());
+    }
+
+    @Test
+    @DisplayName("E3 - time queries reflect adds and deletes")
+    void timeQueriesTrackAddsAndDeletes() {
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        Appointment nine = new Appointment("A9", new Date(base + 9 * HOUR_MS), "Nine");
+        Appointment noon = new Appointment("A12", new Date(base + 12 * HOUR_MS), "Noon");
+        Appointment five = new Appointment("A17", new Date(base + 17 * HOUR_MS), "Five");
+        service.addAppointment(noon);
+        service.addAppointment(five);
+        assertEquals(OperationResult.OK, service.tryAddAppointment(nine));
+
+        Date from = new Date(base + 9 * HOUR_MS);
+        Date to = new Date(base + 17 * HOUR_MS);
+        assertEquals(List.of(nine, noon), service.getAppointmentsBetween(from, to));
+        assertEquals(2, service.countAppointmentsBetween(from, to));
+        assertEquals(List.of(noon, five), service.getNextAppointments(new Date(base + 10 * HOUR_MS), 5));
+        assertEquals(List.of(nine), service.getNextAppointments(from, 1));
+
+        service.deleteAppointment("A12");
+        assertEquals(OperationResult.OK, service.tryDeleteAppointment("A9"));
+
+        assertEquals(0, service.countAppointmentsBetween(from, to));
+        assertEquals(List.of(five), service.getNextAppointments(from, 5));
+    }
+
+    @Test
+    @DisplayName("E3 - time queries reject null bounds, reversed windows, and negative limits")
+    void timeQueriesRejectInvalidArguments() {
+        Date now = futureDate();
+        Date earlier = new Date(now.getTime() - 1);
+
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getAppointmentsBetween(null, now)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.countAppointmentsBetween(now, null)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getAppointmentsBetween(now, earlier)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getNextAppointments(null, 1)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getNextAppointments(now, -1))
+        );
+        assertEquals(0, service.countAppointmentsBetween(now, now));
+    }
+
+    @Test
+    @DisplayName("E4 - rejectingOverlaps refuses overlapping bookings and admits adjacent ones")
+    void rejectingOverlapsRefusesConflicts() {
+        AppointmentService booking = AppointmentService.rejectingOverlaps();
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        Duration hour = Duration.ofHours(1);
+
+        booking.addAppointment(new Appointment("A9", new Date(base + 9 * HOUR_MS), hour, "Nine"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+            booking.addAppointment(new Appointment("A930", new Date(base + 9 * HOUR_MS + HOUR_MS / 2), hour, "Clash"))
+        );
+        assertTrue(e.getMessage().contains("A9"));
+        assertEquals(OperationResult.CONFLICT,
+            booking.tryAddAppointment(new Appointment("A830", new Date(base + 8 * HOUR_MS + HOUR_MS / 2), hour, "Clash")));
+        assertEquals(OperationResult.DUPLICATE_ID,
+            booking.tryAddAppointment(new Appointment("A9", new Date(base), hour, "Dup")));
+
+        assertEquals(OperationResult.OK,
+            booking.tryAddAppointment(new Appointment("A10", new Date(base + 10 * HOUR_MS), hour, "Ten")));
+        booking.addAppointment(new Appointment("P", new Date(base + 9 * HOUR_MS), "Point in time"));
+        assertEquals(3, booking.getAppointmentCount());
+
+        booking.deleteAppointment("A9");
+        booking.addAppointment(new Appointment("A930", new Date(base + 9 * HOUR_MS + HOUR_MS / 2), Duration.ofMinutes(30), "Fits"));
+        assertEquals(3, booking.getAppointmentCount());
+    }
+
+    @Test
+    @DisplayName("E4 - default mode stores overlaps and reports them on request")
+    void defaultModeReportsConflicts() {
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        Duration hour = Duration.ofHours(1);
+        Appointment nine = new Appointment("A9", new Date(base + 9 * HOUR_MS), hour, "Nine");
+        Appointment clash = new Appointment("A930", new Date(base + 9 * HOUR_MS + HOUR_MS / 2), hour, "Clash");
+
+        service.addAppointment(nine);
+        service.addAppointment(clash);
+
+        assertEquals(List.of(nine), service.findConflicts(clash));
+        assertEquals(List.of(nine, clash),
+            service.getOverlappingAppointments(new Date(base + 9 * HOUR_MS), Duration.ofMinutes(45)));
+        assertEquals(List.of(), service.getOverlappingAppointments(new Date(base + 9 * HOUR_MS), Duration.ZERO));
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> service.findConflicts(null)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getOverlappingAppointments(null, hour)),
+            () -> assertThrows(IllegalArgumentException.class, () ->
+                service.getOverlappingAppointments(new Date(base), Duration.ofMinutes(-1)))
+        );
+    }
+
+    @Test
+    @DisplayName("E6 - durable mode rebuilds adds, deletes, and the time index from the log")
+    void durableModeReplaysLog(@TempDir Path dir) throws IOException {
+        Path logFile = dir.resolve("appointments.log");
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        Appointment first = new Appointment("A1", new Date(base), Duration.ofMinutes(30), "First");
+        try (AppointmentService durable = AppointmentService.durable(logFile, FsyncPolicy.everyOperation())) {
+            durable.addAppointment(first);
+            assertEquals(OperationResult.OK,
+                durable.tryAddAppointment(new Appointment("A2", new Date(base + HOUR_MS), "Second")));
+            durable.addAppointment(new Appointment("A3", new Date(base + 2 * HOUR_MS), "Third"));
+            durable.deleteAppointment("A3");
+            assertEquals(OperationResult.OK, durable.tryDeleteAppointment("A2"));
+            assertEquals(OperationResult.DUPLICATE_ID, durable.tryAddAppointment(first));
+            assertEquals(OperationResult.NOT_FOUND, durable.tryDeleteAppointment("A2"));
+        }
+
+        try (AppointmentService reopened = AppointmentService.durable(logFile, FsyncPolicy.everyOperation())) {
+            assertEquals(1, reopened.getAppointmentCount());
+            Appointment restored = reopened.getAppointment("A1");
+            assertEquals(base, restored.getAppointmentEpochMillis());
+            assertEquals(Duration.ofMinutes(30), restored.getDuration());
+            assertEquals("First", restored.getDescription());
+            assertEquals(1, reopened.countAppointmentsBetween(new Date(base), new Date(base + 3 * HOUR_MS)));
+        }
+    }
+
+    @Test
+    @DisplayName("E6 - a log that does not match replayed state is rejected")
+    void durableModeRejectsInconsistentLog(@TempDir Path dir) throws IOException {
+        Path logFile = dir.resolve("appointments.log");
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(new BinaryCodec.Writer().writeByte(2).writeString("A1"));
+        }
+
+        assertThrows(IllegalStateException.class, () ->
+            AppointmentService.durable(logFile, FsyncPolicy.everyOperation()));
+        assertDoesNotThrow(() -> service.close());
+    }
+    @Test
+    @DisplayName("E7 - a snapshot plus the log tail restores appointments and the time index")
+    void snapshotThenTailRestores(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("appointments.log");
+        Path snapFile = dir.resolve("appointments.snap");
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        try (AppointmentService durable = AppointmentService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addAppointment(new Appointment("A1", new Date(base), Duration.ofMinutes(30), "First"));
+            durable.addAppointment(new Appointment("A2", new Date(base + HOUR_MS), "Second"));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.deleteAppointment("A2");
+            durable.addAppointment(new Appointment("A3", new Date(base + 2 * HOUR_MS), "Third"));
+        }
+
+        try (AppointmentService reopened = AppointmentService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getAppointmentCount());
+            assertEquals(Duration.ofMinutes(30), reopened.getAppointment("A1").getDuration());
+            assertNull(reopened.getAppointment("A2"));
+            assertEquals(2, reopened.countAppointmentsBetween(new Date(base), new Date(base + 3 * HOUR_MS)));
+        }
+    }
+
+    @Test
+    @DisplayName("E7 - a damaged snapshot is ignored and the time index is rebuilt from the log")
+    void damagedSnapshotFallsBackToLog(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("appointments.log");
+        Path snapFile = dir.resolve("appointments.snap");
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        assertThrows(IllegalStateException.class, () -> service.snapshot());
+        try (AppointmentService durable = AppointmentService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addAppointment(new Appointment("A1", new Date(base), "First"));
+            durable.addAppointment(new Appointment("A2", new Date(base + HOUR_MS), "Second"));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+        }
+        byte[] bytes = Files.readAllBytes(snapFile);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(snapFile, bytes);
+
+        try (AppointmentService reopened = AppointmentService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getAppointmentCount());
+            assertEquals(2, reopened.countAppointmentsBetween(new Date(base), new Date(base + 2 * HOUR_MS)));
+        }
+    }
+
+
+    @Test
+    @DisplayName("E11 - metrics count conflicts and misses alongside successes")
+    void metricsCountOutcomes() {
+        AppointmentService booking = AppointmentService.rejectingOverlaps();
+        ServiceMetrics metrics = booking.enableMetrics();
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        Duration hour = Duration.ofHours(1);
+
+        booking.addAppointment(new Appointment("A1", new Date(base), hour, "First"));
+        assertThrows(IllegalArgumentException.class, () ->
+            booking.addAppointment(new Appointment("A2", new Date(base + HOUR_MS / 2), hour, "Clash")));
+        assertThrows(IllegalArgumentException.class, () -> booking.addAppointment(null));
+        assertNotNull(booking.getAppointment("A1"));
+        assertThrows(IllegalArgumentException.class, () -> booking.deleteAppointment("A2"));
+        booking.deleteAppointment("A1");
+
+        ServiceMetrics.Snapshot snapshot = metrics.snapshot();
+        assertAll(
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.ADD, OperationResult.OK)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.ADD, OperationResult.CONFLICT)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.ADD, OperationResult.INVALID_INPUT)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.GET, OperationResult.OK)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.DELETE, OperationResult.NOT_FOUND)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.DELETE, OperationResult.OK)),
+            () -> assertEquals(0, snapshot.count(ServiceMetrics.Operation.UPDATE))
+        );
+    }
+
+    @Test
+    @DisplayName("E13 - addAppointments stores a whole batch and indexes it by time")
+    void addAppointmentsStoresBatch(@TempDir Path dir) throws IOException {
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        service.addAppointments(List.of(
+            new Appointment("A1", new Date(base), "First"),
+            new Appointment("A2", new Date(base + HOUR_MS), "Second")));
+        assertEquals(2, service.countAppointmentsBetween(new Date(base), new Date(base + 2 * HOUR_MS)));
+        assertThrows(IllegalArgumentException.class, () -> service.addAppointments(null));
+
+        Path logFile = dir.resolve("appointments.log");
+        try (AppointmentService durable = AppointmentService.durable(logFile, FsyncPolicy.everyOperation())) {
+            durable.addAppointments(List.of(new Appointment("A1", new Date(base), "First"),
+                new Appointment("A2", new Date(base + HOUR_MS), "Second")));
+            BatchRejectedException e = assertThrows(BatchRejectedException.class,
+                () -> durable.addAppointments(Arrays.asList(null, new Appointment("A1", new Date(base), "Again"))));
+            assertEquals(List.of(0, 1), e.getFailures().stream().map(BatchFailure::getIndex).toList());
+        }
+        try (AppointmentService reopened = AppointmentService.durable(logFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.countAppointmentsBetween(new Date(base), new Date(base + 2 * HOUR_MS)));
+        }
+    }
+
+    @Test
+    @DisplayName("E13 - booking mode rejects batches overlapping stored or batch appointments")
+    void addAppointmentsRejectsConflicts() {
+        AppointmentService booking = AppointmentService.rejectingOverlaps();
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        Duration hour = Duration.ofHours(1);
+        booking.addAppointment(new Appointment("A9", new Date(base + 9 * HOUR_MS), hour, "Nine"));
+
+        BatchRejectedException e = assertThrows(BatchRejectedException.class, () -> booking.addAppointments(List.of(
+            new Appointment("B12", new Date(base + 12 * HOUR_MS), hour, "Twelve"),
+            new Appointment("B930", new Date(base + 9 * HOUR_MS + HOUR_MS / 2), hour, "Clash stored"),
+            new Appointment("B11", new Date(base + 11 * HOUR_MS), Duration.ofMinutes(90), "Eleven"),
+            new Appointment("B10", new Date(base + 10 * HOUR_MS), hour, "Ten"),
+            new Appointment("P", new Date(base + 9 * HOUR_MS), "Point in time"))));
+
+        assertEquals(List.of(0, 1), e.getFailures().stream().map(BatchFailure::getIndex).toList());
+        assertEquals(OperationResult.CONFLICT, e.getFailures().get(0).getReason());
+        assertEquals("appointment B12 overlaps appointmentId: B11", e.getFailures().get(0).getMessage());
+        assertEquals("appointment B930 overlaps appointmentId: A9", e.getFailures().get(1).getMessage());
+        assertEquals(1, booking.getAppointmentCount());
+
+        booking.addAppointments(List.of(
+            new Appointment("B10", new Date(base + 10 * HOUR_MS), hour, "Ten"),
+            new Appointment("B11", new Date(base + 11 * HOUR_MS), hour, "Eleven"),
+            new Appointment("P", new Date(base + 9 * HOUR_MS), "Point in time")));
+        assertEquals(4, booking.getAppointmentCount());
+    }
+
+    @Test
+    @DisplayName("E15 - forEachAppointment visits every stored appointment without copying")
+    void forEachAppointmentVisitsAll() {
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        service.addAppointments(List.of(
+            new Appointment("A1", new Date(base), "First"),
+            new Appointment("A2", new Date(base + HOUR_MS), "Second")));
+        List<String> seen = new ArrayList<>();
+
+        service.forEachAppointment(appointment -> seen.add(appointment.getAppointmentId()));
+
+        seen.sort(null);
+        assertEquals(List.of("A1", "A2"), seen);
+        assertThrows(IllegalArgumentException.class, () -> service.forEachAppointment(null));
+    }
+
+    @Test
+    @DisplayName("E20 - every storage engine runs the same add, query, bulk add, and delete lifecycle")
+    void storageEngines(@TempDir Path dir) throws IOException {
+        List<StorageEngine> engines = List.of(StorageEngine.hashMap(), StorageEngine.concurrentMap(),
+            StorageEngine.openAddressing(), StorageEngine.disk(dir), StorageEngine.disk(dir).withIdFilter(0.01));
+        long base = System.currentTimeMillis() + SAFE_FUTURE_MS;
+        for (StorageEngine engine : engines) {
+            try (AppointmentService store = AppointmentService.using(engine, true)) {
+                store.addAppointment(new Appointment("A1", new Date(base), Duration.ofHours(1), "First"));
+                assertEquals(OperationResult.DUPLICATE_ID, store.tryAddAppointment(buildAppointment("A1")),
+                    engine.toString());
+                assertEquals(OperationResult.CONFLICT,
+                    store.tryAddAppointment(new Appointment("A9", new Date(base + HOUR_MS / 2), Duration.ofHours(1), "Overlapping")));
+                store.addAppointments(List.of(
+                    new Appointment("A2", new Date(base + 2 * HOUR_MS), "Second"),
+                    new Appointment("A3", new Date(base + 3 * HOUR_MS), "Third")));
+
+                Appointment stored = store.getAppointment("A1");
+                assertEquals(base, stored.getAppointmentEpochMillis(), engine.toString());
+                assertEquals(Duration.ofHours(1), stored.getDuration());
+                assertEquals("First", stored.getDescription());
+                assertEquals(3, store.countAppointmentsBetween(new Date(base), new Date(base + 4 * HOUR_MS)));
+
+                store.deleteAppointment("A2");
+                assertNull(store.getAppointment("A2"));
+                assertEquals(OperationResult.NOT_FOUND, store.tryDeleteAppointment("A2"));
+                List<String> visited = new ArrayList<>();
+                store.forEachAppointment(appointment -> visited.add(appointment.getAppointmentId()));
+                visited.sort(null);
+                assertEquals(List.of("A1", "A3"), visited);
+                assertEquals(2, store.getAppointmentCount());
+            }
+        }
+        assertFalse(Files.exists(dir.resolve("appointments.store")));
+        assertThrows(IllegalArgumentException.class, () -> AppointmentService.using(null, false));
+    }
+
+    @Test
+    @DisplayName("E22 - the bounded engine is refused, since the time index would hold every appointment")
+    void boundedEngineRefused(@TempDir Path dir) {
+        assertThrows(IllegalArgumentException.class, () -> AppointmentService.using(StorageEngine.bounded(dir, 10), false));
+    }
+
+    @Test
+    @DisplayName("E23 - an id filter answers lookups of unknown appointment ids without a store lookup")
+    void idFilter() {
+        AppointmentService store = AppointmentService.using(StorageEngine.openAddressing().withIdFilter(0.01), false);
+        store.addAppointment(new Appointment("A1", new Date(System.currentTimeMillis() + 86_400_000L), "Checkup"));
+        assertNotNull(store.getAppointment("A1"));
+        assertNull(store.getAppointment("MISSING"));
+        assertEquals(OperationResult.NOT_FOUND, store.tryDeleteAppointment("MISSING"));
+
+        FilterStats stats = store.filterStats();
+        assertEquals(3, stats.getDefiniteMisses() + stats.getFalsePositives());
+        assertThrows(IllegalStateException.class, () -> new AppointmentService().filterStats());
+    }
 }
@@ -2,6 +2,10 @@
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.Date;
 
 import org.junit.jupiter.api.DisplayName;
@@ -52,6 +56,15 @@ public class AppointmentTest {
         );
     }
 
+    @Test
+    @DisplayName("R2 - a bad appointmentId is reported before a null appointmentDate")
+    void appointmentIdCheckedBeforeDate() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+            new Appointment(null, null, Duration.ZERO, "Routine appointment")
+        );
+        assertEquals("appointmentId must not be null", e.getMessage());
+    }
+
     @Test
     @DisplayName("R2 - appointmentDate in the past throws")
     void appointmentDatePastThrows() {
@@ -115,4 +128,74 @@ public class AppointmentTest {
         input.setTime(mutated);
         assertNotEquals(input.getTime(), a.getAppointmentDate().getTime());
     }
+
+    @Test
+    @DisplayName("E4 - duration defaults to zero and accepts a positive span")
+    void durationDefaultsToZeroAndAcceptsPositive() {
+        Appointment point = new Appointment("A1", futureDate(), "Routine appointment");
+        Appointment span = new Appointment("A2", futureDate(), Duration.ofMinutes(30), "Routine appointment");
+
+        assertEquals(Duration.ZERO, point.getDuration());
+        assertEquals(Duration.ofMinutes(30), span.getDuration());
+    }
+
+    @Test
+    @DisplayName("E4 - duration must not be null, negative, or beyond millisecond range")
+    void durationInvalidThrows() {
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () ->
+                new Appointment("A1", futureDate(), null, "Routine appointment")),
+            () -> assertThrows(IllegalArgumentException.class, () ->
+                new Appointment("A1", futureDate(), Duration.ofMinutes(-1), "Routine appointment")),
+            () -> assertThrows(IllegalArgumentException.class, () ->
+                new Appointment("A1", futureDate(), Duration.ofSeconds(Long.MAX_VALUE), "Routine appointment"))
+        );
+    }
+
+    @Test
+    @DisplayName("E5 - epoch millis accessors match the Date view without retaining it")
+    void epochMillisAccessorsMatchDate() {
+        Date input = futureDate();
+        Appointment a = new Appointment("A1", input, Duration.ofMinutes(15), "Routine appointment");
+
+        assertEquals(input.getTime(), a.getAppointmentEpochMillis());
+        assertEquals(a.getAppointmentDate().getTime(), a.getAppointmentEpochMillis());
+        assertEquals(input.getTime() + 900_000L, a.getEndEpochMillis());
+    }
+
+    @Test
+    @DisplayName("E5 - end time saturates instead of overflowing")
+    void endEpochMillisSaturates() {
+        Clock epoch = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+        Appointment a = new Appointment("A1", Long.MAX_VALUE - 1, Duration.ofMillis(10), "Far future", epoch);
+
+        assertEquals(Long.MAX_VALUE, a.getEndEpochMillis());
+    }
+
+    @Test
+    @DisplayName("E5 - injected clock decides what counts as the past")
+    void injectedClockDecidesPast() {
+        long now = System.currentTimeMillis();
+        Clock tomorrow = Clock.fixed(Instant.ofEpochMilli(now + SAFE_FUTURE_MS), ZoneOffset.UTC);
+        Clock lastWeek = Clock.fixed(Instant.ofEpochMilli(now - 7 * SAFE_PAST_MS), ZoneOffset.UTC);
+
+        assertThrows(IllegalArgumentException.class, () ->
+            new Appointment("A1", now + 1_000L, Duration.ZERO, "Routine appointment", tomorrow)
+        );
+        assertDoesNotThrow(() ->
+            new Appointment("A1", now - SAFE_PAST_MS, Duration.ZERO, "Routine appointment", lastWeek)
+        );
+        assertDoesNotThrow(() ->
+            new Appointment("A1", now + SAFE_FUTURE_MS, Duration.ZERO, "Routine appointment", tomorrow)
+        );
+    }
+
+    @Test
+    @DisplayName("E5 - clock must not be null")
+    void clockNullThrows() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+            new Appointment("A1", System.currentTimeMillis() + SAFE_FUTURE_MS, Duration.ZERO, "Routine appointment", null)
+        );
+        assertEquals("clock must not be null", e.getMessage());
+    }
 }
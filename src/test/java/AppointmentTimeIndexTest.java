@@ -0,0 +1,157 @@
+// Unit tests for the time-ordered appointment index (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AppointmentTimeIndexTest {
+
+    private static final long BASE_MS = System.currentTimeMillis() + 86_400_000L;
+
+    private static Appointment at(String id, long offsetMs) {
+        return new Appointment(id, new Date(BASE_MS + offsetMs), "Routine appointment");
+    }
+
+    private static List<String> ids(List<Appointment> appointments) {
+        return appointments.stream().map(Appointment::getAppointmentId).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Range, next, and count queries return entries in time order")
+    void queriesReturnTimeOrder() {
+        AppointmentTimeIndex index = new AppointmentTimeIndex();
+        index.add(BASE_MS + 30, BASE_MS + 30, at("C", 30));
+        index.add(BASE_MS + 10, BASE_MS + 10, at("A", 10));
+        index.add(BASE_MS + 20, BASE_MS + 20, at("B", 20));
+        index.add(BASE_MS + 20, BASE_MS + 20, at("B2", 20));
+
+        assertEquals(List.of("A", "B", "B2"), ids(index.between(BASE_MS + 10, BASE_MS + 30)));
+        assertEquals(List.of("B", "B2"), ids(index.next(BASE_MS + 11, 2)));
+        assertEquals(3, index.countBetween(BASE_MS + 10, BASE_MS + 30));
+        assertEquals(0, index.countBetween(BASE_MS + 30, BASE_MS + 10));
+        assertEquals(List.of(), ids(index.next(BASE_MS + 31, 5)));
+    }
+
+    @Test
+    @DisplayName("Removal keeps entries that share an instant distinct by id")
+    void removeDistinguishesSameInstant() {
+        AppointmentTimeIndex index = new AppointmentTimeIndex();
+        index.add(BASE_MS, BASE_MS, at("A", 0));
+        index.add(BASE_MS, BASE_MS, at("B", 0));
+
+        index.remove(BASE_MS, "A");
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("B"), ids(index.next(BASE_MS, 10)));
+        index.remove(BASE_MS, "missing");
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Randomized adds and removes match a sorted-list model")
+    void randomizedOperationsMatchModel() {
+        Random random = new Random(320L);
+        AppointmentTimeIndex index = new AppointmentTimeIndex();
+        List<Appointment> model = new ArrayList<>();
+        Comparator<Appointment> order = Comparator
+            .comparingLong((Appointment a) -> a.getAppointmentDate().getTime())
+            .thenComparing(Appointment::getAppointmentId);
+
+        for (int i = 0; i < 2_000; i++) {
+            if (model.isEmpty() || random.nextInt(3) != 0) {
+                Appointment a = at("A" + i, random.nextInt(500));
+                index.add(a.getAppointmentDate().getTime(), a.getAppointmentDate().getTime(), a);
+                model.add(a);
+            } else {
+                Appointment a = model.remove(random.nextInt(model.size()));
+                index.remove(a.getAppointmentDate().getTime(), a.getAppointmentId());
+            }
+        }
+        model.sort(order);
+
+        assertEquals(model.size(), index.size());
+        for (int trial = 0; trial < 200; trial++) {
+            long from = BASE_MS + random.nextInt(520) - 10;
+            long to = from + random.nextInt(200);
+            int limit = random.nextInt(20);
+
+            List<Appointment> expectedRange = model.stream()
+                .filter(a -> a.getAppointmentDate().getTime() >= from && a.getAppointmentDate().getTime() < to)
+                .collect(Collectors.toList());
+            List<Appointment> expectedNext = model.stream()
+                .filter(a -> a.getAppointmentDate().getTime() >= from)
+                .limit(limit)
+                .collect(Collectors.toList());
+
+            assertEquals(ids(expectedRange), ids(index.between(from, to)));
+            assertEquals(expectedRange.size(), index.countBetween(from, to));
+            assertEquals(ids(expectedNext), ids(index.next(from, limit)));
+        }
+    }
+
+    @Test
+    @DisplayName("Overlap queries treat spans as half-open and ignore zero-length entries")
+    void overlapQueriesUseHalfOpenSpans() {
+        AppointmentTimeIndex index = new AppointmentTimeIndex();
+        index.add(BASE_MS, BASE_MS + 60, at("A", 0));
+        index.add(BASE_MS + 60, BASE_MS + 120, at("B", 60));
+        index.add(BASE_MS + 90, BASE_MS + 90, at("P", 90));
+
+        assertEquals(List.of("A"), ids(index.overlapping(BASE_MS + 59, BASE_MS + 60)));
+        assertEquals(List.of("A", "B"), ids(index.overlapping(BASE_MS + 30, BASE_MS + 61)));
+        assertEquals(List.of("B"), ids(index.overlapping(BASE_MS + 85, BASE_MS + 95)));
+        assertNull(index.firstOverlap(BASE_MS + 120, BASE_MS + 200));
+        assertNull(index.firstOverlap(BASE_MS + 30, BASE_MS + 30));
+        assertEquals(List.of(), ids(index.overlapping(BASE_MS + 30, BASE_MS + 30)));
+    }
+
+    @Test
+    @DisplayName("Randomized overlap queries match a brute-force scan")
+    void randomizedOverlapsMatchModel() {
+        Random random = new Random(5L);
+        AppointmentTimeIndex index = new AppointmentTimeIndex();
+        List<long[]> spans = new ArrayList<>();
+        List<Appointment> model = new ArrayList<>();
+
+        for (int i = 0; i < 1_500; i++) {
+            if (model.isEmpty() || random.nextInt(4) != 0) {
+                long start = BASE_MS + random.nextInt(10_000);
+                long end = start + random.nextInt(4) * random.nextInt(60);
+                Appointment a = at("A" + i, start - BASE_MS);
+                index.add(start, end, a);
+                spans.add(new long[] {start, end});
+                model.add(a);
+            } else {
+                int victim = random.nextInt(model.size());
+                index.remove(spans.remove(victim)[0], model.remove(victim).getAppointmentId());
+            }
+        }
+
+        for (int trial = 0; trial < 300; trial++) {
+            long from = BASE_MS + random.nextInt(10_100) - 50;
+            long to = from + random.nextInt(80);
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < model.size(); i++) {
+                long[] span = spans.get(i);
+                if (from < to && span[0] < span[1] && span[0] < to && from < span[1]) {
+                    expected.add(model.get(i).getAppointmentId());
+                }
+            }
+            List<String> actual = ids(index.overlapping(from, to));
+            expected.sort(null);
+            actual.sort(null);
+
+            assertEquals(expected, actual);
+            assertEquals(expected.isEmpty(), index.firstOverlap(from, to) == null);
+        }
+    }
+}
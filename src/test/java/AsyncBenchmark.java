@@ -0,0 +1,123 @@
+// Throughput of the AsyncServices facade against the synchronous API (not a unit test;
+// Surefire does not pick it up), at 1, 8, and 64 concurrent clients by default.
+//
+//   task.mixed90read   TaskService is single-threaded by contract, so synchronous clients
+//                      share it under one lock; async clients go through the facade, which
+//                      runs reads together and batches writes.
+//   contact.durableAdd durable ContactService with an fsync per operation; synchronous adds
+//                      share fsyncs by group commit, async adds are coalesced into bulk adds.
+//
+// Every async client waits for each call before making the next, so the client count is
+// the number of calls in flight. Results go to a JMH-format JSON file; compare two runs
+// with BenchmarkCompare.
+//
+// Run after `mvn -B test-compile`:
+//   java -Xmx4g -cp target/classes:target/test-classes AsyncBenchmark [results.json]
+//
+// System properties: bench.clients (default 1,8,64), bench.size (100000), bench.warmup (2),
+// bench.iterations (3), bench.iterationMillis (1000).
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public final class AsyncBenchmark {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private AsyncBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path output = Path.of(args.length > 0 ? args[0] : "target/benchmarks/async.json");
+        int[] clientCounts = Arrays.stream(System.getProperty("bench.clients", "1,8,64").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int size = Integer.getInteger("bench.size", 100_000);
+        BenchmarkHarness harness = new BenchmarkHarness(
+            Integer.getInteger("bench.warmup", 2),
+            Integer.getInteger("bench.iterations", 3),
+            Long.getLong("bench.iterationMillis", 1000L));
+
+        tasks(harness, size, clientCounts);
+        durableContacts(harness, clientCounts);
+
+        harness.write(output);
+        System.out.println("results: " + output.toAbsolutePath() + " (sink=" + harness.sink() + ")");
+    }
+
+    private static void tasks(BenchmarkHarness harness, int size, int[] clientCounts) throws Exception {
+        String[] ids = new String[size];
+        TaskService service = new TaskService();
+        for (int i = 0; i < size; i++) {
+            ids[i] = "T" + Integer.toString(i, 36);
+            service.addTask(new Task(ids[i], "Alpha Task", "Initial task description"));
+        }
+
+        Map<String, String> sync = BenchmarkHarness.params("size", Integer.toString(size), "mode", "sync");
+        Map<String, String> async = BenchmarkHarness.params("size", Integer.toString(size), "mode", "async");
+        try (AsyncServices facade = AsyncServices.of(null, service, null)) {
+            for (int clients : clientCounts) {
+                harness.measure("task.mixed90read", sync, clients, (t, i) -> {
+                    String id = ids[pick(t, i, size)];
+                    synchronized (service) {
+                        if (i % 10 == 0) {
+                            return service.tryUpdateTask(id, (i & 16) == 0 ? "Beta Task" : "Alpha Task", null).ordinal();
+                        }
+                        return service.getTask(id).getName().length();
+                    }
+                });
+                harness.measure("task.mixed90read", async, clients, (t, i) -> {
+                    String id = ids[pick(t, i, size)];
+                    if (i % 10 == 0) {
+                        return facade.updateTask(id, (i & 16) == 0 ? "Beta Task" : "Alpha Task", null).join().ordinal();
+                    }
+                    return facade.getTask(id).join().getName().length();
+                });
+            }
+        }
+    }
+
+    private static void durableContacts(BenchmarkHarness harness, int[] clientCounts) throws Exception {
+        Path dir = Files.createTempDirectory("async-bench");
+        try {
+            for (int clients : clientCounts) {
+                try (ContactService service = ContactService.durable(dir.resolve("sync-" + clients + ".log"),
+                    FsyncPolicy.everyOperation())) {
+                    harness.measure("contact.durableAdd", BenchmarkHarness.params("mode", "sync"), clients, (t, i) ->
+                        service.tryAddContact(contact(t, i)).ordinal());
+                }
+                try (ContactService service = ContactService.durable(dir.resolve("async-" + clients + ".log"),
+                    FsyncPolicy.everyOperation());
+                     AsyncServices facade = AsyncServices.of(service, null, null)) {
+                    harness.measure("contact.durableAdd", BenchmarkHarness.params("mode", "async"), clients, (t, i) ->
+                        facade.addContact(contact(t, i)).join().ordinal());
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    // Fresh id per call; warmup and measured iterations keep counting, so ids never repeat.
+    private static Contact contact(int thread, long index) {
+        return new Contact("N" + Integer.toString(thread, 36) + Long.toString(index, 36), "John", "Smith",
+            "1234567890", "123 Main St");
+    }
+
+    // Scrambled but deterministic key choice, so clients do not walk the store in lockstep.
+    private static int pick(int thread, long index, int size) {
+        return (int) Long.remainderUnsigned((index + ((long) thread << 40)) * GOLDEN, size);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+// Unit tests for the asynchronous service facade (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AsyncServicesTest {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    private static Contact makeContact(String id) {
+        return new Contact(id, "John", "Smith", "1234567890", "123 Main St");
+    }
+
+    // Holds submitted tasks until run() is called, so a test can queue writes before any apply.
+    private static final class ManualExecutor implements Executor {
+        private final ConcurrentLinkedQueue<Runnable> queued = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queued.add(command);
+        }
+
+        void run() {
+            for (Runnable next; (next = queued.poll()) != null; ) {
+                next.run();
+            }
+        }
+
+        void runOne() {
+            queued.remove().run();
+        }
+    }
+
+    @Test
+    @DisplayName("E18 - every service's reads and writes complete with the try API's outcomes")
+    void roundTrips() {
+        TaskService taskService = new TaskService();
+        AppointmentService appointmentService = new AppointmentService();
+        try (AsyncServices async = AsyncServices.of(new ContactService(), taskService, appointmentService)) {
+            assertEquals(OperationResult.OK, async.addContact(makeContact("C1")).join());
+            assertEquals(OperationResult.DUPLICATE_ID, async.addContact(makeContact("C1")).join());
+            assertEquals(OperationResult.OK, async.updateContact("C1", "Jane", null, null, null).join());
+            assertEquals(OperationResult.VERSION_CONFLICT, async.updateContact("C1", 0, "Mary", null, null, null).join());
+            assertEquals(OperationResult.OK, async.updateContact("C1", 1, "Mary", null, null, null).join());
+            assertEquals("Mary", async.getContact("C1").join().getFirstName());
+            assertEquals(1, async.readContacts(service -> service.searchByName("mar", 5)).join().size());
+            assertEquals(OperationResult.OK, async.deleteContact("C1").join());
+            assertNull(async.getContact("C1").join());
+            assertEquals(OperationResult.INVALID_INPUT, async.addContact(null).join());
+
+            assertEquals(OperationResult.OK, async.addTask(new Task("T1", "Fix login", "Users cannot sign in")).join());
+            assertEquals(OperationResult.OK, async.updateTask("T1", "Fix billing", null).join());
+            assertEquals(OperationResult.VERSION_CONFLICT, async.updateTask("T1", 0, "Other", null).join());
+            assertEquals(OperationResult.OK, async.updateTask("T1", 1, null, "Totals are wrong").join());
+            assertEquals("Fix billing", async.getTask("T1").join().getName());
+            assertEquals(1, async.readTasks(service -> service.findTasksWithAnyKeyword("totals")).join().size());
+            assertEquals(OperationResult.OK, async.deleteTask("T1").join());
+            assertEquals(OperationResult.NOT_FOUND, async.deleteTask("T1").join());
+
+            Appointment appointment = new Appointment("A1", new Date(System.currentTimeMillis() + DAY_MS), "Checkup");
+            assertEquals(OperationResult.OK, async.addAppointment(appointment).join());
+            assertSame(appointment, async.getAppointment("A1").join());
+            assertEquals(1, async.readAppointments(AppointmentService::getAppointmentCount).join());
+            assertEquals(OperationResult.OK, async.deleteAppointment("A1").join());
+        }
+        assertEquals(0, taskService.getTaskCount());
+        assertEquals(0, appointmentService.getAppointmentCount());
+    }
+
+    @Test
+    @DisplayName("E18 - queued adds are applied as one bulk add, and a rejected run falls back to single adds")
+    void addsAreCoalesced() {
+        ContactService service = new ContactService();
+        ServiceMetrics metrics = service.enableMetrics();
+        ManualExecutor writes = new ManualExecutor();
+        AsyncServices async = AsyncServices.of(service, null, null, Runnable::run, writes);
+
+        List<CompletableFuture<OperationResult>> first = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            first.add(async.addContact(makeContact("C" + i)));
+        }
+        CompletableFuture<OperationResult> update = async.updateContact("C0", "Jane", null, null, null);
+        writes.run();
+
+        for (CompletableFuture<OperationResult> result : first) {
+            assertEquals(OperationResult.OK, result.join());
+        }
+        assertEquals(OperationResult.OK, update.join());
+        // The bulk add bypasses per-add metrics, so only the update was counted one by one.
+        assertEquals(0, metrics.snapshot().count(ServiceMetrics.Operation.ADD, OperationResult.OK));
+        assertEquals(1, metrics.snapshot().count(ServiceMetrics.Operation.UPDATE, OperationResult.OK));
+
+        CompletableFuture<OperationResult> fresh = async.addContact(makeContact("C5"));
+        CompletableFuture<OperationResult> repeat = async.addContact(makeContact("C1"));
+        CompletableFuture<OperationResult> missing = async.addContact(null);
+        writes.run();
+
+        assertEquals(OperationResult.OK, fresh.join());
+        assertEquals(OperationResult.DUPLICATE_ID, repeat.join());
+        assertEquals(OperationResult.INVALID_INPUT, missing.join());
+        assertEquals(6, service.getContactCount());
+        assertEquals("Jane", service.getContact("C0").getFirstName());
+    }
+
+    @Test
+    @DisplayName("E18 - lanes sharing a write thread take turns, one batch at a time")
+    void lanesTakeTurnsOnSharedWriter() {
+        ManualExecutor writes = new ManualExecutor();
+        AsyncServices async = AsyncServices.of(new ContactService(), new TaskService(), null, Runnable::run, writes);
+        List<CompletableFuture<OperationResult>> contacts = new ArrayList<>();
+        for (int i = 0; i < 2 * AsyncLane.MAX_BATCH + 1; i++) {
+            contacts.add(async.addContact(makeContact("C" + i)));
+        }
+        CompletableFuture<OperationResult> task = async.addTask(new Task("T1", "Alpha", "Queued behind contacts"));
+
+        writes.runOne();
+        assertTrue(contacts.get(AsyncLane.MAX_BATCH - 1).isDone());
+        assertFalse(contacts.get(AsyncLane.MAX_BATCH).isDone());
+        writes.runOne();
+        assertEquals(OperationResult.OK, task.join());
+        assertFalse(contacts.get(AsyncLane.MAX_BATCH).isDone());
+
+        writes.run();
+        contacts.forEach(contact -> assertEquals(OperationResult.OK, contact.join()));
+    }
+
+    @Test
+    @DisplayName("E18 - many threads drive a single-threaded TaskService through the facade")
+    void manyClientsOnSingleThreadedService() throws Exception {
+        TaskService service = new TaskService();
+        int clients = 8;
+        int perClient = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try (AsyncServices async = AsyncServices.of(null, service, null)) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                running.add(pool.submit(() -> {
+                    List<CompletableFuture<?>> inFlight = new ArrayList<>();
+                    for (int i = 0; i < perClient; i++) {
+                        String id = "T" + client + "-" + i;
+                        inFlight.add(async.addTask(new Task(id, "Client " + client, "Item " + i)));
+                        inFlight.add(async.updateTask(id, null, "Updated " + i));
+                        inFlight.add(async.readTasks(TaskService::getTaskCount));
+                    }
+                    CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0])).join();
+                }));
+            }
+            for (Future<?> client : running) {
+                client.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(clients * perClient, service.getTaskCount());
+        assertEquals(clients * perClient, service.findTasksWithAnyKeyword("updated").size());
+        assertEquals(1, service.getTask("T3-7").getVersion());
+    }
+
+    @Test
+    @DisplayName("E22 - reads of a bounded-engine service run one at a time, so its cache stays consistent")
+    void boundedEngineReadsAreExclusive(@TempDir Path dir) throws Exception {
+        int stored = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (TaskService service = TaskService.using(StorageEngine.bounded(dir, 20));
+             AsyncServices async = AsyncServices.of(null, service, null)) {
+            assertTrue(service.readsWrite());
+            assertFalse(new TaskService().readsWrite());
+            for (int i = 0; i < stored; i++) {
+                async.addTask(new Task("T" + i, "Task " + i, "Item"));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                int reader = r;
+                readers.add(pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        String id = "T" + (i * 7 + reader) % stored;
+                        assertEquals(id, async.getTask(id).join().getTaskId());
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+
+            CacheStats stats = service.cacheStats();
+            assertEquals(4_000, stats.getHits() + stats.getMisses());
+            assertEquals(stored, stats.getResident() + stats.getSpilled());
+            assertEquals(20, stats.getResident());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("E18 - a durable batch failure fails its futures, and reads report service errors")
+    void failuresCompleteExceptionally(@TempDir Path dir) throws IOException {
+        ContactService durable = ContactService.durable(dir.resolve("contacts.log"), FsyncPolicy.everyOperation());
+        ManualExecutor writes = new ManualExecutor();
+        AsyncServices async = AsyncServices.of(durable, null, null, Runnable::run, writes);
+        durable.close();
+
+        CompletableFuture<OperationResult> first = async.addContact(makeContact("C1"));
+        CompletableFuture<OperationResult> second = async.addContact(makeContact("C2"));
+        CompletableFuture<OperationResult> delete = async.deleteContact("C1");
+        writes.run();
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(OperationResult.NOT_FOUND, delete.join());
+        CompletionException e = assertThrows(CompletionException.class, () -> async.getContact(null).join());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("E18 - a closed facade, a missing service, and a rejecting executor are reported")
+    void rejectsMisuse() {
+        assertThrows(IllegalArgumentException.class, () -> AsyncServices.of(null, null, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> AsyncServices.of(new ContactService(), null, null, null, Runnable::run));
+
+        AsyncServices async = AsyncServices.of(new ContactService(), null, null);
+        assertThrows(IllegalStateException.class, () -> async.getTask("T1"));
+        assertThrows(IllegalStateException.class, () -> async.addAppointment(null));
+        async.addContact(makeContact("C1"));
+        async.close();
+        assertThrows(IllegalStateException.class, () -> async.getContact("C1"));
+        async.close();
+
+        ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+        AsyncServices rejecting = AsyncServices.of(null, new TaskService(), null, Runnable::run, stopped);
+        CompletableFuture<OperationResult> result = rejecting.addTask(new Task("T1", "Name", "Description"));
+        assertTrue(result.isCompletedExceptionally());
+        rejecting.close();
+    }
+}
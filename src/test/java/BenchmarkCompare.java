@@ -0,0 +1,81 @@
+// Regression check between two ServiceBenchmark result files (not a unit test). Matches
+// results by benchmark, params, and threads, then flags any whose throughput fell by more
+// than the threshold and by more than the two runs' combined score error. Exits with
+// status 1 when anything regressed, so a release script can gate on it.
+//
+// Run after `mvn -B test-compile`:
+//   java -cp target/test-classes BenchmarkCompare baseline.json current.json [threshold-percent]
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class BenchmarkCompare {
+
+    // Reads the one-result-per-line layout that BenchmarkHarness writes.
+    private static final Pattern BENCHMARK = Pattern.compile("\"benchmark\":\"([^\"]*)\"");
+    private static final Pattern THREADS = Pattern.compile("\"threads\":(\\d+)");
+    private static final Pattern PARAMS = Pattern.compile("\"params\":\\{([^}]*)\\}");
+    private static final Pattern SCORE = Pattern.compile("\"primaryMetric\":\\{\"score\":([^,]+),\"scoreError\":([^,]+)");
+
+    private BenchmarkCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkCompare baseline.json current.json [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, double[]> baseline = read(Path.of(args[0]));
+        Map<String, double[]> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, double[]> entry : current.entrySet()) {
+            double[] before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %s%n", entry.getKey());
+                continue;
+            }
+            double[] after = entry.getValue();
+            double change = (after[0] - before[0]) / before[0];
+            boolean regressed = change < -threshold && before[0] - after[0] > before[1] + after[1];
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s %,.0f -> %,.0f ops/s (%+.1f%%)%n",
+                regressed ? "REGRESSED" : "ok", entry.getKey(), before[0], after[0], change * 100);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("MISSING    %s%n", key);
+            }
+        }
+
+        System.out.printf("%d regression(s) beyond %.0f%%%n", regressions, threshold * 100);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Key "benchmark {params} threads=N" to {score, scoreError}; a null error counts as zero.
+    private static Map<String, double[]> read(Path file) throws IOException {
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            Matcher benchmark = BENCHMARK.matcher(line);
+            Matcher threads = THREADS.matcher(line);
+            Matcher params = PARAMS.matcher(line);
+            Matcher score = SCORE.matcher(line);
+            if (benchmark.find() && threads.find() && params.find() && score.find()) {
+                String key = benchmark.group(1) + " {" + params.group(1) + "} threads=" + threads.group(1);
+                double error = score.group(2).equals("null") ? 0 : Double.parseDouble(score.group(2));
+                results.put(key, new double[] {Double.parseDouble(score.group(1)), error});
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,241 @@
+// Measurement engine for the service benchmark suite (not a unit test; Surefire does not
+// pick it up). Follows JMH throughput mode: warmup iterations, then timed iterations in
+// which every worker thread calls the operation until a shared stop flag is raised.
+// Each result carries the GC profiler's collection count and time and the allocation
+// profiler's bytes per operation, read from the platform MXBeans.
+//
+// Results are written in JMH's JSON result layout, so JMH tooling and BenchmarkCompare
+// can read them. JMH itself is not used: it rejects benchmark classes in the default
+// package, and every class in this project lives there.
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class BenchmarkHarness {
+
+    // One benchmarked operation. index counts calls on the calling thread, from zero, so
+    // operations can derive keys without shared state. The return value is consumed so the
+    // JIT cannot discard the work.
+    interface Operation {
+        long run(int thread, long index);
+    }
+
+    // Student's t at 99.9% two-sided confidence for 1 to 10 degrees of freedom, as JMH reports.
+    private static final double[] T_999 = {636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59};
+    private static final double T_999_LARGE = 3.29;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+    private final List<String> results = new ArrayList<>();
+
+    // Consumed results, published once per iteration per thread.
+    private final AtomicLong sink = new AtomicLong();
+
+    BenchmarkHarness(int warmupIterations, int measurementIterations, long iterationMillis) {
+        if (measurementIterations < 1 || warmupIterations < 0 || iterationMillis < 1) {
+            throw new IllegalArgumentException("iterations and iteration time must be positive");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // Measures operation at the given thread count and records one result. Operations that
+    // share a service must be safe for that many threads.
+    void measure(String benchmark, Map<String, String> params, int threads, Operation operation) throws Exception {
+        long[] indexes = new long[threads];
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(threads, operation, indexes);
+        }
+
+        double[] scores = new double[measurementIterations];
+        long operations = 0;
+        long allocated = 0;
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] sample = iterate(threads, operation, indexes);
+            scores[i] = sample[0] / (sample[2] / 1e9);
+            operations += sample[0];
+            allocated += sample[1];
+        }
+        long gcCount = gcCount() - gcCountBefore;
+        long gcTime = gcTimeMillis() - gcTimeBefore;
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score / scores.length;
+        }
+        double error = scoreError(scores, mean);
+        double bytesPerOp = operations == 0 ? 0 : allocated / (double) operations;
+
+        System.out.printf("%-36s %-28s threads=%-3d %,16.0f ± %,12.0f ops/s  %,10.1f B/op  gc=%d (%d ms)%n",
+            benchmark, params, threads, mean, error, bytesPerOp, gcCount, gcTime);
+        results.add(toJson(benchmark, params, threads, scores, mean, error, bytesPerOp, gcCount, gcTime));
+    }
+
+    // Total of every consumed result; printing it keeps the JIT honest across iterations.
+    long sink() {
+        return sink.get();
+    }
+
+    // Writes every recorded result as a JSON array, one result object per line.
+    void write(Path output) throws IOException {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            out.write("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                out.write(results.get(i));
+                out.write(i + 1 < results.size() ? ",\n" : "\n");
+            }
+            out.write("]\n");
+        }
+    }
+
+    // One timed iteration. Returns {operations, allocated bytes, elapsed nanos}.
+    private long[] iterate(int threads, Operation operation, long[] indexes) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        long[] counts = new long[threads];
+        long[] bytes = new long[threads];
+        Throwable[] failures = new Throwable[threads];
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+                    start.await();
+                    long index = indexes[thread];
+                    long consumed = 0;
+                    while (!stop.get()) {
+                        consumed += operation.run(thread, index++);
+                    }
+                    counts[thread] = index - indexes[thread];
+                    indexes[thread] = index;
+                    bytes[thread] = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+                    sink.addAndGet(consumed);
+                } catch (Throwable e) {
+                    failures[thread] = e;
+                    stop.set(true);
+                }
+            }, "bench-" + t);
+            workers[t].start();
+        }
+
+        start.await();
+        long began = System.nanoTime();
+        Thread.sleep(iterationMillis);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                throw new IllegalStateException("benchmark operation failed", failure);
+            }
+        }
+
+        long total = 0;
+        long allocated = 0;
+        for (int t = 0; t < threads; t++) {
+            total += counts[t];
+            allocated += bytes[t];
+        }
+        return new long[] {total, allocated, elapsed};
+    }
+
+    private static double scoreError(double[] scores, double mean) {
+        if (scores.length < 2) {
+            return Double.NaN;
+        }
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean) / (scores.length - 1);
+        }
+        int degrees = scores.length - 1;
+        double t = degrees <= T_999.length ? T_999[degrees - 1] : T_999_LARGE;
+        return t * Math.sqrt(variance / scores.length);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    private String toJson(String benchmark, Map<String, String> params, int threads, double[] scores,
+                                 double mean, double error, double bytesPerOp, long gcCount, long gcTime) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"benchmark\":\"").append(benchmark).append('"')
+            .append(",\"mode\":\"thrpt\"")
+            .append(",\"threads\":").append(threads)
+            .append(",\"forks\":0")
+            .append(",\"warmupIterations\":").append(warmupIterations)
+            .append(",\"measurementIterations\":").append(measurementIterations)
+            .append(",\"measurementTime\":\"").append(iterationMillis).append(" ms\"")
+            .append(",\"params\":{");
+        int i = 0;
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            json.append(i++ > 0 ? "," : "").append('"').append(param.getKey()).append("\":\"").append(param.getValue()).append('"');
+        }
+        json.append("},\"primaryMetric\":{\"score\":").append(number(mean))
+            .append(",\"scoreError\":").append(number(error))
+            .append(",\"scoreUnit\":\"ops/s\",\"rawData\":[[");
+        for (int s = 0; s < scores.length; s++) {
+            json.append(s > 0 ? "," : "").append(number(scores[s]));
+        }
+        json.append("]]},\"secondaryMetrics\":{")
+            .append("\"gc.alloc.rate.norm\":{\"score\":").append(number(bytesPerOp)).append(",\"scoreUnit\":\"B/op\"}")
+            .append(",\"gc.count\":{\"score\":").append(gcCount).append(",\"scoreUnit\":\"counts\"}")
+            .append(",\"gc.time\":{\"score\":").append(gcTime).append(",\"scoreUnit\":\"ms\"}")
+            .append("}}");
+        return json.toString();
+    }
+
+    // JSON has no NaN; an undefined error is written as null.
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+
+    static Map<String, String> params(String... keysAndValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            params.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,84 @@
+// Unit tests for the binary record encoding (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BinaryCodecTest {
+
+    private static BinaryCodec.Reader readerOf(BinaryCodec.Writer writer) {
+        return new BinaryCodec.Reader(ByteBuffer.wrap(writer.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Values round-trip in order, including null and non-ASCII strings")
+    void valuesRoundTrip() {
+        BinaryCodec.Writer writer = new BinaryCodec.Writer(1);
+        writer.writeByte(7)
+            .writeInt(-42)
+            .writeLong(Long.MIN_VALUE + 1)
+            .writeString("Zoë")
+            .writeString(null)
+            .writeString("");
+
+        BinaryCodec.Reader reader = readerOf(writer);
+        assertAll(
+            () -> assertEquals(7, reader.readByte()),
+            () -> assertEquals(-42, reader.readInt()),
+            () -> assertEquals(Long.MIN_VALUE + 1, reader.readLong()),
+            () -> assertEquals("Zoë", reader.readString()),
+            () -> assertNull(reader.readString()),
+            () -> assertEquals("", reader.readString())
+        );
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("reset reuses the buffer from the start")
+    void resetReusesBuffer() {
+        BinaryCodec.Writer writer = new BinaryCodec.Writer();
+        writer.writeString("first");
+        writer.reset();
+        writer.writeInt(1);
+
+        assertEquals(4, writer.length());
+        assertEquals(1, readerOf(writer).readInt());
+    }
+
+    @Test
+    @DisplayName("A string length past the end of the buffer is rejected")
+    void truncatedStringRejected() {
+        BinaryCodec.Writer writer = new BinaryCodec.Writer();
+        writer.writeInt(100).writeByte('x');
+
+        assertThrows(BufferUnderflowException.class, () -> readerOf(writer).readString());
+    }
+
+    @Test
+    @DisplayName("Varints use one byte per seven bits and round-trip with compact strings")
+    void varintsRoundTrip() {
+        BinaryCodec.Writer writer = new BinaryCodec.Writer(1);
+        writer.writeVarLong(0).writeVarLong(127).writeVarLong(128).writeVarLong(-1L).writeCompactString("Zoë");
+
+        assertEquals(1 + 1 + 2 + 10 + 1 + 4, writer.length());
+        BinaryCodec.Reader reader = readerOf(writer);
+        assertEquals(0, reader.readVarLong());
+        assertEquals(127, reader.readVarLong());
+        assertEquals(128, reader.readVarLong());
+        assertEquals(-1L, reader.readVarLong());
+        assertEquals("Zoë", reader.readCompactString());
+        assertFalse(reader.hasRemaining());
+
+        BinaryCodec.Writer truncated = new BinaryCodec.Writer().writeVarLong(5).writeByte('x');
+        assertThrows(BufferUnderflowException.class, () -> readerOf(truncated).readCompactString());
+        BinaryCodec.Writer endless = new BinaryCodec.Writer();
+        for (int i = 0; i < 10; i++) {
+            endless.writeByte(0x80);
+        }
+        assertThrows(IllegalStateException.class, () -> readerOf(endless).readVarLong());
+    }
+}
@@ -0,0 +1,111 @@
+// Unit tests for the bounded storage engine map (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BoundedMapTest {
+
+    private static final StorageEngine.Codec<String> STRINGS = new StorageEngine.Codec<>() {
+        @Override
+        public void encode(String value, BinaryCodec.Writer out) {
+            out.writeString(value);
+        }
+
+        @Override
+        public String decode(BinaryCodec.Reader in) {
+            return in.readString();
+        }
+    };
+
+    @Test
+    @DisplayName("E22 - random puts, gets, and removes match a HashMap while no more than the budget stays resident")
+    void matchesHashMap(@TempDir Path dir) throws IOException {
+        Map<String, String> model = new HashMap<>();
+        Random random = new Random(3);
+        try (BoundedMap<String> map = BoundedMap.open(dir.resolve("values.spill"), STRINGS, 50)) {
+            for (int i = 0; i < 20_000; i++) {
+                String key = "K" + random.nextInt(500);
+                switch (random.nextInt(5)) {
+                    case 0:
+                        assertEquals(model.remove(key), map.remove(key));
+                        break;
+                    case 1:
+                        assertEquals(model.putIfAbsent(key, "first " + i), map.putIfAbsent(key, "first " + i));
+                        break;
+                    case 2:
+                        assertEquals(model.get(key), map.get(key));
+                        break;
+                    default:
+                        assertEquals(model.put(key, "value " + i), map.put(key, "value " + i));
+                }
+                assertTrue(map.stats().getResident() <= 50);
+            }
+
+            assertEquals(model.size(), map.size());
+            assertEquals(model, new HashMap<>(map));
+            CacheStats stats = map.stats();
+            assertEquals(model.size(), stats.getResident() + stats.getSpilled());
+            assertTrue(stats.getEvictions() > 0 && stats.getMisses() > 0 && stats.getHits() > 0, stats.toString());
+
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertNull(map.get("K1"));
+        }
+        assertFalse(Files.exists(dir.resolve("values.spill")));
+    }
+
+    @Test
+    @DisplayName("E22 - the least recently used value is evicted, and a get faults it back in as a miss")
+    void leastRecentlyUsed(@TempDir Path dir) throws IOException {
+        try (BoundedMap<String> map = BoundedMap.open(dir.resolve("values.spill"), STRINGS, 2)) {
+            map.put("A", "alpha");
+            map.put("B", "beta");
+            assertEquals("alpha", map.get("A"));
+            map.put("C", "gamma");
+
+            // B was used least recently, so it went to disk; A and C are hits.
+            assertEquals(1, map.stats().getEvictions());
+            assertEquals(1, map.stats().getSpilled());
+            assertEquals("gamma", map.get("C"));
+            assertTrue(map.containsKey("B"));
+            assertEquals("beta", map.get("B"));
+            assertNull(map.get("missing"));
+
+            CacheStats stats = map.stats();
+            assertEquals(2, stats.getHits());
+            assertEquals(1, stats.getMisses());
+            assertEquals(2, stats.getEvictions());
+            assertEquals(2, stats.getResident());
+            assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+
+            // putIfAbsent on a stored key neither counts nor reorders, and leaves spilled keys on disk.
+            assertEquals("gamma", map.putIfAbsent("C", "other"));
+            assertEquals("alpha", map.putIfAbsent("A", "other"));
+            assertEquals(stats.toString(), map.stats().toString());
+            map.put("D", "delta");
+            assertEquals(2, map.stats().getSpilled());
+            // C was not moved by its putIfAbsent, so it went to disk ahead of B.
+            assertEquals("beta", map.get("B"));
+            assertEquals(3, map.stats().getHits());
+
+            // computeIfPresent writes only a different instance; null removes the key.
+            String held = map.get("B");
+            assertSame(held, map.computeIfPresent("B", (key, value) -> value));
+            assertNull(map.computeIfPresent("B", (key, value) -> null));
+            assertFalse(map.containsKey("B"));
+            assertNull(map.computeIfPresent("B", (key, value) -> value));
+            assertThrows(NullPointerException.class, () -> map.put("N", null));
+        }
+        assertEquals(1.0, new CacheStats(0, 0, 0, 0, 0).hitRate());
+    }
+}
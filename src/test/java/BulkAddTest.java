@@ -0,0 +1,108 @@
+// Unit tests for the batch staging and log encoding shared by the bulk adds (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BulkAddTest {
+
+    private static Task task(String id) {
+        return new Task(id, "Alpha Task", "Initial task description");
+    }
+
+    private static String describe(List<BatchFailure> failures) {
+        return failures.stream()
+            .map(f -> f.getIndex() + ":" + f.getId() + ":" + f.getReason())
+            .collect(Collectors.joining(","));
+    }
+
+    @Test
+    @DisplayName("Staging keeps first occurrences in order and reports nulls and repeats")
+    void stageReportsNullsAndRepeats() {
+        Task first = task("T1");
+        Task[] records = {first, task("T2"), null, task("T1"), task("T3"), task("T2")};
+        List<BatchFailure> failures = new ArrayList<>();
+
+        Map<String, Task> staged = BulkAdd.stage(records, Task::getTaskId, "task", "taskId", failures);
+
+        assertEquals(List.of("T1", "T2", "T3"), new ArrayList<>(staged.keySet()));
+        assertSame(first, staged.get("T1"));
+        assertEquals("2:null:INVALID_INPUT,3:T1:DUPLICATE_ID,5:T2:DUPLICATE_ID", describe(failures));
+        assertEquals("taskId repeats record 0 of the batch: T1", failures.get(1).getMessage());
+        assertEquals("taskId repeats record 1 of the batch: T2", failures.get(2).getMessage());
+        assertEquals("record 2: task must not be null", failures.get(0).toString());
+    }
+
+    @Test
+    @DisplayName("Store check flags only first occurrences already stored, and sort merges passes")
+    void rejectStoredFlagsStoredIds() {
+        Task[] records = {task("T1"), task("T2"), task("T2"), task("T3")};
+        List<BatchFailure> failures = new ArrayList<>();
+        Map<String, Task> staged = BulkAdd.stage(records, Task::getTaskId, "task", "taskId", failures);
+
+        BulkAdd.rejectStored(records, Task::getTaskId, staged, Map.of("T2", task("T2"), "T3", task("T3")), "taskId", failures);
+        BulkAdd.sort(failures);
+
+        assertEquals("1:T2:DUPLICATE_ID,2:T2:DUPLICATE_ID,3:T3:DUPLICATE_ID", describe(failures));
+        assertEquals("taskId already exists: T2", failures.get(0).getMessage());
+        assertEquals(3, BulkAdd.indexOf(records, records[3]));
+        assertEquals(-1, BulkAdd.indexOf(records, task("T1")));
+    }
+
+    @Test
+    @DisplayName("A batch log record carries the count and every entry, and oversize batches are refused")
+    void logRecordEncodesBatch() {
+        List<String> ids = List.of("A", "B", "C");
+        BinaryCodec.Writer out = BulkAdd.logRecord((byte) 9, ids, ids.size(), (id, writer) -> writer.writeString(id));
+
+        BinaryCodec.Reader in = new BinaryCodec.Reader(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(9, in.readByte());
+        assertEquals(3, in.readInt());
+        assertEquals(List.of("A", "B", "C"), List.of(in.readString(), in.readString(), in.readString()));
+        assertFalse(in.hasRemaining());
+
+        String chunk = "x".repeat(1 << 20);
+        List<String> huge = new ArrayList<>();
+        for (int i = 0; i <= WriteAheadLog.MAX_RECORD_BYTES / chunk.length(); i++) {
+            huge.add(chunk);
+        }
+        assertThrows(IllegalArgumentException.class, () ->
+            BulkAdd.logRecord((byte) 9, huge, huge.size(), (text, writer) -> writer.writeString(text)));
+    }
+
+    @Test
+    @DisplayName("Capacity holds the batch without rehashing and is capped")
+    void capacityForBatch() {
+        assertEquals(1, BulkAdd.capacityFor(0));
+        assertTrue(BulkAdd.capacityFor(3) * 0.75 >= 3);
+        assertTrue(BulkAdd.capacityFor(1_000_000) * 0.75 >= 1_000_000);
+        assertEquals(1 << 30, BulkAdd.capacityFor(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Rejection exception names the first failure and lists them all")
+    void rejectionReportsFailures() {
+        List<BatchFailure> failures = List.of(
+            new BatchFailure(1, "T1", OperationResult.DUPLICATE_ID, "taskId already exists: T1"),
+            new BatchFailure(4, null, OperationResult.INVALID_INPUT, "task must not be null"));
+
+        BatchRejectedException e = new BatchRejectedException(5, failures);
+
+        assertEquals("2 of 5 records rejected, nothing was added; first record 1: taskId already exists: T1", e.getMessage());
+        assertEquals(failures, e.getFailures());
+        assertEquals(List.of(), e.getKeptIds());
+        assertInstanceOf(IllegalArgumentException.class, e);
+
+        BatchRejectedException partial = new BatchRejectedException(5, failures, List.of("T0"));
+        assertEquals("2 of 5 records rejected, 1 kept by other writers; first record 1: taskId already exists: T1",
+            partial.getMessage());
+        assertEquals(List.of("T0"), partial.getKeptIds());
+    }
+}
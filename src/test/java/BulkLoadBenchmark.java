@@ -0,0 +1,104 @@
+// Ingest harness for the bulk adds (not a unit test; Surefire does not pick it up).
+// Loads the same records one add at a time and as one addContacts/addTasks batch into a
+// fresh service, in memory and in durable mode, and reports records per second for each.
+// Durable one-at-a-time runs fsync per record, so they use a smaller record count.
+//
+// Run after `mvn -B test-compile`:
+//   java -Xmx4g -cp target/classes:target/test-classes BulkLoadBenchmark [records] [durable-records]
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BulkLoadBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private BulkLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int durableRecords = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        List<Contact> contacts = contacts(records);
+        List<Task> tasks = tasks(records);
+        report("contacts in memory", records,
+            () -> { ContactService s = new ContactService(); contacts.forEach(s::addContact); },
+            () -> new ContactService().addContacts(contacts));
+        report("tasks in memory", records,
+            () -> { TaskService s = new TaskService(); tasks.forEach(s::addTask); },
+            () -> new TaskService().addTasks(tasks));
+
+        Path dir = Files.createTempDirectory("bulk-bench");
+        List<Contact> durableContacts = contacts.subList(0, Math.min(durableRecords, contacts.size()));
+        try {
+            report("contacts durable (fsync per operation)", durableContacts.size(),
+                () -> durable(dir, service -> durableContacts.forEach(service::addContact)),
+                () -> durable(dir, service -> service.addContacts(durableContacts)));
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private interface Load {
+        void run() throws IOException;
+    }
+
+    private interface DurableLoad {
+        void run(ContactService service);
+    }
+
+    // Best of several rounds for each side, after one warmup round of each.
+    private static void report(String label, int records, Load single, Load batch) throws IOException {
+        single.run();
+        batch.run();
+        long singleNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            singleNanos = Math.min(singleNanos, time(single));
+            batchNanos = Math.min(batchNanos, time(batch));
+        }
+        System.out.printf("%-40s one at a time %,14.0f rec/s   batch %,14.0f rec/s   %6.1fx%n", label,
+            records / (singleNanos / 1e9), records / (batchNanos / 1e9), singleNanos / (double) batchNanos);
+    }
+
+    private static long time(Load load) throws IOException {
+        long start = System.nanoTime();
+        load.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void durable(Path dir, DurableLoad load) throws IOException {
+        Path logFile = dir.resolve("contacts-" + System.nanoTime() + ".log");
+        try (ContactService service = ContactService.durable(logFile, FsyncPolicy.everyOperation())) {
+            load.run(service);
+        }
+        Files.delete(logFile);
+    }
+
+    private static List<Contact> contacts(int count) {
+        String[] first = {"John", "Jane", "Mark", "Mary", "Ann"};
+        List<Contact> contacts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String phone = String.format("%010d", (i * 2_654_435_761L) % 10_000_000_000L);
+            contacts.add(new Contact("C" + Integer.toString(i, 36), first[i % first.length], "Smith", phone, "123 Main St"));
+        }
+        return contacts;
+    }
+
+    private static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Task("T" + Integer.toString(i, 36), "Task " + (i % 100), "Review item " + i));
+        }
+        return tasks;
+    }
+}
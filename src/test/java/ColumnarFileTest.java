@@ -0,0 +1,209 @@
+// Unit tests for the columnar export file and its column reader (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ColumnarFileTest {
+
+    private static final long DAY = 86_400_000L;
+
+    private static ContactService contacts(int count) {
+        String[] first = {"John", "Jane", "Mark", "Mary", "Ann"};
+        ContactService service = new ContactService();
+        List<Contact> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String phone = String.format("%010d", (i * 2_654_435_761L) % 10_000_000_000L);
+            batch.add(new Contact("C" + i, first[i % first.length], "Smith", phone, (i % 7) + " Main St"));
+        }
+        service.addContacts(batch);
+        return service;
+    }
+
+    private static List<String> strings(ColumnarFile.Reader reader, String column) throws IOException {
+        List<String> values = new ArrayList<>();
+        reader.scanStrings(column, values::add);
+        return values;
+    }
+
+    @Test
+    @DisplayName("E15 - contacts export across several row groups and every column reads back in row order")
+    void contactsRoundTrip(@TempDir Path dir) throws IOException {
+        int count = ColumnarFile.GROUP_ROWS * 2 + 100;
+        ContactService service = contacts(count);
+        Path file = dir.resolve("contacts.col");
+
+        assertEquals(count, ColumnarFile.exportContacts(service, file));
+
+        try (ColumnarFile.Reader reader = ColumnarFile.open(file)) {
+            assertEquals("Contact", reader.getEntity());
+            assertEquals(List.of("contactId", "firstName", "lastName", "phone", "address"), reader.getColumns());
+            assertEquals(count, reader.getRowCount());
+            List<String> ids = strings(reader, "contactId");
+            List<String> firstNames = strings(reader, "firstName");
+            List<String> phones = strings(reader, "phone");
+            List<String> addresses = strings(reader, "address");
+            List<Long> packed = new ArrayList<>();
+            reader.scanLongs("phone", packed::add);
+            assertEquals(count, ids.size());
+            for (int i = 0; i < count; i++) {
+                Contact stored = service.getContact(ids.get(i));
+                assertEquals(stored.getFirstName(), firstNames.get(i));
+                assertEquals(stored.getPhone(), phones.get(i));
+                assertEquals(Long.parseLong(stored.getPhone()), packed.get(i));
+                assertEquals(stored.getAddress(), addresses.get(i));
+            }
+        }
+        assertFalse(Files.exists(dir.resolve("contacts.col.tmp")));
+        // Dictionary names and addresses plus five-byte phones: well under the CSV size.
+        assertTrue(Files.size(file) < count * 16L, "export is " + Files.size(file) + " bytes");
+    }
+
+    @Test
+    @DisplayName("E15 - a date histogram reads only the delta-encoded appointment times")
+    void appointmentDateHistogram(@TempDir Path dir) throws IOException {
+        long base = System.currentTimeMillis() + DAY;
+        AppointmentService service = new AppointmentService();
+        List<Appointment> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            batch.add(new Appointment("A" + i, base + (i % 3) * DAY + i * 1000L, Duration.ofMinutes(i % 4 * 15),
+                "Visit " + i, Clock.systemUTC()));
+        }
+        service.addAppointments(batch);
+        Path file = dir.resolve("appointments.col");
+        ColumnarFile.exportAppointments(service, file);
+
+        Map<Long, Integer> histogram = new TreeMap<>();
+        List<Long> times = new ArrayList<>();
+        List<Long> durations = new ArrayList<>();
+        try (ColumnarFile.Reader reader = ColumnarFile.open(file)) {
+            reader.scanLongs("appointmentDate", millis -> {
+                times.add(millis);
+                histogram.merge((millis - base) / DAY, 1, Integer::sum);
+            });
+            reader.scanLongs("duration", durations::add);
+            List<String> ids = strings(reader, "appointmentId");
+            for (int i = 0; i < ids.size(); i++) {
+                Appointment stored = service.getAppointment(ids.get(i));
+                assertEquals(stored.getAppointmentEpochMillis(), times.get(i));
+                assertEquals(stored.getDuration().toMillis(), durations.get(i));
+            }
+        }
+        int total = histogram.values().stream().mapToInt(Integer::intValue).sum();
+        assertEquals(5000, total);
+        assertEquals(1667, histogram.get(0L));
+        // Within a row group the times ascend, so the deltas stay small.
+        for (int i = 1; i < ColumnarFile.GROUP_ROWS; i++) {
+            assertTrue(times.get(i) >= times.get(i - 1));
+        }
+    }
+
+    @Test
+    @DisplayName("E15 - unique text falls back to plain encoding and an empty store exports no groups")
+    void tasksPlainAndEmpty(@TempDir Path dir) throws IOException {
+        TaskService service = new TaskService();
+        for (int i = 0; i < 50; i++) {
+            service.addTask(new Task("T" + i, "Task " + (i % 2), "Unique description " + i));
+        }
+        Path file = dir.resolve("tasks.col");
+        ColumnarFile.exportTasks(service, file);
+        try (ColumnarFile.Reader reader = ColumnarFile.open(file)) {
+            List<String> ids = strings(reader, "taskId");
+            List<String> descriptions = strings(reader, "description");
+            List<String> names = strings(reader, "name");
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(service.getTask(ids.get(i)).getDescription(), descriptions.get(i));
+                assertEquals(service.getTask(ids.get(i)).getName(), names.get(i));
+            }
+        }
+
+        Path empty = dir.resolve("empty.col");
+        assertEquals(0, ColumnarFile.exportTasks(new TaskService(), empty));
+        try (ColumnarFile.Reader reader = ColumnarFile.open(empty)) {
+            assertEquals(0, reader.getRowCount());
+            assertEquals(List.of(), strings(reader, "name"));
+        }
+    }
+
+    @Test
+    @DisplayName("E15 - a damaged column fails its scan while other columns still read")
+    void damagedColumnIsDetected(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("contacts.col");
+        ColumnarFile.exportContacts(contacts(10), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            channel.read(head, 8);
+            long group = 12 + head.flip().getInt();
+            ByteBuffer idLength = ByteBuffer.allocate(4);
+            channel.read(idLength, group + 4);
+            long firstNameBlock = group + 4 + 4 * 5 + idLength.flip().getInt() + 4;
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), firstNameBlock + 2);
+        }
+
+        try (ColumnarFile.Reader reader = ColumnarFile.open(file)) {
+            assertEquals(10, strings(reader, "phone").size());
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> strings(reader, "firstName"));
+            assertTrue(e.getMessage().contains("column firstName"));
+        }
+    }
+
+    @Test
+    @DisplayName("E15 - unknown columns and type mismatches are rejected; foreign and truncated files fail")
+    void rejectsBadRequestsAndFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("contacts.col");
+        ColumnarFile.exportContacts(contacts(3), file);
+        try (ColumnarFile.Reader reader = ColumnarFile.open(file)) {
+            assertThrows(IllegalArgumentException.class, () -> reader.scanStrings("email", value -> { }));
+            assertThrows(IllegalArgumentException.class, () -> reader.scanLongs("firstName", value -> { }));
+        }
+        try (ColumnarFile.Reader reader = ColumnarFile.open(exportAppointment(dir))) {
+            assertThrows(IllegalArgumentException.class, () -> reader.scanStrings("duration", value -> { }));
+        }
+
+        Path foreign = Files.write(dir.resolve("foreign.col"), new byte[64]);
+        assertThrows(IllegalStateException.class, () -> ColumnarFile.open(foreign));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = Files.write(dir.resolve("truncated.col"), Arrays.copyOf(bytes, bytes.length - 20));
+        assertThrows(IllegalStateException.class, () -> ColumnarFile.open(truncated));
+        Path tiny = Files.write(dir.resolve("tiny.col"), new byte[3]);
+        assertThrows(IllegalStateException.class, () -> ColumnarFile.open(tiny));
+    }
+
+    private static Path exportAppointment(Path dir) throws IOException {
+        AppointmentService service = new AppointmentService();
+        service.addAppointment(new Appointment("A1", new Date(System.currentTimeMillis() + DAY), "Checkup"));
+        Path file = dir.resolve("appointments.col");
+        ColumnarFile.exportAppointments(service, file);
+        return file;
+    }
+
+    @Test
+    @DisplayName("E15 - zigzag maps small negative and positive deltas to small codes")
+    void zigzagRoundTrip() {
+        Map<Long, Long> expected = new HashMap<>(Map.of(0L, 0L, -1L, 1L, 1L, 2L, -2L, 3L));
+        expected.forEach((value, code) -> {
+            assertEquals(code, ColumnarFile.zigzag(value));
+            assertEquals(value, ColumnarFile.unzigzag(code));
+        });
+        assertEquals(Long.MIN_VALUE, ColumnarFile.unzigzag(ColumnarFile.zigzag(Long.MIN_VALUE)));
+    }
+}
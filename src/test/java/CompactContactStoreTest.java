@@ -0,0 +1,182 @@
+// Unit tests for the off-heap compact contact store (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CompactContactStoreTest {
+
+    private static Contact makeContact(String id) {
+        return new Contact(id, "John", "Smith", "0012345678", "123 Main St");
+    }
+
+    @Test
+    @DisplayName("E19 - a stored contact reads back through a view and as a Contact, leading phone zeros included")
+    void roundTrip() {
+        CompactContactStore store = new CompactContactStore();
+        store.addContact(makeContact("ID1"));
+        store.addContact(new Contact("ID2", "Zoë", "Müller", "9876543210", "Straße 1"));
+
+        CompactContactStore.View view = store.newView();
+        assertTrue(store.find("ID1", view));
+        assertEquals("ID1", view.getContactId());
+        assertEquals("John", view.getFirstName());
+        assertEquals("Smith", view.getLastName());
+        assertEquals("0012345678", view.getPhone());
+        assertEquals(12_345_678L, view.getPhoneNumber());
+        assertEquals("123 Main St", view.getAddress());
+        assertEquals(0, view.getVersion());
+
+        Contact copy = store.getContact("ID2");
+        assertEquals("Zoë", copy.getFirstName());
+        assertEquals("Müller", copy.getLastName());
+        assertEquals("Straße 1", copy.getAddress());
+        assertNull(store.getContact("ID3"));
+        assertFalse(store.find("ID3", view));
+        assertEquals("ID1", view.getContactId());
+        assertEquals(2, store.getContactCount());
+        assertEquals(80, CompactContactStore.SLOT_BYTES);
+    }
+
+    @Test
+    @DisplayName("E19 - random adds, deletes, and updates across slabs and index growth match a HashMap")
+    void matchesHashMap() {
+        CompactContactStore store = new CompactContactStore();
+        Map<String, String> model = new HashMap<>();
+        Random random = new Random(7);
+        int keys = CompactContactStore.SLAB_SLOTS + 5_000;
+        for (int i = 0; i < keys; i++) {
+            String id = "K" + i;
+            store.tryAddContact(id, "First", "Last", String.format("%010d", i), "Addr " + i);
+            model.put(id, "First");
+        }
+        for (int i = 0; i < 100_000; i++) {
+            String id = "K" + random.nextInt(keys + 2_000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    OperationResult added = store.tryAddContact(id, "Added", "Last", "5555555555", "Addr");
+                    assertEquals(model.containsKey(id) ? OperationResult.DUPLICATE_ID : OperationResult.OK, added);
+                    model.putIfAbsent(id, "Added");
+                    break;
+                case 1:
+                    OperationResult deleted = store.tryDeleteContact(id);
+                    assertEquals(model.remove(id) != null ? OperationResult.OK : OperationResult.NOT_FOUND, deleted);
+                    break;
+                default:
+                    OperationResult updated = store.tryUpdateContact(id, "U" + (i % 1000), null, null, null);
+                    assertEquals(model.containsKey(id) ? OperationResult.OK : OperationResult.NOT_FOUND, updated);
+                    if (updated == OperationResult.OK) {
+                        model.put(id, "U" + (i % 1000));
+                    }
+            }
+        }
+
+        assertEquals(model.size(), store.getContactCount());
+        CompactContactStore.View view = store.newView();
+        for (Map.Entry<String, String> entry : model.entrySet()) {
+            assertTrue(store.find(entry.getKey(), view), entry.getKey());
+            assertEquals(entry.getKey(), view.getContactId());
+            assertEquals(entry.getValue(), view.getFirstName());
+        }
+        Set<String> visited = new HashSet<>();
+        store.forEachContact(contact -> assertTrue(visited.add(contact.getContactId())));
+        assertEquals(model.keySet(), visited);
+        // Deleted slots are reused, so the slabs hold no more slots than contacts ever live at once.
+        assertEquals(2L * CompactContactStore.SLAB_SLOTS * CompactContactStore.SLOT_BYTES, store.offHeapBytes());
+        assertTrue(store.indexBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("E19 - updates rewrite the slot in place, advance the version, and honor an expected version")
+    void updatesInPlace() {
+        CompactContactStore store = new CompactContactStore(4);
+        store.addContact(makeContact("ID1"));
+        CompactContactStore.View view = store.newView();
+        store.find("ID1", view);
+
+        assertEquals(OperationResult.OK, store.tryUpdateContact("ID1", "Jane", "Doe", "1111111111", "9 Elm St"));
+        assertEquals("Jane", view.getFirstName());
+        assertEquals("Doe", view.getLastName());
+        assertEquals("1111111111", view.getPhone());
+        assertEquals("9 Elm St", view.getAddress());
+        assertEquals(1, view.getVersion());
+
+        assertEquals(OperationResult.VERSION_CONFLICT, store.tryUpdateContact("ID1", 0, "Mary", null, null, null));
+        assertEquals(OperationResult.OK, store.tryUpdateContact("ID1", 1, "Mary", null, null, null));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryUpdateContact("ID1", -1, "Mary", null, null, null));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryUpdateContact("ID1", "NameTooLong1", null, null, null));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryUpdateContact(null, "Mary", null, null, null));
+        assertEquals("Mary", view.getFirstName());
+        assertEquals(2, store.getContact("ID1").getVersion());
+
+        Contact versioned = makeContact("ID2");
+        versioned.setVersion(5);
+        store.addContact(versioned);
+        assertEquals(5, store.getContact("ID2").getVersion());
+    }
+
+    @Test
+    @DisplayName("E19 - invalid, non-Latin-1, and duplicate contacts are refused, and misuse of views is reported")
+    void rejectsBadInput() {
+        CompactContactStore store = new CompactContactStore();
+        store.addContact(makeContact("ID1"));
+
+        assertEquals(OperationResult.DUPLICATE_ID, store.tryAddContact(makeContact("ID1")));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryAddContact(null));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryAddContact(new Contact("ID2", "Łukasz", "Nowak", "1234567890", "Rynek 1")));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryAddContact("ID3", "John", "Smith", "12345", "Addr"));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryAddContact(null, "John", "Smith", "1234567890", "Addr"));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryAddContact("ID3", "John", null, "1234567890", "Addr"));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryUpdateContact("ID1", "Łukasz", null, null, null));
+        assertEquals(OperationResult.INVALID_INPUT, store.tryDeleteContact(null));
+        assertEquals(1, store.getContactCount());
+
+        IllegalArgumentException latin = assertThrows(IllegalArgumentException.class,
+            () -> store.addContact(new Contact("ID2", "Łukasz", "Nowak", "1234567890", "Rynek 1")));
+        assertTrue(latin.getMessage().contains("Latin-1"));
+        assertThrows(IllegalArgumentException.class, () -> store.addContact(null));
+        assertThrows(IllegalArgumentException.class, () -> store.addContact(makeContact("ID1")));
+        assertThrows(IllegalArgumentException.class, () -> store.deleteContact("ID9"));
+        assertThrows(IllegalArgumentException.class, () -> store.deleteContact(null));
+        store.deleteContact("ID1");
+        assertEquals(0, store.getContactCount());
+
+        CompactContactStore.View unpositioned = store.newView();
+        assertThrows(IllegalStateException.class, unpositioned::getContactId);
+        assertThrows(IllegalArgumentException.class, () -> store.find("ID1", new CompactContactStore().newView()));
+        assertThrows(IllegalArgumentException.class, () -> store.find(null, unpositioned));
+        assertThrows(IllegalArgumentException.class, () -> store.forEachContact(null));
+        assertThrows(IllegalArgumentException.class, () -> new CompactContactStore(-1));
+    }
+
+    @Test
+    @DisplayName("E19 - ids whose hashes collide stay distinct through deletes that shift the probe run")
+    void collidingIdsSurviveDeletes() {
+        // "Aa" and "BB" share a hashCode, so these ids all probe from one position.
+        List<String> ids = new ArrayList<>(List.of("AaAa", "AaBB", "BBAa", "BBBB"));
+        CompactContactStore store = new CompactContactStore();
+        for (String id : ids) {
+            store.addContact(makeContact(id));
+        }
+        store.deleteContact("AaBB");
+        ids.remove("AaBB");
+
+        CompactContactStore.View view = store.newView();
+        for (String id : ids) {
+            assertTrue(store.find(id, view), id);
+            assertEquals(id, view.getContactId());
+        }
+        assertFalse(store.find("AaBB", view));
+        store.addContact(makeContact("AaBB"));
+        assertEquals(4, store.getContactCount());
+    }
+}
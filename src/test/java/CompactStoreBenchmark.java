@@ -0,0 +1,110 @@
+// Memory and GC harness for CompactContactStore (not a unit test; Surefire does not pick it
+// up). Loads the same contacts into a default ContactService and into a CompactContactStore,
+// then reports the heap each keeps live after a full collection, the store's direct memory,
+// and the collections triggered by a pass of random reads over each.
+//
+// Run after `mvn -B test-compile`:
+//   java -Xmx8g -cp target/classes:target/test-classes CompactStoreBenchmark [contacts]
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+public final class CompactStoreBenchmark {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private static final String[] FIRST = {"John", "Jane", "Mark", "Mary", "Ann"};
+    private static final int READS = 5_000_000;
+
+    private CompactStoreBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "C" + Integer.toString(i, 36);
+        }
+        // Each run keeps its store in its own frame, so it is garbage before the next starts.
+        // The compact store goes first: its heap figure is small enough for leftovers to skew.
+        runCompact(ids);
+        runService(ids);
+    }
+
+    private static void runService(String[] ids) {
+        long baseline = liveHeap();
+        ContactService service = new ContactService();
+        for (int i = 0; i < ids.length; i++) {
+            // Fresh strings per contact, as a loader parsing input would produce.
+            service.addContact(new Contact(new String(ids[i]), new String(FIRST[i % FIRST.length]), "Smith",
+                phone(i), (i % 97) + " Main St"));
+        }
+        long heap = liveHeap() - baseline;
+        long[] reads = reads(ids, id -> service.getContact(id).getFirstName().length());
+        report("ContactService", ids.length, heap, 0, reads);
+    }
+
+    private static void runCompact(String[] ids) {
+        long baseline = liveHeap();
+        CompactContactStore store = new CompactContactStore(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            store.tryAddContact(ids[i], FIRST[i % FIRST.length], "Smith", phone(i), (i % 97) + " Main St");
+        }
+        long heap = liveHeap() - baseline;
+        CompactContactStore.View view = store.newView();
+        long[] reads = reads(ids, id -> store.find(id, view) ? (int) view.getPhoneNumber() : 0);
+        report("CompactContactStore", ids.length, heap, store.offHeapBytes(), reads);
+    }
+
+    private interface Read {
+        int run(String id);
+    }
+
+    // Random point reads; returns {nanos, collections, collection millis}.
+    private static long[] reads(String[] ids, Read read) {
+        long collections = collections();
+        long collectionMillis = collectionMillis();
+        long sink = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            sink += read.run(ids[(int) Long.remainderUnsigned(i * GOLDEN, ids.length)]);
+        }
+        long elapsed = System.nanoTime() - started;
+        if (sink == 42) {
+            System.out.println();
+        }
+        return new long[] {elapsed, collections() - collections, collectionMillis() - collectionMillis};
+    }
+
+    private static void report(String name, int count, long heap, long offHeap, long[] reads) {
+        System.out.printf("%-20s heap %,14d B (%,6.1f B/contact)  off-heap %,14d B  reads %,12.0f/s  gc=%d (%d ms)%n",
+            name, heap, heap / (double) count, offHeap, READS / (reads[0] / 1e9), reads[1], reads[2]);
+    }
+
+    private static long liveHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long collections() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long collectionMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static String phone(long seed) {
+        return String.format("%010d", Long.remainderUnsigned(seed * GOLDEN, 10_000_000_000L));
+    }
+}
@@ -0,0 +1,171 @@
+// Throughput harness for entity construction (not a unit test; Surefire does not pick it up).
+// Replays the per-entity validation chains as they were before the shared Validation
+// component ("legacy") against the current chains ("shared"), then measures end-to-end
+// construction rate for Contact, Task, and Appointment.
+//
+// Run after `mvn -B test-compile`:
+//   java -cp target/classes:target/test-classes ConstructionBenchmark
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+public final class ConstructionBenchmark {
+
+    private static final int RECORDS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    // Defeats dead-code elimination of the measured work.
+    private static long sink;
+
+    private ConstructionBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        String[] ids = new String[RECORDS];
+        String[] phones = new String[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            ids[i] = "ID" + i;
+            phones[i] = String.format("%010d", i);
+        }
+        Date future = new Date(System.currentTimeMillis() + 86_400_000L);
+        long futureMillis = future.getTime();
+        Clock fixedNow = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+
+        report("Contact rules, legacy", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                Legacy.contact(ids[i], "John", "Smith", phones[i], "123 Main St");
+                sink++;
+            }
+        });
+        report("Contact rules, shared", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                Validation.requireNonEmptyText(ids[i], "contactId", 10);
+                Validation.requireNonEmptyText("John", "firstName", 10);
+                Validation.requireNonEmptyText("Smith", "lastName", 10);
+                Validation.requireDigits(phones[i], "phone", 10);
+                Validation.requireNonEmptyText("123 Main St", "address", 30);
+                sink++;
+            }
+        });
+        report("Task rules, legacy", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                Legacy.task(ids[i], "Alpha Task", "Initial task description");
+                sink++;
+            }
+        });
+        report("Task rules, shared", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                Validation.requireText(ids[i], "taskId", 10);
+                Validation.requireText("Alpha Task", "name", 20);
+                Validation.requireText("Initial task description", "description", 50);
+                sink++;
+            }
+        });
+        report("Appointment rules, legacy", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                Legacy.appointment(ids[i], future, "Routine appointment");
+                sink++;
+            }
+        });
+        report("Appointment rules, shared", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                Validation.requireText(ids[i], "appointmentId", 10);
+                Validation.requireNonNull(future, "appointmentDate");
+                Validation.requireText("Routine appointment", "description", 50);
+                sink++;
+            }
+        });
+        report("new Contact", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                sink += new Contact(ids[i], "John", "Smith", phones[i], "123 Main St").hashCode();
+            }
+        });
+        report("new Task", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                sink += new Task(ids[i], "Alpha Task", "Initial task description").hashCode();
+            }
+        });
+        report("new Appointment", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                sink += new Appointment(ids[i], future, "Routine appointment").hashCode();
+            }
+        });
+        report("new Appointment, fixed clock", () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                sink += new Appointment(ids[i], futureMillis, Duration.ZERO, "Routine appointment", fixedNow).hashCode();
+            }
+        });
+
+        System.out.println("sink=" + sink);
+    }
+
+    private static void report(String label, Runnable round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            round.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double opsPerSecond = RECORDS / (best / 1_000_000_000.0);
+        System.out.printf("%-28s %,14.0f ops/s%n", label, opsPerSecond);
+    }
+
+    // Validation chains as the entity classes applied them before the shared component.
+    private static final class Legacy {
+
+        static void contact(String id, String first, String last, String phone, String address) {
+            contactField(id, "contactId", 10, false);
+            contactField(first, "firstName", 10, false);
+            contactField(last, "lastName", 10, false);
+            contactField(phone, "phone", 10, true);
+            contactField(address, "address", 30, false);
+        }
+
+        static void task(String id, String name, String description) {
+            textField(id, "taskId", 10);
+            textField(name, "name", 20);
+            textField(description, "description", 50);
+        }
+
+        static void appointment(String id, Date date, String description) {
+            textField(id, "appointmentId", 10);
+            if (date == null) {
+                throw new IllegalArgumentException("appointmentDate must not be null");
+            }
+            textField(description, "description", 50);
+        }
+
+        private static void contactField(String value, String fieldName, int maxLength, boolean strictDigits) {
+            if (value == null || value.length() == 0) {
+                throw new IllegalArgumentException(fieldName + " must not be null or empty");
+            }
+            if (strictDigits) {
+                if (!value.matches("\\d{" + maxLength + "}")) {
+                    throw new IllegalArgumentException(fieldName + " must be exactly " + maxLength + " digits");
+                }
+                return;
+            }
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException(fieldName + " must be " + maxLength + " characters or fewer");
+            }
+        }
+
+        private static void textField(String value, String fieldName, int maxLength) {
+            if (value == null) {
+                throw new IllegalArgumentException(fieldName + " must not be null");
+            }
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException(fieldName + " cannot exceed " + maxLength + " characters");
+            }
+        }
+    }
+}
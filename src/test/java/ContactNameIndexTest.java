@@ -0,0 +1,149 @@
+// Unit tests for the name index behind ContactService name search (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ContactNameIndexTest {
+
+    private static Contact contact(String id, String firstName, String lastName) {
+        return new Contact(id, firstName, lastName, "1234567890", "123 Main St");
+    }
+
+    private static List<String> ids(List<Contact> contacts) {
+        return contacts.stream().map(Contact::getContactId).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Prefix search ignores case, matches either name, and lists each contact once")
+    void prefixSearch() {
+        ContactNameIndex index = new ContactNameIndex();
+        index.add(contact("C1", "Mark", "Smith"));
+        index.add(contact("C2", "Mary", "Marsh"));
+        index.add(contact("C3", "Anne", "Mar"));
+        index.add(contact("C4", "Sam", "Sam"));
+
+        assertEquals(List.of("C3", "C1", "C2"), ids(index.withPrefix("MAR", 10)));
+        assertEquals(List.of("C3", "C1"), ids(index.withPrefix("mar", 2)));
+        assertEquals(List.of("C4"), ids(index.withPrefix("sa", 10)));
+        assertEquals(List.of(), ids(index.withPrefix("zed", 10)));
+        assertEquals(List.of(), ids(index.withPrefix("mar", 0)));
+    }
+
+    @Test
+    @DisplayName("Fuzzy search ranks the closest names first and drops weak matches")
+    void fuzzySearch() {
+        ContactNameIndex index = new ContactNameIndex();
+        index.add(contact("C1", "Jonathan", "Smith"));
+        index.add(contact("C2", "Johnathan", "Jones"));
+        index.add(contact("C3", "Nathan", "Brown"));
+        index.add(contact("C4", "Zoe", "Quill"));
+
+        List<String> matches = ids(index.similarTo("Jonathon", 10));
+        assertEquals("C1", matches.get(0));
+        assertTrue(matches.contains("C2"));
+        assertFalse(matches.contains("C4"));
+        assertEquals(List.of("C1"), ids(index.similarTo("jonathan", 1)));
+        assertEquals(List.of("C1"), ids(index.similarTo("smyth", 5)));
+        assertEquals(List.of(), ids(index.similarTo("xyzzy", 5)));
+    }
+
+    @Test
+    @DisplayName("Removal matches the exact instance and forgets names with no contacts")
+    void removalMatchesInstance() {
+        ContactNameIndex index = new ContactNameIndex();
+        Contact first = contact("C1", "Mark", "Smith");
+        index.add(first);
+
+        assertFalse(index.remove(contact("C1", "Mark", "Smith")));
+        assertTrue(index.remove(first));
+        assertFalse(index.remove(first));
+        assertEquals(List.of(), ids(index.withPrefix("m", 10)));
+        assertEquals(List.of(), ids(index.similarTo("mark", 10)));
+
+        index.add(first);
+        index.clear();
+        assertEquals(List.of(), ids(index.withPrefix("m", 10)));
+    }
+
+    @Test
+    @DisplayName("A common name's bucket keeps insertion order and removes one instance among identical contacts")
+    void commonNameBucket() {
+        ContactNameIndex index = new ContactNameIndex();
+        List<Contact> added = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            Contact next = contact("C" + i, "Smith", "Smith");
+            added.add(next);
+            index.add(next);
+        }
+        Contact twin = contact("C500", "Smith", "Smith");
+        index.add(twin);
+
+        // Removing from the middle leaves the rest in the order they were added.
+        assertTrue(index.remove(added.get(500)));
+        assertFalse(index.remove(added.get(500)));
+        List<Contact> expected = new ArrayList<>(added);
+        expected.remove(500);
+        expected.add(twin);
+        List<Contact> found = index.withPrefix("smith", 2_000);
+        assertEquals(expected.size(), found.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), found.get(i));
+        }
+
+        for (Contact contact : expected) {
+            assertTrue(index.remove(contact));
+        }
+        assertEquals(List.of(), ids(index.withPrefix("s", 10)));
+        assertEquals(List.of(), ids(index.similarTo("smith", 10)));
+    }
+
+    @Test
+    @DisplayName("Trigrams are padded so short names still produce several")
+    void trigramsArePadded() {
+        assertEquals(Set.of("  a", " an", "ann", "nn "), ContactNameIndex.trigrams("ann"));
+        assertEquals(Set.of("  x", " x "), ContactNameIndex.trigrams("x"));
+    }
+
+    @Test
+    @DisplayName("Randomized adds and removes keep prefix results equal to a brute-force model")
+    void randomizedPrefixMatchesModel() {
+        String[] names = {"Al", "Alan", "Alana", "Albert", "Bea", "Beatrix", "Bo", "Cal", "Calla", "Cy"};
+        Random random = new Random(10L);
+        ContactNameIndex index = new ContactNameIndex();
+        List<Contact> model = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            if (model.isEmpty() || random.nextInt(3) != 0) {
+                Contact c = contact("C" + i, names[random.nextInt(names.length)], names[random.nextInt(names.length)]);
+                index.add(c);
+                model.add(c);
+            } else {
+                assertTrue(index.remove(model.remove(random.nextInt(model.size()))));
+            }
+        }
+
+        for (String name : names) {
+            for (int length = 1; length <= name.length(); length++) {
+                String prefix = name.substring(0, length).toLowerCase(Locale.ROOT);
+                Set<String> expected = model.stream()
+                    .filter(c -> c.getFirstName().toLowerCase(Locale.ROOT).startsWith(prefix)
+                        || c.getLastName().toLowerCase(Locale.ROOT).startsWith(prefix))
+                    .map(Contact::getContactId)
+                    .collect(Collectors.toSet());
+                List<String> actual = ids(index.withPrefix(prefix, Integer.MAX_VALUE));
+
+                assertEquals(expected.size(), actual.size());
+                assertEquals(expected, Set.copyOf(actual));
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+// Unit tests for the phone-digit trie behind ContactService phone queries (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ContactPhoneIndexTest {
+
+    private static Contact contact(String id, String phone) {
+        return new Contact(id, "John", "Smith", phone, "123 Main St");
+    }
+
+    private static List<String> ids(List<Contact> contacts) {
+        return contacts.stream().map(Contact::getContactId).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Exact and prefix lookups return matches, prefixes in phone order")
+    void exactAndPrefixLookups() {
+        ContactPhoneIndex index = new ContactPhoneIndex();
+        index.add(contact("C", "2125550003"));
+        index.add(contact("A", "2125550001"));
+        index.add(contact("B", "2125550001"));
+        index.add(contact("D", "3105550001"));
+
+        assertEquals(List.of("A", "B"), ids(index.withPhone("2125550001")));
+        assertEquals(List.of(), ids(index.withPhone("2125550002")));
+        assertEquals(List.of("A", "B", "C"), ids(index.withPrefix("212")));
+        assertEquals(3, index.countWithPrefix("212"));
+        assertEquals(List.of("A", "B", "C", "D"), ids(index.withPrefix("")));
+        assertEquals(List.of(), ids(index.withPrefix("9")));
+        assertEquals(0, index.countWithPrefix("9"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Removal matches the exact instance and prunes empty branches")
+    void removalMatchesInstance() {
+        ContactPhoneIndex index = new ContactPhoneIndex();
+        Contact first = contact("A", "2125550001");
+        Contact sameId = contact("A", "2125550001");
+        index.add(first);
+
+        assertFalse(index.remove(sameId));
+        assertFalse(index.remove(contact("A", "9995550001")));
+        assertTrue(index.remove(first));
+        assertFalse(index.remove(first));
+        assertEquals(0, index.countWithPrefix("2"));
+        assertEquals(0, index.size());
+
+        index.add(first);
+        index.add(sameId);
+        assertTrue(index.remove(first));
+        assertSame(sameId, index.withPhone("2125550001").get(0));
+
+        index.clear();
+        assertEquals(List.of(), ids(index.withPrefix("")));
+    }
+
+    @Test
+    @DisplayName("Randomized adds and removes match a brute-force model")
+    void randomizedOperationsMatchModel() {
+        Random random = new Random(212L);
+        ContactPhoneIndex index = new ContactPhoneIndex();
+        List<Contact> model = new ArrayList<>();
+
+        for (int i = 0; i < 3_000; i++) {
+            if (model.isEmpty() || random.nextInt(3) != 0) {
+                String phone = String.format("%03d%07d", 200 + random.nextInt(5), random.nextInt(40));
+                Contact c = contact("C" + i, phone);
+                index.add(c);
+                model.add(c);
+            } else {
+                assertTrue(index.remove(model.remove(random.nextInt(model.size()))));
+            }
+        }
+        assertEquals(model.size(), index.size());
+
+        for (int trial = 0; trial < 200; trial++) {
+            String prefix = String.format("%03d%07d", 200 + random.nextInt(6), random.nextInt(40))
+                .substring(0, random.nextInt(11));
+            List<String> expected = model.stream()
+                .filter(c -> c.getPhone().startsWith(prefix))
+                .sorted(Comparator.comparing(Contact::getPhone))
+                .map(Contact::getContactId)
+                .collect(Collectors.toList());
+            List<String> actual = ids(index.withPrefix(prefix));
+
+            assertEquals(expected.size(), index.countWithPrefix(prefix));
+            assertEquals(expected.stream().sorted().toList(), actual.stream().sorted().toList());
+            assertEquals(expected.stream().map(id -> phoneOf(model, id)).toList(),
+                actual.stream().map(id -> phoneOf(model, id)).toList());
+        }
+    }
+
+    private static String phoneOf(List<Contact> model, String id) {
+        return model.stream().filter(c -> c.getContactId().equals(id)).findFirst().orElseThrow().getPhone();
+    }
+}
@@ -0,0 +1,95 @@
+// Latency harness for ContactService secondary indexes (not a unit test; Surefire does not
+// pick it up). Loads synthetic contacts, then reports per-query latency percentiles for
+// phone and name lookups next to the full scan they replace.
+//
+// Run after `mvn -B test-compile`:
+//   java -cp target/classes:target/test-classes ContactSearchBenchmark [contacts] [queries]
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+public final class ContactSearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+        "an", "bel", "cor", "da", "el", "fin", "gra", "ha", "is", "jo",
+        "ka", "li", "mar", "no", "ol", "pe", "ri", "sa", "ti", "vy"
+    };
+
+    // Sink for results so the JIT cannot drop the queries.
+    private static long sink;
+
+    private ContactSearchBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        Random random = new Random(42L);
+        ContactService service = new ContactService();
+        String[] phones = new String[size];
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            phones[i] = String.format("%03d%07d", 200 + random.nextInt(800), random.nextInt(10_000_000));
+            names[i] = name(random);
+            service.addContact(new Contact(Integer.toString(i, 36), names[i], name(random), phones[i], "123 Main St"));
+        }
+        System.out.printf("contacts=%,d queries=%,d%n", size, queries);
+
+        report("getContactsByPhone", queries, i -> sink += service.getContactsByPhone(phones[random.nextInt(size)]).size());
+        report("countContactsByPhonePrefix(3)", queries, i ->
+            sink += service.countContactsByPhonePrefix(phones[random.nextInt(size)].substring(0, 3)));
+        report("getContactsByPhonePrefix(6)", queries, i ->
+            sink += service.getContactsByPhonePrefix(phones[random.nextInt(size)].substring(0, 6)).size());
+        report("searchByName(prefix, 10)", queries, i -> {
+            String n = names[random.nextInt(size)];
+            sink += service.searchByName(n.substring(0, 1 + random.nextInt(n.length())), 10).size();
+        });
+        report("searchByNameFuzzy(typo, 10)", queries, i -> sink += service.searchByNameFuzzy(typo(names[random.nextInt(size)], random), 10).size());
+
+        // The scan the phone index replaces, sampled less often because each query is O(n).
+        Contact[] all = service.getContactsByPhonePrefix("").toArray(new Contact[0]);
+        report("full scan by phone", Math.max(1, queries / 100), i -> {
+            String phone = phones[random.nextInt(size)];
+            for (Contact c : all) {
+                if (c.getPhone().equals(phone)) {
+                    sink++;
+                }
+            }
+        });
+        System.out.println("sink=" + sink);
+    }
+
+    private static void report(String label, int queries, IntConsumer query) {
+        for (int i = 0; i < Math.min(queries, 5_000); i++) {
+            query.accept(i);
+        }
+
+        long[] nanos = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            query.accept(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-32s p50=%8.1f us  p99=%8.1f us  max=%9.1f us%n", label,
+            nanos[queries / 2] / 1e3, nanos[(int) (queries * 0.99)] / 1e3, nanos[queries - 1] / 1e3);
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        int parts = 2 + random.nextInt(2);
+        for (int i = 0; i < parts; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.length() > 10 ? name.substring(0, 10) : name.toString();
+    }
+
+    private static String typo(String name, Random random) {
+        char[] chars = name.toCharArray();
+        chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+}
@@ -2,9 +2,26 @@
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class ContactServiceTest {
 
@@ -15,6 +32,10 @@ public class ContactServiceTest {
         service = new ContactService();
     }
 
+    private static List<String> ids(List<Contact> contacts) {
+        return contacts.stream().map(Contact::getContactId).toList();
+    }
+
     private static Contact makeContact(String id) {
         return new Contact(id, "John", "Smith", "1234567890", "123 Main St");
     }
@@ -121,4 +142,1024 @@ public class ContactServiceTest {
             service.updateContact("ID1", "Janet", null, "BADPHONE", null)
         );
     }
+
+    @Test
+    @DisplayName("E1 - concurrent mode supports add, update, and delete")
+    void concurrentModeLifecycle() {
+        ContactService concurrent = ContactService.concurrent();
+        concurrent.addContact(makeContact("ID1"));
+
+        concurrent.updateContact("ID1", "Jane", null, "0987654321", null);
+
+        Contact updated = concurrent.getContact("ID1");
+        assertAll(
+            () -> assertEquals("Jane", updated.getFirstName()),
+            () -> assertEquals("Smith", updated.getLastName()),
+            () -> assertEquals("0987654321", updated.getPhone()),
+            () -> assertEquals("123 Main St", updated.getAddress())
+        );
+
+        concurrent.deleteContact("ID1");
+        assertEquals(0, concurrent.getContactCount());
+        assertThrows(IllegalArgumentException.class, () -> concurrent.deleteContact("ID1"));
+        assertThrows(IllegalArgumentException.class, () ->
+            concurrent.updateContact("ID1", "Jane", null, null, null)
+        );
+    }
+
+    @Test
+    @DisplayName("E1 - concurrent update is all-or-nothing on invalid input")
+    void concurrentUpdateRejectsWithoutPartialApply() {
+        ContactService concurrent = ContactService.concurrent();
+        Contact original = makeContact("ID1");
+        concurrent.addContact(original);
+
+        assertThrows(IllegalArgumentException.class, () ->
+            concurrent.updateContact("ID1", "Janet", null, "BADPHONE", null)
+        );
+
+        Contact after = concurrent.getContact("ID1");
+        assertSame(original, after);
+        assertEquals("John", after.getFirstName());
+    }
+
+    @Test
+    @DisplayName("E1 - concurrent update publishes a replacement, never a torn record")
+    void concurrentUpdateReplacesInstance() {
+        ContactService concurrent = ContactService.concurrent();
+        Contact original = makeContact("ID1");
+        concurrent.addContact(original);
+
+        concurrent.updateContact("ID1", "Jane", "Doe", null, null);
+
+        assertNotSame(original, concurrent.getContact("ID1"));
+        assertEquals("John", original.getFirstName());
+        assertEquals("Smith", original.getLastName());
+    }
+
+    @Test
+    @DisplayName("E1 - racing adds of one id admit exactly one winner")
+    void concurrentDuplicateAddsAdmitOneWinner() throws Exception {
+        ContactService concurrent = ContactService.concurrent();
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                Callable<Boolean> attempt = () -> {
+                    start.await();
+                    try {
+                        concurrent.addContact(makeContact("ID1"));
+                        return true;
+                    } catch (IllegalArgumentException duplicate) {
+                        return false;
+                    }
+                };
+                results.add(pool.submit(attempt));
+            }
+            start.countDown();
+
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    winners++;
+                }
+            }
+            assertEquals(1, winners);
+            assertEquals(1, concurrent.getContactCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("E1 - readers observe either the old or the new contact during updates")
+    void concurrentReadersNeverSeeTornUpdate() throws Exception {
+        ContactService concurrent = ContactService.concurrent();
+        concurrent.addContact(new Contact("ID1", "Aaaa", "Aaaa", "1111111111", "A St"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    if (i % 2 == 0) {
+                        concurrent.updateContact("ID1", "Bbbb", "Bbbb", "2222222222", "B St");
+                    } else {
+                        concurrent.updateContact("ID1", "Aaaa", "Aaaa", "1111111111", "A St");
+                    }
+                }
+            });
+            Future<Integer> reader = pool.submit(() -> {
+                int torn = 0;
+                while (!writer.isDone()) {
+                    Contact c = concurrent.getContact("ID1");
+                    char tag = c.getFirstName().charAt(0);
+                    if (c.getLastName().charAt(0) != tag
+                            || c.getAddress().charAt(0) != tag
+                            || c.getPhone().charAt(0) != (tag == 'A' ? '1' : '2')) {
+                        torn++;
+                    }
+                }
+                return torn;
+            });
+
+            writer.get(10, TimeUnit.SECONDS);
+            assertEquals(0, reader.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("E2 - tryAddContact reports OK, DUPLICATE_ID, and INVALID_INPUT")
+    void tryAddContactReportsStatus() {
+        assertEquals(OperationResult.OK, service.tryAddContact(makeContact("ID1")));
+        assertEquals(OperationResult.DUPLICATE_ID, service.tryAddContact(makeContact("ID1")));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryAddContact(null));
+        assertEquals(1, service.getContactCount());
+    }
+
+    @Test
+    @DisplayName("E2 - tryDeleteContact reports OK, NOT_FOUND, and INVALID_INPUT")
+    void tryDeleteContactReportsStatus() {
+        service.addContact(makeContact("ID1"));
+
+        assertEquals(OperationResult.OK, service.tryDeleteContact("ID1"));
+        assertEquals(OperationResult.NOT_FOUND, service.tryDeleteContact("ID1"));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryDeleteContact(null));
+        assertEquals(0, service.getContactCount());
+    }
+
+    @Test
+    @DisplayName("E2 - tryUpdateContact applies valid updates and rejects invalid ones without partial apply")
+    void tryUpdateContactReportsStatus() {
+        service.addContact(makeContact("ID1"));
+
+        assertTrue(service.tryUpdateContact("ID1", "Jane", "Doe", "0987654321", "456 Oak Ave").isOk());
+        assertEquals(OperationResult.NOT_FOUND, service.tryUpdateContact("NOPE", "Jane", null, null, null));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryUpdateContact(null, "Jane", null, null, null));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryUpdateContact("ID1", "Janet", null, "BADPHONE", null));
+
+        Contact after = service.getContact("ID1");
+        assertAll(
+            () -> assertEquals("Jane", after.getFirstName()),
+            () -> assertEquals("Doe", after.getLastName()),
+            () -> assertEquals("0987654321", after.getPhone()),
+            () -> assertEquals("456 Oak Ave", after.getAddress())
+        );
+    }
+
+    @Test
+    @DisplayName("E2 - try API behaves the same in concurrent mode")
+    void tryApiInConcurrentMode() {
+        ContactService concurrent = ContactService.concurrent();
+
+        assertEquals(OperationResult.OK, concurrent.tryAddContact(makeContact("ID1")));
+        assertEquals(OperationResult.DUPLICATE_ID, concurrent.tryAddContact(makeContact("ID1")));
+        assertEquals(OperationResult.OK, concurrent.tryUpdateContact("ID1", null, "Doe", null, null));
+        assertEquals(OperationResult.NOT_FOUND, concurrent.tryUpdateContact("NOPE", null, "Doe", null, null));
+        assertEquals(OperationResult.INVALID_INPUT, concurrent.tryUpdateContact("ID1", null, "", null, null));
+        assertEquals("Doe", concurrent.getContact("ID1").getLastName());
+        assertEquals(OperationResult.OK, concurrent.tryDeleteContact("ID1"));
+    }
+
+    @Test
+    @DisplayName("E6 - durable mode rebuilds adds, updates, and deletes from the log")
+    void durableModeReplaysLog(@TempDir Path dir) throws IOException {
+        Path logFile = dir.resolve("contacts.log");
+        try (ContactService durable = ContactService.durable(logFile, FsyncPolicy.everyOperation())) {
+            durable.addContact(makeContact("ID1"));
+            durable.addContact(makeContact("ID2"));
+            assertEquals(OperationResult.OK, durable.tryAddContact(makeContact("ID3")));
+            durable.updateContact("ID1", "Jane", null, "0987654321", null);
+            assertEquals(OperationResult.OK, durable.tryUpdateContact("ID3", null, "Doe", null, null));
+            durable.deleteContact("ID2");
+            assertEquals(OperationResult.DUPLICATE_ID, durable.tryAddContact(makeContact("ID1")));
+            assertEquals(OperationResult.NOT_FOUND, durable.tryDeleteContact("ID2"));
+            assertEquals(OperationResult.NOT_FOUND, durable.tryUpdateContact("ID2", "Jane", null, null, null));
+        }
+
+        try (ContactService reopened = ContactService.durable(logFile, FsyncPolicy.everyOperations(8))) {
+            assertEquals(2, reopened.getContactCount());
+            assertNull(reopened.getContact("ID2"));
+            assertAll(
+                () -> assertEquals("Jane", reopened.getContact("ID1").getFirstName()),
+                () -> assertEquals("0987654321", reopened.getContact("ID1").getPhone()),
+                () -> assertEquals("Doe", reopened.getContact("ID3").getLastName())
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("E6 - a log that does not match replayed state is rejected")
+    void durableModeRejectsInconsistentLog(@TempDir Path dir) throws IOException {
+        Path logFile = dir.resolve("contacts.log");
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(new BinaryCodec.Writer().writeByte(2).writeString("GHOST"));
+        }
+
+        assertThrows(IllegalStateException.class, () -> ContactService.durable(logFile, FsyncPolicy.everyOperation()));
+    }
+
+    @Test
+    @DisplayName("E7 - a snapshot plus the log tail restores the latest state")
+    void snapshotThenTailRestores(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("contacts.log");
+        Path snapFile = dir.resolve("contacts.snap");
+        try (ContactService durable = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addContact(makeContact("ID1"));
+            durable.addContact(makeContact("ID2"));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.updateContact("ID1", "Jane", null, null, null);
+            durable.deleteContact("ID2");
+            durable.addContact(makeContact("ID3"));
+        }
+
+        try (ContactService reopened = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getContactCount());
+            assertNull(reopened.getContact("ID2"));
+            assertEquals("Jane", reopened.getContact("ID1").getFirstName());
+            assertNotNull(reopened.getContact("ID3"));
+        }
+    }
+
+    @Test
+    @DisplayName("E7 - a damaged snapshot is ignored in favor of a full log replay")
+    void damagedSnapshotFallsBackToLog(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("contacts.log");
+        Path snapFile = dir.resolve("contacts.snap");
+        try (ContactService durable = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addContact(makeContact("ID1"));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.addContact(makeContact("ID2"));
+        }
+        byte[] bytes = Files.readAllBytes(snapFile);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(snapFile, bytes);
+
+        try (ContactService reopened = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getContactCount());
+        }
+    }
+
+    @Test
+    @DisplayName("E7 - each snapshot trims the log to the previous one, which still restores if the newest is damaged")
+    void snapshotsTrimLog(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("contacts.log");
+        Path snapFile = dir.resolve("contacts.snap");
+        long untrimmed;
+        try (ContactService durable = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            for (int i = 0; i < 50; i++) {
+                durable.addContact(makeContact("ID" + i));
+            }
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.updateContact("ID1", "Jane", null, null, null);
+            untrimmed = Files.size(logFile);
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.deleteContact("ID2");
+        }
+        assertTrue(Files.size(logFile) < untrimmed / 10, "log was not trimmed");
+
+        byte[] bytes = Files.readAllBytes(snapFile);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(snapFile, bytes);
+        try (ContactService reopened = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(49, reopened.getContactCount());
+            assertEquals("Jane", reopened.getContact("ID1").getFirstName());
+            assertNull(reopened.getContact("ID2"));
+        }
+
+        // With both generations gone, the truncated log cannot rebuild the store on its own.
+        Files.write(SnapshotFile.previous(snapFile), new byte[3]);
+        assertThrows(IllegalStateException.class,
+            () -> ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation()));
+    }
+
+    @Test
+    @DisplayName("E7 - snapshot() requires a configured snapshot file")
+    void snapshotWithoutFileThrows(@TempDir Path dir) throws IOException {
+        assertThrows(IllegalStateException.class, () -> service.snapshot());
+        try (ContactService durable = ContactService.durable(dir.resolve("contacts.log"), FsyncPolicy.everyOperation())) {
+            assertThrows(IllegalStateException.class, durable::snapshot);
+        }
+    }
+
+    @Test
+    @DisplayName("E8 - phone lookups follow add, update, and delete")
+    void phoneIndexFollowsWrites() {
+        service.addContact(new Contact("ID1", "John", "Smith", "2125550001", "1 Main St"));
+        service.addContact(new Contact("ID2", "Jane", "Smith", "2125550001", "2 Main St"));
+        service.addContact(new Contact("ID3", "Joan", "Smith", "3105550003", "3 Main St"));
+
+        assertEquals(List.of("ID1", "ID2"), ids(service.getContactsByPhone("2125550001")));
+        assertEquals(2, service.countContactsByPhonePrefix("212"));
+
+        service.updateContact("ID2", null, null, "2125559999", null);
+        service.updateContact("ID1", "Johnny", null, null, null);
+        assertEquals(List.of("ID1"), ids(service.getContactsByPhone("2125550001")));
+        assertEquals(List.of("ID1", "ID2"), ids(service.getContactsByPhonePrefix("212")));
+
+        service.deleteContact("ID1");
+        assertEquals(OperationResult.OK, service.tryUpdateContact("ID3", null, null, "2125550000", null));
+        assertEquals(List.of(), ids(service.getContactsByPhone("2125550001")));
+        assertEquals(List.of("ID3", "ID2"), ids(service.getContactsByPhonePrefix("212")));
+        assertEquals(0, service.countContactsByPhonePrefix("310"));
+        assertEquals(2, service.countContactsByPhonePrefix(""));
+    }
+
+    @Test
+    @DisplayName("E8 - phone queries reject malformed phones and prefixes")
+    void phoneQueriesValidateInput() {
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getContactsByPhone(null)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getContactsByPhone("212555")),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getContactsByPhonePrefix(null)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.getContactsByPhonePrefix("21-")),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.countContactsByPhonePrefix("21255500011"))
+        );
+    }
+
+    @Test
+    @DisplayName("E8 - racing concurrent writers leave the phone index matching the contacts")
+    void concurrentPhoneIndexStaysConsistent() throws Exception {
+        ContactService concurrent = ContactService.concurrent();
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                writers.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 5_000; i++) {
+                        String id = "ID" + random.nextInt(16);
+                        String phone = "21255500" + random.nextInt(10) + random.nextInt(10);
+                        switch (random.nextInt(3)) {
+                            case 0 -> concurrent.tryAddContact(new Contact(id, "John", "Smith", phone, "1 Main St"));
+                            case 1 -> concurrent.tryDeleteContact(id);
+                            default -> concurrent.tryUpdateContact(id, null, null, phone, null);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Contact> indexed = concurrent.getContactsByPhonePrefix("");
+        assertEquals(concurrent.getContactCount(), indexed.size());
+        for (Contact c : indexed) {
+            assertSame(concurrent.getContact(c.getContactId()), c);
+            assertTrue(concurrent.getContactsByPhone(c.getPhone()).contains(c));
+        }
+    }
+
+    @Test
+    @DisplayName("E8 - durable mode rebuilds the phone index from the snapshot and log")
+    void durablePhoneIndexRebuilt(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("contacts.log");
+        Path snapFile = dir.resolve("contacts.snap");
+        try (ContactService durable = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addContact(new Contact("ID1", "John", "Smith", "2125550001", "1 Main St"));
+            durable.addContact(new Contact("ID2", "Jane", "Smith", "3105550002", "2 Main St"));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.updateContact("ID2", null, null, "2125550002", null);
+            durable.addContact(new Contact("ID3", "Joan", "Smith", "2125550003", "3 Main St"));
+            durable.deleteContact("ID1");
+            assertEquals(List.of("ID2", "ID3"), ids(durable.getContactsByPhonePrefix("212")));
+        }
+
+        try (ContactService reopened = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(List.of("ID2", "ID3"), ids(reopened.getContactsByPhonePrefix("212")));
+            assertEquals(List.of(), ids(reopened.getContactsByPhone("3105550002")));
+        }
+    }
+
+    @Test
+    @DisplayName("E11 - metrics count every call by operation and outcome")
+    void metricsCountOutcomes() {
+        ServiceMetrics metrics = service.enableMetrics();
+        assertSame(metrics, service.enableMetrics());
+
+        service.addContact(makeContact("ID1"));
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(makeContact("ID1")));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryAddContact(null));
+        service.updateContact("ID1", "Jane", null, null, null);
+        assertThrows(IllegalArgumentException.class, () -> service.updateContact("ID1", "", null, null, null));
+        assertEquals(OperationResult.NOT_FOUND, service.tryUpdateContact("ID2", "Jane", null, null, null));
+        assertNotNull(service.getContact("ID1"));
+        assertNull(service.getContact("ID2"));
+        assertThrows(IllegalArgumentException.class, () -> service.getContact(null));
+        service.deleteContact("ID1");
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("ID1"));
+
+        ServiceMetrics.Snapshot snapshot = metrics.snapshot();
+        assertAll(
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.ADD, OperationResult.OK)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.ADD, OperationResult.DUPLICATE_ID)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.ADD, OperationResult.INVALID_INPUT)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.UPDATE, OperationResult.OK)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.UPDATE, OperationResult.INVALID_INPUT)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.UPDATE, OperationResult.NOT_FOUND)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.GET, OperationResult.OK)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.GET, OperationResult.NOT_FOUND)),
+            () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.GET, OperationResult.INVALID_INPUT)),
+            () -> assertEquals(2, snapshot.count(ServiceMetrics.Operation.DELETE)),
+            () -> assertTrue(snapshot.maxLatency(ServiceMetrics.Operation.ADD, OperationResult.OK) > 0)
+        );
+    }
+
+    @Test
+    @DisplayName("E11 - throwing API keeps its messages with metrics enabled")
+    void metricsKeepErrorMessages() {
+        service.enableMetrics();
+        service.addContact(makeContact("ID1"));
+
+        assertEquals("contactId must not be null",
+            assertThrows(IllegalArgumentException.class, () -> service.updateContact(null, "", null, null, null)).getMessage());
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> service.updateContact("ID1", null, null, "12", null))
+            .getMessage().startsWith("phone"));
+        assertEquals("contactId not found: ID9",
+            assertThrows(IllegalArgumentException.class, () -> service.deleteContact("ID9")).getMessage());
+        assertEquals("contactId must not be null",
+            assertThrows(IllegalArgumentException.class, () -> service.deleteContact(null)).getMessage());
+    }
+
+    @Test
+    @DisplayName("E13 - addContacts stores a whole batch and indexes it")
+    void addContactsStoresBatch() {
+        service.addContact(makeContact("ID0"));
+        service.addContacts(List.of(
+            new Contact("ID1", "Mark", "Smith", "2125550001", "1 Main St"),
+            new Contact("ID2", "Mary", "Jones", "2125550002", "2 Main St")));
+        service.addContacts(List.of());
+
+        assertEquals(3, service.getContactCount());
+        assertEquals(List.of("ID1", "ID2"), ids(service.getContactsByPhonePrefix("212")));
+        assertEquals(List.of("ID1", "ID2"), ids(service.searchByName("mar", 10)));
+        assertThrows(IllegalArgumentException.class, () -> service.addContacts(null));
+    }
+
+    @Test
+    @DisplayName("E13 - a batch with any bad record is rejected whole with every failure listed")
+    void addContactsRejectsWholeBatch() {
+        service.addContact(makeContact("ID0"));
+        List<Contact> batch = new ArrayList<>();
+        batch.add(makeContact("ID1"));
+        batch.add(makeContact("ID0"));
+        batch.add(null);
+        batch.add(makeContact("ID1"));
+        batch.add(makeContact("ID2"));
+
+        BatchRejectedException e = assertThrows(BatchRejectedException.class, () -> service.addContacts(batch));
+
+        assertEquals(List.of(1, 2, 3), e.getFailures().stream().map(BatchFailure::getIndex).toList());
+        assertEquals(List.of(OperationResult.DUPLICATE_ID, OperationResult.INVALID_INPUT, OperationResult.DUPLICATE_ID),
+            e.getFailures().stream().map(BatchFailure::getReason).toList());
+        assertEquals(1, service.getContactCount());
+        assertEquals(1, service.getContactsByPhone("1234567890").size());
+    }
+
+    @Test
+    @DisplayName("E13 - concurrent-mode batches racing single adds are all-or-nothing")
+    void concurrentAddContactsAllOrNothing() throws Exception {
+        ContactService shared = ContactService.concurrent();
+        int batches = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> single = pool.submit(() -> {
+                for (int b = 0; b < batches; b++) {
+                    shared.tryAddContact(makeContact("B" + b + "-5"));
+                }
+            });
+            Future<?> bulk = pool.submit(() -> {
+                for (int b = 0; b < batches; b++) {
+                    List<Contact> batch = new ArrayList<>();
+                    for (int i = 0; i < 10; i++) {
+                        batch.add(makeContact("B" + b + "-" + i));
+                    }
+                    try {
+                        shared.addContacts(batch);
+                    } catch (BatchRejectedException e) {
+                        assertEquals(OperationResult.DUPLICATE_ID, e.getFailures().get(0).getReason());
+                    }
+                }
+            });
+            single.get(30, TimeUnit.SECONDS);
+            bulk.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int b = 0; b < batches; b++) {
+            int stored = 0;
+            for (int i = 0; i < 10; i++) {
+                stored += shared.getContact("B" + b + "-" + i) != null ? 1 : 0;
+            }
+            assertTrue(stored == 10 || stored == 1, "batch " + b + " left " + stored + " contacts");
+        }
+        assertEquals(shared.getContactCount(), shared.getContactsByPhone("1234567890").size());
+    }
+
+    @Test
+    @DisplayName("E13 - a rejected concurrent-mode batch reports the contacts another writer updated before the rollback")
+    void concurrentAddContactsReportsKept() throws Exception {
+        ContactService shared = ContactService.concurrent();
+        int batches = 50;
+        int size = 1_000;
+        List<List<String>> kept = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // Once a batch's first contact is visible, update it, then add the batch's last id
+            // ahead of the batch, so the rollback finds the first contact replaced.
+            Future<?> racer = pool.submit(() -> {
+                for (int b = 0; b < batches; b++) {
+                    while (!shared.tryUpdateContact("B" + b + "-0", "Updated", null, null, null).isOk()) {
+                        Thread.onSpinWait();
+                    }
+                    shared.tryAddContact(makeContact("B" + b + "-" + (size - 1)));
+                }
+            });
+            Future<?> bulk = pool.submit(() -> {
+                for (int b = 0; b < batches; b++) {
+                    List<Contact> batch = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        batch.add(makeContact("B" + b + "-" + i));
+                    }
+                    try {
+                        shared.addContacts(batch);
+                        kept.add(null);
+                    } catch (BatchRejectedException e) {
+                        kept.add(e.getKeptIds());
+                    }
+                }
+            });
+            bulk.get(30, TimeUnit.SECONDS);
+            racer.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int reported = 0;
+        for (int b = 0; b < batches; b++) {
+            List<String> stored = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (shared.getContact("B" + b + "-" + i) != null) {
+                    stored.add("B" + b + "-" + i);
+                }
+            }
+            if (kept.get(b) == null) {
+                assertEquals(size, stored.size());
+            } else {
+                // The racing add, plus exactly the ids the exception reported.
+                List<String> expected = new ArrayList<>(kept.get(b));
+                expected.add("B" + b + "-" + (size - 1));
+                expected.sort(null);
+                stored.sort(null);
+                assertEquals(expected, stored, "batch " + b);
+                reported += kept.get(b).size();
+            }
+        }
+        assertTrue(reported > 0, "no batch was rolled back around an update");
+        assertEquals(shared.getContactCount(), shared.getContactsByPhone("1234567890").size());
+    }
+
+    @Test
+    @DisplayName("E13 - a durable batch is one log record and replays whole")
+    void durableAddContactsReplays(@TempDir Path dir) throws IOException {
+        Path logFile = dir.resolve("contacts.log");
+        try (ContactService durable = ContactService.durable(logFile, FsyncPolicy.everyOperation())) {
+            durable.addContacts(List.of(makeContact("ID1"), makeContact("ID2"), makeContact("ID3")));
+            assertThrows(BatchRejectedException.class, () -> durable.addContacts(List.of(makeContact("ID4"), makeContact("ID1"))));
+            // A stored id is reported alongside a staging failure, as in default mode.
+            BatchRejectedException e = assertThrows(BatchRejectedException.class,
+                () -> durable.addContacts(Arrays.asList(makeContact("ID1"), null)));
+            assertEquals(List.of(OperationResult.DUPLICATE_ID, OperationResult.INVALID_INPUT),
+                e.getFailures().stream().map(BatchFailure::getReason).toList());
+            durable.deleteContact("ID2");
+        }
+
+        try (ContactService reopened = ContactService.durable(logFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getContactCount());
+            assertNull(reopened.getContact("ID4"));
+            assertEquals(List.of("ID1", "ID3"), ids(reopened.getContactsByPhone("1234567890")));
+        }
+    }
+
+    @Test
+    @DisplayName("E9 - name search follows add, update, and delete")
+    void nameSearchFollowsWrites() {
+        service.addContact(new Contact("ID1", "Mark", "Smith", "1234567890", "1 Main St"));
+        service.addContact(new Contact("ID2", "Mary", "Jones", "1234567890", "2 Main St"));
+
+        assertEquals(List.of("ID1", "ID2"), ids(service.searchByName("mar", 10)));
+        assertEquals(List.of("ID1"), ids(service.searchByNameFuzzy("Smyth", 10)));
+
+        service.updateContact("ID1", "Albert", null, null, null);
+        assertEquals(OperationResult.OK, service.tryUpdateContact("ID2", null, "Smith", null, null));
+        assertEquals(List.of("ID2"), ids(service.searchByName("MAR", 10)));
+        assertEquals(List.of("ID1"), ids(service.searchByName("al", 10)));
+        assertEquals(List.of("ID1", "ID2"), ids(service.searchByName("smi", 10)));
+
+        service.deleteContact("ID1");
+        assertEquals(List.of("ID2"), ids(service.searchByName("smi", 10)));
+        assertEquals(List.of(), ids(service.searchByName("alb", 10)));
+    }
+
+    @Test
+    @DisplayName("E9 - name search rejects empty queries and negative limits")
+    void nameSearchValidatesInput() {
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> service.searchByName(null, 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.searchByName("", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.searchByName("ma", -1)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.searchByNameFuzzy(null, 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.searchByNameFuzzy("ma", -1))
+        );
+    }
+
+    @Test
+    @DisplayName("E9 - concurrent updates move contacts between names without losing them")
+    void concurrentNameIndexStaysConsistent() throws Exception {
+        ContactService concurrent = ContactService.concurrent();
+        String[] names = {"Ann", "Bob", "Cat", "Dan"};
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                writers.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 5_000; i++) {
+                        String id = "ID" + random.nextInt(16);
+                        String name = names[random.nextInt(names.length)];
+                        switch (random.nextInt(3)) {
+                            case 0 -> concurrent.tryAddContact(new Contact(id, name, "Smith", "1234567890", "1 Main St"));
+                            case 1 -> concurrent.tryDeleteContact(id);
+                            default -> concurrent.tryUpdateContact(id, name, null, null, null);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Contact> indexed = concurrent.searchByName("smith", Integer.MAX_VALUE);
+        assertEquals(concurrent.getContactCount(), indexed.size());
+        int byFirstName = 0;
+        for (String name : names) {
+            for (Contact c : concurrent.searchByName(name, Integer.MAX_VALUE)) {
+                assertSame(concurrent.getContact(c.getContactId()), c);
+                assertEquals(name, c.getFirstName());
+                byFirstName++;
+            }
+        }
+        assertEquals(indexed.size(), byFirstName);
+    }
+
+    @Test
+    @DisplayName("E9 - durable mode rebuilds the name index on open")
+    void durableNameIndexRebuilt(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("contacts.log");
+        try (ContactService durable = ContactService.durable(logFile, FsyncPolicy.everyOperation())) {
+            durable.addContact(new Contact("ID1", "Mark", "Smith", "1234567890", "1 Main St"));
+            durable.addContact(new Contact("ID2", "Mary", "Jones", "1234567890", "2 Main St"));
+            durable.updateContact("ID2", "Albert", null, null, null);
+        }
+
+        try (ContactService reopened = ContactService.durable(logFile, FsyncPolicy.everyOperation())) {
+            assertEquals(List.of("ID1"), ids(reopened.searchByName("mar", 10)));
+            assertEquals(List.of("ID2"), ids(reopened.searchByNameFuzzy("Albrt", 10)));
+        }
+    }
+
+    @Test
+    @DisplayName("S3 - updateContact validates every field before applying any")
+    void updateContactIsAllOrNothing() {
+        service.addContact(makeContact("ID1"));
+
+        assertThrows(IllegalArgumentException.class, () ->
+            service.updateContact("ID1", "Janet", null, "BADPHONE", null)
+        );
+        assertEquals("John", service.getContact("ID1").getFirstName());
+        assertDoesNotThrow(() -> service.close());
+    }
+
+    @Test
+    @DisplayName("E15 - forEachContact visits every stored contact without copying")
+    void forEachContactVisitsAll() {
+        service.addContacts(List.of(makeContact("ID1"), makeContact("ID2")));
+        List<String> seen = new ArrayList<>();
+
+        service.forEachContact(contact -> seen.add(contact.getContactId()));
+
+        seen.sort(null);
+        assertEquals(List.of("ID1", "ID2"), seen);
+        assertThrows(IllegalArgumentException.class, () -> service.forEachContact(null));
+    }
+
+    @Test
+    @DisplayName("E16 - versioned mode snapshots keep their contacts while writes carry on")
+    void versionedSnapshotIsolation() {
+        ContactService versioned = ContactService.versioned();
+        versioned.addContact(makeContact("ID1"));
+        versioned.addContacts(List.of(makeContact("ID2"), makeContact("ID3")));
+        Contact original = versioned.getContact("ID1");
+        StoreSnapshot<Contact> snapshot = versioned.readSnapshot();
+
+        versioned.updateContact("ID1", "Mark", null, "2125550001", null);
+        versioned.deleteContact("ID2");
+        versioned.addContact(makeContact("ID4"));
+
+        assertEquals(3, snapshot.size());
+        assertSame(original, snapshot.get("ID1"));
+        assertEquals("John", snapshot.get("ID1").getFirstName());
+        assertNotNull(snapshot.get("ID2"));
+        assertNull(snapshot.get("ID4"));
+        List<String> seen = new ArrayList<>();
+        snapshot.forEach(contact -> seen.add(contact.getContactId()));
+        seen.sort(null);
+        assertEquals(List.of("ID1", "ID2", "ID3"), seen);
+
+        StoreSnapshot<Contact> latest = versioned.readSnapshot();
+        assertEquals("Mark", latest.get("ID1").getFirstName());
+        assertEquals(List.of("ID1"), ids(versioned.getContactsByPhone("2125550001")));
+        assertTrue(latest.getVersion() > snapshot.getVersion());
+        assertThrows(IllegalStateException.class, () -> service.readSnapshot());
+        assertThrows(IllegalStateException.class, () -> ContactService.concurrent().readSnapshot());
+
+        // Stored versions are frozen, whether added singly, in a batch, or by an update.
+        assertThrows(IllegalStateException.class, () -> original.setFirstName("Eve"));
+        assertThrows(IllegalStateException.class, () -> snapshot.get("ID3").setPhone("5555555555"));
+        assertThrows(IllegalStateException.class, () -> latest.get("ID1").setAddress("1 Oak St"));
+        assertThrows(IllegalStateException.class, () -> latest.get("ID4").setLastName("Doe"));
+        assertEquals("John", snapshot.get("ID1").getFirstName());
+        // Other modes still hand out mutable records.
+        Contact unversioned = makeContact("ID9");
+        service.addContact(unversioned);
+        unversioned.setFirstName("Eve");
+        assertEquals("Eve", service.getContact("ID9").getFirstName());
+    }
+
+    @Test
+    @DisplayName("E16 - readers iterate snapshots without locks while a writer updates every contact")
+    void versionedReadersDuringUpdates() throws Exception {
+        ContactService versioned = ContactService.versioned();
+        List<Contact> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(new Contact("ID" + i, "Round", "Zero", "1234567890", "123 Main St"));
+        }
+        versioned.addContacts(batch);
+
+        Thread writer = new Thread(() -> {
+            for (int round = 1; round <= 50; round++) {
+                for (int i = 0; i < 200; i++) {
+                    // Both names change together, so a torn update would show a mismatch.
+                    versioned.updateContact("ID" + i, "Round" + round, "Zero" + round, null, null);
+                }
+            }
+        });
+        writer.start();
+        try {
+            while (writer.isAlive()) {
+                for (Contact contact : versioned.readSnapshot()) {
+                    assertEquals(contact.getFirstName().substring(5), contact.getLastName().substring(4));
+                }
+            }
+        } finally {
+            writer.join();
+        }
+        assertEquals("Round50", versioned.readSnapshot().get("ID199").getFirstName());
+    }
+
+    @Test
+    @DisplayName("E17 - a conditional update applies only at the expected version and reports a conflict otherwise")
+    void optimisticUpdate() {
+        service.addContact(makeContact("ID1"));
+        assertEquals(0, service.getContact("ID1").getVersion());
+
+        assertTrue(service.updateContact("ID1", 0, "Jane", null, null, null));
+        assertEquals(1, service.getContact("ID1").getVersion());
+        assertFalse(service.updateContact("ID1", 0, "Mary", null, "5555555555", null));
+        assertEquals(OperationResult.VERSION_CONFLICT, service.tryUpdateContact("ID1", 7, "Mary", null, null, null));
+        assertEquals("Jane", service.getContact("ID1").getFirstName());
+        assertEquals(List.of("ID1"), ids(service.getContactsByPhone("1234567890")));
+
+        service.updateContact("ID1", null, "Jones", null, null);
+        assertEquals(2, service.getContact("ID1").getVersion());
+        assertEquals(OperationResult.OK, service.tryUpdateContact("ID1", 2, null, null, "5555555555", null));
+        assertEquals(List.of("ID1"), ids(service.getContactsByPhone("5555555555")));
+
+        assertEquals(OperationResult.INVALID_INPUT, service.tryUpdateContact("ID1", -1, "Mary", null, null, null));
+        assertEquals(OperationResult.NOT_FOUND, service.tryUpdateContact("ID9", 0, "Mary", null, null, null));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> service.updateContact("ID1", -1, "Mary", null, null, null));
+        assertTrue(e.getMessage().contains("expectedVersion"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateContact("ID1", 3, "NameTooLong1", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.updateContact(null, 3, "Mary", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.updateContact("ID9", 0, "Mary", null, null, null));
+        assertEquals(3, service.getContact("ID1").getVersion());
+    }
+
+    @Test
+    @DisplayName("E17 - racing read-modify-write cycles lose no update and leave the indexes consistent")
+    void concurrentOptimisticUpdates() throws Exception {
+        ContactService shared = ContactService.concurrent();
+        shared.addContact(new Contact("ID1", "N0", "Smith", "1234567890", "123 Main St"));
+        int threads = 4;
+        int increments = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> conflicts = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                conflicts.add(pool.submit(() -> {
+                    int lost = 0;
+                    for (int i = 0; i < increments; i++) {
+                        while (true) {
+                            Contact read = shared.getContact("ID1");
+                            int next = Integer.parseInt(read.getFirstName().substring(1)) + 1;
+                            String phone = String.format("%010d", next % 3);
+                            if (shared.updateContact("ID1", read.getVersion(), "N" + next, null, phone, null)) {
+                                break;
+                            }
+                            lost++;
+                        }
+                    }
+                    return lost;
+                }));
+            }
+            for (Future<Integer> future : conflicts) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int total = threads * increments;
+        Contact stored = shared.getContact("ID1");
+        assertEquals("N" + total, stored.getFirstName());
+        assertEquals(total, stored.getVersion());
+        assertEquals(List.of(stored), shared.getContactsByPhonePrefix(""));
+        assertEquals(List.of(stored), shared.searchByName("N", 10));
+    }
+
+    @Test
+    @DisplayName("E17 - versions survive a restart from the log and from a snapshot")
+    void durableVersionsRestored(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("contacts.log");
+        Path snapFile = dir.resolve("contacts.snap");
+        try (ContactService durable = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addContact(makeContact("ID1"));
+            durable.addContact(makeContact("ID2"));
+            durable.updateContact("ID1", "Jane", null, null, null);
+            assertTrue(durable.updateContact("ID1", 1, "Mary", null, null, null));
+            assertFalse(durable.updateContact("ID1", 1, "Ann", null, null, null));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.updateContact("ID2", "Jane", null, null, null);
+        }
+
+        try (ContactService reopened = ContactService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getContact("ID1").getVersion());
+            assertEquals("Mary", reopened.getContact("ID1").getFirstName());
+            assertEquals(1, reopened.getContact("ID2").getVersion());
+            assertEquals(OperationResult.VERSION_CONFLICT, reopened.tryUpdateContact("ID2", 0, "Ann", null, null, null));
+        }
+        Files.delete(snapFile);
+        try (ContactService replayed = ContactService.durable(logFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, replayed.getContact("ID1").getVersion());
+        }
+    }
+
+    private static List<StorageEngine> engines(Path dir) {
+        return List.of(StorageEngine.hashMap(), StorageEngine.concurrentMap(), StorageEngine.openAddressing(),
+            StorageEngine.disk(dir), StorageEngine.disk(dir).withIdFilter(0.01));
+    }
+
+    @Test
+    @DisplayName("E20 - every storage engine runs the same add, update, search, bulk add, and delete lifecycle")
+    void storageEngines(@TempDir Path dir) throws IOException {
+        for (StorageEngine engine : engines(dir)) {
+            try (ContactService store = ContactService.using(engine)) {
+                store.addContact(makeContact("ID1"));
+                assertEquals(OperationResult.DUPLICATE_ID, store.tryAddContact(makeContact("ID1")), engine.toString());
+                store.addContacts(List.of(makeContact("ID2"), new Contact("ID3", "Mary", "Jones", "5555555555", "9 Elm St")));
+                assertThrows(BatchRejectedException.class, () -> store.addContacts(List.of(makeContact("ID2"))));
+
+                store.updateContact("ID1", "Jane", null, "1112223333", null);
+                assertFalse(store.updateContact("ID1", 0, "Ann", null, null, null));
+                assertTrue(store.updateContact("ID1", 1, null, "Doe", null, "1 Oak St"));
+                Contact updated = store.getContact("ID1");
+                assertEquals("Jane", updated.getFirstName(), engine.toString());
+                assertEquals("Doe", updated.getLastName());
+                assertEquals("1112223333", updated.getPhone());
+                assertEquals("1 Oak St", updated.getAddress());
+                assertEquals(2, updated.getVersion());
+                assertEquals(List.of("ID1"), ids(store.getContactsByPhone("1112223333")));
+                assertEquals(List.of("ID3"), ids(store.searchByName("jon", 5)));
+
+                store.deleteContact("ID2");
+                assertNull(store.getContact("ID2"));
+                assertEquals(OperationResult.NOT_FOUND, store.tryDeleteContact("ID2"));
+                // The old entries left the indexes, even where the engine handed back copies.
+                assertTrue(store.getContactsByPhone("1234567890").isEmpty(), engine.toString());
+                assertTrue(store.searchByName("john", 5).isEmpty(), engine.toString());
+                List<String> visited = new ArrayList<>();
+                store.forEachContact(contact -> visited.add(contact.getContactId()));
+                visited.sort(null);
+                assertEquals(List.of("ID1", "ID3"), visited);
+                assertEquals(2, store.getContactCount());
+            }
+        }
+        // Closing the service deletes the disk engine's scratch file.
+        assertFalse(Files.exists(dir.resolve("contacts.store")));
+        assertThrows(IllegalArgumentException.class, () -> ContactService.using(null));
+        assertThrows(IllegalArgumentException.class, () -> StorageEngine.disk(null));
+        assertEquals("open addressing", StorageEngine.openAddressing().toString());
+    }
+
+    @Test
+    @DisplayName("E22 - the bounded engine keeps the most recently used contacts in memory and faults the rest back in")
+    void boundedEngine(@TempDir Path dir) throws IOException {
+        try (ContactService store = ContactService.using(StorageEngine.bounded(dir, 100))) {
+            for (int i = 0; i < 1_000; i++) {
+                store.addContact(new Contact("ID" + i, "John", "Smith", "1234567890", "Unit " + i));
+            }
+            CacheStats loaded = store.cacheStats();
+            assertEquals(100, loaded.getResident());
+            assertEquals(900, loaded.getSpilled());
+            assertEquals(900, loaded.getEvictions());
+            // Adding reads nothing back, so no hits are counted before the first lookup.
+            assertEquals(0, loaded.getHits());
+
+            // ID0 was evicted first; reading and updating it bring it back intact.
+            assertEquals("Unit 0", store.getContact("ID0").getAddress());
+            assertEquals(1, store.cacheStats().getMisses());
+            store.updateContact("ID1", "Jane", null, null, null);
+            for (int i = 0; i < 1_000; i++) {
+                Contact contact = store.getContact("ID" + i);
+                assertEquals("Unit " + i, contact.getAddress());
+                assertEquals(i == 1 ? "Jane" : "John", contact.getFirstName());
+            }
+            // A hot set inside the budget is served from memory.
+            for (int pass = 0; pass < 10; pass++) {
+                for (int i = 950; i < 1_000; i++) {
+                    store.getContact("ID" + i);
+                }
+            }
+            CacheStats stats = store.cacheStats();
+            assertEquals(100, stats.getResident());
+            assertTrue(stats.getHits() >= 500, stats.toString());
+
+            store.deleteContact("ID1");
+            assertEquals(999, store.getContactCount());
+            int[] visited = {0};
+            store.forEachContact(contact -> visited[0]++);
+            assertEquals(999, visited[0]);
+            assertThrows(IllegalStateException.class, () -> store.getContactsByPhone("1234567890"));
+            assertThrows(IllegalStateException.class, () -> store.searchByName("jo", 5));
+            assertTrue(Files.exists(dir.resolve("contacts.spill")));
+        }
+        assertFalse(Files.exists(dir.resolve("contacts.spill")));
+        assertThrows(IllegalStateException.class, () -> new ContactService().cacheStats());
+        assertThrows(IllegalArgumentException.class, () -> StorageEngine.bounded(dir, 0));
+        assertThrows(IllegalArgumentException.class, () -> StorageEngine.bounded(null, 10));
+    }
+
+    @Test
+    @DisplayName("E23 - an id filter answers gets, deletes, and adds of unknown ids without a store lookup")
+    void idFilter(@TempDir Path dir) throws IOException {
+        try (ContactService store = ContactService.using(StorageEngine.disk(dir).withIdFilter(0.01))) {
+            for (int i = 0; i < 100; i++) {
+                store.addContact(makeContact("ID" + i));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertNull(store.getContact("MISSING" + i));
+                assertEquals(OperationResult.NOT_FOUND, store.tryDeleteContact("MISSING" + i));
+            }
+            assertEquals(OperationResult.DUPLICATE_ID, store.tryAddContact(makeContact("ID7")));
+            store.updateContact("ID7", "Jane", null, null, null);
+            assertEquals("Jane", store.getContact("ID7").getFirstName());
+
+            FilterStats stats = store.filterStats();
+            // Every add of a new id and nearly every unknown-id lookup skipped the store.
+            assertTrue(stats.getDefiniteMisses() >= 290, stats.toString());
+            assertEquals(300, stats.getDefiniteMisses() + stats.getFalsePositives());
+            assertTrue(stats.falsePositiveRate() < 0.05, stats.toString());
+        }
+        assertThrows(IllegalStateException.class, () -> new ContactService().filterStats());
+        assertThrows(IllegalStateException.class, () -> StorageEngine.concurrentMap().withIdFilter(0.01));
+        assertThrows(IllegalArgumentException.class, () -> StorageEngine.hashMap().withIdFilter(0));
+        assertThrows(IllegalArgumentException.class, () -> StorageEngine.hashMap().withIdFilter(1));
+        assertEquals("hash map with id filter", StorageEngine.hashMap().withIdFilter(0.01).toString());
+    }
 }
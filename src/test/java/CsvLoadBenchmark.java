@@ -0,0 +1,87 @@
+// Scaling harness for CsvLoader (not a unit test; Surefire does not pick it up).
+// Writes a contact CSV once, then loads it on fork-join pools of 1, 2, 4, ... threads up to
+// the machine's processor count. Each pool size is run twice: parse-only, with a sink that
+// discards the records, which is the part that spreads across threads, and into a fresh
+// ContactService, whose single-threaded inserts bound the end-to-end rate.
+//
+// Run after `mvn -B test-compile`:
+//   java -Xmx4g -cp target/classes:target/test-classes CsvLoadBenchmark [rows]
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public final class CsvLoadBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    private CsvLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path dir = Files.createTempDirectory("csv-bench");
+        Path csv = dir.resolve("contacts.csv");
+        Path errors = dir.resolve("errors.csv");
+        try {
+            write(csv, rows);
+            System.out.printf("%,d rows, %,d bytes, %d processors%n", rows, Files.size(csv),
+                Runtime.getRuntime().availableProcessors());
+            for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    double parse = best(rows, () -> load(csv, errors, records -> { }, pool));
+                    double service = best(rows, () -> load(csv, errors, new ContactService()::addContacts, pool));
+                    System.out.printf("%2d threads   parse only %,12.0f rows/s   into service %,12.0f rows/s%n",
+                        threads, parse, service);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(errors);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private interface Run {
+        void run() throws IOException;
+    }
+
+    // Best rows per second over several rounds, after one warmup round.
+    private static double best(int rows, Run run) throws IOException {
+        run.run();
+        long bestNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            run.run();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        return rows / (bestNanos / 1e9);
+    }
+
+    private static void load(Path csv, Path errors, Consumer<List<Contact>> sink, ForkJoinPool pool) throws IOException {
+        CsvLoader.load(csv, errors, "Contact", CsvLoader.CONTACT_HEADER, CsvLoader::contact, sink, pool,
+            CsvLoader.CHUNK_BYTES);
+    }
+
+    private static void write(Path csv, int rows) throws IOException {
+        String[] first = {"John", "Jane", "Mark", "Mary", "Ann"};
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write(CsvLoader.CONTACT_HEADER);
+            out.newLine();
+            for (int i = 0; i < rows; i++) {
+                String phone = String.format("%010d", (i * 2_654_435_761L) % 10_000_000_000L);
+                out.write("C" + Integer.toString(i, 36) + "," + first[i % first.length] + ",Smith," + phone
+                    + ",\"123 Main St, Apt " + (i % 50) + "\"");
+                out.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+// Unit tests for the parallel CSV loader (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CsvLoaderTest {
+
+    private static Path write(Path dir, String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> errors(Path errorFile) throws IOException {
+        return Files.readAllLines(errorFile, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("E14 - contacts load with header, quoting, CRLF, and blank lines; bad rows go to the error file")
+    void loadContactsCollectsRejects(@TempDir Path dir) throws IOException {
+        Path csv = write(dir, "contacts.csv",
+            CsvLoader.CONTACT_HEADER + "\r\n"
+                + "C1,John,Smith,1234567890,\"12 Main St, Apt 4\"\r\n"
+                + "C2,Jane,Doe,12,1 Elm St\r\n"
+                + "\r\n"
+                + "C3,Mark,Lee,5555555555\n"
+                + "C1,Ann,Ray,2222222222,9 Oak St\n"
+                + "C4,\"Al \"\"Bo\"\"\",Ray,3333333333,9 Oak St");
+        Path errorFile = dir.resolve("contacts.errors.csv");
+        ContactService service = new ContactService();
+
+        CsvLoader.Result result = CsvLoader.loadContacts(csv, service, errorFile);
+
+        assertEquals(5, result.getRows());
+        assertEquals(2, result.getLoaded());
+        assertEquals(3, result.getRejected());
+        assertEquals("5 rows, 2 loaded, 3 rejected", result.toString());
+        assertEquals("12 Main St, Apt 4", service.getContact("C1").getAddress());
+        assertEquals("John", service.getContact("C1").getFirstName());
+        assertEquals("Al \"Bo\"", service.getContact("C4").getFirstName());
+        assertEquals(List.of(
+            "line,reason,row",
+            "3,\"phone must be exactly 10 digits\",\"C2,Jane,Doe,12,1 Elm St\"",
+            "5,\"expected 5 fields, found 4\",\"C3,Mark,Lee,5555555555\"",
+            "6,\"duplicate id: C1\",\"C1,Ann,Ray,2222222222,9 Oak St\""), errors(errorFile));
+    }
+
+    @Test
+    @DisplayName("E14 - tasks load into the service and a clean file leaves only the error header")
+    void loadTasks(@TempDir Path dir) throws IOException {
+        Path csv = write(dir, "tasks.csv", "T1,Alpha Task,First\nT2,Beta Task,Second\n");
+        Path errorFile = dir.resolve("tasks.errors.csv");
+        TaskService service = new TaskService();
+
+        CsvLoader.Result result = CsvLoader.loadTasks(csv, service, errorFile);
+
+        assertEquals(2, result.getLoaded());
+        assertEquals(0, result.getRejected());
+        assertEquals("Beta Task", service.getTask("T2").getName());
+        assertEquals(List.of("line,reason,row"), errors(errorFile));
+    }
+
+    @Test
+    @DisplayName("E14 - appointment rows parse ISO-8601 instants and durations, rejecting malformed ones")
+    void loadAppointments(@TempDir Path dir) throws IOException {
+        Path csv = write(dir, "appointments.csv",
+            CsvLoader.APPOINTMENT_HEADER + "\n"
+                + "A1,2099-01-15T09:30:00Z,PT30M,Checkup\n"
+                + "A2,2099-01-16T09:30:00Z,,Follow up\n"
+                + "A3,tomorrow,PT30M,Bad date\n"
+                + "A4,2099-01-17T09:30:00Z,30 minutes,Bad duration\n"
+                + "A5,2000-01-01T00:00:00Z,PT30M,Past\n");
+        Path errorFile = dir.resolve("appointments.errors.csv");
+        AppointmentService service = new AppointmentService();
+
+        CsvLoader.Result result = CsvLoader.loadAppointments(csv, service, errorFile);
+
+        assertEquals(2, result.getLoaded());
+        assertEquals(Duration.ofMinutes(30), service.getAppointment("A1").getDuration());
+        assertEquals(Duration.ZERO, service.getAppointment("A2").getDuration());
+        List<String> errors = errors(errorFile);
+        assertEquals(4, errors.size());
+        assertTrue(errors.get(1).startsWith("4,\"appointmentDate must be an ISO-8601 instant: tomorrow\""));
+        assertTrue(errors.get(2).startsWith("5,\"duration must be an ISO-8601 duration: 30 minutes\""));
+        assertTrue(errors.get(3).startsWith("6,"));
+    }
+
+    @Test
+    @DisplayName("E14 - small chunks on a multi-thread pool load every row and number rejects across chunks")
+    void chunkedLoadMatchesWholeFile(@TempDir Path dir) throws IOException {
+        StringBuilder content = new StringBuilder(CsvLoader.TASK_HEADER).append('\n');
+        int rows = 25_000;
+        for (int i = 0; i < rows; i++) {
+            // Every 1000th row repeats an earlier id, so the service rejects it from inside a batch.
+            String id = i % 1000 == 999 ? "T" + (i - 1) : "T" + i;
+            content.append(id).append(",Task ").append(i % 100).append(",Item ").append(i).append('\n');
+        }
+        Path csv = write(dir, "tasks.csv", content.toString());
+        Path errorFile = dir.resolve("tasks.errors.csv");
+        TaskService service = new TaskService();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CsvLoader.Result result = CsvLoader.load(csv, errorFile, "Task", CsvLoader.TASK_HEADER,
+                CsvLoader::task, service::addTasks, pool, 4096);
+
+            assertEquals(rows, result.getRows());
+            assertEquals(rows - 25, result.getLoaded());
+            assertEquals(25, result.getRejected());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals("Item 24998", service.getTask("T24998").getDescription());
+        List<String> errors = errors(errorFile);
+        assertEquals(26, errors.size());
+        assertEquals("1001,\"duplicate id: T998\",\"T998,Task 99,Item 999\"", errors.get(1));
+        assertEquals("25001,\"duplicate id: T24998\",\"T24998,Task 99,Item 24999\"", errors.get(25));
+    }
+
+    @Test
+    @DisplayName("E14 - split ends every chunk on a line break, including lines longer than the scan buffer")
+    void splitOnLineBreaks(@TempDir Path dir) throws IOException {
+        String longLine = "x".repeat(20_000);
+        Path file = write(dir, "lines.csv", "a\n" + longLine + "\nb\nc");
+        try (FileChannel channel = FileChannel.open(file)) {
+            List<long[]> ranges = CsvLoader.split(channel, 4);
+
+            List<String> chunks = new ArrayList<>();
+            String text = Files.readString(file);
+            long expectedStart = 0;
+            for (long[] range : ranges) {
+                assertEquals(expectedStart, range[0]);
+                chunks.add(text.substring((int) range[0], (int) range[1]));
+                expectedStart = range[1];
+            }
+            assertEquals(List.of("a\n" + longLine + "\n", "b\nc"), chunks);
+        }
+        try (FileChannel empty = FileChannel.open(write(dir, "empty.csv", ""))) {
+            assertEquals(List.of(), CsvLoader.split(empty, 4));
+        }
+    }
+
+    @Test
+    @DisplayName("E14 - field splitting handles quotes and reports malformed rows")
+    void fieldSplitting() {
+        assertArrayEquals(new String[] {"a", "", "c,d"}, CsvLoader.fields("a,,\"c,d\"", 0, 8, 3));
+        assertArrayEquals(new String[] {"", ""}, CsvLoader.fields(",", 0, 1, 2));
+        assertArrayEquals(new String[] {"x", "y"}, CsvLoader.fields("x,y\nz,w", 0, 3, 2));
+
+        assertEquals("expected 3 fields, found more",
+            assertThrows(IllegalArgumentException.class, () -> CsvLoader.fields("a,b,c,d", 0, 7, 3)).getMessage());
+        assertEquals("expected 3 fields, found 2",
+            assertThrows(IllegalArgumentException.class, () -> CsvLoader.fields("a,b", 0, 3, 3)).getMessage());
+        assertEquals("unterminated quoted field 2",
+            assertThrows(IllegalArgumentException.class, () -> CsvLoader.fields("a,\"b", 0, 4, 2)).getMessage());
+        assertEquals("text after closing quote in field 1",
+            assertThrows(IllegalArgumentException.class, () -> CsvLoader.fields("\"a\"b,c", 0, 6, 2)).getMessage());
+        assertEquals("\"say \"\"hi\"\"\"", CsvLoader.quote("say \"hi\""));
+    }
+
+    @Test
+    @DisplayName("E14 - a missing input file fails the load with the IO error")
+    void missingFileThrows(@TempDir Path dir) {
+        assertThrows(NoSuchFileException.class, () ->
+            CsvLoader.loadTasks(dir.resolve("missing.csv"), new TaskService(), dir.resolve("errors.csv")));
+    }
+}
@@ -0,0 +1,124 @@
+// Unit tests for the disk storage engine map (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DiskMapTest {
+
+    private static final StorageEngine.Codec<String> STRINGS = new StorageEngine.Codec<>() {
+        @Override
+        public void encode(String value, BinaryCodec.Writer out) {
+            out.writeString(value);
+        }
+
+        @Override
+        public String decode(BinaryCodec.Reader in) {
+            return in.readString();
+        }
+    };
+
+    @Test
+    @DisplayName("E20 - random puts and removes match a HashMap, and compaction keeps the file near the live size")
+    void matchesHashMap(@TempDir Path dir) throws IOException {
+        Map<String, String> model = new HashMap<>();
+        Random random = new Random(5);
+        try (DiskMap<String> map = DiskMap.open(dir.resolve("values.store"), STRINGS)) {
+            for (int i = 0; i < 40_000; i++) {
+                String key = "K" + random.nextInt(2_000);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        assertEquals(model.remove(key), map.remove(key));
+                        break;
+                    case 1:
+                        assertEquals(model.putIfAbsent(key, "first " + i), map.putIfAbsent(key, "first " + i));
+                        break;
+                    default:
+                        String value = i + " " + "x".repeat(200);
+                        assertEquals(model.put(key, value), map.put(key, value));
+                }
+            }
+
+            assertEquals(model.size(), map.size());
+            assertEquals(model, new HashMap<>(map));
+            assertTrue(map.containsKey(model.keySet().iterator().next()));
+            assertNull(map.get("missing"));
+            // Roughly 6 MB was appended; compaction keeps at most about twice the live bytes.
+            assertTrue(map.fileBytes() < 2 * 2_000 * 220 + (1 << 20), "file bytes " + map.fileBytes());
+            assertEquals(map.fileBytes(), Files.size(dir.resolve("values.store")));
+
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertEquals(0, Files.size(dir.resolve("values.store")));
+        }
+        assertFalse(Files.exists(dir.resolve("values.store")));
+    }
+
+    @Test
+    @DisplayName("E20 - a value read and held comes back as the same instance; a written or collected one is decoded from the file")
+    void identityCache(@TempDir Path dir) throws IOException {
+        try (DiskMap<String> map = DiskMap.open(dir.resolve("values.store"), STRINGS)) {
+            String written = new String("held value");
+            map.put("H", written);
+            // Writes do not fill the cache, so the first get decodes an equal copy.
+            String held = map.get("H");
+            assertNotSame(written, held);
+            assertEquals(written, held);
+            assertSame(held, map.get("H"));
+            assertSame(held, map.computeIfPresent("H", (key, value) -> value));
+            // Putting the held instance back keeps it cached; putting another drops the copy.
+            map.put("H", held);
+            assertSame(held, map.get("H"));
+            map.put("H", new String("held value"));
+            assertNotSame(held, map.get("H"));
+            assertNull(map.computeIfPresent("missing", (key, value) -> value));
+
+            String dropped = new String("dropped value");
+            WeakReference<String> probe = new WeakReference<>(dropped);
+            map.put("D", dropped);
+            dropped = null;
+            for (int i = 0; i < 50 && probe.get() != null; i++) {
+                System.gc();
+            }
+            assertNull(probe.get(), "value was not collected");
+            assertEquals("dropped value", map.get("D"));
+
+            assertEquals("replaced", map.computeIfPresent("H", (key, value) -> "replaced"));
+            assertEquals("replaced", map.get("H"));
+            assertNull(map.computeIfPresent("H", (key, value) -> null));
+            assertFalse(map.containsKey("H"));
+            assertThrows(NullPointerException.class, () -> map.put("N", null));
+
+            // discard removes without decoding and only reports whether the key was stored.
+            long before = map.fileBytes();
+            assertTrue(map.discard("D"));
+            assertFalse(map.discard("D"));
+            assertFalse(map.containsKey("D"));
+            assertNull(map.get("D"));
+            assertEquals(before, map.fileBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("E20 - opening truncates a leftover file, and an unusable path is an UncheckedIOException")
+    void scratchFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("values.store");
+        Files.writeString(file, "left over from an earlier run");
+        try (DiskMap<String> map = DiskMap.open(file, STRINGS)) {
+            assertEquals(0, Files.size(file));
+            assertTrue(map.isEmpty());
+        }
+        assertThrows(UncheckedIOException.class, () -> DiskMap.open(dir.resolve("missing").resolve("values.store"), STRINGS));
+    }
+}
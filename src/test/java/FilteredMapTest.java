@@ -0,0 +1,106 @@
+// Unit tests for the id filter in front of a storage engine map (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FilteredMapTest {
+
+    @Test
+    @DisplayName("E23 - random puts, putIfAbsents, gets, removes, and discards across rebuilds match a HashMap")
+    void matchesHashMap() {
+        Map<String, Integer> model = new HashMap<>();
+        FilteredMap<Integer> map = new FilteredMap<>(new HashMap<>(), 0.01);
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            String key = "K" + random.nextInt(8_000);
+            switch (random.nextInt(5)) {
+                case 0:
+                    if (random.nextBoolean()) {
+                        assertEquals(model.remove(key), map.remove(key));
+                    } else {
+                        assertEquals(model.remove(key) != null, map.discard(key));
+                    }
+                    break;
+                case 1:
+                    assertEquals(model.putIfAbsent(key, i), map.putIfAbsent(key, i));
+                    break;
+                case 2:
+                    assertEquals(model.get(key), map.get(key));
+                    assertEquals(model.containsKey(key), map.containsKey(key));
+                    break;
+                default:
+                    assertEquals(model.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(model, new HashMap<>(map));
+        assertEquals(model.keySet(), map.keySet());
+        // Grown past 1024 ids, and deletes outnumbered the stored ids more than once.
+        assertTrue(map.stats().getRebuilds() >= 3, map.stats().toString());
+
+        map.putAll(Map.of("P1", 1, "P2", 2));
+        assertEquals(2, map.get("P2"));
+        assertNull(map.computeIfPresent("P1", (key, value) -> null));
+        assertEquals(3, map.computeIfPresent("P2", (key, value) -> 3));
+        assertNull(map.computeIfPresent("P1", (key, value) -> value));
+        assertNull(map.get(7));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("K1"));
+        assertThrows(NullPointerException.class, () -> map.put("N", null));
+    }
+
+    @Test
+    @DisplayName("E23 - absent ids are mostly answered by the filter, at about the configured false-positive rate")
+    void screensAbsentIds() {
+        FilteredMap<String> map = new FilteredMap<>(new HashMap<>(), 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            map.put("ID" + i, "stored");
+        }
+        for (int i = 0; i < 50_000; i++) {
+            assertEquals("stored", map.get("ID" + i));
+            assertNull(map.get("MISSING" + i));
+        }
+
+        FilterStats stats = map.stats();
+        assertEquals(50_000, stats.getDefiniteMisses() + stats.getFalsePositives());
+        // Sized for twice the stored ids, so the rate is well under the 1% target.
+        assertTrue(stats.falsePositiveRate() < 0.01, stats.toString());
+        assertTrue(stats.expectedFalsePositiveRate() < 0.01, stats.toString());
+        assertEquals(0.0, new FilterStats(0, 0, 0, 0).falsePositiveRate());
+    }
+
+    @Test
+    @DisplayName("E23 - deleted ids stop passing the filter once it rebuilds")
+    void rebuildDropsDeletedIds() {
+        FilteredMap<String> map = new FilteredMap<>(new HashMap<>(), 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            map.put("OLD" + i, "stored");
+        }
+        for (int i = 0; i < 1_000; i++) {
+            map.remove("OLD" + i);
+        }
+        // Deleted but not yet rebuilt: every old id still passes and costs a store lookup.
+        assertNull(map.get("OLD0"));
+        assertEquals(1, map.stats().getFalsePositives());
+
+        map.put("NEW", "stored");
+        for (int i = 0; i < 30; i++) {
+            map.put("CHURN" + i, "stored");
+            map.remove("CHURN" + i);
+        }
+        assertEquals(1, map.stats().getRebuilds());
+        long passed = map.stats().getFalsePositives();
+        for (int i = 0; i < 1_000; i++) {
+            assertNull(map.get("OLD" + i));
+        }
+        assertTrue(map.stats().getFalsePositives() - passed < 20, map.stats().toString());
+        assertEquals("stored", map.get("NEW"));
+    }
+}
@@ -0,0 +1,96 @@
+// Unit tests for the open-addressing storage engine map (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class OpenAddressingMapTest {
+
+    @Test
+    @DisplayName("E20 - random puts, putIfAbsents, and removes across resizes match a HashMap")
+    void matchesHashMap() {
+        OpenAddressingMap<Integer> map = new OpenAddressingMap<>();
+        Map<String, Integer> model = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            String key = "K" + random.nextInt(10_000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(model.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(model.putIfAbsent(key, i), map.putIfAbsent(key, i));
+                    break;
+                default:
+                    assertEquals(model.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(model.size(), map.size());
+        assertEquals(model, new HashMap<>(map));
+        Map<String, Integer> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+        assertEquals(model, visited);
+        assertFalse(map.containsKey("missing"));
+        assertFalse(map.containsKey(7));
+        assertNull(map.get(7));
+        assertNull(map.remove(7));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("K1"));
+    }
+
+    @Test
+    @DisplayName("E20 - keys with equal hash codes stay distinct through removes that shift the probe run")
+    void collidingKeys() {
+        // "Aa" and "BB" share a hashCode, so these keys all probe from one position.
+        List<String> keys = new ArrayList<>(List.of("AaAa", "AaBB", "BBAa", "BBBB"));
+        OpenAddressingMap<String> map = new OpenAddressingMap<>(4);
+        for (String key : keys) {
+            map.put(key, key.toLowerCase());
+        }
+        assertEquals("aabb", map.remove("AaBB"));
+        keys.remove("AaBB");
+
+        for (String key : keys) {
+            assertEquals(key.toLowerCase(), map.get(key));
+        }
+        assertNull(map.get("AaBB"));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    @DisplayName("E20 - iterators are read-only and fail fast, and null values and bad sizes are refused")
+    void misuse() {
+        OpenAddressingMap<Integer> map = new OpenAddressingMap<>();
+        map.put("A", 1);
+        map.put("B", 2);
+
+        Iterator<Map.Entry<String, Integer>> entries = map.entrySet().iterator();
+        Map.Entry<String, Integer> first = entries.next();
+        assertThrows(UnsupportedOperationException.class, () -> first.setValue(3));
+        assertThrows(UnsupportedOperationException.class, entries::remove);
+        map.put("C", 3);
+        assertThrows(ConcurrentModificationException.class, entries::next);
+        assertThrows(ConcurrentModificationException.class, () -> map.forEach((key, value) -> map.remove("A")));
+
+        Iterator<String> keys = new OpenAddressingMap<Integer>().keySet().iterator();
+        assertFalse(keys.hasNext());
+        assertThrows(NoSuchElementException.class, keys::next);
+        assertThrows(NullPointerException.class, () -> map.put("D", null));
+        assertThrows(NullPointerException.class, () -> map.putIfAbsent("D", null));
+        assertThrows(IllegalArgumentException.class, () -> new OpenAddressingMap<Integer>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new OpenAddressingMap<Integer>(Integer.MAX_VALUE));
+    }
+}
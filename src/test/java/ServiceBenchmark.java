@@ -0,0 +1,244 @@
+// Service benchmark suite (not a unit test; Surefire does not pick it up). Measures entity
+// construction and get/update/add-then-delete on each service at several store sizes, plus
+// multi-threaded reads, writes, a 90/10 read/write mix, and version-checked read-modify-write
+// cycles on ContactService.concurrent().
+// Contact operations also run once with enableMetrics() on, to show the instrumentation cost,
+// and on ContactService.versioned(), to show what copy-on-write versions cost writers.
+// Task operations run on each storage engine: the default HashMap, open addressing, disk, and
+// bounded to a tenth of the store. task.get draws ids uniformly, so on the bounded engine
+// most are misses; task.getHot draws from a twentieth of the ids, which fits its budget.
+// task.getMissing looks up ids that are not stored, and also runs on the disk engine with
+// an id filter in front of it.
+// Results go to a JMH-format JSON file; compare two runs with BenchmarkCompare.
+//
+// Run with the bench profile, which forks a JVM with a large heap:
+//   mvn -B -Pbench verify
+//   mvn -B -Pbench verify -Dbench.sizes=10000 -Dbench.threads=1,2 -Dbench.iterations=3
+// Or directly after `mvn -B test-compile`:
+//   java -Xmx12g -cp target/classes:target/test-classes ServiceBenchmark [results.json]
+//
+// System properties: bench.sizes (default 10000,1000000,10000000), bench.threads (1,4),
+// bench.warmup (3), bench.iterations (5), bench.iterationMillis (1000).
+// TaskService and AppointmentService are single-threaded by contract, so they run at one thread.
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class ServiceBenchmark {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    // Far enough ahead that no appointment is in the past while the suite runs.
+    private static final long FUTURE_MS = System.currentTimeMillis() + 365L * 86_400_000L;
+    private static final Clock NOW = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+
+    private ServiceBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path output = Path.of(args.length > 0 ? args[0] : "target/benchmarks/results.json");
+        int[] sizes = intList(System.getProperty("bench.sizes", "10000,1000000,10000000"));
+        int[] threadCounts = intList(System.getProperty("bench.threads", "1,4"));
+        BenchmarkHarness harness = new BenchmarkHarness(
+            Integer.getInteger("bench.warmup", 3),
+            Integer.getInteger("bench.iterations", 5),
+            Long.getLong("bench.iterationMillis", 1000L));
+
+        for (int threads : threadCounts) {
+            construction(harness, threads);
+        }
+        Path scratch = Files.createTempDirectory("service-benchmark");
+        for (int size : sizes) {
+            contacts(harness, size, threadCounts);
+            tasks(harness, size, scratch);
+            appointments(harness, size);
+        }
+        Files.deleteIfExists(scratch);
+
+        harness.write(output);
+        System.out.println("results: " + output.toAbsolutePath() + " (sink=" + harness.sink() + ")");
+    }
+
+    private static void construction(BenchmarkHarness harness, int threads) throws Exception {
+        Map<String, String> none = Map.of();
+        harness.measure("construct.contact", none, threads, (t, i) ->
+            new Contact(id('C', t, i), "John", "Smith", phone(i), "123 Main St").hashCode());
+        harness.measure("construct.task", none, threads, (t, i) ->
+            new Task(id('T', t, i), "Alpha Task", "Initial task description").hashCode());
+        harness.measure("construct.appointment", none, threads, (t, i) ->
+            new Appointment(id('A', t, i), FUTURE_MS, Duration.ZERO, "Routine appointment", NOW).hashCode());
+    }
+
+    private static void contacts(BenchmarkHarness harness, int size, int[] threadCounts) throws Exception {
+        String[] ids = preloadedIds('C', size);
+        String[] phones = new String[size];
+        for (int i = 0; i < size; i++) {
+            phones[i] = phone(i * GOLDEN);
+        }
+
+        ContactService single = new ContactService();
+        preloadContacts(single, ids, phones);
+        Map<String, String> defaultMode = BenchmarkHarness.params("size", Integer.toString(size), "mode", "default");
+        contactOperations(harness, single, ids, phones, defaultMode, 1);
+        // Same store and operations with instrumentation on, to keep its overhead visible.
+        single.enableMetrics();
+        Map<String, String> metricsMode = BenchmarkHarness.params("size", Integer.toString(size), "mode", "metrics");
+        contactOperations(harness, single, ids, phones, metricsMode, 1);
+        single = null;
+
+        ContactService concurrent = ContactService.concurrent();
+        preloadContacts(concurrent, ids, phones);
+        Map<String, String> concurrentMode = BenchmarkHarness.params("size", Integer.toString(size), "mode", "concurrent");
+        for (int threads : threadCounts) {
+            contactOperations(harness, concurrent, ids, phones, concurrentMode, threads);
+            harness.measure("contact.mixed90read", concurrentMode, threads, (t, i) -> {
+                String id = ids[pick(t, i, ids.length)];
+                if (i % 10 == 0) {
+                    concurrent.updateContact(id, (i & 16) == 0 ? "Jane" : "John", null, null, null);
+                    return 1;
+                }
+                return concurrent.getContact(id).getPhone().length();
+            });
+            // Optimistic read-modify-write: read the version, update against it, retry on conflict.
+            harness.measure("contact.conditionalUpdate", concurrentMode, threads, (t, i) -> {
+                String id = ids[pick(t, i, ids.length)];
+                int attempts = 1;
+                while (!concurrent.updateContact(id, concurrent.getContact(id).getVersion(),
+                    (i & 1) == 0 ? "Jane" : "John", null, null, null)) {
+                    attempts++;
+                }
+                return attempts;
+            });
+        }
+
+        ContactService versioned = ContactService.versioned();
+        preloadContacts(versioned, ids, phones);
+        Map<String, String> versionedMode = BenchmarkHarness.params("size", Integer.toString(size), "mode", "versioned");
+        for (int threads : threadCounts) {
+            contactOperations(harness, versioned, ids, phones, versionedMode, threads);
+            harness.measure("contact.snapshotGet", versionedMode, threads, (t, i) ->
+                versioned.readSnapshot().get(ids[pick(t, i, ids.length)]).getPhone().length());
+        }
+    }
+
+    private static void contactOperations(BenchmarkHarness harness, ContactService service, String[] ids,
+                                          String[] phones, Map<String, String> params, int threads) throws Exception {
+        harness.measure("contact.get", params, threads, (t, i) ->
+            service.getContact(ids[pick(t, i, ids.length)]).getPhone().length());
+        harness.measure("contact.getByPhone", params, threads, (t, i) ->
+            service.getContactsByPhone(phones[pick(t, i, phones.length)]).size());
+        harness.measure("contact.update", params, threads, (t, i) -> {
+            service.updateContact(ids[pick(t, i, ids.length)], (i & 1) == 0 ? "Jane" : "John", null, null, null);
+            return 1;
+        });
+        harness.measure("contact.addThenDelete", params, threads, (t, i) -> {
+            String id = id('N', t, i);
+            service.addContact(new Contact(id, "John", "Smith", phone(i), "123 Main St"));
+            service.deleteContact(id);
+            return 1;
+        });
+    }
+
+    private static void tasks(BenchmarkHarness harness, int size, Path scratch) throws Exception {
+        String[] ids = preloadedIds('T', size);
+        // "default" is the HashMap a TaskService is built on, so earlier results stay comparable.
+        Map<String, StorageEngine> engines = new LinkedHashMap<>();
+        engines.put("default", StorageEngine.hashMap());
+        engines.put("openAddressing", StorageEngine.openAddressing());
+        engines.put("disk", StorageEngine.disk(scratch));
+        engines.put("bounded", StorageEngine.bounded(scratch, Math.max(1, size / 10)));
+        engines.put("diskFiltered", StorageEngine.disk(scratch).withIdFilter(0.01));
+        String[] missing = preloadedIds('M', size);
+        int hot = Math.max(1, size / 20);
+
+        for (Map.Entry<String, StorageEngine> engine : engines.entrySet()) {
+            try (TaskService service = TaskService.using(engine.getValue())) {
+                for (String id : ids) {
+                    service.addTask(new Task(id, "Alpha Task", "Initial task description"));
+                }
+                Map<String, String> params = BenchmarkHarness.params("size", Integer.toString(size), "mode", engine.getKey());
+
+                harness.measure("task.get", params, 1, (t, i) ->
+                    service.getTask(ids[pick(t, i, ids.length)]).getName().length());
+                harness.measure("task.getHot", params, 1, (t, i) ->
+                    service.getTask(ids[pick(t, i, hot)]).getName().length());
+                harness.measure("task.getMissing", params, 1, (t, i) ->
+                    service.getTask(missing[pick(t, i, missing.length)]) == null ? 1 : 0);
+                harness.measure("task.update", params, 1, (t, i) -> {
+                    service.updateTask(ids[pick(t, i, ids.length)], (i & 1) == 0 ? "Beta Task" : "Alpha Task", null);
+                    return 1;
+                });
+                harness.measure("task.addThenDelete", params, 1, (t, i) -> {
+                    String id = id('N', t, i);
+                    service.addTask(new Task(id, "Alpha Task", "Initial task description"));
+                    service.deleteTask(id);
+                    return 1;
+                });
+            }
+        }
+    }
+
+    private static void appointments(BenchmarkHarness harness, int size) throws Exception {
+        String[] ids = preloadedIds('A', size);
+        AppointmentService service = new AppointmentService();
+        for (int i = 0; i < size; i++) {
+            service.addAppointment(new Appointment(ids[i], FUTURE_MS + i * 60_000L, Duration.ZERO, "Routine appointment", NOW));
+        }
+        Map<String, String> params = BenchmarkHarness.params("size", Integer.toString(size), "mode", "default");
+
+        harness.measure("appointment.get", params, 1, (t, i) ->
+            service.getAppointment(ids[pick(t, i, ids.length)]).getDescription().length());
+        harness.measure("appointment.addThenDelete", params, 1, (t, i) -> {
+            String id = id('N', t, i);
+            service.addAppointment(new Appointment(id, FUTURE_MS + pick(t, i, size) * 60_000L, Duration.ZERO,
+                "Routine appointment", NOW));
+            service.deleteAppointment(id);
+            return 1;
+        });
+    }
+
+    private static void preloadContacts(ContactService service, String[] ids, String[] phones) {
+        for (int i = 0; i < ids.length; i++) {
+            service.addContact(new Contact(ids[i], (i & 1) == 0 ? "John" : "Jane", "Smith", phones[i], "123 Main St"));
+        }
+    }
+
+    private static String[] preloadedIds(char prefix, int size) {
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = prefix + Integer.toString(i, 36);
+        }
+        return ids;
+    }
+
+    // Ids for benchmark-created records never collide with preloaded ones or other threads.
+    private static String id(char prefix, int thread, long index) {
+        return prefix + Integer.toString(thread, 36) + Long.toString(index, 36);
+    }
+
+    // Scrambled but deterministic key choice, so threads do not walk the store in lockstep.
+    private static int pick(int thread, long index, int size) {
+        return (int) Long.remainderUnsigned((index + ((long) thread << 40)) * GOLDEN, size);
+    }
+
+    private static String phone(long seed) {
+        char[] digits = new char[10];
+        long value = Long.remainderUnsigned(seed, 10_000_000_000L);
+        for (int i = 9; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    private static int[] intList(String values) {
+        return Arrays.stream(values.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,141 @@
+// Unit tests for the JFR events emitted by the services and Validation (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ServiceEventsTest {
+
+    private static List<RecordedEvent> events(Recording recording, Path dir, String name) throws IOException {
+        Path file = dir.resolve("recording.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals(name))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("E12 - operations over the threshold carry entity, operation, outcome, and id length")
+    void operationEventsCarryFields(@TempDir Path dir) throws IOException {
+        ContactService service = new ContactService();
+        try (Recording recording = new Recording()) {
+            recording.enable(ServiceEvents.OPERATION).withThreshold(Duration.ZERO);
+            recording.start();
+            service.addContact(new Contact("ID1", "John", "Smith", "1234567890", "123 Main St"));
+            service.tryDeleteContact("MISSING");
+            recording.stop();
+
+            List<RecordedEvent> events = events(recording, dir, ServiceEvents.OPERATION);
+            assertEquals(2, events.size());
+            RecordedEvent add = events.get(0);
+            assertEquals("Contact", add.getString("entity"));
+            assertEquals("ADD", add.getString("operation"));
+            assertEquals("OK", add.getString("outcome"));
+            assertEquals(3, add.getInt("idLength"));
+            assertEquals("DELETE", events.get(1).getString("operation"));
+            assertEquals("NOT_FOUND", events.get(1).getString("outcome"));
+            assertEquals(7, events.get(1).getInt("idLength"));
+        }
+    }
+
+    @Test
+    @DisplayName("E12 - operations under the threshold are dropped; the default threshold is 1 ms")
+    void thresholdDropsFastOperations(@TempDir Path dir) throws IOException {
+        String threshold = EventType.getEventType(ServiceEvents.Operation.class).getSettingDescriptors().stream()
+            .filter(setting -> setting.getName().equals("threshold"))
+            .findFirst().orElseThrow().getDefaultValue();
+        assertEquals("1 ms", threshold);
+
+        TaskService service = new TaskService();
+        try (Recording recording = new Recording()) {
+            recording.enable(ServiceEvents.OPERATION).withThreshold(Duration.ofSeconds(10));
+            recording.start();
+            service.addTask(new Task("T1", "Alpha Task", "Initial task description"));
+            service.getTask("T1");
+            recording.stop();
+
+            assertEquals(List.of(), events(recording, dir, ServiceEvents.OPERATION));
+        }
+    }
+
+    @Test
+    @DisplayName("E12 - validation rejections record the field, message, and calling entity")
+    void validationFailuresAreRecorded(@TempDir Path dir) throws IOException {
+        try (Recording recording = new Recording()) {
+            recording.enable(ServiceEvents.VALIDATION_FAILURE);
+            recording.start();
+            assertThrows(IllegalArgumentException.class, () -> new Contact("ID1", "John", "Smith", "12", "123 Main St"));
+            recording.stop();
+
+            List<RecordedEvent> events = events(recording, dir, ServiceEvents.VALIDATION_FAILURE);
+            assertEquals(1, events.size());
+            assertEquals("phone", events.get(0).getString("field"));
+            assertEquals("phone must be exactly 10 digits", events.get(0).getString("message"));
+            assertTrue(events.get(0).getStackTrace().getFrames().stream()
+                .anyMatch(frame -> frame.getMethod().getType().getName().equals("Contact")));
+        }
+    }
+
+    @Test
+    @DisplayName("E12 - appointment clock and past-date rejections are recorded too")
+    void appointmentDateRejectionsAreRecorded(@TempDir Path dir) throws IOException {
+        try (Recording recording = new Recording()) {
+            recording.enable(ServiceEvents.VALIDATION_FAILURE);
+            recording.start();
+            assertThrows(IllegalArgumentException.class, () -> new Appointment("A1", 0L, Duration.ZERO, "Past", null));
+            assertThrows(IllegalArgumentException.class, () -> new Appointment("A1", new Date(0L), "Past"));
+            recording.stop();
+
+            List<RecordedEvent> events = events(recording, dir, ServiceEvents.VALIDATION_FAILURE);
+            assertEquals(List.of("clock", "appointmentDate"),
+                events.stream().map(event -> event.getString("field")).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("E12 - durable open records a load with its source and record count")
+    void durableOpenRecordsLoad(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("appointments.log");
+        long future = System.currentTimeMillis() + 86_400_000L;
+        try (AppointmentService durable = AppointmentService.durable(logFile, FsyncPolicy.everyOperation())) {
+            durable.addAppointment(new Appointment("A1", new Date(future), "First"));
+            durable.addAppointment(new Appointment("A2", new Date(future + 60_000), "Second"));
+        }
+
+        try (Recording recording = new Recording()) {
+            recording.enable(ServiceEvents.LOAD);
+            recording.start();
+            AppointmentService.durable(logFile, FsyncPolicy.everyOperation()).close();
+            recording.stop();
+
+            List<RecordedEvent> events = events(recording, dir, ServiceEvents.LOAD);
+            assertEquals(1, events.size());
+            assertEquals("Appointment", events.get(0).getString("entity"));
+            assertEquals("log", events.get(0).getString("source"));
+            assertEquals(2, events.get(0).getLong("records"));
+        }
+    }
+
+    @Test
+    @DisplayName("E12 - helpers are safe to call with no recording active")
+    void helpersWithoutRecording() {
+        assertDoesNotThrow(() -> {
+            ServiceEvents.operation(ServiceEvents.begin(), "Task", ServiceMetrics.Operation.GET, OperationResult.OK, null);
+            ServiceEvents.load(ServiceEvents.beginLoad(), "Task", "log", 0);
+            ServiceEvents.validationFailure("name", "name must not be null");
+        });
+    }
+}
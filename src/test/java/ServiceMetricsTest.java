@@ -0,0 +1,126 @@
+// Unit tests for the per-operation counters and latency histograms behind enableMetrics() (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ServiceMetricsTest {
+
+    private static final ServiceMetrics.Operation ADD = ServiceMetrics.Operation.ADD;
+
+    @Test
+    @DisplayName("Buckets are contiguous, ordered, and no wider than 1/16 of their values")
+    void bucketBoundaries() {
+        assertEquals(0, ServiceMetrics.bucketOf(0));
+        assertEquals(31, ServiceMetrics.bucketOf(31));
+        assertEquals(32, ServiceMetrics.bucketOf(32));
+        assertEquals(0, ServiceMetrics.bucketOf(-5));
+        assertEquals(ServiceMetrics.BUCKETS - 1, ServiceMetrics.bucketOf(Long.MAX_VALUE));
+
+        long low = 0;
+        for (int bucket = 0; bucket < ServiceMetrics.BUCKETS; bucket++) {
+            long high = ServiceMetrics.highestInBucket(bucket);
+            assertEquals(bucket, ServiceMetrics.bucketOf(low), "lowest value of bucket " + bucket);
+            assertEquals(bucket, ServiceMetrics.bucketOf(high), "highest value of bucket " + bucket);
+            assertTrue(high - low <= Math.max(0, low / 16), "bucket " + bucket + " too wide");
+            low = high + 1;
+        }
+        assertEquals(ServiceMetrics.MAX_TRACKED_NANOS, ServiceMetrics.highestInBucket(ServiceMetrics.BUCKETS - 1));
+    }
+
+    @Test
+    @DisplayName("Percentiles match exact ranks within the bucket resolution")
+    void percentilesMatchExactRanks() {
+        ServiceMetrics metrics = new ServiceMetrics();
+        Random random = new Random(13);
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long latency = (long) Math.exp(random.nextDouble() * 20);
+            latencies.add(latency);
+            metrics.record(ADD, OperationResult.OK, latency);
+        }
+        latencies.sort(null);
+
+        ServiceMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(10_000, snapshot.count(ADD, OperationResult.OK));
+        for (double percentile : new double[] {1, 50, 90, 99, 99.9, 100}) {
+            long exact = latencies.get((int) Math.ceil(percentile / 100 * latencies.size()) - 1);
+            long reported = snapshot.latencyAtPercentile(ADD, OperationResult.OK, percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 16 + 1,
+                "p" + percentile + ": exact " + exact + ", reported " + reported);
+        }
+        assertEquals(snapshot.latencyAtPercentile(ADD, OperationResult.OK, 100), snapshot.maxLatency(ADD, OperationResult.OK));
+    }
+
+    @Test
+    @DisplayName("Counts are kept per operation and outcome; unused pairs read as zero")
+    void countsPerOperationAndOutcome() {
+        ServiceMetrics metrics = new ServiceMetrics();
+        metrics.record(ADD, OperationResult.OK, 100);
+        metrics.record(ADD, OperationResult.OK, 200);
+        metrics.record(ADD, OperationResult.DUPLICATE_ID, 50);
+        metrics.record(ServiceMetrics.Operation.DELETE, OperationResult.NOT_FOUND, 10);
+
+        ServiceMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.count(ADD, OperationResult.OK));
+        assertEquals(1, snapshot.count(ADD, OperationResult.DUPLICATE_ID));
+        assertEquals(3, snapshot.count(ADD));
+        assertEquals(1, snapshot.count(ServiceMetrics.Operation.DELETE, OperationResult.NOT_FOUND));
+        assertEquals(0, snapshot.count(ServiceMetrics.Operation.UPDATE));
+        assertEquals(0, snapshot.latencyAtPercentile(ServiceMetrics.Operation.UPDATE, OperationResult.OK, 99));
+
+        // Later records do not change an earlier snapshot.
+        metrics.record(ADD, OperationResult.OK, 100);
+        assertEquals(2, snapshot.count(ADD, OperationResult.OK));
+        assertEquals(3, metrics.snapshot().count(ADD, OperationResult.OK));
+    }
+
+    @Test
+    @DisplayName("Concurrent writers lose no counts")
+    void concurrentRecordingIsExact() throws InterruptedException {
+        ServiceMetrics metrics = new ServiceMetrics();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    metrics.record(ADD, OperationResult.OK, i);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(200_000, metrics.snapshot().count(ADD, OperationResult.OK));
+    }
+
+    @Test
+    @DisplayName("Snapshot rejects out-of-range percentiles and null keys")
+    void snapshotValidatesInput() {
+        ServiceMetrics.Snapshot snapshot = new ServiceMetrics().snapshot();
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> snapshot.latencyAtPercentile(ADD, OperationResult.OK, -1)),
+            () -> assertThrows(IllegalArgumentException.class, () -> snapshot.latencyAtPercentile(ADD, OperationResult.OK, 100.5)),
+            () -> assertThrows(IllegalArgumentException.class, () -> snapshot.latencyAtPercentile(ADD, OperationResult.OK, Double.NaN)),
+            () -> assertThrows(IllegalArgumentException.class, () -> snapshot.count(null, OperationResult.OK)),
+            () -> assertThrows(IllegalArgumentException.class, () -> snapshot.count(ADD, null))
+        );
+    }
+
+    @Test
+    @DisplayName("Null metrics make start and record no-ops")
+    void disabledHelpersDoNothing() {
+        assertEquals(0, ServiceMetrics.start(null));
+        assertDoesNotThrow(() -> ServiceMetrics.record(null, ADD, OperationResult.OK, 0));
+
+        ServiceMetrics metrics = new ServiceMetrics();
+        ServiceMetrics.record(metrics, ADD, OperationResult.OK, ServiceMetrics.start(metrics));
+        assertEquals(1, metrics.snapshot().count(ADD, OperationResult.OK));
+    }
+}
@@ -0,0 +1,109 @@
+// Write scaling of ShardedServices (not a unit test; Surefire does not pick it up). A
+// write-heavy task workload, four updates to one add, runs at several client counts on:
+//
+//   concurrent   TaskService.using(StorageEngine.concurrentMap()), called directly; writers
+//                are serialized on the one map, so adding clients adds contention, not speed.
+//   sharded-N    ShardedServices with N shards, each applying its writes on its own thread.
+//                Write throughput should grow with N until shards outnumber the cores.
+//
+// Every client waits for each call before making the next, so the client count is the
+// number of calls in flight. Results go to a JMH-format JSON file; compare two runs with
+// BenchmarkCompare. Run on a machine with at least as many cores as the largest shard count
+// to see the scaling; on fewer cores the shard threads take turns on the same ones.
+//
+// Run after `mvn -B test-compile`:
+//   java -Xmx4g -cp target/classes:target/test-classes ShardedBenchmark [results.json]
+//
+// System properties: bench.clients (default 1,8,32), bench.shards (1,4,32), bench.size (100000),
+// bench.warmup (2), bench.iterations (3), bench.iterationMillis (1000).
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public final class ShardedBenchmark {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private ShardedBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path output = Path.of(args.length > 0 ? args[0] : "target/benchmarks/sharded.json");
+        int[] clientCounts = intList(System.getProperty("bench.clients", "1,8,32"));
+        int[] shardCounts = intList(System.getProperty("bench.shards", "1,4,32"));
+        int size = Integer.getInteger("bench.size", 100_000);
+        BenchmarkHarness harness = new BenchmarkHarness(
+            Integer.getInteger("bench.warmup", 2),
+            Integer.getInteger("bench.iterations", 3),
+            Long.getLong("bench.iterationMillis", 1000L));
+
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = "T" + Integer.toString(i, 36);
+        }
+
+        runConcurrent(harness, ids, clientCounts);
+
+        for (int shards : shardCounts) {
+            try (ShardedServices sharded = ShardedServices.of(shards)) {
+                List<CompletableFuture<OperationResult>> preload = new ArrayList<>(size);
+                for (String id : ids) {
+                    preload.add(sharded.addTask(new Task(id, "Alpha Task", "Initial task description")));
+                }
+                preload.forEach(CompletableFuture::join);
+
+                Map<String, String> shardedMode = BenchmarkHarness.params("size", Integer.toString(size),
+                    "mode", "sharded-" + shards);
+                for (int clients : clientCounts) {
+                    harness.measure("task.writeHeavy", shardedMode, clients, (t, i) -> {
+                        if (i % 5 == 0) {
+                            return sharded.addTask(new Task(newId(t, i), "Alpha Task", "Added task")).join().ordinal();
+                        }
+                        return sharded.updateTask(ids[pick(t, i, size)], (i & 8) == 0 ? "Beta Task" : "Alpha Task", null)
+                            .join().ordinal();
+                    });
+                }
+            }
+        }
+
+        harness.write(output);
+        System.out.println("results: " + output.toAbsolutePath() + " (sink=" + harness.sink() + ")");
+    }
+
+    // Kept in its own method so the direct service is collectable before the sharded runs.
+    private static void runConcurrent(BenchmarkHarness harness, String[] ids, int[] clientCounts) throws Exception {
+        int size = ids.length;
+        TaskService concurrent = TaskService.using(StorageEngine.concurrentMap());
+        for (String id : ids) {
+            concurrent.addTask(new Task(id, "Alpha Task", "Initial task description"));
+        }
+        Map<String, String> concurrentMode = BenchmarkHarness.params("size", Integer.toString(size), "mode", "concurrent");
+        for (int clients : clientCounts) {
+            harness.measure("task.writeHeavy", concurrentMode, clients, (t, i) -> {
+                if (i % 5 == 0) {
+                    return concurrent.tryAddTask(new Task(newId(t, i), "Alpha Task", "Added task")).ordinal();
+                }
+                return concurrent.tryUpdateTask(ids[pick(t, i, size)], (i & 8) == 0 ? "Beta Task" : "Alpha Task", null)
+                    .ordinal();
+            });
+        }
+    }
+
+    // Fresh id per call; warmup and measured iterations keep counting, so ids never repeat.
+    private static String newId(int thread, long index) {
+        return "N" + Integer.toString(thread, 36) + "-" + Long.toString(index, 36);
+    }
+
+    // Scrambled but deterministic key choice, so clients do not walk the store in lockstep.
+    private static int pick(int thread, long index, int size) {
+        return (int) Long.remainderUnsigned((index + ((long) thread << 40)) * GOLDEN, size);
+    }
+
+    private static int[] intList(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
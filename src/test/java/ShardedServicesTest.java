@@ -0,0 +1,191 @@
+// Unit tests for the hash-sharded service facade (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ShardedServicesTest {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    private static Contact makeContact(String id) {
+        return new Contact(id, "John", "Smith", "1234567890", "123 Main St");
+    }
+
+    @Test
+    @DisplayName("E21 - point operations on every service route to one shard and report the try API's outcomes")
+    void pointOperations() {
+        try (ShardedServices sharded = ShardedServices.of(4)) {
+            assertEquals(4, sharded.shardCount());
+
+            assertEquals(OperationResult.OK, sharded.addContact(makeContact("C1")).join());
+            assertEquals(OperationResult.DUPLICATE_ID, sharded.addContact(makeContact("C1")).join());
+            assertEquals(OperationResult.OK, sharded.updateContact("C1", "Jane", null, null, null).join());
+            assertEquals(OperationResult.VERSION_CONFLICT, sharded.updateContact("C1", 0, "Mary", null, null, null).join());
+            assertEquals(OperationResult.OK, sharded.updateContact("C1", 1, "Mary", null, null, null).join());
+            assertEquals("Mary", sharded.getContact("C1").join().getFirstName());
+            assertEquals(OperationResult.OK, sharded.deleteContact("C1").join());
+            assertNull(sharded.getContact("C1").join());
+            assertEquals(OperationResult.INVALID_INPUT, sharded.addContact(null).join());
+            assertEquals(OperationResult.INVALID_INPUT, sharded.deleteContact(null).join());
+
+            assertEquals(OperationResult.OK, sharded.addTask(new Task("T1", "Alpha", "First task")).join());
+            assertEquals(OperationResult.OK, sharded.updateTask("T1", "Beta", null).join());
+            assertEquals(OperationResult.OK, sharded.updateTask("T1", 1, null, "Changed").join());
+            assertEquals(OperationResult.VERSION_CONFLICT, sharded.updateTask("T1", 1, "Gamma", null).join());
+            assertEquals("Beta", sharded.getTask("T1").join().getName());
+            assertEquals(OperationResult.OK, sharded.deleteTask("T1").join());
+            assertEquals(OperationResult.NOT_FOUND, sharded.deleteTask("T1").join());
+            assertEquals(OperationResult.INVALID_INPUT, sharded.addTask(null).join());
+
+            Appointment appointment = new Appointment("A1", new Date(System.currentTimeMillis() + DAY_MS), "Checkup");
+            assertEquals(OperationResult.OK, sharded.addAppointment(appointment).join());
+            assertSame(appointment, sharded.getAppointment("A1").join());
+            assertEquals(OperationResult.OK, sharded.deleteAppointment("A1").join());
+            assertEquals(OperationResult.NOT_FOUND, sharded.deleteAppointment("A1").join());
+            assertEquals(OperationResult.INVALID_INPUT, sharded.addAppointment(null).join());
+        }
+    }
+
+    @Test
+    @DisplayName("E21 - ids spread over every shard, and counts, passes, and queries fan out and merge")
+    void fanOut() {
+        int records = 2_000;
+        try (ShardedServices sharded = ShardedServices.of(8)) {
+            int[] perShard = new int[sharded.shardCount()];
+            List<CompletableFuture<OperationResult>> adds = new ArrayList<>();
+            long start = System.currentTimeMillis() + DAY_MS;
+            for (int i = 0; i < records; i++) {
+                String suffix = Integer.toString(i, 36);
+                perShard[sharded.shardOf("T" + suffix)]++;
+                adds.add(sharded.addContact(makeContact("C" + suffix)));
+                adds.add(sharded.addTask(new Task("T" + suffix, "Task " + suffix, "Sharded task")));
+                adds.add(sharded.addAppointment(new Appointment("A" + suffix, start + i * 60_000L, Duration.ZERO, "Visit",
+                    Clock.systemUTC())));
+            }
+            for (CompletableFuture<OperationResult> add : adds) {
+                assertEquals(OperationResult.OK, add.join());
+            }
+            // Within a factor of two of an even split.
+            for (int count : perShard) {
+                assertTrue(count > records / 16 && count < records / 4, "shard holds " + count);
+            }
+
+            assertEquals(records, sharded.getContactCount().join());
+            assertEquals(records, sharded.getTaskCount().join());
+            assertEquals(records, sharded.getAppointmentCount().join());
+
+            Set<String> visited = ConcurrentHashMap.newKeySet();
+            sharded.forEachTask(task -> assertTrue(visited.add(task.getTaskId()))).join();
+            assertEquals(records, visited.size());
+            AtomicInteger contacts = new AtomicInteger();
+            sharded.forEachContact(contact -> contacts.incrementAndGet()).join();
+            AtomicInteger appointments = new AtomicInteger();
+            sharded.forEachAppointment(appointment -> appointments.incrementAndGet()).join();
+            assertEquals(records, contacts.get());
+            assertEquals(records, appointments.get());
+
+            List<List<Task>> matches = sharded.readTasks(service -> service.findTasksWithAllKeywords("sharded")).join();
+            assertEquals(8, matches.size());
+            assertEquals(records, matches.stream().mapToInt(List::size).sum());
+            List<Integer> byPhone = sharded.readContacts(service -> service.getContactsByPhone("1234567890").size()).join();
+            assertEquals(records, byPhone.stream().mapToInt(Integer::intValue).sum());
+            List<Integer> next = sharded.readAppointments(service -> service.getNextAppointments(new Date(start), 3).size()).join();
+            assertEquals(List.of(3, 3, 3, 3, 3, 3, 3, 3), next);
+        }
+    }
+
+    @Test
+    @DisplayName("E21 - writers on many threads lose no add or update across shards")
+    void concurrentWriters() throws Exception {
+        int threads = 4;
+        int perThread = 500;
+        try (ShardedServices sharded = ShardedServices.of(4)) {
+            List<CompletableFuture<Void>> clients = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                clients.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        String id = "T" + thread + "-" + i;
+                        assertEquals(OperationResult.OK, sharded.addTask(new Task(id, "Task", "Initial")).join());
+                        assertEquals(OperationResult.OK, sharded.updateTask(id, null, "Updated").join());
+                    }
+                }));
+            }
+            CompletableFuture.allOf(clients.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+            assertEquals(threads * perThread, sharded.getTaskCount().join());
+            Set<Long> versions = new HashSet<>();
+            sharded.forEachTask(task -> {
+                synchronized (versions) {
+                    versions.add(task.getVersion());
+                }
+            }).join();
+            assertEquals(Set.of(1L), versions);
+        }
+    }
+
+    @Test
+    @DisplayName("E21 - bad arguments and calls after close are refused")
+    void misuse() {
+        assertThrows(IllegalArgumentException.class, () -> ShardedServices.of(0));
+        ShardedServices sharded = ShardedServices.of(2);
+        assertThrows(IllegalArgumentException.class, () -> sharded.forEachTask(null));
+        assertThrows(IllegalArgumentException.class, () -> sharded.forEachContact(null));
+        assertThrows(IllegalArgumentException.class, () -> sharded.forEachAppointment(null));
+        assertThrows(IllegalArgumentException.class, () -> sharded.readTasks(null));
+        sharded.addTask(new Task("T1", "Alpha", "Queued before close"));
+        sharded.close();
+
+        IllegalStateException closed = assertThrows(IllegalStateException.class, () -> sharded.getTask("T1"));
+        assertTrue(closed.getMessage().contains("closed"));
+        assertThrows(IllegalStateException.class, sharded::getTaskCount);
+    }
+
+    @Test
+    @DisplayName("E21 - writes racing close are either applied before it returns or refused")
+    void writesRacingClose() throws Exception {
+        ShardedServices sharded = ShardedServices.of(2);
+        Set<CompletableFuture<OperationResult>> accepted = ConcurrentHashMap.newKeySet();
+        AtomicInteger refused = new AtomicInteger();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 3; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; ; i++) {
+                    try {
+                        accepted.add(sharded.addTask(new Task("W" + writer + "-" + i, "Racing", "Close")));
+                    } catch (IllegalStateException e) {
+                        refused.incrementAndGet();
+                        return;
+                    }
+                }
+            });
+            writers.add(thread);
+            thread.start();
+        }
+        Thread.sleep(20);
+        sharded.close();
+        for (CompletableFuture<OperationResult> write : accepted) {
+            assertTrue(write.isDone(), "close returned before an accepted write was applied");
+            assertEquals(OperationResult.OK, write.join());
+        }
+        for (Thread thread : writers) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        assertEquals(3, refused.get());
+    }
+}
@@ -0,0 +1,145 @@
+// Unit tests for the snapshot file format, atomic replacement, and damage detection (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    private static void encode(String text, BinaryCodec.Writer out) {
+        out.writeString(text);
+    }
+
+    private static List<String> restoreAll(Path file, long expectedPosition) throws IOException {
+        List<String> seen = new ArrayList<>();
+        assertEquals(expectedPosition, SnapshotFile.restore(file, r -> seen.add(r.readString())));
+        return seen;
+    }
+
+    @Test
+    @DisplayName("Written entries and the log position restore in order")
+    void roundTrip() throws IOException {
+        Path file = dir.resolve("state.snap");
+        SnapshotFile.write(file, 1234L, List.of("one", "two", "three"), SnapshotFileTest::encode);
+
+        assertEquals(List.of("one", "two", "three"), restoreAll(file, 1234L));
+    }
+
+    @Test
+    @DisplayName("An empty snapshot restores nothing but keeps its position")
+    void emptySnapshot() throws IOException {
+        Path file = dir.resolve("state.snap");
+        SnapshotFile.write(file, 42L, List.<String>of(), SnapshotFileTest::encode);
+
+        assertEquals(List.of(), restoreAll(file, 42L));
+    }
+
+    @Test
+    @DisplayName("A missing snapshot restores nothing from position zero")
+    void missingSnapshot() throws IOException {
+        assertEquals(List.of(), restoreAll(dir.resolve("absent.snap"), 0L));
+    }
+
+    @Test
+    @DisplayName("A newer snapshot replaces the old one, keeping it as the previous generation, without leaving temp files")
+    void writeReplacesAtomically() throws Exception {
+        Path file = dir.resolve("state.snap");
+        assertEquals(0L, SnapshotFile.write(file, 1L, List.of("old"), SnapshotFileTest::encode));
+        long displaced = SnapshotFile.writeAsync(file, 2L, List.of("new"), SnapshotFileTest::encode)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals(1L, displaced);
+        assertEquals(List.of("new"), restoreAll(file, 2L));
+        assertEquals(List.of("old"), restoreAll(SnapshotFile.previous(file), 1L));
+        try (var listing = Files.list(dir)) {
+            assertEquals(List.of(file, SnapshotFile.previous(file)), listing.sorted().toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Flipped bytes, truncation, and a bad header are all reported as damage")
+    void damageDetected() throws IOException {
+        Path file = dir.resolve("state.snap");
+        SnapshotFile.write(file, 7L, List.of("alpha", "beta"), SnapshotFileTest::encode);
+        byte[] intact = Files.readAllBytes(file);
+
+        byte[] flipped = intact.clone();
+        flipped[flipped.length - 6] ^= 0x01;
+        Files.write(file, flipped);
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.restore(file, r -> r.readString()));
+
+        Files.write(file, intact);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.setLength(raw.length() - 7);
+        }
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.restore(file, r -> r.readString()));
+
+        byte[] header = intact.clone();
+        header[0] = 0;
+        Files.write(file, header);
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.restore(file, r -> r.readString()));
+
+        Files.write(file, new byte[3]);
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.restore(file, r -> r.readString()));
+    }
+
+    @Test
+    @DisplayName("restoreOrDiscard resets partial state and falls back to position zero")
+    void restoreOrDiscardResets() throws IOException {
+        Path file = dir.resolve("state.snap");
+        SnapshotFile.write(file, 99L, List.of("alpha", "beta"), SnapshotFileTest::encode);
+        List<String> seen = new ArrayList<>();
+
+        assertEquals(99L, SnapshotFile.restoreOrDiscard(file, r -> seen.add(r.readString()), seen::clear));
+        assertEquals(List.of("alpha", "beta"), seen);
+
+        seen.clear();
+        long position = SnapshotFile.restoreOrDiscard(file, r -> {
+            seen.add(r.readString());
+            throw new IllegalStateException("entry does not fit");
+        }, seen::clear);
+        assertEquals(0L, position);
+        assertTrue(seen.isEmpty());
+    }
+
+    @Test
+    @DisplayName("restoreOrDiscard falls back to the previous generation when the newest snapshot is damaged or gone")
+    void restoreOrDiscardUsesPrevious() throws IOException {
+        Path file = dir.resolve("state.snap");
+        SnapshotFile.write(file, 10L, List.of("older"), SnapshotFileTest::encode);
+        SnapshotFile.write(file, 20L, List.of("newer"), SnapshotFileTest::encode);
+        List<String> seen = new ArrayList<>();
+
+        Files.write(file, new byte[3]);
+        assertEquals(10L, SnapshotFile.restoreOrDiscard(file, r -> seen.add(r.readString()), seen::clear));
+        assertEquals(List.of("older"), seen);
+
+        // Left between the two moves of a write: only the previous generation exists.
+        seen.clear();
+        Files.delete(file);
+        assertEquals(10L, SnapshotFile.restoreOrDiscard(file, r -> seen.add(r.readString()), seen::clear));
+        assertEquals(List.of("older"), seen);
+
+        // A damaged previous generation is neither restored nor counted when it is displaced.
+        seen.clear();
+        Files.write(SnapshotFile.previous(file), new byte[3]);
+        assertEquals(0L, SnapshotFile.restoreOrDiscard(file, r -> seen.add(r.readString()), seen::clear));
+        assertTrue(seen.isEmpty());
+        SnapshotFile.write(file, 30L, List.of("newest"), SnapshotFileTest::encode);
+        Files.write(file, new byte[3]);
+        assertEquals(0L, SnapshotFile.write(file, 40L, List.of("latest"), SnapshotFileTest::encode));
+    }
+}
@@ -0,0 +1,116 @@
+// Unit tests for the inverted keyword index behind TaskService keyword search (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TaskKeywordIndexTest {
+
+    private static List<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getTaskId).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Tokenizer lower-cases runs of letters and digits and drops repeats")
+    void tokenizerSplitsWords() {
+        assertEquals(List.of("fix", "login", "bug", "v2"), TaskKeywordIndex.tokenize("Fix LOGIN-bug (v2), fix!"));
+        assertEquals(List.of(), TaskKeywordIndex.tokenize(" -- "));
+    }
+
+    @Test
+    @DisplayName("AND and OR queries match words from name or description")
+    void booleanQueries() {
+        TaskKeywordIndex index = new TaskKeywordIndex();
+        index.add(new Task("T1", "Fix login", "Users cannot sign in"));
+        index.add(new Task("T2", "Login page", "Restyle the page"));
+        index.add(new Task("T3", "Billing", "Fix invoice totals"));
+
+        assertEquals(List.of("T1", "T3"), ids(index.matchingAll(List.of("fix"))));
+        assertEquals(List.of("T1"), ids(index.matchingAll(List.of("fix", "login"))));
+        assertEquals(List.of(), ids(index.matchingAll(List.of("fix", "absent"))));
+        assertEquals(List.of("T1", "T2", "T3"), ids(index.matchingAny(List.of("login", "invoice"))));
+        assertEquals(List.of(), ids(index.matchingAny(List.of("absent"))));
+    }
+
+    @Test
+    @DisplayName("Re-adding a task replaces its words and moves it to the end")
+    void reAddReplacesWords() {
+        TaskKeywordIndex index = new TaskKeywordIndex();
+        Task task = new Task("T1", "Fix login", "Users cannot sign in");
+        index.add(task);
+        index.add(new Task("T2", "Login page", "Restyle"));
+
+        task.setName("Audit");
+        index.add(task);
+        index.remove("T9");
+
+        assertEquals(List.of("T2"), ids(index.matchingAny(List.of("login"))));
+        assertEquals(List.of("T1"), ids(index.matchingAll(List.of("audit", "users"))));
+        assertEquals(List.of("T2", "T1"), ids(index.matchingAny(List.of("restyle", "audit"))));
+        assertEquals(2, index.size());
+
+        index.remove("T2");
+        assertEquals(List.of(), ids(index.matchingAny(List.of("login", "restyle"))));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Large document numbers survive multi-byte delta encoding and rebuilds")
+    void churnMatchesModel() {
+        Random random = new Random(11L);
+        String[] words = {"alpha", "beta", "gamma", "delta", "omega"};
+        TaskKeywordIndex index = new TaskKeywordIndex();
+        List<Task> model = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int action = model.isEmpty() ? 0 : random.nextInt(3);
+            if (action == 0) {
+                Task task = new Task("T" + i, words[random.nextInt(words.length)], words[random.nextInt(words.length)]);
+                index.add(task);
+                model.add(task);
+            } else if (action == 1) {
+                index.remove(model.remove(random.nextInt(model.size())).getTaskId());
+            } else {
+                Task task = model.get(random.nextInt(model.size()));
+                task.setDescription(words[random.nextInt(words.length)]);
+                index.add(task);
+            }
+        }
+        assertEquals(model.size(), index.size());
+
+        for (String first : words) {
+            for (String second : words) {
+                Set<String> all = model.stream()
+                    .filter(t -> has(t, first) && has(t, second))
+                    .map(Task::getTaskId)
+                    .collect(Collectors.toSet());
+                Set<String> any = model.stream()
+                    .filter(t -> has(t, first) || has(t, second))
+                    .map(Task::getTaskId)
+                    .collect(Collectors.toSet());
+
+                List<String> actualAll = ids(index.matchingAll(List.of(first, second)));
+                List<String> actualAny = ids(index.matchingAny(List.of(first, second)));
+                assertEquals(all.size(), actualAll.size());
+                assertEquals(all, Set.copyOf(actualAll));
+                assertEquals(any.size(), actualAny.size());
+                assertEquals(any, Set.copyOf(actualAny));
+            }
+        }
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(List.of(), ids(index.matchingAny(List.of(words))));
+    }
+
+    private static boolean has(Task task, String word) {
+        return task.getName().equals(word) || task.getDescription().equals(word);
+    }
+}
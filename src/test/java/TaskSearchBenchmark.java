@@ -0,0 +1,81 @@
+// Latency harness for TaskService keyword search (not a unit test; Surefire does not pick
+// it up). Loads synthetic tasks, then reports per-query latency percentiles for AND and OR
+// keyword queries next to the full scan they replace.
+//
+// Run after `mvn -B test-compile`:
+//   java -cp target/classes:target/test-classes TaskSearchBenchmark [tasks] [queries]
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+public final class TaskSearchBenchmark {
+
+    // Word frequencies follow a rough power law: early entries are common, later ones rare.
+    private static final String[] WORDS = {
+        "fix", "add", "update", "review", "login", "page", "report", "invoice", "deploy", "test",
+        "api", "cache", "email", "export", "import", "search", "audit", "backup", "alert", "theme"
+    };
+
+    // Sink for results so the JIT cannot drop the queries.
+    private static long sink;
+
+    private TaskSearchBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Random random = new Random(7L);
+        TaskService service = new TaskService();
+        for (int i = 0; i < size; i++) {
+            service.addTask(new Task(Integer.toString(i, 36), word(random) + " " + word(random),
+                word(random) + " " + word(random) + " " + word(random) + " " + i));
+        }
+        System.out.printf("tasks=%,d queries=%,d%n", size, queries);
+
+        report("findTasksWithAllKeywords(2)", queries, i ->
+            sink += service.findTasksWithAllKeywords(word(random) + " " + word(random)).size());
+        report("findTasksWithAllKeywords(rare id)", queries, i ->
+            sink += service.findTasksWithAllKeywords(Integer.toString(random.nextInt(size)) + " " + word(random)).size());
+        report("findTasksWithAnyKeyword(2)", queries, i ->
+            sink += service.findTasksWithAnyKeyword(word(random) + " " + word(random)).size());
+
+        // The scan the index replaces, sampled less often because each query is O(n).
+        List<Task> all = service.findTasksWithAnyKeyword(String.join(" ", WORDS));
+        report("full scan, two words", Math.max(1, queries / 20), i -> {
+            String first = word(random);
+            String second = word(random);
+            for (Task task : all) {
+                String text = (task.getName() + " " + task.getDescription()).toLowerCase();
+                if (text.contains(first) && text.contains(second)) {
+                    sink++;
+                }
+            }
+        });
+        System.out.println("sink=" + sink);
+    }
+
+    private static String word(Random random) {
+        double skewed = Math.pow(random.nextDouble(), 2.5);
+        return WORDS[(int) (skewed * WORDS.length)];
+    }
+
+    private static void report(String label, int queries, IntConsumer query) {
+        for (int i = 0; i < Math.min(queries, 500); i++) {
+            query.accept(i);
+        }
+
+        long[] nanos = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            query.accept(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-36s p50=%9.1f us  p99=%9.1f us%n", label,
+            nanos[queries / 2] / 1e3, nanos[(int) (queries * 0.99)] / 1e3);
+    }
+}
@@ -2,9 +2,19 @@
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class TaskServiceTest {
 
@@ -12,6 +22,10 @@ public class TaskServiceTest {
 
     private TaskService service;
 
+    private static List<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getTaskId).toList();
+    }
+
     @BeforeEach
     void setUp() {
         service = new TaskService();
@@ -175,4 +189,462 @@ public class TaskServiceTest {
     void getTaskReturnsNullForUnknownId() {
         assertNull(service.getTask("UNKNOWN"));
     }
+
+    @Test
+    @DisplayName("E2 - tryAddTask reports OK, DUPLICATE_ID, and INVALID_INPUT")
+    void tryAddTaskReportsStatus() {
+        assertEquals(OperationResult.OK, service.tryAddTask(makeTask()));
+        assertEquals(OperationResult.DUPLICATE_ID, service.tryAddTask(makeTask()));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryAddTask(null));
+        assertEquals(1, service.getTaskCount());
+    }
+
+    @Test
+    @DisplayName("E2 - tryDeleteTask reports OK, NOT_FOUND, and INVALID_INPUT")
+    void tryDeleteTaskReportsStatus() {
+        service.addTask(makeTask());
+
+        assertEquals(OperationResult.OK, service.tryDeleteTask(TASK_ID));
+        assertEquals(OperationResult.NOT_FOUND, service.tryDeleteTask(TASK_ID));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryDeleteTask(null));
+    }
+
+    @Test
+    @DisplayName("E2 - tryUpdateTask applies valid updates and rejects invalid ones without partial apply")
+    void tryUpdateTaskReportsStatus() {
+        service.addTask(makeTask());
+
+        assertTrue(service.tryUpdateTask(TASK_ID, "Beta Task", null).isOk());
+        assertEquals(OperationResult.NOT_FOUND, service.tryUpdateTask("NOPE", "Beta Task", null));
+        assertEquals(OperationResult.INVALID_INPUT, service.tryUpdateTask(null, "Beta Task", null));
+        assertEquals(OperationResult.INVALID_INPUT,
+                service.tryUpdateTask(TASK_ID, "Gamma", "123456789012345678901234567890123456789012345678901"));
+
+        Task after = service.getTask(TASK_ID);
+        assertEquals("Beta Task", after.getName());
+        assertEquals("Initial task description", after.getDescription());
+    }
+
+    @Test
+    @DisplayName("E6 - durable mode rebuilds adds, updates, and deletes from the log")
+    void durableModeReplaysLog(@TempDir Path dir) throws IOException {
+        Path logFile = dir.resolve("tasks.log");
+        try (TaskService durable = TaskService.durable(logFile, FsyncPolicy.everyOperation())) {
+            durable.addTask(makeTask());
+            assertEquals(OperationResult.OK, durable.tryAddTask(new Task("T2", "Beta", "Second")));
+            durable.updateTask(TASK_ID, "Renamed", null);
+            assertEquals(OperationResult.OK, durable.tryUpdateTask("T2", null, "Changed"));
+            durable.deleteTask("T2");
+            assertEquals(OperationResult.DUPLICATE_ID, durable.tryAddTask(makeTask()));
+            assertEquals(OperationResult.NOT_FOUND, durable.tryDeleteTask("T2"));
+            assertEquals(OperationResult.NOT_FOUND, durable.tryUpdateTask("T2", "x", null));
+        }
+
+        try (TaskService reopened = TaskService.durable(logFile, FsyncPolicy.everyMillis(50))) {
+            assertEquals(1, reopened.getTaskCount());
+            assertEquals("Renamed", reopened.getTask(TASK_ID).getName());
+            assertEquals("Initial task description", reopened.getTask(TASK_ID).getDescription());
+            assertNull(reopened.getTask("T2"));
+        }
+    }
+
+    @Test
+    @DisplayName("E6 - a log that does not match replayed state is rejected")
+    void durableModeRejectsInconsistentLog(@TempDir Path dir) throws IOException {
+        Path logFile = dir.resolve("tasks.log");
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(new BinaryCodec.Writer().writeByte(9).writeString("T1"));
+        }
+
+        assertThrows(IllegalStateException.class, () -> TaskService.durable(logFile, FsyncPolicy.everyOperation()));
+    }
+
+    @Test
+    @DisplayName("E7 - a snapshot captures field values at the time it was taken")
+    void snapshotThenTailRestores(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("tasks.log");
+        Path snapFile = dir.resolve("tasks.snap");
+        try (TaskService durable = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addTask(makeTask());
+            durable.addTask(new Task("T2", "Beta", "Second"));
+            CompletableFuture<Void> written = durable.snapshot();
+            durable.updateTask(TASK_ID, "Renamed", null);
+            written.get(5, TimeUnit.SECONDS);
+            durable.deleteTask("T2");
+        }
+
+        List<String> snapshotNames = new ArrayList<>();
+        SnapshotFile.restore(snapFile, entry -> {
+            entry.readByte();
+            entry.readString();
+            snapshotNames.add(entry.readString());
+            entry.readString();
+        });
+        assertEquals(List.of("Alpha Task", "Beta"), snapshotNames.stream().sorted().toList());
+        assertThrows(IllegalStateException.class, () ->
+            TaskService.durable(dir.resolve("other.log"), snapFile, FsyncPolicy.everyOperation()));
+
+        try (TaskService reopened = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(1, reopened.getTaskCount());
+            assertEquals("Renamed", reopened.getTask(TASK_ID).getName());
+            assertNull(reopened.getTask("T2"));
+        }
+    }
+
+    @Test
+    @DisplayName("E7 - a damaged snapshot is ignored and snapshot() requires a snapshot file")
+    void damagedSnapshotFallsBackToLog(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("tasks.log");
+        Path snapFile = dir.resolve("tasks.snap");
+        assertThrows(IllegalStateException.class, () -> service.snapshot());
+        try (TaskService durable = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addTask(makeTask());
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.addTask(new Task("T2", "Beta", "Second"));
+        }
+        Files.write(snapFile, new byte[] {1, 2, 3});
+
+        try (TaskService reopened = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getTaskCount());
+        }
+    }
+
+    @Test
+    @DisplayName("E11 - metrics count every call by operation and outcome")
+    void metricsCountOutcomes(@TempDir Path dir) throws IOException {
+        try (TaskService durable = TaskService.durable(dir.resolve("tasks.log"), FsyncPolicy.everyOperation())) {
+            ServiceMetrics metrics = durable.enableMetrics();
+            durable.addTask(makeTask());
+            assertEquals(OperationResult.DUPLICATE_ID, durable.tryAddTask(makeTask()));
+            assertThrows(IllegalArgumentException.class, () -> durable.updateTask(TASK_ID, "A name well over twenty chars", null));
+            durable.updateTask(TASK_ID, "Beta Task", null);
+            assertNull(durable.getTask("T9"));
+            assertEquals(OperationResult.NOT_FOUND, durable.tryDeleteTask("T9"));
+            durable.deleteTask(TASK_ID);
+
+            ServiceMetrics.Snapshot snapshot = metrics.snapshot();
+            assertAll(
+                () -> assertEquals(2, snapshot.count(ServiceMetrics.Operation.ADD)),
+                () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.ADD, OperationResult.DUPLICATE_ID)),
+                () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.UPDATE, OperationResult.INVALID_INPUT)),
+                () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.UPDATE, OperationResult.OK)),
+                () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.GET, OperationResult.NOT_FOUND)),
+                () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.DELETE, OperationResult.NOT_FOUND)),
+                () -> assertEquals(1, snapshot.count(ServiceMetrics.Operation.DELETE, OperationResult.OK))
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("E13 - addTasks stores a whole batch or rejects it with every failure listed")
+    void addTasksAllOrNothing() {
+        service.addTask(makeTask());
+        service.addTasks(List.of(new Task("T2", "Fix login", "Users cannot sign in"), new Task("T3", "Billing", "Fix totals")));
+        assertEquals(List.of("T2", "T3"), ids(service.findTasksWithAnyKeyword("fix")));
+
+        List<Task> batch = new ArrayList<>();
+        batch.add(new Task("T4", "Audit", "Fix audit trail"));
+        batch.add(makeTask());
+        batch.add(null);
+        BatchRejectedException e = assertThrows(BatchRejectedException.class, () -> service.addTasks(batch));
+
+        assertEquals(List.of(1, 2), e.getFailures().stream().map(BatchFailure::getIndex).toList());
+        assertEquals("taskId already exists: T1", e.getFailures().get(0).getMessage());
+        assertEquals(3, service.getTaskCount());
+        assertEquals(List.of("T2", "T3"), ids(service.findTasksWithAnyKeyword("fix")));
+        assertThrows(IllegalArgumentException.class, () -> service.addTasks(null));
+    }
+
+    @Test
+    @DisplayName("E13 - durable batches replay from the log and restore from a snapshot")
+    void durableAddTasksReplays(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("tasks.log");
+        Path snapFile = dir.resolve("tasks.snap");
+        try (TaskService durable = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addTasks(List.of(new Task("T1", "Fix login", "Users cannot sign in"), new Task("T2", "Billing", "Totals")));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.addTasks(List.of(new Task("T3", "Audit", "Fix audit trail")));
+            BatchRejectedException e = assertThrows(BatchRejectedException.class, () -> durable.addTasks(
+                Arrays.asList(new Task("T4", "New", "Item"), new Task("T4", "New", "Item"), new Task("T1", "Old", "Item"))));
+            assertEquals(List.of(1, 2), e.getFailures().stream().map(BatchFailure::getIndex).toList());
+        }
+
+        try (TaskService reopened = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(3, reopened.getTaskCount());
+            assertEquals(List.of("T1", "T3"), ids(reopened.findTasksWithAnyKeyword("fix")));
+        }
+    }
+
+    @Test
+    @DisplayName("E10 - keyword search follows add, update, and delete")
+    void keywordSearchFollowsWrites() {
+        service.addTask(new Task("T1", "Fix login", "Users cannot sign in"));
+        service.addTask(new Task("T2", "Login page", "Restyle the page"));
+        service.addTask(new Task("T3", "Billing", "Fix invoice totals"));
+
+        assertEquals(List.of("T1"), ids(service.findTasksWithAllKeywords("fix LOGIN")));
+        assertEquals(List.of("T1", "T2", "T3"), ids(service.findTasksWithAnyKeyword("login, invoice")));
+
+        service.updateTask("T1", "Audit", null);
+        assertEquals(OperationResult.OK, service.tryUpdateTask("T3", null, "Login audit"));
+        assertEquals(List.of("T2", "T3"), ids(service.findTasksWithAnyKeyword("login")));
+        assertEquals(List.of("T1", "T3"), ids(service.findTasksWithAllKeywords("audit")));
+
+        service.deleteTask("T2");
+        assertEquals(OperationResult.OK, service.tryDeleteTask("T3"));
+        assertEquals(List.of(), ids(service.findTasksWithAnyKeyword("login page")));
+        assertEquals(List.of("T1"), ids(service.findTasksWithAnyKeyword("users")));
+    }
+
+    @Test
+    @DisplayName("E10 - keyword search rejects null and word-free queries")
+    void keywordSearchValidatesInput() {
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> service.findTasksWithAllKeywords(null)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.findTasksWithAnyKeyword(null)),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.findTasksWithAllKeywords(" ,;")),
+            () -> assertThrows(IllegalArgumentException.class, () -> service.findTasksWithAnyKeyword(""))
+        );
+    }
+
+    @Test
+    @DisplayName("E10 - durable mode rebuilds the keyword index from the snapshot and log")
+    void durableKeywordIndexRebuilt(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("tasks.log");
+        Path snapFile = dir.resolve("tasks.snap");
+        try (TaskService durable = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addTask(new Task("T1", "Fix login", "Users cannot sign in"));
+            durable.addTask(new Task("T2", "Login page", "Restyle the page"));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.updateTask("T1", "Audit", null);
+            durable.deleteTask("T2");
+            durable.addTask(new Task("T3", "Billing", "Fix invoice totals"));
+        }
+
+        try (TaskService reopened = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(List.of(), ids(reopened.findTasksWithAnyKeyword("login")));
+            assertEquals(List.of("T1", "T3"), ids(reopened.findTasksWithAnyKeyword("audit invoice")));
+        }
+    }
+
+    @Test
+    @DisplayName("S3 - updateTask validates every field before applying any")
+    void updateTaskIsAllOrNothing() {
+        service.addTask(makeTask());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.updateTask(TASK_ID, "Renamed", "123456789012345678901234567890123456789012345678901")
+        );
+        assertEquals("Alpha Task", service.getTask(TASK_ID).getName());
+        assertDoesNotThrow(() -> service.close());
+    }
+
+    @Test
+    @DisplayName("E15 - forEachTask visits every stored task without copying")
+    void forEachTaskVisitsAll() {
+        service.addTasks(List.of(new Task("T2", "Fix login", "Users cannot sign in"), new Task("T3", "Billing", "Fix totals")));
+        List<String> seen = new ArrayList<>();
+
+        service.forEachTask(task -> seen.add(task.getTaskId()));
+
+        seen.sort(null);
+        assertEquals(List.of("T2", "T3"), seen);
+        assertThrows(IllegalArgumentException.class, () -> service.forEachTask(null));
+    }
+
+    @Test
+    @DisplayName("E16 - versioned mode replaces updated tasks, so snapshots keep the old versions")
+    void versionedSnapshotIsolation() {
+        TaskService versioned = TaskService.versioned();
+        versioned.addTask(makeTask());
+        versioned.addTasks(List.of(new Task("T2", "Fix login", "Users cannot sign in")));
+        Task original = versioned.getTask(TASK_ID);
+        StoreSnapshot<Task> snapshot = versioned.readSnapshot();
+
+        versioned.updateTask(TASK_ID, "Fix billing", null);
+        versioned.deleteTask("T2");
+        versioned.addTask(new Task("T3", "Audit", "Fix audit trail"));
+
+        assertEquals(2, snapshot.size());
+        assertSame(original, snapshot.get(TASK_ID));
+        assertEquals("Alpha Task", original.getName());
+        assertEquals("Fix login", snapshot.get("T2").getName());
+        assertNull(snapshot.get("T3"));
+        assertEquals("Fix billing", versioned.getTask(TASK_ID).getName());
+        assertEquals(List.of(TASK_ID, "T3"), ids(versioned.findTasksWithAnyKeyword("fix")));
+        assertEquals(List.of(TASK_ID), ids(versioned.findTasksWithAllKeywords("fix billing")));
+        assertEquals(OperationResult.NOT_FOUND, versioned.tryUpdateTask("T2", "Name", null));
+        assertEquals(OperationResult.NOT_FOUND, versioned.tryDeleteTask("T2"));
+        assertEquals(OperationResult.DUPLICATE_ID, versioned.tryAddTask(makeTask()));
+        assertThrows(BatchRejectedException.class, () -> versioned.addTasks(List.of(makeTask())));
+        assertEquals(2, versioned.readSnapshot().size());
+        assertThrows(IllegalStateException.class, () -> service.readSnapshot());
+
+        // Stored versions are frozen, whether added singly, in a batch, or by an update.
+        assertThrows(IllegalStateException.class, () -> original.setName("Renamed"));
+        assertThrows(IllegalStateException.class, () -> snapshot.get("T2").setDescription("Changed"));
+        assertThrows(IllegalStateException.class, () -> versioned.getTask(TASK_ID).setName("Renamed"));
+        assertEquals("Alpha Task", snapshot.get(TASK_ID).getName());
+    }
+
+    @Test
+    @DisplayName("E17 - a conditional update applies only at the expected version and reports a conflict otherwise")
+    void optimisticUpdate() {
+        service.addTask(makeTask());
+        assertEquals(0, service.getTask(TASK_ID).getVersion());
+
+        assertTrue(service.updateTask(TASK_ID, 0, "Fix billing", null));
+        assertEquals(1, service.getTask(TASK_ID).getVersion());
+        assertFalse(service.updateTask(TASK_ID, 0, "Fix login", null));
+        assertEquals(OperationResult.VERSION_CONFLICT, service.tryUpdateTask(TASK_ID, 5, null, "Other"));
+        assertEquals("Fix billing", service.getTask(TASK_ID).getName());
+        assertEquals(List.of(), ids(service.findTasksWithAnyKeyword("login")));
+
+        service.updateTask(TASK_ID, null, "Changed");
+        assertEquals(2, service.getTask(TASK_ID).getVersion());
+        assertEquals(OperationResult.INVALID_INPUT, service.tryUpdateTask(TASK_ID, -1, "Name", null));
+        assertEquals(OperationResult.NOT_FOUND, service.tryUpdateTask("T9", 0, "Name", null));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> service.updateTask(TASK_ID, -1, "Name", null));
+        assertTrue(e.getMessage().contains("expectedVersion"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateTask(null, 2, "Name", null));
+        assertThrows(IllegalArgumentException.class, () -> service.updateTask("T9", 2, "Name", null));
+    }
+
+    @Test
+    @DisplayName("E17 - versioned and durable modes check versions, and versions survive a restart")
+    void optimisticUpdateOtherModes(@TempDir Path dir) throws Exception {
+        TaskService versioned = TaskService.versioned();
+        versioned.addTask(makeTask());
+        StoreSnapshot<Task> snapshot = versioned.readSnapshot();
+        assertTrue(versioned.updateTask(TASK_ID, 0, "Renamed", null));
+        assertEquals(OperationResult.VERSION_CONFLICT, versioned.tryUpdateTask(TASK_ID, 0, "Other", null));
+        assertEquals(1, versioned.getTask(TASK_ID).getVersion());
+        assertEquals(0, snapshot.get(TASK_ID).getVersion());
+
+        Path logFile = dir.resolve("tasks.log");
+        Path snapFile = dir.resolve("tasks.snap");
+        try (TaskService durable = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            durable.addTask(makeTask());
+            assertTrue(durable.updateTask(TASK_ID, 0, "Renamed", null));
+            assertFalse(durable.updateTask(TASK_ID, 0, "Other", null));
+            durable.snapshot().get(5, TimeUnit.SECONDS);
+            durable.updateTask(TASK_ID, null, "Changed");
+        }
+        try (TaskService reopened = TaskService.durable(logFile, snapFile, FsyncPolicy.everyOperation())) {
+            assertEquals(2, reopened.getTask(TASK_ID).getVersion());
+            assertEquals("Renamed", reopened.getTask(TASK_ID).getName());
+        }
+    }
+
+    @Test
+    @DisplayName("E20 - every storage engine runs the same add, update, search, bulk add, and delete lifecycle")
+    void storageEngines(@TempDir Path dir) throws IOException {
+        List<StorageEngine> engines = List.of(StorageEngine.hashMap(), StorageEngine.concurrentMap(),
+            StorageEngine.openAddressing(), StorageEngine.disk(dir), StorageEngine.disk(dir).withIdFilter(0.01));
+        for (StorageEngine engine : engines) {
+            try (TaskService store = TaskService.using(engine)) {
+                store.addTask(makeTask());
+                assertEquals(OperationResult.DUPLICATE_ID, store.tryAddTask(makeTask()), engine.toString());
+                store.addTasks(List.of(new Task("T2", "Beta", "Second task"), new Task("T3", "Gamma", "Third task")));
+
+                store.updateTask(TASK_ID, "Renamed", null);
+                assertFalse(store.updateTask(TASK_ID, 0, "Other", null));
+                assertTrue(store.updateTask(TASK_ID, 1, null, "Updated description"));
+                Task updated = store.getTask(TASK_ID);
+                assertEquals("Renamed", updated.getName(), engine.toString());
+                assertEquals("Updated description", updated.getDescription());
+                assertEquals(2, updated.getVersion());
+                assertEquals(List.of(TASK_ID), ids(store.findTasksWithAllKeywords("renamed updated")));
+                assertEquals(List.of("T2", "T3"), ids(store.findTasksWithAnyKeyword("second third")));
+
+                store.deleteTask("T2");
+                assertNull(store.getTask("T2"));
+                assertEquals(OperationResult.NOT_FOUND, store.tryDeleteTask("T2"));
+                List<String> visited = new ArrayList<>();
+                store.forEachTask(task -> visited.add(task.getTaskId()));
+                visited.sort(null);
+                assertEquals(List.of(TASK_ID, "T3"), visited);
+                assertEquals(2, store.getTaskCount());
+            }
+        }
+        assertFalse(Files.exists(dir.resolve("tasks.store")));
+        assertThrows(IllegalArgumentException.class, () -> TaskService.using(null));
+    }
+
+    @Test
+    @DisplayName("E20 - on the concurrent engine, racing writers lose no add or update")
+    void concurrentEngineWriters() throws Exception {
+        TaskService shared = TaskService.using(StorageEngine.concurrentMap());
+        shared.addTask(new Task("SHARED", "Counter", "Incremented by every thread"));
+        int threads = 4;
+        int perThread = 200;
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    shared.addTask(new Task("T" + thread + "-" + i, "Task", "Added concurrently"));
+                    shared.updateTask("SHARED", null, "Pass " + i);
+                }
+            }));
+        }
+        CompletableFuture.allOf(writers.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(threads * perThread + 1, shared.getTaskCount());
+        assertEquals(threads * perThread, shared.getTask("SHARED").getVersion());
+        assertEquals(threads * perThread, shared.findTasksWithAllKeywords("added concurrently").size());
+    }
+
+    @Test
+    @DisplayName("E22 - the bounded engine keeps the most recently used tasks in memory and faults the rest back in")
+    void boundedEngine(@TempDir Path dir) throws IOException {
+        try (TaskService store = TaskService.using(StorageEngine.bounded(dir, 10))) {
+            List<Task> batch = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                batch.add(new Task("T" + i, "Task " + i, "Spilled task"));
+            }
+            store.addTasks(batch);
+            assertEquals(10, store.cacheStats().getResident());
+            assertEquals(90, store.cacheStats().getSpilled());
+
+            assertTrue(store.updateTask("T0", 0, null, "Faulted in and updated"));
+            assertEquals(OperationResult.VERSION_CONFLICT, store.tryUpdateTask("T0", 0, "Stale", null));
+            for (int i = 1; i < 100; i++) {
+                store.getTask("T" + i);
+            }
+            Task reloaded = store.getTask("T0");
+            assertEquals("Faulted in and updated", reloaded.getDescription());
+            assertEquals(1, reloaded.getVersion());
+            assertTrue(store.cacheStats().getMisses() >= 100, store.cacheStats().toString());
+
+            store.deleteTask("T5");
+            assertNull(store.getTask("T5"));
+            assertEquals(99, store.getTaskCount());
+            assertThrows(IllegalStateException.class, () -> store.findTasksWithAnyKeyword("spilled"));
+            assertThrows(IllegalStateException.class, () -> store.findTasksWithAllKeywords("spilled"));
+        }
+        assertFalse(Files.exists(dir.resolve("tasks.spill")));
+        assertThrows(IllegalStateException.class, () -> new TaskService().cacheStats());
+    }
+
+    @Test
+    @DisplayName("E23 - an id filter over the bounded engine screens unknown ids and keeps cache statistics")
+    void idFilter(@TempDir Path dir) throws IOException {
+        try (TaskService store = TaskService.using(StorageEngine.bounded(dir, 10).withIdFilter(0.01))) {
+            for (int i = 0; i < 100; i++) {
+                store.addTask(new Task("T" + i, "Task", "Filtered task"));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertNull(store.getTask("MISSING" + i));
+            }
+            assertTrue(store.updateTask("T0", 0, "Renamed", null));
+            assertEquals("Renamed", store.getTask("T0").getName());
+
+            assertTrue(store.filterStats().getDefiniteMisses() >= 195, store.filterStats().toString());
+            assertEquals(10, store.cacheStats().getResident());
+            assertTrue(store.cacheStats().getMisses() >= 1);
+        }
+        assertThrows(IllegalStateException.class, () -> new TaskService().filterStats());
+    }
 }
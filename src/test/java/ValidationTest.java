@@ -0,0 +1,118 @@
+// Unit tests for the shared Validation checks (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ValidationTest {
+
+    @Test
+    @DisplayName("requireText accepts empty and max-length values")
+    void requireTextAcceptsBoundaries() {
+        assertDoesNotThrow(() -> Validation.requireText("", "name", 5));
+        assertDoesNotThrow(() -> Validation.requireText("12345", "name", 5));
+    }
+
+    @Test
+    @DisplayName("requireText rejects null and over-length values with field-specific messages")
+    void requireTextRejectsNullAndOverLength() {
+        IllegalArgumentException nullValue = assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireText(null, "name", 5)
+        );
+        IllegalArgumentException tooLong = assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireText("123456", "name", 5)
+        );
+
+        assertEquals("name must not be null", nullValue.getMessage());
+        assertEquals("name cannot exceed 5 characters", tooLong.getMessage());
+    }
+
+    @Test
+    @DisplayName("requireNonEmptyText rejects null, empty, and over-length values")
+    void requireNonEmptyTextRejectsInvalid() {
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireNonEmptyText("", "firstName", 10)
+        );
+        IllegalArgumentException tooLong = assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireNonEmptyText("ABCDEFGHIJK", "firstName", 10)
+        );
+
+        assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireNonEmptyText(null, "firstName", 10)
+        );
+        assertEquals("firstName must not be null or empty", empty.getMessage());
+        assertEquals("firstName must be 10 characters or fewer", tooLong.getMessage());
+        assertDoesNotThrow(() -> Validation.requireNonEmptyText("ABCDEFGHIJ", "firstName", 10));
+    }
+
+    @Test
+    @DisplayName("requireDigits enforces exact length and ASCII digits only")
+    void requireDigitsEnforcesExactAsciiDigits() {
+        assertDoesNotThrow(() -> Validation.requireDigits("0123456789", "phone", 10));
+
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigits(null, "phone", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigits("", "phone", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigits("123456789", "phone", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigits("12345678901", "phone", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigits("12345/7890", "phone", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigits("12345:7890", "phone", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigits("12345\u06637890", "phone", 10))
+        );
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireDigits("BADPHONE", "phone", 10)
+        );
+        assertEquals("phone must be exactly 10 digits", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("requireDigitPrefix accepts up to the limit of ASCII digits, including none")
+    void requireDigitPrefixEnforcesLimit() {
+        assertAll(
+            () -> assertDoesNotThrow(() -> Validation.requireDigitPrefix("", "phonePrefix", 10)),
+            () -> assertDoesNotThrow(() -> Validation.requireDigitPrefix("212", "phonePrefix", 10)),
+            () -> assertDoesNotThrow(() -> Validation.requireDigitPrefix("0123456789", "phonePrefix", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigitPrefix(null, "phonePrefix", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigitPrefix("01234567890", "phonePrefix", 10)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Validation.requireDigitPrefix("21a", "phonePrefix", 10))
+        );
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireDigitPrefix("(212)", "phonePrefix", 10)
+        );
+        assertEquals("phonePrefix must be at most 10 digits", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("requireNonNull rejects a null Date")
+    void requireNonNullRejectsNullDate() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+            Validation.requireNonNull(null, "appointmentDate")
+        );
+
+        assertEquals("appointmentDate must not be null", e.getMessage());
+        assertDoesNotThrow(() -> Validation.requireNonNull(new Date(), "appointmentDate"));
+    }
+
+    @Test
+    @DisplayName("Non-throwing predicates mirror the throwing checks")
+    void predicatesMirrorThrowingChecks() {
+        assertAll(
+            () -> assertTrue(Validation.isText("", 5)),
+            () -> assertFalse(Validation.isText(null, 5)),
+            () -> assertFalse(Validation.isText("123456", 5)),
+            () -> assertTrue(Validation.isNonEmptyText("A", 5)),
+            () -> assertFalse(Validation.isNonEmptyText("", 5)),
+            () -> assertFalse(Validation.isNonEmptyText(null, 5)),
+            () -> assertFalse(Validation.isNonEmptyText("123456", 5)),
+            () -> assertTrue(Validation.isDigits("0123456789", 10)),
+            () -> assertFalse(Validation.isDigits(null, 10)),
+            () -> assertFalse(Validation.isDigits("012345678", 10)),
+            () -> assertFalse(Validation.isDigits("012345678X", 10))
+        );
+    }
+}
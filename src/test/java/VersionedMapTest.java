@@ -0,0 +1,211 @@
+// Unit tests for the persistent versioned map and its snapshots (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class VersionedMapTest {
+
+    private static Map<String, Integer> contents(StoreSnapshot<Integer> snapshot, Map<String, Integer> source) {
+        Map<String, Integer> copy = new HashMap<>();
+        for (String key : source.keySet()) {
+            Integer value = snapshot.get(key);
+            if (value != null) {
+                copy.put(key, value);
+            }
+        }
+        return copy;
+    }
+
+    @Test
+    @DisplayName("Random puts and removes match a HashMap, and iteration sees every entry once")
+    void matchesHashMap() {
+        VersionedMap<Integer> map = new VersionedMap<>();
+        Map<String, Integer> model = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            String key = "K" + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(model.remove(key), map.remove(key));
+            } else {
+                assertEquals(model.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(model.size(), map.size());
+        assertEquals(model, new HashMap<>(map));
+        for (String key : model.keySet()) {
+            assertTrue(map.containsKey(key));
+        }
+        assertFalse(map.containsKey("missing"));
+        assertNull(map.get(7));
+        assertFalse(map.containsKey(7));
+    }
+
+    @Test
+    @DisplayName("Keys with equal hash codes share a collision bucket and stay distinct")
+    void collidingKeys() {
+        // "Aa" and "BB" have the same hashCode, so every combination of them collides.
+        List<String> keys = List.of("AaAa", "AaBB", "BBAa", "BBBB");
+        VersionedMap<Integer> map = new VersionedMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.get(i), i);
+        }
+        map.put("AaBB", 10);
+        StoreSnapshot<Integer> before = map.snapshot();
+
+        assertEquals(4, map.size());
+        assertEquals(10, map.get("AaBB"));
+        assertNull(map.get("BBBa"));
+        assertEquals(10, map.remove("AaBB"));
+        assertNull(map.remove("AaBB"));
+        assertNull(map.remove("CCCC"));
+        map.remove("AaAa");
+        map.remove("BBAa");
+        assertEquals(Map.of("BBBB", 3), new HashMap<>(map));
+        map.put("AaAa", 5);
+        assertEquals(Map.of("BBBB", 3, "AaAa", 5), new HashMap<>(map));
+
+        assertEquals(10, before.get("AaBB"));
+        assertEquals(4, before.size());
+    }
+
+    @Test
+    @DisplayName("A snapshot keeps its version while later writes publish new ones")
+    void snapshotIsolation() {
+        VersionedMap<Integer> map = new VersionedMap<>();
+        Map<String, Integer> model = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put("K" + i, i);
+            model.put("K" + i, i);
+        }
+        StoreSnapshot<Integer> snapshot = map.snapshot();
+        for (int i = 0; i < 1_000; i += 2) {
+            map.remove("K" + i);
+            map.put("K" + (i + 1), -i);
+        }
+        map.put("new", 1);
+
+        assertEquals(1_000, snapshot.size());
+        assertEquals(model, contents(snapshot, model));
+        List<Integer> iterated = new ArrayList<>();
+        snapshot.forEach(iterated::add);
+        assertEquals(1_000, iterated.size());
+        assertNull(snapshot.get("new"));
+        assertTrue(map.snapshot().getVersion() > snapshot.getVersion());
+        assertEquals(501, map.size());
+        assertThrows(IllegalArgumentException.class, () -> snapshot.get(null));
+    }
+
+    @Test
+    @DisplayName("putAll publishes one version; clear empties the map")
+    void putAllIsOneVersion() {
+        VersionedMap<Integer> map = new VersionedMap<>();
+        map.put("A", 1);
+        long version = map.snapshot().getVersion();
+
+        map.putAll(Map.of("A", 2, "B", 3, "C", 4));
+
+        assertEquals(version + 1, map.snapshot().getVersion());
+        assertEquals(3, map.size());
+        assertEquals(2, map.get("A"));
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get("B"));
+    }
+
+    @Test
+    @DisplayName("Conditional writes apply only when their condition holds, and computeIfPresent runs once")
+    void conditionalWrites() {
+        VersionedMap<Integer> map = new VersionedMap<>();
+        assertNull(map.putIfAbsent("A", 1));
+        assertEquals(1, map.putIfAbsent("A", 2));
+        assertFalse(map.remove("A", 2));
+        assertFalse(map.remove(5, 1));
+        assertNull(map.remove(5));
+        assertFalse(map.replace("A", 2, 3));
+        assertTrue(map.replace("A", 1, 3));
+        assertNull(map.replace("B", 1));
+        assertEquals(3, map.replace("A", 4));
+
+        AtomicInteger calls = new AtomicInteger();
+        long version = map.snapshot().getVersion();
+        assertEquals(4, map.computeIfPresent("A", (key, value) -> {
+            calls.incrementAndGet();
+            return value;
+        }));
+        assertEquals(version, map.snapshot().getVersion());
+        assertEquals(5, map.computeIfPresent("A", (key, value) -> value + 1));
+        assertNull(map.computeIfPresent("B", (key, value) -> 1));
+        assertNull(map.computeIfPresent("A", (key, value) -> null));
+        assertFalse(map.remove("Z", null));
+        assertTrue(map.isEmpty());
+        assertEquals(1, calls.get());
+        assertThrows(NullPointerException.class, () -> map.put("A", null));
+    }
+
+    @Test
+    @DisplayName("Iterators walk one version and signal exhaustion")
+    void iteratorsWalkOneVersion() {
+        VersionedMap<Integer> map = new VersionedMap<>();
+        map.put("A", 1);
+        map.put("B", 2);
+        Iterator<Map.Entry<String, Integer>> entries = map.entrySet().iterator();
+        map.put("C", 3);
+
+        int seen = 0;
+        while (entries.hasNext()) {
+            entries.next();
+            seen++;
+        }
+        assertEquals(2, seen);
+        assertThrows(NoSuchElementException.class, entries::next);
+        assertEquals(3, map.entrySet().size());
+        Map<String, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(Map.of("A", 1, "B", 2, "C", 3), visited);
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(9));
+    }
+
+    @Test
+    @DisplayName("Readers iterating snapshots during writes always see a whole version")
+    void readersDuringWrites() throws Exception {
+        VersionedMap<Integer> map = new VersionedMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put("K" + i, 0);
+        }
+        Thread writer = new Thread(() -> {
+            // Each round sets every key to the round number in one putAll.
+            for (int round = 1; round <= 200; round++) {
+                Map<String, Integer> batch = new HashMap<>();
+                for (int i = 0; i < 1_000; i++) {
+                    batch.put("K" + i, round);
+                }
+                map.putAll(batch);
+            }
+        });
+        writer.start();
+        try {
+            while (writer.isAlive()) {
+                StoreSnapshot<Integer> snapshot = map.snapshot();
+                int first = snapshot.get("K0");
+                for (int value : snapshot) {
+                    assertEquals(first, value);
+                }
+            }
+        } finally {
+            writer.join();
+        }
+        assertEquals(200, map.get("K999"));
+    }
+}
@@ -0,0 +1,81 @@
+// Throughput harness for durable mode (not a unit test; Surefire does not pick it up).
+// Reports ContactService.durable add throughput for each fsync policy at 1 and 8 writer
+// threads. Results depend heavily on the disk; run on the deployment's storage class.
+//
+// Run after `mvn -B test-compile`:
+//   java -cp target/classes:target/test-classes WriteAheadLogBenchmark [seconds-per-run]
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class WriteAheadLogBenchmark {
+
+    private static final int[] WRITER_THREADS = {1, 8};
+
+    private WriteAheadLogBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        FsyncPolicy[] policies = {
+            FsyncPolicy.everyOperation(),
+            FsyncPolicy.everyOperations(64),
+            FsyncPolicy.everyMillis(10)
+        };
+
+        Path dir = Files.createTempDirectory("wal-bench");
+        try {
+            for (FsyncPolicy policy : policies) {
+                for (int threads : WRITER_THREADS) {
+                    Path logFile = dir.resolve("contacts-" + System.nanoTime() + ".log");
+                    long ops = run(logFile, policy, threads, seconds);
+                    System.out.printf("%-22s threads=%-3d %,12.0f ops/s%n", policy, threads, ops / (double) seconds);
+                    Files.deleteIfExists(logFile);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static long run(Path logFile, FsyncPolicy policy, int threads, long seconds) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        try (ContactService service = ContactService.durable(logFile, policy)) {
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "W" + t + "-";
+                counts.add(pool.submit(() -> {
+                    long done = 0;
+                    while (!stop.get()) {
+                        service.addContact(new Contact(prefix + Long.toString(done, 36), "John", "Smith", "1234567890", "123 Main St"));
+                        done++;
+                    }
+                    return done;
+                }));
+            }
+
+            TimeUnit.SECONDS.sleep(seconds);
+            stop.set(true);
+
+            long total = 0;
+            for (Future<Long> count : counts) {
+                total += count.get();
+            }
+            return total;
+        } catch (IOException e) {
+            throw new IllegalStateException("benchmark log failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
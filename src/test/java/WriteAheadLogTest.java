@@ -0,0 +1,272 @@
+// Unit tests for the write-ahead log framing, recovery, and fsync policies (JUnit 5).
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static BinaryCodec.Writer payload(String text) {
+        return new BinaryCodec.Writer().writeString(text);
+    }
+
+    private static List<String> replayAll(Path file) throws IOException {
+        return replayFrom(file, 0);
+    }
+
+    private static List<String> replayFrom(Path file, long position) throws IOException {
+        List<String> seen = new ArrayList<>();
+        WriteAheadLog.open(file, FsyncPolicy.everyOperation(), position, r -> seen.add(r.readString())).close();
+        return seen;
+    }
+
+    @Test
+    @DisplayName("Appended records replay in order after reopen")
+    void appendedRecordsReplayInOrder() throws IOException {
+        Path file = dir.resolve("ops.log");
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> fail("empty log"))) {
+            log.awaitDurable(log.append(payload("one")));
+            log.awaitDurable(log.append(payload("two")));
+            assertEquals(2 * (8 + 4 + 3), log.position());
+        }
+
+        assertEquals(List.of("one", "two"), replayAll(file));
+    }
+
+    @Test
+    @DisplayName("A torn tail is truncated and later appends follow the last intact record")
+    void tornTailTruncated() throws IOException {
+        Path file = dir.resolve("ops.log");
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(payload("kept"));
+            log.append(payload("torn"));
+        }
+        long intact = 8 + 4 + 4;
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> { })) {
+            assertEquals(intact, Files.size(file));
+            log.append(payload("next"));
+        }
+        assertEquals(List.of("kept", "next"), replayAll(file));
+    }
+
+    @Test
+    @DisplayName("A record with a bad checksum ends replay")
+    void corruptRecordEndsReplay() throws IOException {
+        Path file = dir.resolve("ops.log");
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(payload("good"));
+            log.append(payload("evil"));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(raw.length() - 1);
+            raw.write('X');
+        }
+
+        assertEquals(List.of("good"), replayAll(file));
+    }
+
+    @Test
+    @DisplayName("A garbage length ends replay")
+    void garbageLengthEndsReplay() throws IOException {
+        Path file = dir.resolve("ops.log");
+        Files.write(file, new byte[] {0x7f, 0x7f, 0x7f, 0x7f, 0, 0, 0, 0});
+
+        assertEquals(List.of(), replayAll(file));
+        assertEquals(0, Files.size(file));
+    }
+
+    @Test
+    @DisplayName("Every policy accepts appends; interval and batch policies sync on close")
+    void allPoliciesPersist() throws IOException {
+        FsyncPolicy[] policies = {
+            FsyncPolicy.everyOperation(), FsyncPolicy.everyOperations(2), FsyncPolicy.everyMillis(5)
+        };
+        for (FsyncPolicy policy : policies) {
+            Path file = dir.resolve("ops-" + policy.toString().replace(' ', '-') + ".log");
+            try (WriteAheadLog log = WriteAheadLog.open(file, policy, r -> { })) {
+                assertSame(policy, log.policy());
+                for (int i = 0; i < 5; i++) {
+                    log.awaitDurable(log.append(payload("r" + i)));
+                }
+                log.sync();
+            }
+            assertEquals(List.of("r0", "r1", "r2", "r3", "r4"), replayAll(file), policy.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent writers all persist under group commit")
+    void concurrentWritersPersist() throws Exception {
+        Path file = dir.resolve("ops.log");
+        int threads = 4;
+        int perThread = 50;
+
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> { })) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> done = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    done.add(pool.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            log.awaitDurable(log.append(payload(thread + ":" + i)));
+                        }
+                    }));
+                }
+                for (Future<?> f : done) {
+                    f.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        assertEquals(threads * perThread, replayAll(file).size());
+    }
+
+    @Test
+    @DisplayName("Appends after close are rejected and close is idempotent")
+    void appendAfterCloseRejected() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(dir.resolve("ops.log"), FsyncPolicy.everyOperation(), r -> { });
+        log.close();
+        log.close();
+
+        assertThrows(IllegalStateException.class, () -> log.append(payload("late")));
+    }
+
+    @Test
+    @DisplayName("Oversize records are refused before anything is written")
+    void oversizeRecordRejected() throws IOException {
+        Path file = dir.resolve("ops.log");
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(payload("before"));
+            BinaryCodec.Writer huge = new BinaryCodec.Writer();
+            huge.writeString("x".repeat(WriteAheadLog.MAX_RECORD_BYTES));
+            assertThrows(IllegalArgumentException.class, () -> log.append(huge));
+            log.awaitDurable(log.append(payload("after")));
+        }
+
+        assertEquals(List.of("before", "after"), replayAll(file));
+    }
+
+    @Test
+    @DisplayName("Policies reject non-positive settings and null arguments are rejected")
+    void invalidArgumentsRejected() {
+        assertAll(
+            () -> assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.everyOperations(0)),
+            () -> assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.everyMillis(0)),
+            () -> assertThrows(IllegalArgumentException.class, () ->
+                WriteAheadLog.open(null, FsyncPolicy.everyOperation(), r -> { })),
+            () -> assertEquals("every operation", FsyncPolicy.everyOperation().toString())
+        );
+    }
+
+    @Test
+    @DisplayName("Replay can start at a recorded position and rejects positions past the end")
+    void replayFromPosition() throws IOException {
+        Path file = dir.resolve("ops.log");
+        long checkpoint;
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(payload("before"));
+            checkpoint = log.position();
+            log.append(payload("after"));
+        }
+
+        List<String> tail = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), checkpoint,
+                r -> tail.add(r.readString()))) {
+            assertEquals(List.of("after"), tail);
+            assertEquals(Files.size(file), log.position());
+        }
+        assertThrows(IllegalStateException.class, () ->
+            WriteAheadLog.open(file, FsyncPolicy.everyOperation(), Files.size(file) + 1, r -> { }));
+        assertThrows(IllegalStateException.class, () ->
+            WriteAheadLog.open(file, FsyncPolicy.everyOperation(), -1, r -> { }));
+    }
+
+    @Test
+    @DisplayName("Records appended while a truncation copies the log are kept, in order")
+    void appendsDuringTruncationKept() throws Exception {
+        Path file = dir.resolve("ops.log");
+        List<String> expected = new ArrayList<>();
+        long checkpoint = 0;
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperations(1_000), r -> { })) {
+            for (int i = 0; i < 20_000; i++) {
+                if (i == 10_000) {
+                    checkpoint = log.position();
+                }
+                log.append(payload("record " + i));
+                if (i >= 10_000) {
+                    expected.add("record " + i);
+                }
+            }
+            long cut = checkpoint;
+            Thread truncation = new Thread(() -> log.truncateBefore(cut));
+            truncation.start();
+            for (int i = 20_000; i < 21_000; i++) {
+                log.append(payload("record " + i));
+                expected.add("record " + i);
+            }
+            truncation.join(TimeUnit.SECONDS.toMillis(30));
+            log.append(payload("after"));
+            expected.add("after");
+        }
+
+        assertEquals(expected, replayFrom(file, checkpoint));
+        assertThrows(IllegalStateException.class, () -> replayFrom(file, 0));
+    }
+
+    @Test
+    @DisplayName("Truncating keeps positions stable, replays later records, and refuses replay from before the cut")
+    void truncateBeforeDropsEarlierRecords() throws IOException {
+        Path file = dir.resolve("ops.log");
+        long checkpoint;
+        long end;
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), r -> { })) {
+            log.append(payload("first"));
+            log.append(payload("second"));
+            checkpoint = log.position();
+            log.append(payload("third"));
+            log.truncateBefore(checkpoint);
+            log.truncateBefore(checkpoint - 1);
+            assertThrows(IllegalArgumentException.class, () -> log.truncateBefore(log.position() + 1));
+            log.awaitDurable(log.append(payload("fourth")));
+            end = log.position();
+        }
+
+        List<String> tail = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.everyOperation(), checkpoint,
+                r -> tail.add(r.readString()))) {
+            assertEquals(List.of("third", "fourth"), tail);
+            assertEquals(end, log.position());
+            log.truncateBefore(end);
+            log.truncateBefore(end);
+        }
+        assertEquals(List.of(), replayFrom(file, end));
+        assertThrows(IllegalStateException.class, () -> replayFrom(file, checkpoint));
+        assertThrows(IllegalStateException.class, () -> replayFrom(file, end + 1));
+        try (var listing = Files.list(dir)) {
+            assertEquals(List.of(file), listing.toList());
+        }
+    }
+}